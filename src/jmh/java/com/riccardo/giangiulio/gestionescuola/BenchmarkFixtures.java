@@ -0,0 +1,150 @@
+package com.riccardo.giangiulio.gestionescuola;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.util.ReflectionUtils;
+
+import com.riccardo.giangiulio.gestionescuola.model.Attendance;
+import com.riccardo.giangiulio.gestionescuola.model.Classroom;
+import com.riccardo.giangiulio.gestionescuola.model.Course;
+import com.riccardo.giangiulio.gestionescuola.model.ERole;
+import com.riccardo.giangiulio.gestionescuola.model.Exam;
+import com.riccardo.giangiulio.gestionescuola.model.ExamResult;
+import com.riccardo.giangiulio.gestionescuola.model.Lesson;
+import com.riccardo.giangiulio.gestionescuola.model.Registration;
+import com.riccardo.giangiulio.gestionescuola.model.Role;
+import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
+import com.riccardo.giangiulio.gestionescuola.model.Subject;
+import com.riccardo.giangiulio.gestionescuola.model.User;
+
+/**
+ * Dataset in memoria condiviso dai benchmark JMH.
+ * Gli ID delle entità vengono assegnati via reflection, come farebbe Hibernate dopo il salvataggio.
+ */
+public class BenchmarkFixtures {
+
+    private static final LocalDateTime BASE_DATE_TIME = LocalDateTime.of(2030, 9, 1, 8, 0);
+
+    public final Role adminRole = withId(new Role(ERole.ROLE_ADMIN), 1L);
+    public final Role teacherRole = withId(new Role(ERole.ROLE_TEACHER), 2L);
+    public final Role studentRole = withId(new Role(ERole.ROLE_STUDENT), 3L);
+
+    public final List<User> teachers = new ArrayList<>();
+    public final List<User> students = new ArrayList<>();
+    public final List<Classroom> classrooms = new ArrayList<>();
+    public final List<Subject> subjects = new ArrayList<>();
+    public final List<Course> courses = new ArrayList<>();
+    public final List<SchoolClass> schoolClasses = new ArrayList<>();
+    public final List<Registration> registrations = new ArrayList<>();
+    public final List<Lesson> lessons = new ArrayList<>();
+    public final List<Exam> exams = new ArrayList<>();
+    public final List<ExamResult> examResults = new ArrayList<>();
+    public final List<Attendance> attendances = new ArrayList<>();
+
+    /**
+     * Genera un dataset con {@code size} studenti e lezioni, mantenendo proporzioni realistiche
+     * tra classi, corsi, esami e presenze.
+     */
+    public BenchmarkFixtures(int size) {
+        long id = 100;
+
+        int teacherCount = Math.max(2, size / 50);
+        for (int i = 0; i < teacherCount; i++) {
+            teachers.add(withId(new User("Teacher" + i, "Surname" + i, "teacher" + i + "@scuola.it",
+                    "teacher" + i, "{bcrypt}hash", LocalDate.of(1975, 1, 1).plusDays(i), teacherRole), id++));
+        }
+
+        for (int i = 0; i < size; i++) {
+            students.add(withId(new User("Student" + i, "Surname" + i, "student" + i + "@scuola.it",
+                    "student" + i, "{bcrypt}hash", LocalDate.of(2000, 1, 1).plusDays(i % 3650), studentRole), id++));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            classrooms.add(withId(new Classroom("Aula " + i, 30 + i), id++));
+        }
+
+        for (int i = 0; i < 8; i++) {
+            subjects.add(withId(new Subject("Materia " + i, "Descrizione materia " + i, teachers.get(i % teacherCount)), id++));
+        }
+
+        int courseCount = Math.max(1, size / 100);
+        for (int i = 0; i < courseCount; i++) {
+            Course course = withId(new Course("Corso " + i, "Descrizione del corso " + i, (6 + i % 6) + " mesi",
+                    new BigDecimal("500.00").add(BigDecimal.valueOf(i))), id++);
+            course.getSubjects().add(subjects.get(i % subjects.size()));
+            course.getSubjects().add(subjects.get((i + 1) % subjects.size()));
+            courses.add(course);
+        }
+
+        int classCount = Math.max(1, size / 25);
+        for (int i = 0; i < classCount; i++) {
+            Set<User> classTeachers = new HashSet<>();
+            classTeachers.add(teachers.get(i % teacherCount));
+            classTeachers.add(teachers.get((i + 1) % teacherCount));
+            schoolClasses.add(withId(new SchoolClass("Classe " + i, courses.get(i % courseCount), 30,
+                    classTeachers, new HashSet<>()), id++));
+        }
+
+        for (int i = 0; i < size; i++) {
+            SchoolClass schoolClass = schoolClasses.get(i % classCount);
+            Registration registration = withId(new Registration(students.get(i), schoolClass.getCourse(), schoolClass), id++);
+            schoolClass.getRegistrations().add(registration);
+            registrations.add(registration);
+        }
+
+        for (int i = 0; i < size; i++) {
+            LocalDateTime start = BASE_DATE_TIME.plusHours(i);
+            lessons.add(withId(new Lesson("Lezione " + i, "Argomento della lezione " + i, start, start.plusHours(1),
+                    schoolClasses.get(i % classCount), teachers.get(i % teacherCount),
+                    classrooms.get(i % classrooms.size()), subjects.get(i % subjects.size())), id++));
+        }
+
+        int examCount = Math.max(1, size / 10);
+        for (int i = 0; i < examCount; i++) {
+            Exam exam = withId(new Exam("Esame " + i, "Descrizione esame " + i, BASE_DATE_TIME.plusDays(i), 90,
+                    classrooms.get(i % classrooms.size()), subjects.get(i % subjects.size()), 30.0, 18.0,
+                    schoolClasses.get(i % classCount), teachers.get(i % teacherCount)), id++);
+            Course course = courses.get(i % courseCount);
+            course.getExams().add(exam);
+            exam.getCourses().add(course);
+            exams.add(exam);
+        }
+
+        for (int i = 0; i < size; i++) {
+            examResults.add(withId(new ExamResult(15.0 + (i % 16), "Note " + i, BASE_DATE_TIME.minusDays(i % 365),
+                    exams.get(i % examCount), students.get(i)), id++));
+
+            Lesson lesson = lessons.get(i);
+            Attendance attendance = withId(new Attendance(true, lesson.getStartDateTime(), lesson.getEndDateTime(),
+                    students.get(i), lesson), id++);
+            attendance.setPresent(i % 7 != 0);
+            attendances.add(attendance);
+        }
+    }
+
+    /**
+     * Imposta l'ID di un'entità JPA che non espone un setter.
+     */
+    public static <T> T withId(T entity, Long id) {
+        Field field = ReflectionUtils.findField(entity.getClass(), "id");
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, entity, id);
+        return entity;
+    }
+
+    /**
+     * Imposta un campo privato, ad esempio una proprietà iniettata con {@code @Value}.
+     */
+    public static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
@@ -0,0 +1,110 @@
+package com.riccardo.giangiulio.gestionescuola.dto.mapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.riccardo.giangiulio.gestionescuola.BenchmarkFixtures;
+import com.riccardo.giangiulio.gestionescuola.dto.model.AttendanceDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.ExamDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.LessonDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.RegistrationDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.SchoolClassDTO;
+
+/**
+ * Misura la conversione entità → DTO su liste grandi e la serializzazione JSON
+ * dei grafi {@link LessonDTO} e {@link SchoolClassDTO} restituiti dai controller.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"1000", "10000"})
+    private int size;
+
+    private BenchmarkFixtures fixtures;
+    private ObjectMapper objectMapper;
+    private List<LessonDTO> lessonDTOs;
+    private List<SchoolClassDTO> schoolClassDTOs;
+
+    @Setup
+    public void setUp() {
+        fixtures = new BenchmarkFixtures(size);
+        // Stessa configurazione dell'ObjectMapper di Spring Boot (moduli java.time registrati)
+        objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        lessonDTOs = mapLessons();
+        schoolClassDTOs = mapSchoolClasses();
+    }
+
+    @Benchmark
+    public List<LessonDTO> mapLessons() {
+        return fixtures.lessons.stream()
+                .map(LessonMapperDTO::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<SchoolClassDTO> mapSchoolClasses() {
+        return fixtures.schoolClasses.stream()
+                .map(SchoolClassMapperDTO::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<AttendanceDTO> mapAttendances() {
+        return fixtures.attendances.stream()
+                .map(AttendanceMapperDTO::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ExamDTO> mapExams() {
+        return fixtures.exams.stream()
+                .map(ExamMapperDTO::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<RegistrationDTO> mapRegistrations() {
+        return fixtures.registrations.stream()
+                .map(RegistrationMapperDTO::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public byte[] serializeLessons() throws Exception {
+        return objectMapper.writeValueAsBytes(lessonDTOs);
+    }
+
+    @Benchmark
+    public byte[] serializeSchoolClasses() throws Exception {
+        return objectMapper.writeValueAsBytes(schoolClassDTOs);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerializeLessons() throws Exception {
+        return objectMapper.writeValueAsBytes(mapLessons());
+    }
+}
@@ -0,0 +1,132 @@
+package com.riccardo.giangiulio.gestionescuola.dto.mapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.MapperBuilder;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.riccardo.giangiulio.gestionescuola.BenchmarkFixtures;
+import com.riccardo.giangiulio.gestionescuola.dto.model.AttendanceDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.LessonDTO;
+
+/**
+ * Confronta JSON, JSON compresso con gzip, CBOR e Smile sulle liste di {@link LessonDTO} e {@link AttendanceDTO}
+ * restituite dai controller: tempo di serializzazione e deserializzazione, e dimensione del corpo codificato
+ * (stampata in fase di setup, una riga per formato e dimensione).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationFormatBenchmark {
+
+    public enum Format {
+        JSON, JSON_GZIP, CBOR, SMILE
+    }
+
+    private static final TypeReference<List<LessonDTO>> LESSONS = new TypeReference<>() {};
+    private static final TypeReference<List<AttendanceDTO>> ATTENDANCES = new TypeReference<>() {};
+
+    @Param({"100", "1000"})
+    private int size;
+
+    @Param({"JSON", "JSON_GZIP", "CBOR", "SMILE"})
+    private Format format;
+
+    private ObjectMapper objectMapper;
+    private List<LessonDTO> lessonDTOs;
+    private List<AttendanceDTO> attendanceDTOs;
+    private byte[] encodedLessons;
+    private byte[] encodedAttendances;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkFixtures fixtures = new BenchmarkFixtures(size);
+        objectMapper = switch (format) {
+            case JSON, JSON_GZIP -> configure(JsonMapper.builder());
+            case CBOR -> configure(CBORMapper.builder());
+            case SMILE -> configure(SmileMapper.builder());
+        };
+        lessonDTOs = fixtures.lessons.stream().map(LessonMapperDTO::toDTO).toList();
+        attendanceDTOs = fixtures.attendances.stream().map(AttendanceMapperDTO::toDTO).toList();
+        encodedLessons = serializeLessons();
+        encodedAttendances = serializeAttendances();
+        System.out.printf("%n[%s, size=%d] lessons: %d byte, attendances: %d byte%n",
+                format, size, encodedLessons.length, encodedAttendances.length);
+    }
+
+    @Benchmark
+    public byte[] serializeLessons() throws IOException {
+        return encode(lessonDTOs);
+    }
+
+    @Benchmark
+    public byte[] serializeAttendances() throws IOException {
+        return encode(attendanceDTOs);
+    }
+
+    @Benchmark
+    public List<LessonDTO> deserializeLessons() throws IOException {
+        try (InputStream in = decoding(encodedLessons)) {
+            return objectMapper.readValue(in, LESSONS);
+        }
+    }
+
+    @Benchmark
+    public List<AttendanceDTO> deserializeAttendances() throws IOException {
+        try (InputStream in = decoding(encodedAttendances)) {
+            return objectMapper.readValue(in, ATTENDANCES);
+        }
+    }
+
+    /**
+     * Stessa configurazione dell'ObjectMapper di Spring Boot, condivisa dai convertitori binari.
+     */
+    private static ObjectMapper configure(MapperBuilder<?, ?> builder) {
+        return builder
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+    }
+
+    private byte[] encode(Object value) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (OutputStream out = format == Format.JSON_GZIP ? new GZIPOutputStream(buffer) : buffer) {
+            objectMapper.writeValue(out, value);
+        }
+        return buffer.toByteArray();
+    }
+
+    private InputStream decoding(byte[] encoded) throws IOException {
+        InputStream in = new ByteArrayInputStream(encoded);
+        return format == Format.JSON_GZIP ? new GZIPInputStream(in) : in;
+    }
+}
@@ -0,0 +1,314 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.riccardo.giangiulio.gestionescuola.BenchmarkFixtures;
+import com.riccardo.giangiulio.gestionescuola.model.Course;
+import com.riccardo.giangiulio.gestionescuola.model.ERole;
+import com.riccardo.giangiulio.gestionescuola.model.Exam;
+import com.riccardo.giangiulio.gestionescuola.model.Registration;
+import com.riccardo.giangiulio.gestionescuola.model.RegistrationStatus;
+import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
+import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.CourseExamRow;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.RegistrationExportRow;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.UserExportRow;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Misura la generazione dei file CSV, Excel e PDF a partire da dati già caricati,
+ * isolando il costo di rendering da quello di accesso al database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Djava.awt.headless=true"})
+public class ExportBenchmark {
+
+    @Param({"1000", "10000"})
+    private int size;
+
+    private BenchmarkFixtures fixtures;
+    private ExportCSVService exportCSVService;
+    private ExportExcelService exportExcelService;
+    private ExportPDFService exportPDFService;
+    private Long studentId;
+    private Long classId;
+
+    @Setup
+    public void setUp() throws IOException {
+        fixtures = new BenchmarkFixtures(size);
+
+        UserService userService = mock(UserService.class);
+        RegistrationService registrationService = mock(RegistrationService.class);
+        CourseService courseService = mock(CourseService.class);
+        ExamResultService examResultService = mock(ExamResultService.class);
+        AttendanceService attendanceService = mock(AttendanceService.class);
+        SchoolClassService schoolClassService = mock(SchoolClassService.class);
+
+        // Un nuovo stream per ogni invocazione, come il cursore restituito dal repository
+        List<UserExportRow> studentRows = fixtures.students.stream().<UserExportRow>map(UserRow::new).toList();
+        List<UserExportRow> teacherRows = fixtures.teachers.stream().<UserExportRow>map(UserRow::new).toList();
+        List<RegistrationExportRow> registrationRows =
+                fixtures.registrations.stream().<RegistrationExportRow>map(RegistrationRow::new).toList();
+        when(userService.streamExportRowsByRole(ERole.ROLE_STUDENT)).thenAnswer(invocation -> studentRows.stream());
+        when(userService.streamExportRowsByRole(ERole.ROLE_TEACHER)).thenAnswer(invocation -> teacherRows.stream());
+        when(registrationService.streamExportRows()).thenAnswer(invocation -> registrationRows.stream());
+        List<CourseExamRow> courseExamRows = toCourseExamRows(fixtures.courses);
+        when(courseService.streamCoursesWithExams()).thenAnswer(invocation -> courseExamRows.stream());
+
+        // Profilo PDF di uno studente con uno storico proporzionato alla dimensione del dataset
+        User student = fixtures.students.get(0);
+        studentId = student.getId();
+        int history = Math.min(size, 200);
+        when(userService.findById(studentId)).thenReturn(student);
+        when(registrationService.findByStudent(any())).thenReturn(fixtures.registrations.subList(0, Math.min(size, 5)));
+        when(examResultService.findByStudent(any())).thenReturn(fixtures.examResults.subList(0, history));
+        when(attendanceService.findByStudent(any())).thenReturn(fixtures.attendances.subList(0, history));
+        when(examResultService.findAverageScoreByStudent(any())).thenReturn(24.5);
+        when(examResultService.countPassedByStudent(any())).thenReturn(12L);
+        when(attendanceService.countPresentByStudent(any())).thenReturn(180L);
+        when(attendanceService.countAbsentByStudent(any())).thenReturn(20L);
+
+        // ZIP dei profili di una classe: dati caricati per blocco di studenti
+        SchoolClass schoolClass = fixtures.schoolClasses.get(0);
+        classId = schoolClass.getId();
+        when(schoolClassService.findById(classId)).thenReturn(schoolClass);
+        when(userService.findStudentsBySchoolClass(schoolClass)).thenReturn(fixtures.students.subList(0, Math.min(size, 30)));
+        when(registrationService.findByStudentIds(any())).thenReturn(fixtures.registrations.subList(0, Math.min(size, 30)));
+        when(examResultService.findByStudentIds(any())).thenReturn(fixtures.examResults.subList(0, history));
+        when(attendanceService.findByStudentIds(any())).thenReturn(fixtures.attendances.subList(0, history));
+
+        ExportMetrics exportMetrics = new ExportMetrics(new SimpleMeterRegistry());
+        exportCSVService = new ExportCSVService(userService, registrationService, exportMetrics);
+        exportExcelService = new ExportExcelService(courseService, exportMetrics);
+        exportPDFService = new ExportPDFService(userService, registrationService, examResultService, attendanceService,
+                schoolClassService, new PdfRenderResources(), exportMetrics);
+        BenchmarkFixtures.setField(exportPDFService, "entityManager", mock(EntityManager.class));
+    }
+
+    @Benchmark
+    public int studentsCsv() throws IOException {
+        StringWriter writer = new StringWriter();
+        exportCSVService.exportStudentsToCSV(writer);
+        return writer.getBuffer().length();
+    }
+
+    @Benchmark
+    public int registrationsCsv() throws IOException {
+        StringWriter writer = new StringWriter();
+        exportCSVService.exportRegistrationsToCSV(writer);
+        return writer.getBuffer().length();
+    }
+
+    @Benchmark
+    public int coursesAndExamsExcel() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportExcelService.writeCoursesAndExamsExcel(out);
+        return out.size();
+    }
+
+    @Benchmark
+    public byte[] studentProfilePdf() throws IOException {
+        return exportPDFService.generateStudentProfilePDF(studentId);
+    }
+
+    @Benchmark
+    public int classProfilesZip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportPDFService.writeClassProfilesZip(classId, out);
+        return out.size();
+    }
+
+    @TearDown
+    public void tearDown() {
+        exportPDFService.shutdown();
+    }
+
+    /**
+     * Righe della join corso-esami nell'ordine prodotto dalla query del repository.
+     */
+    private static List<CourseExamRow> toCourseExamRows(List<Course> courses) {
+        List<CourseExamRow> rows = new ArrayList<>();
+        for (Course course : courses) {
+            List<Exam> exams = new ArrayList<>(course.getExams());
+            exams.sort(Comparator.comparing(Exam::getDate).thenComparing(Exam::getId));
+            if (exams.isEmpty()) {
+                rows.add(new Row(course, null));
+            }
+            for (Exam exam : exams) {
+                rows.add(new Row(course, exam));
+            }
+        }
+        return rows;
+    }
+
+    private record UserRow(User user) implements UserExportRow {
+
+        @Override
+        public Long getId() {
+            return user.getId();
+        }
+
+        @Override
+        public String getFirstName() {
+            return user.getFirstName();
+        }
+
+        @Override
+        public String getLastName() {
+            return user.getLastName();
+        }
+
+        @Override
+        public String getEmail() {
+            return user.getEmail();
+        }
+
+        @Override
+        public String getUsername() {
+            return user.getUsername();
+        }
+
+        @Override
+        public LocalDate getBirthDate() {
+            return user.getBirthDate();
+        }
+    }
+
+    private record RegistrationRow(Registration registration) implements RegistrationExportRow {
+
+        @Override
+        public Long getId() {
+            return registration.getId();
+        }
+
+        @Override
+        public String getStudentFirstName() {
+            return registration.getStudent().getFirstName();
+        }
+
+        @Override
+        public String getStudentLastName() {
+            return registration.getStudent().getLastName();
+        }
+
+        @Override
+        public String getStudentEmail() {
+            return registration.getStudent().getEmail();
+        }
+
+        @Override
+        public String getCourseTitle() {
+            return registration.getCourse().getTitle();
+        }
+
+        @Override
+        public String getSchoolClassName() {
+            return registration.getSchoolClass() != null ? registration.getSchoolClass().getName() : null;
+        }
+
+        @Override
+        public LocalDateTime getRegistrationDate() {
+            return registration.getRegistrationDate();
+        }
+
+        @Override
+        public RegistrationStatus getStatus() {
+            return registration.getStatus();
+        }
+    }
+
+    private record Row(Course course, Exam exam) implements CourseExamRow {
+
+        @Override
+        public Long getCourseId() {
+            return course.getId();
+        }
+
+        @Override
+        public String getCourseTitle() {
+            return course.getTitle();
+        }
+
+        @Override
+        public String getCourseDescription() {
+            return course.getDescription();
+        }
+
+        @Override
+        public String getCourseDuration() {
+            return course.getDuration();
+        }
+
+        @Override
+        public BigDecimal getCoursePrice() {
+            return course.getPrice();
+        }
+
+        @Override
+        public Long getExamId() {
+            return exam != null ? exam.getId() : null;
+        }
+
+        @Override
+        public String getExamTitle() {
+            return exam != null ? exam.getTitle() : null;
+        }
+
+        @Override
+        public String getExamDescription() {
+            return exam != null ? exam.getDescription() : null;
+        }
+
+        @Override
+        public LocalDateTime getExamDate() {
+            return exam != null ? exam.getDate() : null;
+        }
+
+        @Override
+        public Integer getExamDuration() {
+            return exam != null ? exam.getDuration() : null;
+        }
+
+        @Override
+        public Double getExamMaxScore() {
+            return exam != null ? exam.getMaxScore() : null;
+        }
+
+        @Override
+        public Double getExamPassingScore() {
+            return exam != null ? exam.getPassingScore() : null;
+        }
+    }
+}
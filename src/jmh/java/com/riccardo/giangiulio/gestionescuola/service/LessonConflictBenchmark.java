@@ -0,0 +1,68 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.riccardo.giangiulio.gestionescuola.BenchmarkFixtures;
+import com.riccardo.giangiulio.gestionescuola.model.Lesson;
+
+/**
+ * Misura il filtro in memoria dei conflitti d'aula eseguito da {@code LessonService.validateLesson}
+ * sulle lezioni caricate nella finestra di ±24 ore.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LessonConflictBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int candidates;
+
+    private List<Lesson> candidateLessons;
+    private Lesson freeSlotLesson;
+    private Lesson conflictingLesson;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures fixtures = new BenchmarkFixtures(candidates);
+        candidateLessons = fixtures.lessons;
+
+        // Nessuna sovrapposizione: il filtro deve scorrere tutte le candidate
+        Lesson last = candidateLessons.get(candidateLessons.size() - 1);
+        LocalDateTime freeStart = last.getEndDateTime().plusDays(1);
+        freeSlotLesson = new Lesson("Nuova lezione", "Descrizione", freeStart, freeStart.plusHours(1),
+                last.getSchoolClass(), last.getTeacher(), last.getClassroom(), last.getSubject());
+
+        // Sovrapposizione con una lezione a metà lista
+        Lesson middle = candidateLessons.get(candidateLessons.size() / 2);
+        conflictingLesson = new Lesson("Lezione in conflitto", "Descrizione",
+                middle.getStartDateTime().plusMinutes(30), middle.getEndDateTime().plusMinutes(30),
+                middle.getSchoolClass(), middle.getTeacher(), middle.getClassroom(), middle.getSubject());
+    }
+
+    @Benchmark
+    public boolean noConflict() {
+        return LessonService.hasClassroomConflict(freeSlotLesson, candidateLessons);
+    }
+
+    @Benchmark
+    public boolean conflict() {
+        return LessonService.hasClassroomConflict(conflictingLesson, candidateLessons);
+    }
+}
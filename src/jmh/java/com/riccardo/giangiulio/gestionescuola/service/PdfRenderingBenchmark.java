@@ -0,0 +1,123 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.borders.SolidBorder;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.TextAlignment;
+
+/**
+ * Documenti PDF al secondo su un singolo thread (quindi per core), confrontando il rendering con
+ * colori, bordi e font creati per ogni documento e cella con quello basato su {@link PdfStyles},
+ * {@link PdfTableTemplate} e {@link PdfRenderResources}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(value = 1, jvmArgs = {"-Djava.awt.headless=true"})
+public class PdfRenderingBenchmark {
+
+    @Param({"10", "200"})
+    private int rows;
+
+    private List<String[]> data;
+    private PdfRenderResources resources;
+    private PdfTableTemplate<String[]> template;
+
+    @Setup
+    public void setUp() throws IOException {
+        data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            data.add(new String[] {String.valueOf(i), "Esame " + i, String.format("%.1f", 18.0 + i % 13), "01/01/2025 09:00"});
+        }
+        resources = new PdfRenderResources();
+        template = new PdfTableTemplate<>((table, row) -> {
+            for (String value : row) {
+                table.addCell(PdfStyles.dataCell(value));
+            }
+        }, "ID", "Exam", "Score", "Date");
+    }
+
+    /**
+     * Rendering precedente: nuove istanze di colori, bordi e stili per ogni elemento e font di default risolto dal documento.
+     */
+    @Benchmark
+    public int perDocumentResources() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document(new PdfDocument(new PdfWriter(out)));
+        document.add(new Paragraph("Student Profile")
+                .setFontSize(20)
+                .setBold()
+                .setTextAlignment(TextAlignment.CENTER)
+                .setFontColor(new DeviceRgb(0, 75, 155)));
+        for (int i = 0; i < 6; i++) {
+            Table info = new Table(2).useAllAvailableWidth();
+            info.addCell(new Cell().add(new Paragraph("Label:").setBold())
+                    .setBorder(new SolidBorder(ColorConstants.LIGHT_GRAY, 0.5f))
+                    .setBackgroundColor(new DeviceRgb(240, 240, 240)));
+            info.addCell(new Cell().add(new Paragraph("Value"))
+                    .setBorder(new SolidBorder(ColorConstants.LIGHT_GRAY, 0.5f)));
+            document.add(info);
+        }
+        Table table = new Table(4).useAllAvailableWidth();
+        for (String header : new String[] {"ID", "Exam", "Score", "Date"}) {
+            table.addCell(new Cell().add(new Paragraph(header).setBold())
+                    .setBackgroundColor(new DeviceRgb(220, 220, 220))
+                    .setTextAlignment(TextAlignment.CENTER));
+        }
+        for (String[] row : data) {
+            for (String value : row) {
+                table.addCell(new Cell().add(new Paragraph(value)));
+            }
+        }
+        document.add(table);
+        document.close();
+        return out.size();
+    }
+
+    /**
+     * Rendering attuale: stili e template condivisi, font program precaricato.
+     */
+    @Benchmark
+    public int sharedResources() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = resources.openDocument(out);
+        document.add(PdfStyles.title("Student Profile"));
+        for (int i = 0; i < 6; i++) {
+            Table info = new Table(2).useAllAvailableWidth();
+            info.addCell(PdfStyles.labelCell("Label:"));
+            info.addCell(PdfStyles.valueCell("Value"));
+            document.add(info);
+        }
+        template.render(document, data);
+        document.close();
+        return out.size();
+    }
+}
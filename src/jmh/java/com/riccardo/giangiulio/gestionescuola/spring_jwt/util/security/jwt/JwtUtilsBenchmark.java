@@ -0,0 +1,78 @@
+package com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.jwt;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import com.riccardo.giangiulio.gestionescuola.BenchmarkFixtures;
+import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services.UserDetailsImpl;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Misura il costo di validazione e parsing del token eseguito da {@link AuthTokenFilter}
+ * su ogni richiesta autenticata.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilsBenchmark {
+
+    // Stessa lunghezza della chiave configurata in application.properties (almeno 512 bit)
+    private static final String JWT_SECRET =
+            "FAJ333NcRfUjXn2r5u8xAABDTGGKaPdSgVkYp3s6v9yBBUE9H0MbQeThWmZq4t7wHzFAJ333NcRfUjXn2r5u8xAABDTGGKaPdSgVkYp3s6v9yBBUE9H0MbQeThWmZq4t7wHz";
+
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        BenchmarkFixtures.setField(jwtUtils, "jwtSecret", JWT_SECRET);
+        BenchmarkFixtures.setField(jwtUtils, "jwtExpirationMs", 86400000);
+
+        BenchmarkFixtures fixtures = new BenchmarkFixtures(1);
+        UserDetailsImpl principal = UserDetailsImpl.build(fixtures.students.get(0));
+        token = jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @Benchmark
+    public boolean validateJwtToken() {
+        return jwtUtils.validateJwtToken(token);
+    }
+
+    @Benchmark
+    public String getUserNameFromJwtToken() {
+        return jwtUtils.getUserNameFromJwtToken(token);
+    }
+
+    /**
+     * Percorso eseguito in precedenza dal filtro: validazione seguita da un secondo parsing.
+     */
+    @Benchmark
+    public String validateAndGetUserName() {
+        return jwtUtils.validateJwtToken(token) ? jwtUtils.getUserNameFromJwtToken(token) : null;
+    }
+
+    /**
+     * Percorso attuale del filtro: un solo parsing da cui si leggono username, id, ruolo e versione.
+     */
+    @Benchmark
+    public Claims parseJwtToken() {
+        return jwtUtils.parseJwtToken(token);
+    }
+}
@@ -0,0 +1,77 @@
+package com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.riccardo.giangiulio.gestionescuola.BenchmarkFixtures;
+import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.UserRepository;
+
+/**
+ * Throughput del caricamento dei dettagli utente eseguito a ogni signin (e per i token non più correnti),
+ * con e senza cache. Il costo della query su users/roles è simulato con {@link Blackhole#consumeCPU(long)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class UserDetailsServiceBenchmark {
+
+    @Param({"true", "false"})
+    private boolean cacheEnabled;
+
+    // Unità di lavoro CPU che simulano il round trip verso il database
+    @Param({"20000"})
+    private long queryCostTokens;
+
+    private UserDetailsServiceImpl userDetailsService;
+    private List<String> usernames;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures fixtures = new BenchmarkFixtures(1000);
+        usernames = fixtures.students.stream().map(User::getUsername).toList();
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByUsername(anyString())).thenAnswer(invocation -> {
+            Blackhole.consumeCPU(queryCostTokens);
+            String username = invocation.getArgument(0);
+            return fixtures.students.stream().filter(s -> s.getUsername().equals(username)).findFirst();
+        });
+
+        userDetailsService = new UserDetailsServiceImpl();
+        BenchmarkFixtures.setField(userDetailsService, "userRepository", userRepository);
+        BenchmarkFixtures.setField(userDetailsService, "cacheEnabled", cacheEnabled);
+        BenchmarkFixtures.setField(userDetailsService, "cacheMaxSize", 10_000L);
+        BenchmarkFixtures.setField(userDetailsService, "cacheTtlSeconds", 300L);
+        userDetailsService.initCache();
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsername() {
+        return userDetailsService.loadUserByUsername(usernames.get(ThreadLocalRandom.current().nextInt(usernames.size())));
+    }
+}
@@ -0,0 +1,95 @@
+package com.riccardo.giangiulio.gestionescuola.loadtest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Identificativi del dataset generato, letti dall'applicazione prima del test,
+ * usati per risolvere le variabili {@code {{nome}}} (stessa sintassi di Postman) nei passi dello scenario.
+ *
+ * Le variabili di una stessa richiesta sono coerenti tra loro: {@code lessonId}, {@code lessonStart}
+ * e {@code lessonEnd} si riferiscono alla stessa lezione.
+ */
+public class DatasetVariables {
+
+    private static final Pattern VARIABLE = Pattern.compile("\\{\\{(\\w+)}}");
+    private static final String GENERATED_STUDENT_PREFIX = "lt.student.";
+
+    private final List<Long> studentIds = new ArrayList<>();
+    private final List<String> studentUsernames = new ArrayList<>();
+    private final List<Long> teacherIds = new ArrayList<>();
+    private final List<Long> classIds = new ArrayList<>();
+    private final List<JsonNode> lessons = new ArrayList<>();
+
+    public DatasetVariables(JsonNode students, JsonNode teachers, JsonNode schoolClasses, JsonNode lessons) {
+        for (JsonNode student : students) {
+            studentIds.add(student.path("id").asLong());
+            String email = student.path("email").asText();
+            // Gli studenti generati hanno email "<username>@scuola.it"
+            if (email.startsWith(GENERATED_STUDENT_PREFIX)) {
+                studentUsernames.add(email.substring(0, email.indexOf('@')));
+            }
+        }
+        teachers.forEach(teacher -> teacherIds.add(teacher.path("id").asLong()));
+        schoolClasses.forEach(schoolClass -> classIds.add(schoolClass.path("id").asLong()));
+        lessons.forEach(this.lessons::add);
+
+        if (studentIds.isEmpty() || teacherIds.isEmpty() || classIds.isEmpty() || this.lessons.isEmpty()) {
+            throw new IllegalStateException("Dataset is empty: start the application with the 'loadtest' profile");
+        }
+    }
+
+    /**
+     * Sostituisce le variabili presenti nel testo con valori casuali del dataset.
+     */
+    public String resolve(String text, Map<String, String> values) {
+        if (text == null || text.indexOf("{{") < 0) {
+            return text;
+        }
+        Matcher matcher = VARIABLE.matcher(text);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String value = values.get(matcher.group(1));
+            if (value == null) {
+                throw new IllegalArgumentException("Unknown load test variable: " + matcher.group(1));
+            }
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    /**
+     * Estrae un insieme di valori coerenti per una singola richiesta.
+     */
+    public Map<String, String> sample() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        JsonNode lesson = lessons.get(random.nextInt(lessons.size()));
+
+        Map<String, String> values = new HashMap<>();
+        values.put("studentId", String.valueOf(studentIds.get(random.nextInt(studentIds.size()))));
+        values.put("teacherId", String.valueOf(teacherIds.get(random.nextInt(teacherIds.size()))));
+        values.put("classId", String.valueOf(classIds.get(random.nextInt(classIds.size()))));
+        values.put("lessonId", lesson.path("id").asText());
+        values.put("lessonStart", lesson.path("startDateTime").asText());
+        values.put("lessonEnd", lesson.path("endDateTime").asText());
+        values.put("studentUsername", studentUsernames.isEmpty() ? "admin"
+            : studentUsernames.get(random.nextInt(studentUsernames.size())));
+        return values;
+    }
+
+    public int getStudentCount() {
+        return studentIds.size();
+    }
+
+    public int getLessonCount() {
+        return lessons.size();
+    }
+}
@@ -0,0 +1,101 @@
+package com.riccardo.giangiulio.gestionescuola.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latenze registrate per un singolo endpoint.
+ * Conserva tutti i campioni, così i percentili sono esatti e non approssimati.
+ */
+public class LatencyStats {
+
+    private long[] samples = new long[1024];
+    private int count;
+    private long errors;
+    private long bytes;
+
+    public synchronized void record(long latencyNanos, boolean success, long responseBytes) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = latencyNanos;
+        bytes += responseBytes;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    public synchronized Snapshot snapshot(double durationSeconds) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return new Snapshot(count, errors, bytes, count / durationSeconds,
+            percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.95), percentileMillis(sorted, 0.99),
+            sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000.0);
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    /**
+     * Riepilogo immutabile delle statistiche, serializzato nel report JSON.
+     */
+    public static class Snapshot {
+
+        private final long requests;
+        private final long errors;
+        private final long bytes;
+        private final double throughput;
+        private final double p50Ms;
+        private final double p95Ms;
+        private final double p99Ms;
+        private final double maxMs;
+
+        public Snapshot(long requests, long errors, long bytes, double throughput,
+                double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+            this.requests = requests;
+            this.errors = errors;
+            this.bytes = bytes;
+            this.throughput = throughput;
+            this.p50Ms = p50Ms;
+            this.p95Ms = p95Ms;
+            this.p99Ms = p99Ms;
+            this.maxMs = maxMs;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public double getThroughput() {
+            return throughput;
+        }
+
+        public double getP50Ms() {
+            return p50Ms;
+        }
+
+        public double getP95Ms() {
+            return p95Ms;
+        }
+
+        public double getP99Ms() {
+            return p99Ms;
+        }
+
+        public double getMaxMs() {
+            return maxMs;
+        }
+    }
+}
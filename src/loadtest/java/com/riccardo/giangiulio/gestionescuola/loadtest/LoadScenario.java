@@ -0,0 +1,204 @@
+package com.riccardo.giangiulio.gestionescuola.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Scenario di carico pesato costruito a partire da {@code loadtest-scenarios.json}.
+ * Ogni mix (signin, timetable-read, attendance-write, export) ha un peso relativo e contiene
+ * passi pesati che fanno riferimento alle richieste della collection Postman per nome.
+ */
+public class LoadScenario {
+
+    private final List<Step> steps = new ArrayList<>();
+    private final double[] cumulativeWeights;
+    private final Map<String, Credentials> credentials = new HashMap<>();
+    private final Map<String, Budget> budgets = new HashMap<>();
+
+    public LoadScenario(InputStream config, List<String> mixNames, PostmanCollection collection,
+            ObjectMapper objectMapper) throws IOException {
+        JsonNode root = objectMapper.readTree(config);
+
+        root.path("credentials").fields().forEachRemaining(entry -> credentials.put(entry.getKey(),
+            new Credentials(entry.getValue().path("username").asText(), entry.getValue().path("password").asText())));
+
+        root.path("budgets").fields().forEachRemaining(entry -> budgets.put(entry.getKey(),
+            new Budget(entry.getValue().path("p95Ms").asLong(Long.MAX_VALUE),
+                entry.getValue().path("p99Ms").asLong(Long.MAX_VALUE))));
+
+        JsonNode mixes = root.path("mixes");
+        List<String> selected = mixNames.contains("all") ? defaultMixes(mixes) : mixNames;
+        for (String mixName : selected) {
+            JsonNode mix = mixes.path(mixName);
+            if (mix.isMissingNode()) {
+                throw new IllegalArgumentException("Unknown load test mix: " + mixName);
+            }
+            // Con un solo mix il suo peso è irrilevante; con più mix i passi vengono normalizzati per mix
+            double mixWeight = selected.size() == 1 ? 1.0 : mix.path("weight").asDouble(1.0);
+            double stepTotal = 0;
+            for (JsonNode step : mix.path("steps")) {
+                stepTotal += step.path("weight").asDouble(1.0);
+            }
+            for (JsonNode step : mix.path("steps")) {
+                steps.add(new Step(
+                    mixName,
+                    collection.get(step.path("request").asText()),
+                    step.path("auth").asText("ADMIN"),
+                    step.path("path").asText(null),
+                    step.path("body").asText(null),
+                    mixWeight * step.path("weight").asDouble(1.0) / stepTotal));
+            }
+        }
+        if (steps.isEmpty()) {
+            throw new IllegalArgumentException("No steps selected for mixes " + mixNames);
+        }
+
+        cumulativeWeights = new double[steps.size()];
+        double total = 0;
+        for (int i = 0; i < steps.size(); i++) {
+            total += steps.get(i).getWeight();
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * Estrae il prossimo passo rispettando i pesi configurati.
+     */
+    public Step next() {
+        double value = ThreadLocalRandom.current().nextDouble(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return steps.get(i);
+            }
+        }
+        return steps.get(steps.size() - 1);
+    }
+
+    public List<Step> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    public Map<String, Credentials> getCredentials() {
+        return credentials;
+    }
+
+    public Map<String, Budget> getBudgets() {
+        return budgets;
+    }
+
+    /**
+     * Mix inclusi in "all": sono esclusi quelli marcati {@code "includeInAll": false}, come i picchi di login.
+     */
+    private static List<String> defaultMixes(JsonNode mixes) {
+        List<String> list = new ArrayList<>();
+        Iterator<String> names = mixes.fieldNames();
+        names.forEachRemaining(name -> {
+            if (mixes.path(name).path("includeInAll").asBoolean(true)) {
+                list.add(name);
+            }
+        });
+        return list;
+    }
+
+    /**
+     * Passo dello scenario: una richiesta della collection con eventuali override di percorso e corpo.
+     * Percorso e corpo possono contenere variabili {@code {{nome}}} risolte da {@link DatasetVariables}.
+     */
+    public static class Step {
+
+        private final String mix;
+        private final PostmanCollection.RequestTemplate template;
+        private final String auth;
+        private final String path;
+        private final String body;
+        private final double weight;
+
+        public Step(String mix, PostmanCollection.RequestTemplate template, String auth, String path, String body, double weight) {
+            this.mix = mix;
+            this.template = template;
+            this.auth = auth;
+            this.path = path != null ? path : template.getPath();
+            this.body = body != null ? body : template.getBody();
+            this.weight = weight;
+        }
+
+        public String getMix() {
+            return mix;
+        }
+
+        public String getName() {
+            return template.getName();
+        }
+
+        public String getMethod() {
+            return template.getMethod();
+        }
+
+        public String getAuth() {
+            return auth;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+    }
+
+    public static class Credentials {
+
+        private final String username;
+        private final String password;
+
+        public Credentials(String username, String password) {
+            this.username = username;
+            this.password = password;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+    }
+
+    /**
+     * Budget di latenza per endpoint, in millisecondi.
+     */
+    public static class Budget {
+
+        private final long p95Ms;
+        private final long p99Ms;
+
+        public Budget(long p95Ms, long p99Ms) {
+            this.p95Ms = p95Ms;
+            this.p99Ms = p99Ms;
+        }
+
+        public long getP95Ms() {
+            return p95Ms;
+        }
+
+        public long getP99Ms() {
+            return p99Ms;
+        }
+    }
+}
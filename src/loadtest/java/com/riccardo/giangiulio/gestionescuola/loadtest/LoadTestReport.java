@@ -0,0 +1,103 @@
+package com.riccardo.giangiulio.gestionescuola.loadtest;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Riepilogo di un'esecuzione: percentili di latenza e throughput per endpoint,
+ * confronto con i budget configurati.
+ */
+public class LoadTestReport {
+
+    private final String label;
+    private final List<String> mixes;
+    private final int users;
+    private final int durationSeconds;
+    private final Map<String, LatencyStats.Snapshot> endpoints = new TreeMap<>();
+    private final List<String> violations = new ArrayList<>();
+
+    public LoadTestReport(String label, List<String> mixes, int users, int durationSeconds,
+            Map<String, LatencyStats> stats, Map<String, LoadScenario.Budget> budgets) {
+        this.label = label;
+        this.mixes = mixes;
+        this.users = users;
+        this.durationSeconds = durationSeconds;
+        stats.forEach((name, latency) -> endpoints.put(name, latency.snapshot(durationSeconds)));
+
+        endpoints.forEach((name, snapshot) -> {
+            LoadScenario.Budget budget = budgets.get(name);
+            if (budget == null) {
+                return;
+            }
+            if (snapshot.getP95Ms() > budget.getP95Ms()) {
+                violations.add(String.format("%s p95 %.1f ms > %d ms", name, snapshot.getP95Ms(), budget.getP95Ms()));
+            }
+            if (snapshot.getP99Ms() > budget.getP99Ms()) {
+                violations.add(String.format("%s p99 %.1f ms > %d ms", name, snapshot.getP99Ms(), budget.getP99Ms()));
+            }
+        });
+    }
+
+    public List<String> getViolations() {
+        return violations;
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%n%-36s %9s %7s %9s %9s %9s %9s %9s%n",
+            "Endpoint", "Requests", "Errors", "Req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        long totalRequests = 0;
+        for (Map.Entry<String, LatencyStats.Snapshot> entry : endpoints.entrySet()) {
+            LatencyStats.Snapshot s = entry.getValue();
+            totalRequests += s.getRequests();
+            out.printf("%-36s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                entry.getKey(), s.getRequests(), s.getErrors(), s.getThroughput(),
+                s.getP50Ms(), s.getP95Ms(), s.getP99Ms(), s.getMaxMs());
+        }
+        out.printf("%nTotal: %d requests, %.1f req/s%n", totalRequests, (double) totalRequests / durationSeconds);
+        violations.forEach(violation -> out.println("BUDGET EXCEEDED: " + violation));
+    }
+
+    /**
+     * Confronta questa esecuzione con un report precedente (es. thread virtuali contro thread di piattaforma):
+     * per ogni endpoint presente in entrambi stampa throughput, p95 e p99 con la variazione percentuale.
+     */
+    public void printComparison(PrintStream out, JsonNode baseline) {
+        out.printf("%nComparison: %s (baseline) -> %s%n", baseline.path("label").asText("baseline"), label);
+        out.printf("%-36s %17s %19s %19s%n", "Endpoint", "Req/s", "p95 ms", "p99 ms");
+        endpoints.forEach((name, current) -> {
+            JsonNode previous = baseline.path("endpoints").path(name);
+            if (previous.isMissingNode()) {
+                return;
+            }
+            out.printf("%-36s %17s %19s %19s%n", name,
+                delta(previous.path("throughput").asDouble(), current.getThroughput()),
+                delta(previous.path("p95Ms").asDouble(), current.getP95Ms()),
+                delta(previous.path("p99Ms").asDouble(), current.getP99Ms()));
+        });
+    }
+
+    private static String delta(double previous, double current) {
+        if (previous == 0) {
+            return String.format("%.1f", current);
+        }
+        return String.format("%.1f (%+.0f%%)", current, (current - previous) * 100 / previous);
+    }
+
+    public ObjectNode toJson(ObjectMapper objectMapper) {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("label", label);
+        root.putPOJO("mixes", mixes);
+        root.put("users", users);
+        root.put("durationSeconds", durationSeconds);
+        root.set("endpoints", objectMapper.valueToTree(endpoints));
+        root.putPOJO("violations", violations);
+        return root;
+    }
+}
@@ -0,0 +1,223 @@
+package com.riccardo.giangiulio.gestionescuola.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Harness di carico HTTP guidato dalla collection Postman.
+ *
+ * Esegue i mix pesati definiti in {@code loadtest-scenarios.json} contro un'istanza locale
+ * avviata con il profilo {@code loadtest}, registra latenza e throughput per endpoint
+ * e termina con codice di uscita 1 se un budget di latenza non viene rispettato.
+ *
+ * Parametri (proprietà di sistema):
+ * <ul>
+ *   <li>{@code loadtest.baseUrl} - URL dell'applicazione (default {@code http://localhost:8080})</li>
+ *   <li>{@code loadtest.collection} - collection Postman (default {@code postman/GestioneScuola.postman.json})</li>
+ *   <li>{@code loadtest.scenarios} - file di scenari alternativo a quello incluso nel classpath</li>
+ *   <li>{@code loadtest.mix} - mix da eseguire separati da virgola, oppure {@code all}</li>
+ *   <li>{@code loadtest.users} - utenti virtuali concorrenti</li>
+ *   <li>{@code loadtest.warmupSeconds} / {@code loadtest.durationSeconds} - durata di riscaldamento e misura</li>
+ *   <li>{@code loadtest.report} - percorso del report JSON</li>
+ *   <li>{@code loadtest.failOnBudget} - se {@code false} il superamento dei budget viene solo segnalato</li>
+ *   <li>{@code loadtest.label} - descrizione della configurazione provata (es. i profili Spring), salvata nel report</li>
+ *   <li>{@code loadtest.baseline} - report JSON di un'esecuzione precedente con cui confrontare throughput e percentili</li>
+ * </ul>
+ */
+public class LoadTestRunner {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final LoadScenario scenario;
+    private final Map<String, String> tokens = new HashMap<>();
+    private final Map<String, LatencyStats> stats = new ConcurrentHashMap<>();
+    private DatasetVariables variables;
+
+    public LoadTestRunner(String baseUrl, LoadScenario scenario, ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl;
+        this.scenario = scenario;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+        String baseUrl = System.getProperty("loadtest.baseUrl", "http://localhost:8080");
+        Path collectionFile = Path.of(System.getProperty("loadtest.collection", "postman/GestioneScuola.postman.json"));
+        List<String> mixes = Arrays.asList(System.getProperty("loadtest.mix", "all").split(","));
+        int users = Integer.getInteger("loadtest.users", 50);
+        int warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 10);
+        int durationSeconds = Integer.getInteger("loadtest.durationSeconds", 60);
+        Path reportFile = Path.of(System.getProperty("loadtest.report", "target/loadtest-report.json"));
+        boolean failOnBudget = Boolean.parseBoolean(System.getProperty("loadtest.failOnBudget", "true"));
+        String label = System.getProperty("loadtest.label", "");
+        String baseline = System.getProperty("loadtest.baseline", "");
+
+        PostmanCollection collection = new PostmanCollection(collectionFile, objectMapper);
+        LoadScenario scenario;
+        try (InputStream config = openScenarios()) {
+            scenario = new LoadScenario(config, mixes, collection, objectMapper);
+        }
+
+        System.out.printf("Load test: %s, mix %s, %d users, %ds warmup, %ds measured (%d requests in collection)%n",
+            baseUrl, mixes, users, warmupSeconds, durationSeconds, collection.size());
+
+        LoadTestRunner runner = new LoadTestRunner(baseUrl, scenario, objectMapper);
+        runner.prepare(collection);
+        runner.run(users, warmupSeconds, false);
+        runner.stats.clear();
+        runner.run(users, durationSeconds, true);
+
+        LoadTestReport report = new LoadTestReport(label, mixes, users, durationSeconds, runner.stats,
+            scenario.getBudgets());
+        report.print(System.out);
+        if (!baseline.isBlank()) {
+            report.printComparison(System.out, objectMapper.readTree(Path.of(baseline).toFile()));
+        }
+        Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        objectMapper.writeValue(reportFile.toFile(), report.toJson(objectMapper));
+        System.out.println("Report written to " + reportFile.toAbsolutePath());
+
+        if (!report.getViolations().isEmpty() && failOnBudget) {
+            System.err.println("Latency budget exceeded: " + report.getViolations());
+            System.exit(1);
+        }
+    }
+
+    private static InputStream openScenarios() throws IOException {
+        String file = System.getProperty("loadtest.scenarios");
+        if (file != null) {
+            return Files.newInputStream(Path.of(file));
+        }
+        InputStream stream = LoadTestRunner.class.getResourceAsStream("/loadtest-scenarios.json");
+        if (stream == null) {
+            throw new IllegalStateException("loadtest-scenarios.json not found on the classpath");
+        }
+        return stream;
+    }
+
+    /**
+     * Effettua il login per ogni ruolo configurato e legge gli identificativi del dataset.
+     */
+    private void prepare(PostmanCollection collection) throws IOException, InterruptedException {
+        String signInPath = collection.get("signIn").getPath();
+        for (Map.Entry<String, LoadScenario.Credentials> entry : scenario.getCredentials().entrySet()) {
+            Map<String, String> body = new LinkedHashMap<>();
+            body.put("username", entry.getValue().getUsername());
+            body.put("password", entry.getValue().getPassword());
+            HttpResponse<String> response = httpClient.send(
+                request(signInPath, null).POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body))).build(),
+                HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Sign in failed for " + entry.getKey() + ": HTTP " + response.statusCode());
+            }
+            tokens.put(entry.getKey(), objectMapper.readTree(response.body()).path("token").asText());
+        }
+
+        variables = new DatasetVariables(
+            fetch("/api/users/students"),
+            fetch("/api/users/teachers"),
+            fetch("/api/classes"),
+            fetch("/api/lessons"));
+        System.out.printf("Dataset: %d students, %d lessons%n", variables.getStudentCount(), variables.getLessonCount());
+    }
+
+    private JsonNode fetch(String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(request(path, tokens.get("ADMIN")).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + path + " failed: HTTP " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    /**
+     * Avvia gli utenti virtuali (un thread virtuale ciascuno) in ciclo chiuso fino alla scadenza.
+     */
+    private void run(int users, int seconds, boolean measured) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Runnable> virtualUsers = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                virtualUsers.add(() -> {
+                    while (System.nanoTime() < deadline) {
+                        execute(scenario.next());
+                    }
+                });
+            }
+            virtualUsers.forEach(executor::submit);
+            executor.shutdown();
+            executor.awaitTermination(seconds + 120L, TimeUnit.SECONDS);
+        }
+        if (!measured) {
+            System.out.println("Warmup completed");
+        }
+    }
+
+    private void execute(LoadScenario.Step step) {
+        Map<String, String> values = variables.sample();
+        String path = variables.resolve(step.getPath(), values);
+        String body = variables.resolve(step.getBody(), values);
+        HttpRequest.BodyPublisher publisher = body != null
+            ? HttpRequest.BodyPublishers.ofString(body)
+            : HttpRequest.BodyPublishers.noBody();
+        HttpRequest httpRequest = request(path, tokens.get(step.getAuth()))
+            .method(step.getMethod(), publisher)
+            .build();
+
+        long start = System.nanoTime();
+        boolean success = false;
+        long bytes = 0;
+        try {
+            HttpResponse<InputStream> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+            // Il corpo viene letto per intero: per gli export la latenza include il trasferimento
+            try (InputStream stream = response.body()) {
+                bytes = stream.transferTo(OutputStream.nullOutputStream());
+            }
+            success = response.statusCode() >= 200 && response.statusCode() < 300;
+        } catch (IOException e) {
+            success = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        stats.computeIfAbsent(step.getName(), name -> new LatencyStats())
+            .record(System.nanoTime() - start, success, bytes);
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofSeconds(60))
+            .header("Content-Type", "application/json");
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+}
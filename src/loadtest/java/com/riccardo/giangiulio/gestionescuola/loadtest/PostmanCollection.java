@@ -0,0 +1,106 @@
+package com.riccardo.giangiulio.gestionescuola.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Lettura della collection Postman (schema v2.1) in {@code postman/GestioneScuola.postman.json}.
+ * Ogni richiesta viene indicizzata per nome, così gli scenari di carico possono riferirsi
+ * agli endpoint già documentati senza duplicarne metodo, percorso e corpo.
+ */
+public class PostmanCollection {
+
+    private final Map<String, RequestTemplate> requests = new LinkedHashMap<>();
+
+    public PostmanCollection(Path file, ObjectMapper objectMapper) throws IOException {
+        collect(objectMapper.readTree(file.toFile()).path("item"), null);
+    }
+
+    public RequestTemplate get(String name) {
+        RequestTemplate template = requests.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Request '" + name + "' not found in the Postman collection");
+        }
+        return template;
+    }
+
+    public int size() {
+        return requests.size();
+    }
+
+    private void collect(JsonNode items, String folder) {
+        for (JsonNode item : items) {
+            if (item.has("item")) {
+                collect(item.get("item"), item.path("name").asText());
+                continue;
+            }
+            JsonNode request = item.path("request");
+            JsonNode url = request.path("url");
+            // Alcune richieste della collection sono bozze senza URL: vengono ignorate
+            if (url.isMissingNode()) {
+                continue;
+            }
+            String raw = url.isTextual() ? url.asText() : url.path("raw").asText();
+            String body = request.path("body").path("raw").asText(null);
+            requests.put(item.path("name").asText(),
+                new RequestTemplate(folder, item.path("name").asText(), request.path("method").asText("GET"), pathOf(raw), body));
+        }
+    }
+
+    /**
+     * Rimuove schema, host e porta: il runner punta all'URL base configurato.
+     */
+    private static String pathOf(String rawUrl) {
+        int schemeEnd = rawUrl.indexOf("://");
+        if (schemeEnd < 0) {
+            return rawUrl;
+        }
+        int pathStart = rawUrl.indexOf('/', schemeEnd + 3);
+        return pathStart < 0 ? "/" : rawUrl.substring(pathStart);
+    }
+
+    /**
+     * Singola richiesta della collection.
+     */
+    public static class RequestTemplate {
+
+        private final String folder;
+        private final String name;
+        private final String method;
+        private final String path;
+        private final String body;
+
+        public RequestTemplate(String folder, String name, String method, String path, String body) {
+            this.folder = folder;
+            this.name = name;
+            this.method = method;
+            this.path = path;
+            this.body = body;
+        }
+
+        public String getFolder() {
+            return folder;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getBody() {
+            return body;
+        }
+    }
+}
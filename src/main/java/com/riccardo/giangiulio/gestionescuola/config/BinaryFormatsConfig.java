@@ -0,0 +1,33 @@
+package com.riccardo.giangiulio.gestionescuola.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Codifiche binarie delle risposte REST, scelte con l'header {@code Accept}: {@code application/cbor} e
+ * {@code application/x-jackson-smile}, oltre al JSON. Valgono per tutti i controller e anche per i corpi delle richieste.
+ *
+ * I convertitori usano il builder configurato da Spring Boot, quindi moduli e impostazioni (date ISO-8601, proprietà
+ * sconosciute ignorate) sono gli stessi del JSON. Sostituiscono quelli predefiniti di Spring MVC nella stessa
+ * posizione, dopo il JSON: un client che invia {@code Accept: *}{@code /*} continua a ricevere JSON.
+ */
+@Configuration
+public class BinaryFormatsConfig {
+
+    // Il builder di Spring Boot è un bean prototype: ogni convertitore ne riceve un'istanza distinta
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
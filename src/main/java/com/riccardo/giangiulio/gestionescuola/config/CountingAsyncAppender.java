@@ -0,0 +1,39 @@
+package com.riccardo.giangiulio.gestionescuola.config;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * {@link AsyncAppender} che conta gli eventi scartati, sia per il superamento della soglia di scarto
+ * (eventi TRACE/DEBUG/INFO quando la coda è quasi piena) sia per coda piena con {@code neverBlock} attivo.
+ * I contatori vengono esposti come metriche da {@link LoggingMetrics}.
+ */
+public class CountingAsyncAppender extends AsyncAppender {
+
+    private final LongAdder droppedEvents = new LongAdder();
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        // Con neverBlock la coda piena scarterebbe l'evento senza traccia: lo scartiamo qui contandolo
+        if (isStarted() && isNeverBlock() && getRemainingCapacity() == 0) {
+            droppedEvents.increment();
+            return;
+        }
+        super.append(event);
+    }
+
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        boolean discardable = super.isDiscardable(event);
+        if (discardable) {
+            droppedEvents.increment();
+        }
+        return discardable;
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.sum();
+    }
+}
@@ -0,0 +1,67 @@
+package com.riccardo.giangiulio.gestionescuola.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.DataFetcherExceptionResolver;
+import org.springframework.graphql.execution.ErrorType;
+
+import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.ResourceNotFoundException;
+import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.BusinessValidationException;
+
+import graphql.GraphqlErrorBuilder;
+import graphql.analysis.FieldComplexityEnvironment;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+
+/**
+ * Limiti dell'endpoint GraphQL, verificati prima dell'esecuzione: una query troppo profonda o troppo costosa
+ * viene rifiutata senza eseguire nessuna query sul database.
+ */
+@Configuration
+public class GraphQlConfig {
+
+    // Numero di elementi stimato per un campo lista: il costo dei suoi sottocampi viene moltiplicato per questo valore
+    static final int LIST_SIZE_ESTIMATE = 10;
+
+    @Bean
+    public MaxQueryDepthInstrumentation maxQueryDepthInstrumentation(
+            @Value("${myapp.graphql.max-depth}") int maxDepth) {
+        return new MaxQueryDepthInstrumentation(maxDepth);
+    }
+
+    @Bean
+    public MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(
+            @Value("${myapp.graphql.max-complexity}") int maxComplexity) {
+        return new MaxQueryComplexityInstrumentation(maxComplexity, GraphQlConfig::fieldComplexity);
+    }
+
+    /**
+     * Le eccezioni dei service diventano errori GraphQL con la stessa classificazione delle risposte REST
+     * (404 e 400), invece di un generico errore interno.
+     */
+    @Bean
+    public DataFetcherExceptionResolver graphQlExceptionResolver() {
+        return DataFetcherExceptionResolver.forSingleError((ex, environment) -> {
+            ErrorType errorType;
+            if (ex instanceof ResourceNotFoundException) {
+                errorType = ErrorType.NOT_FOUND;
+            } else if (ex instanceof BusinessValidationException) {
+                errorType = ErrorType.BAD_REQUEST;
+            } else {
+                return null;
+            }
+            return GraphqlErrorBuilder.newError(environment)
+                    .errorType(errorType)
+                    .message(ex.getMessage())
+                    .build();
+        });
+    }
+
+    static int fieldComplexity(FieldComplexityEnvironment environment, int childComplexity) {
+        GraphQLType type = GraphQLTypeUtil.unwrapNonNull(environment.getFieldDefinition().getType());
+        return GraphQLTypeUtil.isList(type) ? 1 + childComplexity * LIST_SIZE_ESTIMATE : 1 + childComplexity;
+    }
+}
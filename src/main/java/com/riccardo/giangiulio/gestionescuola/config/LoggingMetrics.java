@@ -0,0 +1,56 @@
+package com.riccardo.giangiulio.gestionescuola.config;
+
+import java.util.Iterator;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Espone lo stato della pipeline di logging asincrona configurata in {@code logback-spring.xml}:
+ * riempimento delle code, eventi scartati per backpressure ed eventi soppressi dal rate limiting.
+ */
+@Component
+public class LoggingMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+            return;
+        }
+
+        Iterator<Appender<ILoggingEvent>> appenders = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+        while (appenders.hasNext()) {
+            if (appenders.next() instanceof CountingAsyncAppender appender) {
+                Gauge.builder("gestionescuola.logging.queue.size", appender, CountingAsyncAppender::getNumberOfElementsInQueue)
+                    .description("Eventi di log in attesa nella coda asincrona")
+                    .tag("appender", appender.getName())
+                    .register(registry);
+                Gauge.builder("gestionescuola.logging.queue.remaining", appender, CountingAsyncAppender::getRemainingCapacity)
+                    .description("Capacità residua della coda asincrona")
+                    .tag("appender", appender.getName())
+                    .register(registry);
+                FunctionCounter.builder("gestionescuola.logging.dropped", appender, CountingAsyncAppender::getDroppedEvents)
+                    .description("Eventi di log scartati per coda piena")
+                    .tag("appender", appender.getName())
+                    .register(registry);
+            }
+        }
+
+        for (TurboFilter filter : context.getTurboFilterList()) {
+            if (filter instanceof RateLimitingTurboFilter rateLimiter) {
+                FunctionCounter.builder("gestionescuola.logging.suppressed", rateLimiter, RateLimitingTurboFilter::getSuppressedEvents)
+                    .description("Messaggi ripetitivi soppressi dal rate limiting")
+                    .register(registry);
+            }
+        }
+    }
+}
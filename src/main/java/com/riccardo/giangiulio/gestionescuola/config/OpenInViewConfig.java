@@ -0,0 +1,32 @@
+package com.riccardo.giangiulio.gestionescuola.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Open-in-view come quello configurato da Spring Boot, ma escluso dagli stream SSE: l'EntityManager aperto
+ * per la richiesta tiene la connessione JDBC fino alla fine della risposta, cioè per tutta la durata dello stream.
+ * Gli stream leggono lo snapshot con query che caricano già le associazioni necessarie.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.jpa", name = "open-in-view", havingValue = "true", matchIfMissing = true)
+public class OpenInViewConfig implements WebMvcConfigurer {
+
+    static final String[] STREAM_PATHS = { "/api/attendances/lesson/*/stream" };
+
+    // Definito qui, sostituisce l'interceptor registrato da Spring Boot per tutte le richieste
+    @Bean
+    public OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+        return new OpenEntityManagerInViewInterceptor();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addWebRequestInterceptor(openEntityManagerInViewInterceptor())
+                .excludePathPatterns(STREAM_PATHS);
+    }
+}
@@ -0,0 +1,108 @@
+package com.riccardo.giangiulio.gestionescuola.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Limita i messaggi ripetitivi prima che raggiungano gli appender.
+ * La chiave è il formato del messaggio (es. "No lessons found for teacher ID: {}"), quindi gli avvisi
+ * emessi a ogni risultato vuoto vengono accettati al massimo {@code permits} volte per finestra di
+ * {@code windowSeconds} secondi, indipendentemente dai parametri.
+ *
+ * Si applica inoltre a tutti gli eventi dei logger indicati in {@code loggers} (separati da virgola):
+ * per questi la chiave è il nome del logger, così ad esempio {@code org.hibernate.SQL_SLOW}, che emette
+ * messaggi già formattati, viene campionato a N query lente per finestra.
+ */
+public class RateLimitingTurboFilter extends TurboFilter {
+
+    private Level level = Level.WARN;
+    private String[] loggers = new String[0];
+    private int permits = 5;
+    private long windowMillis = 60_000;
+    private int cacheSize = 1024;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final LongAdder suppressedEvents = new LongAdder();
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level eventLevel, String format, Object[] params, Throwable t) {
+        // format è null per le sole verifiche isXxxEnabled()
+        if (!isStarted() || format == null || eventLevel == null
+                || !eventLevel.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        String key = key(logger, eventLevel, format);
+        if (key == null) {
+            return FilterReply.NEUTRAL;
+        }
+
+        if (windows.size() >= cacheSize) {
+            windows.clear();
+        }
+        Window window = windows.computeIfAbsent(key, k -> new Window());
+        if (window.tryAcquire(System.currentTimeMillis(), permits, windowMillis)) {
+            return FilterReply.NEUTRAL;
+        }
+        suppressedEvents.increment();
+        return FilterReply.DENY;
+    }
+
+    private String key(Logger logger, Level eventLevel, String format) {
+        for (String name : loggers) {
+            if (logger.getName().startsWith(name)) {
+                return name;
+            }
+        }
+        return eventLevel == level ? format : null;
+    }
+
+    public long getSuppressedEvents() {
+        return suppressedEvents.sum();
+    }
+
+    public void setLevel(String level) {
+        this.level = Level.toLevel(level, Level.WARN);
+    }
+
+    public void setLoggers(String loggers) {
+        this.loggers = loggers.isBlank() ? new String[0] : loggers.trim().split("\\s*,\\s*");
+    }
+
+    public void setPermits(int permits) {
+        this.permits = permits;
+    }
+
+    public void setWindowSeconds(long windowSeconds) {
+        this.windowMillis = windowSeconds * 1000;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    private static final class Window {
+        private volatile long start;
+        private final AtomicInteger count = new AtomicInteger();
+
+        boolean tryAcquire(long now, int permits, long windowMillis) {
+            if (now - start >= windowMillis) {
+                synchronized (this) {
+                    if (now - start >= windowMillis) {
+                        start = now;
+                        count.set(0);
+                    }
+                }
+            }
+            return count.incrementAndGet() <= permits;
+        }
+    }
+}
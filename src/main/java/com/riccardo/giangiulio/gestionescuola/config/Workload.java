@@ -0,0 +1,21 @@
+package com.riccardo.giangiulio.gestionescuola.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Dichiara la classe di carico di un endpoint o di un service, su una classe o su un singolo metodo
+ * (l'annotazione sul metodo prevale). Gli endpoint senza annotazione sono {@link WorkloadType#INTERACTIVE}.
+ * Sui service ha effetto quando il metodo apre la transazione, ad esempio negli export eseguiti in background:
+ * dentro una richiesta la connessione è già stata scelta dalla classe dell'endpoint.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Workload {
+
+    WorkloadType value();
+}
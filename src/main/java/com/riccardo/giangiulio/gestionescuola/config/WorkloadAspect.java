@@ -0,0 +1,45 @@
+package com.riccardo.giangiulio.gestionescuola.config;
+
+import java.lang.reflect.Method;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applica {@link Workload} ai service, per le operazioni avviate fuori da una richiesta HTTP (export in
+ * background, attività pianificate). Ha la precedenza massima così la classe di carico è già impostata
+ * quando {@code @Transactional} chiede la connessione.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class WorkloadAspect {
+
+    private final WorkloadLimiter workloadLimiter;
+
+    @Autowired
+    public WorkloadAspect(WorkloadLimiter workloadLimiter) {
+        this.workloadLimiter = workloadLimiter;
+    }
+
+    @Around("within(com.riccardo.giangiulio.gestionescuola.service..*) && "
+            + "(@within(com.riccardo.giangiulio.gestionescuola.config.Workload) "
+            + "|| @annotation(com.riccardo.giangiulio.gestionescuola.config.Workload))")
+    public Object runInWorkload(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Workload workload = AnnotatedElementUtils.findMergedAnnotation(method, Workload.class);
+        if (workload == null) {
+            workload = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), Workload.class);
+        }
+        try (WorkloadLimiter.Scope scope = workloadLimiter.enter(workload.value())) {
+            return joinPoint.proceed();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.riccardo.giangiulio.gestionescuola.config;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Pool di connessioni separati per il carico interattivo e per i report, sullo stesso database.
+ * Il pool interattivo usa le proprietà {@code spring.datasource.hikari.*}, quello dei report
+ * {@code myapp.datasource.reporting.hikari.*}: un export non può occupare più connessioni di quelle del suo pool.
+ * JPA e JDBC vedono un unico {@link DataSource} che sceglie il pool in base a {@link WorkloadContext}.
+ */
+@Configuration
+public class WorkloadConfig implements WebMvcConfigurer {
+
+    private final WorkloadInterceptor workloadInterceptor;
+
+    @Autowired
+    public WorkloadConfig(WorkloadInterceptor workloadInterceptor) {
+        this.workloadInterceptor = workloadInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(workloadInterceptor);
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource interactiveDataSource(DataSourceProperties properties) {
+        return pool(properties, "interactive");
+    }
+
+    @Bean
+    @ConfigurationProperties("myapp.datasource.reporting.hikari")
+    public HikariDataSource reportingDataSource(DataSourceProperties properties) {
+        return pool(properties, "reporting");
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("interactiveDataSource") HikariDataSource interactiveDataSource,
+            @Qualifier("reportingDataSource") HikariDataSource reportingDataSource) {
+        WorkloadRoutingDataSource dataSource = new WorkloadRoutingDataSource();
+        dataSource.setTargetDataSources(Map.of(
+                WorkloadType.INTERACTIVE, interactiveDataSource,
+                WorkloadType.REPORTING, reportingDataSource));
+        dataSource.setDefaultTargetDataSource(interactiveDataSource);
+        return dataSource;
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, String name) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,32 @@
+package com.riccardo.giangiulio.gestionescuola.config;
+
+/**
+ * Classe di carico del thread corrente, letta da {@link WorkloadRoutingDataSource} per scegliere il pool.
+ */
+public final class WorkloadContext {
+
+    private static final ThreadLocal<WorkloadType> CURRENT = new ThreadLocal<>();
+
+    private WorkloadContext() {
+    }
+
+    /**
+     * Classe di carico del thread corrente; {@link WorkloadType#INTERACTIVE} se non è stata dichiarata.
+     */
+    public static WorkloadType current() {
+        WorkloadType workload = CURRENT.get();
+        return workload != null ? workload : WorkloadType.INTERACTIVE;
+    }
+
+    static WorkloadType get() {
+        return CURRENT.get();
+    }
+
+    static void set(WorkloadType workload) {
+        if (workload == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(workload);
+        }
+    }
+}
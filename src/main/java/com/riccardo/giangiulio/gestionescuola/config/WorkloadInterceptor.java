@@ -0,0 +1,67 @@
+package com.riccardo.giangiulio.gestionescuola.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Assegna ogni richiesta alla classe di carico dichiarata dal suo endpoint con {@link Workload}, prima che venga
+ * aperta qualsiasi connessione. Le richieste oltre il limite della classe ricevono 503 senza toccare il database.
+ */
+@Component
+public class WorkloadInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String SCOPE_ATTRIBUTE = WorkloadInterceptor.class.getName() + ".scope";
+
+    private final WorkloadLimiter workloadLimiter;
+
+    @Autowired
+    public WorkloadInterceptor(WorkloadLimiter workloadLimiter) {
+        this.workloadLimiter = workloadLimiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(SCOPE_ATTRIBUTE, workloadLimiter.enter(workloadOf(handler)));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        release(request);
+    }
+
+    // Le risposte asincrone liberano il posto quando il thread della richiesta termina
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        release(request);
+    }
+
+    private static void release(HttpServletRequest request) {
+        Object scope = request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope instanceof WorkloadLimiter.Scope workloadScope) {
+            request.removeAttribute(SCOPE_ATTRIBUTE);
+            workloadScope.close();
+        }
+    }
+
+    static WorkloadType workloadOf(Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            Workload workload = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), Workload.class);
+            if (workload == null) {
+                workload = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), Workload.class);
+            }
+            if (workload != null) {
+                return workload.value();
+            }
+        }
+        return WorkloadType.INTERACTIVE;
+    }
+}
@@ -0,0 +1,166 @@
+package com.riccardo.giangiulio.gestionescuola.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.riccardo.giangiulio.gestionescuola.exception.OverloadException.WorkloadSaturatedException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Limite di concorrenza per classe di carico: al più {@code max-concurrent} operazioni in corso, le altre attendono
+ * in coda (in ordine di arrivo) fino a {@code queue-timeout-ms} e poi ricevono 503 con Retry-After.
+ * Le metriche {@code gestionescuola.workload.*} sono etichettate con {@code workload}, così la saturazione di
+ * una classe è visibile separatamente insieme alle metriche {@code hikaricp.*} del suo pool.
+ */
+@Component
+public class WorkloadLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkloadLimiter.class);
+
+    private static final Scope NO_OP = () -> { };
+
+    private final Map<WorkloadType, Bulkhead> bulkheads = new EnumMap<>(WorkloadType.class);
+    private final long retryAfterSeconds;
+
+    @Autowired
+    public WorkloadLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${myapp.workload.interactive.max-concurrent:200}") int interactiveMaxConcurrent,
+            @Value("${myapp.workload.interactive.queue-timeout-ms:1000}") long interactiveQueueTimeoutMs,
+            @Value("${myapp.workload.reporting.max-concurrent:4}") int reportingMaxConcurrent,
+            @Value("${myapp.workload.reporting.queue-timeout-ms:2000}") long reportingQueueTimeoutMs,
+            @Value("${myapp.workload.retry-after-seconds:5}") long retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+        bulkheads.put(WorkloadType.INTERACTIVE, new Bulkhead(
+                WorkloadType.INTERACTIVE, interactiveMaxConcurrent, interactiveQueueTimeoutMs, meterRegistry));
+        bulkheads.put(WorkloadType.REPORTING, new Bulkhead(
+                WorkloadType.REPORTING, reportingMaxConcurrent, reportingQueueTimeoutMs, meterRegistry));
+        log.info("WorkloadLimiter initialized: interactive {} concurrent ({} ms queue), "
+                + "reporting {} concurrent ({} ms queue)",
+                interactiveMaxConcurrent, interactiveQueueTimeoutMs, reportingMaxConcurrent, reportingQueueTimeoutMs);
+    }
+
+    /**
+     * Entra nella classe di carico indicata sul thread corrente, attendendo un posto libero al più per il timeout
+     * di coda. Se il thread è già in quella classe non occupa un secondo posto. La chiusura dello {@link Scope}
+     * libera il posto e ripristina la classe precedente.
+     */
+    public Scope enter(WorkloadType workload) {
+        WorkloadType previous = WorkloadContext.get();
+        if (previous == workload) {
+            return NO_OP;
+        }
+        Bulkhead bulkhead = bulkheads.get(workload);
+        bulkhead.acquire();
+        return occupy(workload, previous, bulkhead);
+    }
+
+    /**
+     * Come {@link #enter}, ma attende un posto libero senza timeout di coda: per le operazioni già accodate
+     * altrove, come i job di export, che non hanno un client a cui rispondere 503.
+     */
+    public Scope enterWhenAvailable(WorkloadType workload) throws InterruptedException {
+        WorkloadType previous = WorkloadContext.get();
+        if (previous == workload) {
+            return NO_OP;
+        }
+        Bulkhead bulkhead = bulkheads.get(workload);
+        bulkhead.acquireWithoutTimeout();
+        return occupy(workload, previous, bulkhead);
+    }
+
+    private Scope occupy(WorkloadType workload, WorkloadType previous, Bulkhead bulkhead) {
+        WorkloadContext.set(workload);
+        return () -> {
+            WorkloadContext.set(previous);
+            bulkhead.release();
+        };
+    }
+
+    /**
+     * Posto occupato in una classe di carico, da chiudere al termine dell'operazione.
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private final class Bulkhead {
+
+        private final WorkloadType workload;
+        private final long queueTimeoutMs;
+        private final Semaphore permits;
+        private final Timer waitTimer;
+        private final Counter rejected;
+
+        Bulkhead(WorkloadType workload, int maxConcurrent, long queueTimeoutMs, MeterRegistry meterRegistry) {
+            this.workload = workload;
+            this.queueTimeoutMs = queueTimeoutMs;
+            this.permits = new Semaphore(maxConcurrent, true);
+
+            Gauge.builder("gestionescuola.workload.active", permits, p -> maxConcurrent - p.availablePermits())
+                    .description("Operations currently running in the workload class")
+                    .tag("workload", workload.tag())
+                    .register(meterRegistry);
+            Gauge.builder("gestionescuola.workload.queued", permits, Semaphore::getQueueLength)
+                    .description("Operations waiting for a free slot in the workload class")
+                    .tag("workload", workload.tag())
+                    .register(meterRegistry);
+            Gauge.builder("gestionescuola.workload.limit", () -> maxConcurrent)
+                    .description("Maximum concurrent operations of the workload class")
+                    .tag("workload", workload.tag())
+                    .register(meterRegistry);
+            this.waitTimer = Timer.builder("gestionescuola.workload.wait")
+                    .description("Time spent waiting for a free slot in the workload class")
+                    .tag("workload", workload.tag())
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("gestionescuola.workload.rejected")
+                    .description("Operations rejected after the queue timeout of the workload class")
+                    .tag("workload", workload.tag())
+                    .register(meterRegistry);
+        }
+
+        void acquire() {
+            long start = System.nanoTime();
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(queueTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (!acquired) {
+                rejected.increment();
+                throw new WorkloadSaturatedException(workload.tag(), retryAfterSeconds);
+            }
+        }
+
+        void acquireWithoutTimeout() throws InterruptedException {
+            long start = System.nanoTime();
+            try {
+                permits.acquire();
+            } finally {
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        void release() {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.riccardo.giangiulio.gestionescuola.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Instrada ogni nuova connessione verso il pool della classe di carico corrente. La scelta avviene quando la
+ * transazione (o la sessione JPA) chiede la connessione: il cambio di classe a transazione aperta non ha effetto.
+ */
+class WorkloadRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return WorkloadContext.current();
+    }
+}
@@ -0,0 +1,17 @@
+package com.riccardo.giangiulio.gestionescuola.config;
+
+/**
+ * Classi di carico con pool di connessioni e limiti di concorrenza separati.
+ */
+public enum WorkloadType {
+
+    // Operazioni brevi degli utenti: orario, appello, letture e scritture puntuali
+    INTERACTIVE,
+
+    // Export, backup ed elenchi completi: poche richieste lunghe che non devono sottrarre connessioni alle altre
+    REPORTING;
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
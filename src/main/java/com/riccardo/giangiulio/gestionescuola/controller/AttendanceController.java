@@ -1,10 +1,14 @@
 package com.riccardo.giangiulio.gestionescuola.controller;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -14,15 +18,24 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.riccardo.giangiulio.gestionescuola.config.Workload;
+import com.riccardo.giangiulio.gestionescuola.config.WorkloadType;
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSet;
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSetSpecs;
 import com.riccardo.giangiulio.gestionescuola.dto.mapper.AttendanceMapperDTO;
 import com.riccardo.giangiulio.gestionescuola.dto.model.AttendanceDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.MultiGetDTO;
+import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.AttendanceNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.model.Attendance;
 import com.riccardo.giangiulio.gestionescuola.model.Lesson;
 import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 import com.riccardo.giangiulio.gestionescuola.service.AttendanceService;
+import com.riccardo.giangiulio.gestionescuola.service.FieldSetQueryService;
 import com.riccardo.giangiulio.gestionescuola.service.LessonService;
 import com.riccardo.giangiulio.gestionescuola.service.SchoolClassService;
 import com.riccardo.giangiulio.gestionescuola.service.UserService;
@@ -40,21 +53,32 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Attendance Controller", description = "API for the management of attendances")
 public class AttendanceController {
     
+    private static final Sort BY_ID = Sort.by("id");
+    
     private final AttendanceService attendanceService;
     private final UserService userService;
     private final LessonService lessonService;
     private final SchoolClassService schoolClassService;
+    private final AttendanceStreamPublisher attendanceStreamPublisher;
+    private final long streamTimeoutMs;
+    private final FieldSetQueryService fieldSetQueryService;
     
     @Autowired
     public AttendanceController(
             AttendanceService attendanceService,
             UserService userService,
             LessonService lessonService,
-            SchoolClassService schoolClassService) {
+            SchoolClassService schoolClassService,
+            AttendanceStreamPublisher attendanceStreamPublisher,
+            @Value("${myapp.attendance.stream.timeout-ms:1800000}") long streamTimeoutMs,
+            FieldSetQueryService fieldSetQueryService) {
         this.attendanceService = attendanceService;
         this.userService = userService;
         this.lessonService = lessonService;
         this.schoolClassService = schoolClassService;
+        this.attendanceStreamPublisher = attendanceStreamPublisher;
+        this.streamTimeoutMs = streamTimeoutMs;
+        this.fieldSetQueryService = fieldSetQueryService;
     }
     
     @Operation(summary = "Get attendance by ID", description = "Returns an attendance based on the specified ID")
@@ -65,12 +89,33 @@ public class AttendanceController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
     @GetMapping("/{id}")
-    public ResponseEntity<AttendanceDTO> getAttendanceById(
-            @Parameter(description = "ID of the attendance to search for") @PathVariable Long id) {
+    public ResponseEntity<?> getAttendanceById(
+            @Parameter(description = "ID of the attendance to search for") @PathVariable Long id,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(fieldSetQueryService.findById(Attendance.class, FieldSet.parse(fields, FieldSetSpecs.ATTENDANCE), id)
+                    .orElseThrow(() -> new AttendanceNotFoundException(id)));
+        }
         Attendance attendance = attendanceService.findById(id);
         AttendanceDTO attendanceDTO = AttendanceMapperDTO.toDTO(attendance);
         return ResponseEntity.ok(attendanceDTO);
     }
+
+    @Operation(summary = "Get attendances by IDs", description = "Returns the attendances with the specified IDs in a single request, in the requested order, and the IDs that were not found")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Attendances found, missing IDs listed in missingIds"),
+        @ApiResponse(responseCode = "400", description = "Empty ID list or more than " + MultiGetRequests.MAX_IDS + " IDs"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDTO<AttendanceDTO>> getAttendancesByIds(
+            @Parameter(description = MultiGetRequests.PARAMETER_DESCRIPTION) @RequestParam List<Long> ids) {
+        List<Long> requestedIds = MultiGetRequests.distinctIds(ids);
+        List<Attendance> attendances = attendanceService.findAllByIds(requestedIds);
+        return ResponseEntity.ok(MultiGetRequests.response(
+                requestedIds, attendances, Attendance::getId, AttendanceMapperDTO::toDTO));
+    }
     
     @Operation(summary = "Get all attendances", description = "Returns the list of all attendances")
     @ApiResponses(value = {
@@ -78,8 +123,13 @@ public class AttendanceController {
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PreAuthorize("hasRole('ADMIN')")
+    @Workload(WorkloadType.REPORTING)
     @GetMapping
-    public ResponseEntity<List<AttendanceDTO>> getAllAttendances() {
+    public ResponseEntity<?> getAllAttendances(
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(fieldSetQueryService.findAll(Attendance.class, FieldSet.parse(fields, FieldSetSpecs.ATTENDANCE), null, BY_ID));
+        }
         List<AttendanceDTO> attendanceDTOs = attendanceService.findAll().stream()
                 .map(AttendanceMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -148,6 +198,24 @@ public class AttendanceController {
         return ResponseEntity.ok(attendanceDTOs);
     }
     
+    @Operation(summary = "Stream attendances of a lesson", 
+               description = "Server-Sent Events stream: a 'snapshot' event with the current attendances of the lesson, then 'attendance-created', 'attendance-updated' and 'attendance-deleted' events as they are committed. Changes are idempotent upserts and deletions by ID")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Stream opened"),
+        @ApiResponse(responseCode = "404", description = "Lesson not found"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    @GetMapping(value = "/lesson/{lessonId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAttendancesByLesson(
+            @Parameter(description = "ID of the lesson") @PathVariable Long lessonId) throws IOException {
+        lessonService.findById(lessonId);
+        return attendanceStreamPublisher.subscribe(lessonId, new SseEmitter(streamTimeoutMs),
+                () -> attendanceService.findByLessonIdWithDetails(lessonId).stream()
+                        .map(AttendanceMapperDTO::toDTO)
+                        .collect(Collectors.toList()));
+    }
+    
     @Operation(summary = "Get attendances by student", description = "Returns the list of attendances for a specific student")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "List of attendances found"),
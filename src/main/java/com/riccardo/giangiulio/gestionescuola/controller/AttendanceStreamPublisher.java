@@ -0,0 +1,250 @@
+package com.riccardo.giangiulio.gestionescuola.controller;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.riccardo.giangiulio.gestionescuola.dto.mapper.AttendanceMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.AttendanceDTO;
+import com.riccardo.giangiulio.gestionescuola.service.AttendanceChangedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Distribuisce le variazioni delle presenze agli stream SSE aperti su ciascuna lezione.
+ * Ogni evento viene serializzato una sola volta dopo il commit e accodato nel buffer limitato di ogni iscritto;
+ * i buffer vengono svuotati da un pool di invio condiviso, quindi nessun thread resta occupato da un client
+ * in attesa. Un iscritto troppo lento da riempire il buffer viene chiuso: alla riconnessione riceve un nuovo snapshot.
+ */
+@Component
+public class AttendanceStreamPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceStreamPublisher.class);
+
+    static final String SNAPSHOT_EVENT = "snapshot";
+
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final ExecutorService sendExecutor;
+    private final Map<Long, Set<Subscriber>> subscribersByLesson = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicLong eventSequence = new AtomicLong();
+    private final Counter droppedSubscribers;
+
+    @Autowired
+    public AttendanceStreamPublisher(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${myapp.attendance.stream.buffer-size:256}") int bufferSize,
+            @Value("${myapp.attendance.stream.sender-threads:4}") int senderThreads,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.sendExecutor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("attendance-stream-", 1).factory())
+                : Executors.newFixedThreadPool(senderThreads,
+                        Thread.ofPlatform().name("attendance-stream-", 1).daemon(true).factory());
+
+        Gauge.builder("gestionescuola.attendance.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open attendance SSE streams")
+                .register(meterRegistry);
+        this.droppedSubscribers = Counter.builder("gestionescuola.attendance.stream.dropped")
+                .description("Attendance SSE streams closed because their buffer was full")
+                .register(meterRegistry);
+
+        log.info("AttendanceStreamPublisher initialized with buffer size {} and {} sender threads",
+                bufferSize, virtualThreads ? "virtual" : String.valueOf(senderThreads));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribersByLesson.values().forEach(subscribers -> subscribers.forEach(Subscriber::complete));
+        sendExecutor.shutdownNow();
+    }
+
+    /**
+     * Iscrive l'emitter alla lezione e gli invia lo snapshot corrente, seguito dalle sole variazioni.
+     * L'iscrizione avviene prima di leggere lo snapshot: una variazione concorrente può arrivare anche dopo
+     * lo snapshot che già la contiene, ma le variazioni sono idempotenti (inserimento o sostituzione per id).
+     */
+    public SseEmitter subscribe(Long lessonId, SseEmitter emitter, SnapshotLoader snapshotLoader) throws IOException {
+        Subscriber subscriber = new Subscriber(lessonId, emitter);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+        subscribersByLesson.computeIfAbsent(lessonId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        subscriberCount.incrementAndGet();
+
+        try {
+            StreamEvent snapshot = event(SNAPSHOT_EVENT, snapshotLoader.load());
+            emitter.send(snapshot.toSseEvent());
+        } catch (IOException | RuntimeException e) {
+            unsubscribe(subscriber);
+            throw e;
+        }
+        subscriber.start();
+        return emitter;
+    }
+
+    /**
+     * Dopo il commit: la variazione viene inviata solo se è stata effettivamente salvata.
+     */
+    @TransactionalEventListener
+    public void onAttendanceChanged(AttendanceChangedEvent event) {
+        Supplier<Object> deleted = () -> Map.of("id", event.getAttendanceId());
+        if (event.getPreviousLessonId() != null) {
+            publish(event.getPreviousLessonId(), "attendance-deleted", deleted);
+        }
+        switch (event.getOperation()) {
+            case CREATED -> publish(event.getLessonId(), "attendance-created",
+                    () -> AttendanceMapperDTO.toDTO(event.getAttendance()));
+            case UPDATED -> publish(event.getLessonId(), "attendance-updated",
+                    () -> AttendanceMapperDTO.toDTO(event.getAttendance()));
+            case DELETED -> publish(event.getLessonId(), "attendance-deleted", deleted);
+        }
+    }
+
+    /**
+     * Commento periodico: mantiene aperte le connessioni attraverso i proxy e fa emergere i client disconnessi.
+     */
+    @Scheduled(fixedDelayString = "${myapp.attendance.stream.heartbeat-interval-ms:30000}")
+    public void sendHeartbeat() {
+        StreamEvent heartbeat = new StreamEvent(null, 0, null);
+        subscribersByLesson.values().forEach(subscribers -> subscribers.forEach(s -> s.offer(heartbeat)));
+    }
+
+    int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    // Il DTO viene costruito solo se la lezione ha almeno un iscritto
+    private void publish(Long lessonId, String name, Supplier<Object> data) {
+        Set<Subscriber> subscribers = subscribersByLesson.get(lessonId);
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        StreamEvent event = event(name, data.get());
+        subscribers.forEach(subscriber -> subscriber.offer(event));
+    }
+
+    private StreamEvent event(String name, Object data) {
+        try {
+            return new StreamEvent(name, eventSequence.incrementAndGet(), objectMapper.writeValueAsString(data));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize attendance stream event " + name, e);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (subscriber.closed.compareAndSet(false, true)) {
+            subscribersByLesson.computeIfPresent(subscriber.lessonId, (id, subscribers) -> {
+                subscribers.remove(subscriber);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    @FunctionalInterface
+    public interface SnapshotLoader {
+        List<AttendanceDTO> load();
+    }
+
+    /**
+     * Evento già serializzato in JSON, condiviso tra tutti gli iscritti; senza nome è un commento di heartbeat.
+     */
+    private record StreamEvent(String name, long id, String json) {
+
+        SseEmitter.SseEventBuilder toSseEvent() {
+            if (name == null) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            return SseEmitter.event().id(String.valueOf(id)).name(name).data(json);
+        }
+    }
+
+    private final class Subscriber {
+
+        private final Long lessonId;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<StreamEvent> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean started;
+
+        Subscriber(Long lessonId, SseEmitter emitter) {
+            this.lessonId = lessonId;
+            this.emitter = emitter;
+        }
+
+        void start() {
+            started = true;
+            scheduleDrain();
+        }
+
+        void offer(StreamEvent event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                log.warn("Attendance stream for lesson {} is too slow, closing it", lessonId);
+                droppedSubscribers.increment();
+                complete();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        void complete() {
+            unsubscribe(this);
+            emitter.complete();
+        }
+
+        private void scheduleDrain() {
+            if (started && !buffer.isEmpty() && draining.compareAndSet(false, true)) {
+                sendExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                StreamEvent event;
+                while (!closed.get() && (event = buffer.poll()) != null) {
+                    emitter.send(event.toSseEvent());
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client disconnesso o emitter già completato
+                unsubscribe(this);
+                emitter.completeWithError(e);
+            } finally {
+                draining.set(false);
+            }
+            if (!closed.get()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package com.riccardo.giangiulio.gestionescuola.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -22,8 +27,11 @@ import com.riccardo.giangiulio.gestionescuola.spring_jwt.payload.request.SignupR
 import com.riccardo.giangiulio.gestionescuola.spring_jwt.payload.response.JwtResponse;
 import com.riccardo.giangiulio.gestionescuola.spring_jwt.payload.response.MessageResponse;
 import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.jwt.JwtUtils;
+import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services.TokenRevocationService;
 import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services.UserDetailsImpl;
 
+import io.jsonwebtoken.Claims;
+
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -51,6 +59,9 @@ public class AuthController {
   @Autowired
   JwtUtils jwtUtils;
 
+  @Autowired
+  TokenRevocationService tokenRevocationService;
+
   /**
   * Gestisce il login degli utenti.
   */
@@ -140,4 +151,47 @@ public class AuthController {
     
     return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
   }
+
+  /**
+   * Revoca il token usato nella richiesta (logout).
+   */
+  @Operation(summary = "Logout utente", description = "Revoca il token JWT corrente fino alla sua scadenza")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Logout completato con successo", 
+                   content = @Content(schema = @Schema(implementation = MessageResponse.class))),
+      @ApiResponse(responseCode = "401", description = "Token mancante o non valido")
+  })
+  @PostMapping("/signout")
+  @PreAuthorize("isAuthenticated()")
+  public ResponseEntity<?> signOut(
+          @Parameter(hidden = true) @RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+    Claims claims = jwtUtils.parseJwtToken(authorization.substring("Bearer ".length()));
+    if (claims == null) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new MessageResponse("Error: Invalid token."));
+    }
+
+    tokenRevocationService.revoke(claims.getId(),
+        claims.get(JwtUtils.CLAIM_USER_ID, Long.class),
+        claims.getExpiration().toInstant());
+
+    return ResponseEntity.ok(new MessageResponse("User signed out successfully!"));
+  }
+
+  /**
+   * Revoca tutti i token emessi per un utente (ad esempio in caso di furto delle credenziali).
+   */
+  @Operation(summary = "Revoca di tutti i token", description = "Invalida tutti i token JWT emessi per l'utente indicato")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Token revocati con successo", 
+                   content = @Content(schema = @Schema(implementation = MessageResponse.class))),
+      @ApiResponse(responseCode = "403", description = "Accesso negato - Autorizzazione insufficiente"),
+      @ApiResponse(responseCode = "404", description = "Utente non trovato")
+  })
+  @PostMapping("/revoke-all/{userId}")
+  @PreAuthorize("hasRole('ADMIN') or #userId == authentication.principal.id")
+  public ResponseEntity<?> revokeAllTokens(
+          @Parameter(description = "ID dell'utente") @PathVariable Long userId) {
+    userService.revokeAllTokens(userId);
+    return ResponseEntity.ok(new MessageResponse("All tokens revoked successfully!"));
+  }
 }
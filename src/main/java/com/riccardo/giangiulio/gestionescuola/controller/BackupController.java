@@ -0,0 +1,99 @@
+package com.riccardo.giangiulio.gestionescuola.controller;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.riccardo.giangiulio.gestionescuola.config.Workload;
+import com.riccardo.giangiulio.gestionescuola.config.WorkloadType;
+import com.riccardo.giangiulio.gestionescuola.model.BackupFormat;
+import com.riccardo.giangiulio.gestionescuola.service.BackupService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@RestController
+@RequestMapping("/api/backup")
+@Tag(name = "Backup Controller", description = "API for the full logical backup and restore of the data")
+@Workload(WorkloadType.REPORTING)
+public class BackupController {
+    
+    private static final Logger log = LoggerFactory.getLogger(BackupController.class);
+    private static final DateTimeFormatter FILENAME_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final BackupService backupService;
+    
+    @Autowired
+    public BackupController(BackupService backupService) {
+        this.backupService = backupService;
+        log.info("BackupController initialized");
+    }
+    
+    @Operation(summary = "Download a full backup", 
+               description = "Stream every table in a ZIP archive, one entry per table in NDJSON or PostgreSQL binary COPY format")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Backup streamed successfully"),
+        @ApiResponse(responseCode = "403", description = "Access denied - Insufficient authorization"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public void downloadBackup(
+            @Parameter(description = "Format of the tables in the archive") 
+            @RequestParam(defaultValue = "COPY") BackupFormat format,
+            HttpServletResponse response) throws IOException {
+        log.info("Request to download a {} backup", format);
+        
+        String filename = "gestione-scuola-" + LocalDateTime.now().format(FILENAME_TIMESTAMP) + "-"
+            + format.getFileExtension() + ".zip";
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+        
+        try (OutputStream out = new BufferedOutputStream(response.getOutputStream(), BUFFER_SIZE)) {
+            backupService.writeBackup(format, out);
+        }
+    }
+    
+    @Operation(summary = "Restore a full backup", 
+               description = "Replace all the data with the content of a backup archive sent as the request body. The restore runs in a single transaction")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Backup restored successfully, rows restored per table"),
+        @ApiResponse(responseCode = "400", description = "Invalid backup archive"),
+        @ApiResponse(responseCode = "403", description = "Access denied - Insufficient authorization"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping(value = "/restore", consumes = {"application/zip", "application/octet-stream"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Long>> restoreBackup(HttpServletRequest request) throws IOException {
+        log.info("Request to restore a backup");
+        
+        // Il corpo della richiesta viene letto in streaming, senza salvarlo in memoria o su disco
+        try (InputStream in = new BufferedInputStream(request.getInputStream(), BUFFER_SIZE)) {
+            Map<String, Long> restoredRows = backupService.restore(in);
+            return ResponseEntity.ok(restoredRows);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.riccardo.giangiulio.gestionescuola.controller;
+
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.riccardo.giangiulio.gestionescuola.dto.mapper.ChangeLogMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.ChangeFeedDTO;
+import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidChangeFeedRequestException;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeEntityType;
+import com.riccardo.giangiulio.gestionescuola.service.ChangeFeed;
+import com.riccardo.giangiulio.gestionescuola.service.ChangeLogService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/changes")
+@Tag(name = "Change Controller", description = "API for incremental synchronization of lessons, exams and registrations")
+public class ChangeController {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeController.class);
+
+    static final int MAX_LIMIT = 1000;
+
+    private final ChangeLogService changeLogService;
+
+    @Autowired
+    public ChangeController(ChangeLogService changeLogService) {
+        this.changeLogService = changeLogService;
+        log.info("ChangeController initialized");
+    }
+
+    @Operation(summary = "Get changes since a cursor",
+               description = "Returns the entities created, updated or deleted after the cursor, in commit order, and the cursor for the next request. "
+                   + "Only the latest change of each entity is guaranteed to be kept. Without a cursor, or when the cursor is too old, "
+                   + "the response has resync=true: reload the full collections, then continue from the returned cursor")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Changes found"),
+        @ApiResponse(responseCode = "400", description = "Invalid limit or entity type"),
+        @ApiResponse(responseCode = "403", description = "Access denied - Insufficient authorization")
+    })
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
+    @GetMapping
+    public ResponseEntity<ChangeFeedDTO> getChanges(
+            @Parameter(description = "Cursor returned by the previous request") @RequestParam(required = false) String since,
+            @Parameter(description = "Comma-separated entity types (LESSON, EXAM, REGISTRATION), all if omitted")
+            @RequestParam(required = false) Set<ChangeEntityType> types,
+            @Parameter(description = "Maximum number of changes, at most " + MAX_LIMIT)
+            @RequestParam(defaultValue = "500") int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new InvalidChangeFeedRequestException("The limit must be between 1 and " + MAX_LIMIT);
+        }
+        ChangeFeed feed = changeLogService.getChanges(since, types, limit);
+        return ResponseEntity.ok(ChangeLogMapperDTO.toDTO(feed));
+    }
+}
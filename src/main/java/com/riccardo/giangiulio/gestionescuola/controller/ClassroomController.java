@@ -1,10 +1,13 @@
 package com.riccardo.giangiulio.gestionescuola.controller;
 
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -18,11 +21,19 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSet;
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSetSpecs;
 import com.riccardo.giangiulio.gestionescuola.dto.mapper.ClassroomMapperDTO;
 import com.riccardo.giangiulio.gestionescuola.dto.model.ClassroomDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.MultiGetDTO;
+import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.ClassroomNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.model.Classroom;
 import com.riccardo.giangiulio.gestionescuola.service.ClassroomService;
+import com.riccardo.giangiulio.gestionescuola.service.DataVersionService.DataSet;
+import com.riccardo.giangiulio.gestionescuola.service.EntityTagService;
+import com.riccardo.giangiulio.gestionescuola.service.FieldSetQueryService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -37,36 +48,81 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Classroom Controller", description = "API for the management of classrooms")
 public class ClassroomController {
     
+    private static final Set<DataSet> CLASSROOM_NESTED_DATA = EnumSet.noneOf(DataSet.class);
+    private static final Set<DataSet> CLASSROOM_DATA = EnumSet.of(DataSet.CLASSROOMS);
+    
+    private static final Sort BY_ID = Sort.by("id");
+    
     private final ClassroomService classroomService;
+    private final EntityTagService entityTagService;
+    private final FieldSetQueryService fieldSetQueryService;
     
     @Autowired
-    public ClassroomController(ClassroomService classroomService) {
+    public ClassroomController(ClassroomService classroomService, EntityTagService entityTagService,
+            FieldSetQueryService fieldSetQueryService) {
         this.classroomService = classroomService;
+        this.entityTagService = entityTagService;
+        this.fieldSetQueryService = fieldSetQueryService;
     }
     
     @Operation(summary = "Get classroom by ID", description = "Returns a classroom based on the specified ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Classroom found", content = @Content(schema = @Schema(implementation = ClassroomDTO.class))),
+        @ApiResponse(responseCode = "304", description = "Resource not modified since the version identified by If-None-Match"),
         @ApiResponse(responseCode = "404", description = "Classroom not found"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
     @GetMapping("/{id}")
-    public ResponseEntity<ClassroomDTO> getClassroomById(
-            @Parameter(description = "ID of the classroom to search for") @PathVariable Long id) {
+    public ResponseEntity<?> getClassroomById(
+            @Parameter(description = "ID of the classroom to search for") @PathVariable Long id,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        if (ConditionalRequests.checkNotModified(webRequest, classroomTag(id, classroomService.findVersionById(id)))) {
+            return null;
+        }
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(fieldSetQueryService.findById(Classroom.class, FieldSet.parse(fields, FieldSetSpecs.CLASSROOM), id)
+                    .orElseThrow(() -> new ClassroomNotFoundException(id)));
+        }
         Classroom classroom = classroomService.findById(id);
         ClassroomDTO classroomDTO = ClassroomMapperDTO.toDTO(classroom);
         return ResponseEntity.ok(classroomDTO);
     }
+
+    @Operation(summary = "Get classrooms by IDs", description = "Returns the classrooms with the specified IDs in a single request, in the requested order, and the IDs that were not found")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Classrooms found, missing IDs listed in missingIds"),
+        @ApiResponse(responseCode = "400", description = "Empty ID list or more than " + MultiGetRequests.MAX_IDS + " IDs"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDTO<ClassroomDTO>> getClassroomsByIds(
+            @Parameter(description = MultiGetRequests.PARAMETER_DESCRIPTION) @RequestParam List<Long> ids) {
+        List<Long> requestedIds = MultiGetRequests.distinctIds(ids);
+        List<Classroom> classrooms = classroomService.findAllByIds(requestedIds);
+        return ResponseEntity.ok(MultiGetRequests.response(
+                requestedIds, classrooms, Classroom::getId, ClassroomMapperDTO::toDTO));
+    }
     
     @Operation(summary = "Get all classrooms", description = "Returns the list of all classrooms")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "List of classrooms found"),
+        @ApiResponse(responseCode = "304", description = "List not modified since the version identified by If-None-Match"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping
-    public ResponseEntity<List<ClassroomDTO>> getAllClassrooms() {
+    public ResponseEntity<?> getAllClassrooms(
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        if (ConditionalRequests.checkNotModified(webRequest, entityTagService.collectionTag("classrooms", CLASSROOM_DATA))) {
+            return null;
+        }
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(fieldSetQueryService.findAll(Classroom.class, FieldSet.parse(fields, FieldSetSpecs.CLASSROOM), null, BY_ID));
+        }
         List<ClassroomDTO> classroomDTOs = classroomService.findAll().stream()
                 .map(ClassroomMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -90,6 +146,7 @@ public class ClassroomController {
     @Operation(summary = "Update a classroom", description = "Updates the data of an existing classroom")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Classroom updated successfully"),
+        @ApiResponse(responseCode = "412", description = "If-Match does not match the current version of the resource"),
         @ApiResponse(responseCode = "404", description = "Classroom not found"),
         @ApiResponse(responseCode = "400", description = "Invalid classroom data"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
@@ -98,9 +155,11 @@ public class ClassroomController {
     @PutMapping("/{id}")
     public ResponseEntity<Classroom> updateClassroom(
             @Parameter(description = "ID of the classroom to update") @PathVariable Long id,
-            @Parameter(description = "New data of the classroom") @RequestBody Classroom classroom) {
-        Classroom updatedClassroom = classroomService.update(id, classroom);
-        return ResponseEntity.ok(updatedClassroom);
+            @Parameter(description = "New data of the classroom") @RequestBody Classroom classroom,
+            WebRequest webRequest) {
+        Long expectedVersion = ConditionalRequests.expectedVersion(webRequest, entityTagService, "classroom", id);
+        Classroom updatedClassroom = classroomService.update(id, classroom, expectedVersion);
+        return ResponseEntity.ok().eTag(ConditionalRequests.representationTag(webRequest, classroomTag(id, updatedClassroom.getVersion()))).body(updatedClassroom);
     }
     
     @Operation(summary = "Delete a classroom", description = "Deletes an existing classroom from the system")
@@ -220,4 +279,8 @@ public class ClassroomController {
         Boolean hasSufficientCapacity = classroomService.hasSufficientCapacity(classroomId, requiredCapacity);
         return ResponseEntity.ok(hasSufficientCapacity);
     }
+    
+    private String classroomTag(Long id, long version) {
+        return entityTagService.entityTag("classroom", id, version, CLASSROOM_NESTED_DATA);
+    }
 }
@@ -0,0 +1,95 @@
+package com.riccardo.giangiulio.gestionescuola.controller;
+
+import java.util.List;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import com.riccardo.giangiulio.gestionescuola.service.EntityTagService;
+
+/**
+ * Letture condizionali dei dati di riferimento.
+ * Senza un {@code Cache-Control} esplicito Spring Security imposta {@code no-store} e il browser non conserverebbe
+ * mai la risposta da rivalidare con {@code If-None-Match}: qui si chiede invece di rivalidare a ogni utilizzo.
+ * L'ETag è forte e quindi identifica i byte della risposta: alla versione dei dati si aggiunge la codifica negoziata
+ * ({@code +cbor}, {@code +smile}; nessun suffisso per il JSON) e {@code Vary: Accept} impedisce a una cache di
+ * restituire una codifica diversa da quella richiesta.
+ * Gli aggiornamenti con {@code If-Match} non confrontano l'ETag qui: la versione attesa viene passata al service e
+ * verificata nella stessa transazione che scrive la riga.
+ */
+final class ConditionalRequests {
+
+    private static final String REVALIDATE = CacheControl.noCache().cachePrivate().getHeaderValue();
+    private static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * Imposta ETag e {@code Cache-Control}; restituisce {@code true} se la risposta è già stata completata
+     * con {@code 304 Not Modified} e il controller deve restituire {@code null}.
+     */
+    static boolean checkNotModified(WebRequest webRequest, String etag) {
+        if (webRequest instanceof ServletWebRequest servletWebRequest && servletWebRequest.getResponse() != null) {
+            servletWebRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE);
+            servletWebRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        return webRequest.checkNotModified(representationTag(webRequest, etag));
+    }
+
+    /**
+     * ETag della rappresentazione che verrà inviata: quello dei dati con il suffisso della codifica scelta
+     * dall'header {@code Accept}, con la stessa precedenza dei convertitori (JSON, poi CBOR e Smile).
+     */
+    static String representationTag(WebRequest webRequest, String etag) {
+        String suffix = encodingSuffix(webRequest.getHeader(HttpHeaders.ACCEPT));
+        return suffix.isEmpty() ? etag : etag.substring(0, etag.length() - 1) + suffix + "\"";
+    }
+
+    private static String encodingSuffix(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return "";
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return "";
+        }
+        MimeTypeUtils.sortBySpecificity(acceptable);
+        for (MediaType mediaType : acceptable) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return "";
+            }
+            if (mediaType.isCompatibleWith(CBOR)) {
+                return "+cbor";
+            }
+            if (mediaType.isCompatibleWith(SMILE)) {
+                return "+smile";
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Versione attesa dall'header {@code If-Match}, oppure {@code null} se l'header manca o vale {@code *}.
+     * Con più ETag si considera il primo; un ETag che non appartiene alla risorsa restituisce una versione che non
+     * coincide mai con quella corrente.
+     */
+    static Long expectedVersion(WebRequest webRequest, EntityTagService entityTagService, String resource, Long id) {
+        String ifMatch = webRequest.getHeader(HttpHeaders.IF_MATCH);
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        return entityTagService.versionOf(resource, id, ifMatch.split(",")[0].trim());
+    }
+}
@@ -1,9 +1,12 @@
 package com.riccardo.giangiulio.gestionescuola.controller;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -16,11 +19,19 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSet;
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSetSpecs;
 import com.riccardo.giangiulio.gestionescuola.dto.mapper.CourseMapperDTO;
 import com.riccardo.giangiulio.gestionescuola.dto.model.CourseDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.MultiGetDTO;
+import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.CourseNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.model.Course;
 import com.riccardo.giangiulio.gestionescuola.service.CourseService;
+import com.riccardo.giangiulio.gestionescuola.service.DataVersionService.DataSet;
+import com.riccardo.giangiulio.gestionescuola.service.EntityTagService;
+import com.riccardo.giangiulio.gestionescuola.service.FieldSetQueryService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -35,36 +46,81 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Course Controller", description = "API for the management of courses")
 public class CourseController {
     
+    private static final Set<DataSet> COURSE_NESTED_DATA = EnumSet.of(DataSet.SUBJECTS, DataSet.EXAMS);
+    private static final Set<DataSet> COURSE_DATA = EnumSet.of(DataSet.COURSES, DataSet.SUBJECTS, DataSet.EXAMS);
+    
+    private static final Sort BY_ID = Sort.by("id");
+    
     private final CourseService courseService;
+    private final EntityTagService entityTagService;
+    private final FieldSetQueryService fieldSetQueryService;
     
     @Autowired
-    public CourseController(CourseService courseService) {
+    public CourseController(CourseService courseService, EntityTagService entityTagService,
+            FieldSetQueryService fieldSetQueryService) {
         this.courseService = courseService;
+        this.entityTagService = entityTagService;
+        this.fieldSetQueryService = fieldSetQueryService;
     }
     
     @Operation(summary = "Get course by ID", description = "Returns a course based on the specified ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Course found", content = @Content(schema = @Schema(implementation = CourseDTO.class))),
+        @ApiResponse(responseCode = "304", description = "Resource not modified since the version identified by If-None-Match"),
         @ApiResponse(responseCode = "404", description = "Course not found"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/{id}")
-    public ResponseEntity<CourseDTO> getCourseById(
-            @Parameter(description = "ID of the course to search for") @PathVariable Long id) {
+    public ResponseEntity<?> getCourseById(
+            @Parameter(description = "ID of the course to search for") @PathVariable Long id,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        if (ConditionalRequests.checkNotModified(webRequest, courseTag(id, courseService.findVersionById(id)))) {
+            return null;
+        }
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(fieldSetQueryService.findById(Course.class, FieldSet.parse(fields, FieldSetSpecs.COURSE), id)
+                    .orElseThrow(() -> new CourseNotFoundException(id)));
+        }
         Course course = courseService.findById(id);
         CourseDTO courseDTO = CourseMapperDTO.toDTO(course);
         return ResponseEntity.ok(courseDTO);
     }
+
+    @Operation(summary = "Get courses by IDs", description = "Returns the courses with the specified IDs in a single request, in the requested order, and the IDs that were not found")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Courses found, missing IDs listed in missingIds"),
+        @ApiResponse(responseCode = "400", description = "Empty ID list or more than " + MultiGetRequests.MAX_IDS + " IDs"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDTO<CourseDTO>> getCoursesByIds(
+            @Parameter(description = MultiGetRequests.PARAMETER_DESCRIPTION) @RequestParam List<Long> ids) {
+        List<Long> requestedIds = MultiGetRequests.distinctIds(ids);
+        List<Course> courses = courseService.findAllByIds(requestedIds);
+        return ResponseEntity.ok(MultiGetRequests.response(
+                requestedIds, courses, Course::getId, CourseMapperDTO::toDTO));
+    }
     
     @Operation(summary = "Get all courses", description = "Returns the list of all courses")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "List of courses found"),
+        @ApiResponse(responseCode = "304", description = "List not modified since the version identified by If-None-Match"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
     @GetMapping
-    public ResponseEntity<List<CourseDTO>> getAllCourses() {
+    public ResponseEntity<?> getAllCourses(
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        if (ConditionalRequests.checkNotModified(webRequest, entityTagService.collectionTag("courses", COURSE_DATA))) {
+            return null;
+        }
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(fieldSetQueryService.findAll(Course.class, FieldSet.parse(fields, FieldSetSpecs.COURSE), null, BY_ID));
+        }
         List<CourseDTO> courseDTOs = courseService.findAll().stream()
                 .map(CourseMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -88,6 +144,7 @@ public class CourseController {
     @Operation(summary = "Update a course", description = "Updates the data of an existing course")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Course updated successfully"),
+        @ApiResponse(responseCode = "412", description = "If-Match does not match the current version of the resource"),
         @ApiResponse(responseCode = "404", description = "Course not found"),
         @ApiResponse(responseCode = "400", description = "Invalid course data"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
@@ -96,10 +153,12 @@ public class CourseController {
     @PutMapping("/{id}")
     public ResponseEntity<CourseDTO> updateCourse(
             @Parameter(description = "ID of the course to update") @PathVariable Long id,
-            @Parameter(description = "New data of the course") @RequestBody Course course) {
-        Course updatedCourse = courseService.update(id, course);
+            @Parameter(description = "New data of the course") @RequestBody Course course,
+            WebRequest webRequest) {
+        Long expectedVersion = ConditionalRequests.expectedVersion(webRequest, entityTagService, "course", id);
+        Course updatedCourse = courseService.update(id, course, expectedVersion);
         CourseDTO courseDTO = CourseMapperDTO.toDTO(updatedCourse);
-        return ResponseEntity.ok(courseDTO);
+        return ResponseEntity.ok().eTag(ConditionalRequests.representationTag(webRequest, courseTag(id, updatedCourse.getVersion()))).body(courseDTO);
     }
     
     @Operation(summary = "Delete a course", description = "Deletes an existing course from the system")
@@ -190,4 +249,8 @@ public class CourseController {
         courseService.removeExam(courseId, examId);
         return ResponseEntity.ok("Exam with ID " + examId + " removed from course with ID " + courseId);
     }
+    
+    private String courseTag(Long id, long version) {
+        return entityTagService.entityTag("course", id, version, COURSE_NESTED_DATA);
+    }
 }
@@ -2,9 +2,13 @@ package com.riccardo.giangiulio.gestionescuola.controller;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,17 +23,24 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSet;
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSetSpecs;
 import com.riccardo.giangiulio.gestionescuola.dto.mapper.ExamMapperDTO;
 import com.riccardo.giangiulio.gestionescuola.dto.model.ExamDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.MultiGetDTO;
+import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.ExamNotFoundException;
+import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidTimeRangeException;
 import com.riccardo.giangiulio.gestionescuola.model.Classroom;
 import com.riccardo.giangiulio.gestionescuola.model.Course;
 import com.riccardo.giangiulio.gestionescuola.model.Exam;
 import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.Subject;
 import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.specification.ExamSpecifications;
 import com.riccardo.giangiulio.gestionescuola.service.ClassroomService;
 import com.riccardo.giangiulio.gestionescuola.service.CourseService;
 import com.riccardo.giangiulio.gestionescuola.service.ExamService;
+import com.riccardo.giangiulio.gestionescuola.service.FieldSetQueryService;
 import com.riccardo.giangiulio.gestionescuola.service.SchoolClassService;
 import com.riccardo.giangiulio.gestionescuola.service.SubjectService;
 import com.riccardo.giangiulio.gestionescuola.service.UserService;
@@ -47,7 +58,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Exam Controller", description = "API for the management of exams")
 public class ExamController {
     
+    private static final Sort BY_ID = Sort.by("id");
+    
     private final ExamService examService;
+    private final FieldSetQueryService fieldSetQueryService;
     private final ClassroomService classroomService;
     private final SubjectService subjectService;
     private final SchoolClassService schoolClassService;
@@ -61,13 +75,15 @@ public class ExamController {
             SubjectService subjectService,
             SchoolClassService schoolClassService,
             UserService userService,
-            CourseService courseService) {
+            CourseService courseService,
+            FieldSetQueryService fieldSetQueryService) {
         this.examService = examService;
         this.classroomService = classroomService;
         this.subjectService = subjectService;
         this.schoolClassService = schoolClassService;
         this.userService = userService;
         this.courseService = courseService;
+        this.fieldSetQueryService = fieldSetQueryService;
     }
     
     @Operation(summary = "Get exam by ID", description = "Returns an exam based on the specified ID")
@@ -78,12 +94,33 @@ public class ExamController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
     @GetMapping("/{id}")
-    public ResponseEntity<ExamDTO> getExamById(
-            @Parameter(description = "ID of the exam to search for") @PathVariable Long id) {
+    public ResponseEntity<?> getExamById(
+            @Parameter(description = "ID of the exam to search for") @PathVariable Long id,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, ExamSpecifications.hasId(id))
+                    .orElseThrow(() -> new ExamNotFoundException(id)));
+        }
         Exam exam = examService.findById(id);
         ExamDTO examDTO = ExamMapperDTO.toDTO(exam);
         return ResponseEntity.ok(examDTO);
     }
+
+    @Operation(summary = "Get exams by IDs", description = "Returns the exams with the specified IDs in a single request, in the requested order, and the IDs that were not found")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Exams found, missing IDs listed in missingIds"),
+        @ApiResponse(responseCode = "400", description = "Empty ID list or more than " + MultiGetRequests.MAX_IDS + " IDs"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDTO<ExamDTO>> getExamsByIds(
+            @Parameter(description = MultiGetRequests.PARAMETER_DESCRIPTION) @RequestParam List<Long> ids) {
+        List<Long> requestedIds = MultiGetRequests.distinctIds(ids);
+        List<Exam> exams = examService.findAllByIds(requestedIds);
+        return ResponseEntity.ok(MultiGetRequests.response(
+                requestedIds, exams, Exam::getId, ExamMapperDTO::toDTO));
+    }
     
     @Operation(summary = "Get all exams", description = "Returns the list of all exams")
     @ApiResponses(value = {
@@ -92,7 +129,11 @@ public class ExamController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
     @GetMapping
-    public ResponseEntity<List<ExamDTO>> getAllExams() {
+    public ResponseEntity<?> getAllExams(
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, null, BY_ID));
+        }
         List<ExamDTO> examDTOs = examService.findAll().stream()
                 .map(ExamMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -152,8 +193,13 @@ public class ExamController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
     @GetMapping("/title")
-    public ResponseEntity<ExamDTO> getExamByTitle(
-            @Parameter(description = "Title of the exam to search for") @RequestParam String title) {
+    public ResponseEntity<?> getExamByTitle(
+            @Parameter(description = "Title of the exam to search for") @RequestParam String title,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, ExamSpecifications.hasTitle(title))
+                    .orElseThrow(() -> new ExamNotFoundException(title)));
+        }
         Exam exam = examService.findByTitle(title);
         ExamDTO examDTO = ExamMapperDTO.toDTO(exam);
         return ResponseEntity.ok(examDTO);
@@ -166,9 +212,13 @@ public class ExamController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
     @GetMapping("/date")
-    public ResponseEntity<List<ExamDTO>> getExamsByDate(
+    public ResponseEntity<?> getExamsByDate(
             @Parameter(description = "Date of the exam to search for") 
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime date) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime date,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, ExamSpecifications.hasDate(date), BY_ID));
+        }
         List<ExamDTO> examDTOs = examService.findByDate(date).stream()
                 .map(ExamMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -183,9 +233,13 @@ public class ExamController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
     @GetMapping("/subject/{subjectId}")
-    public ResponseEntity<List<ExamDTO>> getExamsBySubject(
-            @Parameter(description = "ID of the subject") @PathVariable Long subjectId) {
+    public ResponseEntity<?> getExamsBySubject(
+            @Parameter(description = "ID of the subject") @PathVariable Long subjectId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
         Subject subject = subjectService.findById(subjectId);
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, ExamSpecifications.hasSubject(subject), BY_ID));
+        }
         List<ExamDTO> examDTOs = examService.findBySubject(subject).stream()
                 .map(ExamMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -200,9 +254,13 @@ public class ExamController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
     @GetMapping("/class/{classId}")
-    public ResponseEntity<List<ExamDTO>> getExamsBySchoolClass(
-            @Parameter(description = "ID of the school class") @PathVariable Long classId) {
+    public ResponseEntity<?> getExamsBySchoolClass(
+            @Parameter(description = "ID of the school class") @PathVariable Long classId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
         SchoolClass schoolClass = schoolClassService.findById(classId);
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, ExamSpecifications.hasSchoolClass(schoolClass), BY_ID));
+        }
         List<ExamDTO> examDTOs = examService.findBySchoolClass(schoolClass).stream()
                 .map(ExamMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -217,9 +275,13 @@ public class ExamController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
     @GetMapping("/teacher/{teacherId}")
-    public ResponseEntity<List<ExamDTO>> getExamsByTeacher(
-            @Parameter(description = "ID of the teacher") @PathVariable Long teacherId) {
+    public ResponseEntity<?> getExamsByTeacher(
+            @Parameter(description = "ID of the teacher") @PathVariable Long teacherId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
         User teacher = userService.findById(teacherId);
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, ExamSpecifications.hasTeacher(teacher), BY_ID));
+        }
         List<ExamDTO> examDTOs = examService.findByTeacher(teacher).stream()
                 .map(ExamMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -234,9 +296,13 @@ public class ExamController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
     @GetMapping("/classroom/{classroomId}")
-    public ResponseEntity<List<ExamDTO>> getExamsByClassroom(
-            @Parameter(description = "ID of the classroom") @PathVariable Long classroomId) {
+    public ResponseEntity<?> getExamsByClassroom(
+            @Parameter(description = "ID of the classroom") @PathVariable Long classroomId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
         Classroom classroom = classroomService.findById(classroomId);
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, ExamSpecifications.hasClassroom(classroom), BY_ID));
+        }
         List<ExamDTO> examDTOs = examService.findByClassroom(classroom).stream()
                 .map(ExamMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -251,9 +317,13 @@ public class ExamController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
     @GetMapping("/course/{courseId}")
-    public ResponseEntity<List<ExamDTO>> getExamsByCourse(
-            @Parameter(description = "ID of the course") @PathVariable Long courseId) {
+    public ResponseEntity<?> getExamsByCourse(
+            @Parameter(description = "ID of the course") @PathVariable Long courseId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
         Course course = courseService.findById(courseId);
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, ExamSpecifications.belongsToCourse(course), BY_ID));
+        }
         List<ExamDTO> examDTOs = examService.findByCourse(course).stream()
                 .map(ExamMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -268,11 +338,18 @@ public class ExamController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
     @GetMapping("/date-range")
-    public ResponseEntity<List<ExamDTO>> getExamsByDateRange(
+    public ResponseEntity<?> getExamsByDateRange(
             @Parameter(description = "Start date") 
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
             @Parameter(description = "End date") 
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            if (start.isAfter(end)) {
+                throw new InvalidTimeRangeException(start, end);
+            }
+            return ResponseEntity.ok(findFields(fields, ExamSpecifications.dateBetween(start, end), BY_ID));
+        }
         List<ExamDTO> examDTOs = examService.findByDateRange(start, end).stream()
                 .map(ExamMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -286,7 +363,11 @@ public class ExamController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
     @GetMapping("/upcoming")
-    public ResponseEntity<List<ExamDTO>> getUpcomingExams() {
+    public ResponseEntity<?> getUpcomingExams(
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, ExamSpecifications.dateAfter(LocalDateTime.now()), BY_ID));
+        }
         List<ExamDTO> examDTOs = examService.findUpcomingExams().stream()
                 .map(ExamMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -300,10 +381,22 @@ public class ExamController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
     @GetMapping("/past")
-    public ResponseEntity<List<ExamDTO>> getPastExams() {
+    public ResponseEntity<?> getPastExams(
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, ExamSpecifications.dateBefore(LocalDateTime.now()), BY_ID));
+        }
         List<ExamDTO> examDTOs = examService.findPastExams().stream()
                 .map(ExamMapperDTO::toDTO)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(examDTOs);
     }
+    
+    private List<Map<String, Object>> findFields(String fields, Specification<Exam> specification, Sort sort) {
+        return fieldSetQueryService.findAll(Exam.class, FieldSet.parse(fields, FieldSetSpecs.EXAM), specification, sort);
+    }
+    
+    private Optional<Map<String, Object>> findFields(String fields, Specification<Exam> specification) {
+        return fieldSetQueryService.findOne(Exam.class, FieldSet.parse(fields, FieldSetSpecs.EXAM), specification);
+    }
 }
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -14,15 +15,23 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.riccardo.giangiulio.gestionescuola.config.Workload;
+import com.riccardo.giangiulio.gestionescuola.config.WorkloadType;
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSet;
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSetSpecs;
 import com.riccardo.giangiulio.gestionescuola.dto.mapper.ExamResultMapperDTO;
 import com.riccardo.giangiulio.gestionescuola.dto.model.ExamResultDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.MultiGetDTO;
+import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.ExamResultNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.model.Exam;
 import com.riccardo.giangiulio.gestionescuola.model.ExamResult;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 import com.riccardo.giangiulio.gestionescuola.service.ExamResultService;
 import com.riccardo.giangiulio.gestionescuola.service.ExamService;
+import com.riccardo.giangiulio.gestionescuola.service.FieldSetQueryService;
 import com.riccardo.giangiulio.gestionescuola.service.UserService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -38,18 +47,23 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Exam Result Controller", description = "API for the management of exam results")
 public class ExamResultController {
     
+    private static final Sort BY_ID = Sort.by("id");
+    
     private final ExamResultService examResultService;
     private final ExamService examService;
     private final UserService userService;
+    private final FieldSetQueryService fieldSetQueryService;
     
     @Autowired
     public ExamResultController(
             ExamResultService examResultService,
             ExamService examService,
-            UserService userService) {
+            UserService userService,
+            FieldSetQueryService fieldSetQueryService) {
         this.examResultService = examResultService;
         this.examService = examService;
         this.userService = userService;
+        this.fieldSetQueryService = fieldSetQueryService;
     }
     
     @Operation(summary = "Get exam result by ID", description = "Returns an exam result based on the specified ID")
@@ -60,12 +74,33 @@ public class ExamResultController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
     @GetMapping("/{id}")
-    public ResponseEntity<ExamResultDTO> getExamResultById(
-            @Parameter(description = "ID of the exam result to search for") @PathVariable Long id) {
+    public ResponseEntity<?> getExamResultById(
+            @Parameter(description = "ID of the exam result to search for") @PathVariable Long id,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(fieldSetQueryService.findById(ExamResult.class, FieldSet.parse(fields, FieldSetSpecs.EXAM_RESULT), id)
+                    .orElseThrow(() -> new ExamResultNotFoundException(id)));
+        }
         ExamResult examResult = examResultService.findById(id);
         ExamResultDTO examResultDTO = ExamResultMapperDTO.toDTO(examResult);
         return ResponseEntity.ok(examResultDTO);
     }
+
+    @Operation(summary = "Get exam results by IDs", description = "Returns the exam results with the specified IDs in a single request, in the requested order, and the IDs that were not found")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Exam results found, missing IDs listed in missingIds"),
+        @ApiResponse(responseCode = "400", description = "Empty ID list or more than " + MultiGetRequests.MAX_IDS + " IDs"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDTO<ExamResultDTO>> getExamResultsByIds(
+            @Parameter(description = MultiGetRequests.PARAMETER_DESCRIPTION) @RequestParam List<Long> ids) {
+        List<Long> requestedIds = MultiGetRequests.distinctIds(ids);
+        List<ExamResult> examResults = examResultService.findAllByIds(requestedIds);
+        return ResponseEntity.ok(MultiGetRequests.response(
+                requestedIds, examResults, ExamResult::getId, ExamResultMapperDTO::toDTO));
+    }
     
     @Operation(summary = "Get all exam results", description = "Returns the list of all exam results")
     @ApiResponses(value = {
@@ -73,8 +108,13 @@ public class ExamResultController {
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PreAuthorize("hasRole('ADMIN')")
+    @Workload(WorkloadType.REPORTING)
     @GetMapping
-    public ResponseEntity<List<ExamResultDTO>> getAllExamResults() {
+    public ResponseEntity<?> getAllExamResults(
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(fieldSetQueryService.findAll(ExamResult.class, FieldSet.parse(fields, FieldSetSpecs.EXAM_RESULT), null, BY_ID));
+        }
         List<ExamResultDTO> examResultDTOs = examResultService.findAll().stream()
                 .map(ExamResultMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -1,6 +1,13 @@
 package com.riccardo.giangiulio.gestionescuola.controller;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,46 +17,65 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.riccardo.giangiulio.gestionescuola.config.Workload;
+import com.riccardo.giangiulio.gestionescuola.config.WorkloadType;
+import com.riccardo.giangiulio.gestionescuola.service.DataVersionService.DataSet;
 import com.riccardo.giangiulio.gestionescuola.service.ExportCSVService;
+import com.riccardo.giangiulio.gestionescuola.service.ExportCacheService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/export")
 @Tag(name = "Export CSV Controller", description = "API for the export of data in CSV format")
+@Workload(WorkloadType.REPORTING)
 public class ExportCSVController {
     
     private static final Logger log = LoggerFactory.getLogger(ExportCSVController.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private static final Set<DataSet> USER_DATA = EnumSet.of(DataSet.USERS);
+    private static final Set<DataSet> REGISTRATION_DATA =
+        EnumSet.of(DataSet.REGISTRATIONS, DataSet.USERS, DataSet.COURSES, DataSet.SCHOOL_CLASSES);
     
     private final ExportCSVService exportCSVService;
+    private final ExportCacheService exportCacheService;
     
     @Autowired
-    public ExportCSVController(ExportCSVService exportCSVService) {
+    public ExportCSVController(ExportCSVService exportCSVService, ExportCacheService exportCacheService) {
         this.exportCSVService = exportCSVService;
+        this.exportCacheService = exportCacheService;
         log.info("ExportCSVController initialized");
     }
     
     @Operation(summary = "Export students in CSV", description = "Export the list of students in CSV format")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Export completed successfully"),
+        @ApiResponse(responseCode = "304", description = "Data not modified since the export identified by If-None-Match"),
         @ApiResponse(responseCode = "403", description = "Access denied - Insufficient authorization"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/students/csv")
     @PreAuthorize("hasRole('ADMIN')")
-    public void exportStudentsToCSV(HttpServletResponse response) throws IOException {
+    public void exportStudentsToCSV(WebRequest webRequest, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
         log.info("Request to export students to CSV");
         
-        response.setContentType("text/csv");
-        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=students.csv");
+        String etag = exportCacheService.etag("students", USER_DATA);
+        if (webRequest.checkNotModified(etag)) {
+            log.info("Export of students to CSV not modified");
+            return;
+        }
         
-        exportCSVService.exportStudentsToCSV(response.getWriter());
+        sendCsv(request, response, "students", USER_DATA, out -> exportCSVService.exportStudentsToCSV(csvWriter(out)));
         
         log.info("Export of students to CSV completed");
     }
@@ -57,18 +83,23 @@ public class ExportCSVController {
     @Operation(summary = "Export teachers in CSV", description = "Export the list of teachers in CSV format")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Export completed successfully"),
+        @ApiResponse(responseCode = "304", description = "Data not modified since the export identified by If-None-Match"),
         @ApiResponse(responseCode = "403", description = "Access denied - Insufficient authorization"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/teachers/csv")
     @PreAuthorize("hasRole('ADMIN')")
-    public void exportTeachersToCSV(HttpServletResponse response) throws IOException {
+    public void exportTeachersToCSV(WebRequest webRequest, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
         log.info("Request to export teachers to CSV");
         
-        response.setContentType("text/csv");
-        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=teachers.csv");
+        String etag = exportCacheService.etag("teachers", USER_DATA);
+        if (webRequest.checkNotModified(etag)) {
+            log.info("Export of teachers to CSV not modified");
+            return;
+        }
         
-        exportCSVService.exportTeachersToCSV(response.getWriter());
+        sendCsv(request, response, "teachers", USER_DATA, out -> exportCSVService.exportTeachersToCSV(csvWriter(out)));
         
         log.info("Export of teachers to CSV completed");
     }
@@ -76,19 +107,57 @@ public class ExportCSVController {
     @Operation(summary = "Export registrations in CSV", description = "Export the list of registrations in CSV format")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Export completed successfully"),
+        @ApiResponse(responseCode = "304", description = "Data not modified since the export identified by If-None-Match"),
         @ApiResponse(responseCode = "403", description = "Access denied - Insufficient authorization"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/registrations/csv")
     @PreAuthorize("hasRole('ADMIN')")
-    public void exportRegistrationsToCSV(HttpServletResponse response) throws IOException {
+    public void exportRegistrationsToCSV(WebRequest webRequest, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
         log.info("Request to export registrations to CSV");
         
-        response.setContentType("text/csv");
-        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=registrations.csv");
+        String etag = exportCacheService.etag("registrations", REGISTRATION_DATA);
+        if (webRequest.checkNotModified(etag)) {
+            log.info("Export of registrations to CSV not modified");
+            return;
+        }
         
-        exportCSVService.exportRegistrationsToCSV(response.getWriter());
+        sendCsv(request, response, "registrations", REGISTRATION_DATA, out -> exportCSVService.exportRegistrationsToCSV(csvWriter(out)));
         
         log.info("Export of registrations to CSV completed");
     }
+    
+    /**
+     * Invia il CSV tramite la cache su disco, compresso in gzip se il client lo accetta.
+     * L'ETag è già stato impostato da {@link WebRequest#checkNotModified(String)}.
+     * Le intestazioni vengono scritte solo all'invio del primo byte, così un errore durante l'attesa di un posto
+     * per i report o prima della prima riga produce la normale risposta di errore.
+     */
+    private void sendCsv(HttpServletRequest request, HttpServletResponse response, String exportName,
+            Set<DataSet> dataSets, ExportCacheService.ExportWriter writer) throws IOException {
+        boolean gzip = acceptsGzip(request);
+        exportCacheService.send(exportName, "csv", dataSets, gzip, writer, contentLength -> {
+            response.setContentType("text/csv");
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + exportName + ".csv");
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            if (contentLength >= 0) {
+                response.setContentLengthLong(contentLength);
+            }
+            return response.getOutputStream();
+        });
+    }
+    
+    private static Writer csvWriter(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+    
+    private boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
 }
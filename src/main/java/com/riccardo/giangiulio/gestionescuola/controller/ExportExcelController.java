@@ -1,38 +1,50 @@
 package com.riccardo.giangiulio.gestionescuola.controller;
 
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.EnumSet;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.riccardo.giangiulio.gestionescuola.config.Workload;
+import com.riccardo.giangiulio.gestionescuola.config.WorkloadType;
+import com.riccardo.giangiulio.gestionescuola.service.DataVersionService.DataSet;
+import com.riccardo.giangiulio.gestionescuola.service.ExportCacheService;
 import com.riccardo.giangiulio.gestionescuola.service.ExportExcelService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/export")
 @Tag(name = "Export Excel Controller", description = "API for the export of data in Excel format")
+@Workload(WorkloadType.REPORTING)
 public class ExportExcelController {
     
     private static final Logger log = LoggerFactory.getLogger(ExportExcelController.class);
+    
+    private static final Set<DataSet> COURSE_EXAM_DATA = EnumSet.of(DataSet.COURSES, DataSet.EXAMS);
 
     private final ExportExcelService exportExcelService;
+    private final ExportCacheService exportCacheService;
 
     @Autowired
-    public ExportExcelController(ExportExcelService exportExcelService) {
+    public ExportExcelController(ExportExcelService exportExcelService, ExportCacheService exportCacheService) {
         this.exportExcelService = exportExcelService;
+        this.exportCacheService = exportCacheService;
         log.info("ExportController initialized");
     }
 
@@ -41,21 +53,30 @@ public class ExportExcelController {
         @ApiResponse(responseCode = "200", description = "Excel generated successfully", 
                      content = @io.swagger.v3.oas.annotations.media.Content(
                          mediaType = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")),
+        @ApiResponse(responseCode = "304", description = "Data not modified since the export identified by If-None-Match"),
         @ApiResponse(responseCode = "403", description = "Access denied - Insufficient authorization"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/courses/exams/excel")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<byte[]> exportExamsOfCoursesToExcel() throws IOException {
+    public void exportExamsOfCoursesToExcel(WebRequest webRequest, HttpServletResponse response) throws IOException {
         log.info("Request to export exams of courses to Excel");
         
-        byte[] excelBytes = exportExcelService.generateCoursesAndExamsExcel();
+        String etag = exportCacheService.etag("courses_and_exams", COURSE_EXAM_DATA);
+        if (webRequest.checkNotModified(etag)) {
+            log.info("Courses and exams Excel export not modified");
+            return;
+        }
         
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
-        headers.setContentDispositionFormData("filename", "courses_and_exams.xlsx");
+        // Il workbook viene generato una sola volta per versione dei dati e poi servito dal file in cache
+        try (FileChannel file = exportCacheService.getOrGenerate("courses_and_exams", "xlsx", COURSE_EXAM_DATA,
+                exportExcelService::writeCoursesAndExamsExcel)) {
+            response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=courses_and_exams.xlsx");
+            response.setContentLengthLong(file.size());
+            Channels.newInputStream(file).transferTo(response.getOutputStream());
+        }
         
         log.info("Courses and exams Excel export completed");
-        return new ResponseEntity<>(excelBytes, headers, HttpStatus.OK);
     }
 }
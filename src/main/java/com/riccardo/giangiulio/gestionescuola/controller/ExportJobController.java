@@ -0,0 +1,163 @@
+package com.riccardo.giangiulio.gestionescuola.controller;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.security.Principal;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.riccardo.giangiulio.gestionescuola.dto.mapper.ExportJobMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.ExportJobDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.ExportJobRequestDTO;
+import com.riccardo.giangiulio.gestionescuola.service.ExportJob;
+import com.riccardo.giangiulio.gestionescuola.service.ExportJobService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@RestController
+@RequestMapping("/api/export/jobs")
+@Tag(name = "Export Job Controller", description = "API for running exports in background and downloading their results")
+public class ExportJobController {
+    
+    private static final Logger log = LoggerFactory.getLogger(ExportJobController.class);
+    
+    // Attributi di richiesta con cui il connettore di Tomcat segnala e riceve un invio con sendfile
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    
+    private final ExportJobService exportJobService;
+    
+    @Autowired
+    public ExportJobController(ExportJobService exportJobService) {
+        this.exportJobService = exportJobService;
+        log.info("ExportJobController initialized");
+    }
+    
+    @Operation(summary = "Create an export job", description = "Queue an export to be run in background")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Export job queued"),
+        @ApiResponse(responseCode = "400", description = "Invalid export type or missing target ID"),
+        @ApiResponse(responseCode = "403", description = "Access denied - Insufficient authorization"),
+        @ApiResponse(responseCode = "503", description = "Too many export jobs queued")
+    })
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ExportJobDTO> createExportJob(@RequestBody ExportJobRequestDTO request, Principal principal) {
+        log.info("Request to create export job of type {}", request.getType());
+        
+        ExportJob job = exportJobService.submit(request.getType(), request.getTargetId(), principal.getName());
+        
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/export/jobs/" + job.getId()))
+                .body(ExportJobMapperDTO.toDTO(job));
+    }
+    
+    @Operation(summary = "Get export job status", description = "Return status and progress of an export job")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Export job found"),
+        @ApiResponse(responseCode = "403", description = "Access denied - Insufficient authorization"),
+        @ApiResponse(responseCode = "404", description = "Export job not found")
+    })
+    @GetMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ExportJobDTO> getExportJob(@Parameter(description = "ID of the export job") @PathVariable UUID id) {
+        log.info("Request to get export job with ID {}", id);
+        
+        return new ResponseEntity<>(ExportJobMapperDTO.toDTO(exportJobService.findById(id)), HttpStatus.OK);
+    }
+    
+    @Operation(summary = "Download export job result", description = "Download the file produced by a completed export job, with support for byte ranges")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "File downloaded"),
+        @ApiResponse(responseCode = "206", description = "Requested byte range downloaded"),
+        @ApiResponse(responseCode = "403", description = "Access denied - Insufficient authorization"),
+        @ApiResponse(responseCode = "404", description = "Export job not found"),
+        @ApiResponse(responseCode = "409", description = "Export job not completed"),
+        @ApiResponse(responseCode = "416", description = "Requested range not satisfiable")
+    })
+    @GetMapping("/{id}/download")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void downloadExportJob(
+            @Parameter(description = "ID of the export job") @PathVariable UUID id,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        log.info("Request to download export job with ID {}", id);
+        
+        ExportJob job = exportJobService.findCompletedById(id);
+        long size = Files.size(job.getFile());
+        
+        response.setContentType(job.getType().getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + job.getFileName());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        
+        long start = 0;
+        long end = size - 1;
+        List<HttpRange> ranges = parseRanges(request.getHeader(HttpHeaders.RANGE));
+        // Con più intervalli viene inviato l'intero file, come consentito dalla specifica HTTP
+        if (ranges.size() == 1) {
+            HttpRange range = ranges.get(0);
+            try {
+                start = range.getRangeStart(size);
+                end = range.getRangeEnd(size);
+            } catch (IllegalArgumentException e) {
+                start = size;
+            }
+            if (start > end) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+        
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat invia il file al termine della richiesta con sendfile: i dati vanno dal file al socket nel kernel
+            request.setAttribute(SENDFILE_FILENAME, job.getFile().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        exportJobService.transferResult(job, start, length, Channels.newChannel(response.getOutputStream()));
+    }
+    
+    // Un header Range non valido viene ignorato e si risponde con l'intero file
+    private List<HttpRange> parseRanges(String rangeHeader) {
+        if (rangeHeader == null) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring invalid Range header: {}", rangeHeader);
+            return List.of();
+        }
+    }
+}
@@ -15,6 +15,8 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.riccardo.giangiulio.gestionescuola.config.Workload;
+import com.riccardo.giangiulio.gestionescuola.config.WorkloadType;
 import com.riccardo.giangiulio.gestionescuola.service.ExportPDFService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -23,10 +25,12 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/export")
 @Tag(name = "Export PDF Controller", description = "API for the export of data in PDF format")
+@Workload(WorkloadType.REPORTING)
 public class ExportPDFController {
     
     private static final Logger log = LoggerFactory.getLogger(ExportPDFController.class);
@@ -62,4 +66,47 @@ public class ExportPDFController {
 
         return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
     }
+    
+    @Operation(summary = "Export class student profiles in a ZIP", description = "Generate a ZIP archive with the PDF profile of every student of a school class")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "ZIP generated successfully", 
+                     content = @Content(mediaType = "application/zip")),
+        @ApiResponse(responseCode = "403", description = "Access denied - Insufficient authorization"),
+        @ApiResponse(responseCode = "404", description = "School class not found"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/class/{classId}/profiles.zip")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportClassProfilesZip(
+            @Parameter(description = "ID of the school class") @PathVariable Long classId,
+            HttpServletResponse response) throws IOException {
+        log.info("Request to export student profiles of school class with ID {} in a ZIP", classId);
+        
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=class_" + classId + "_profiles.zip");
+        
+        exportPDFService.writeClassProfilesZip(classId, response.getOutputStream());
+        
+        log.info("Student profiles ZIP export of school class {} completed", classId);
+    }
+    
+    @Operation(summary = "Export all student profiles in a ZIP", description = "Generate a ZIP archive with the PDF profile of every student of the school")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "ZIP generated successfully", 
+                     content = @Content(mediaType = "application/zip")),
+        @ApiResponse(responseCode = "403", description = "Access denied - Insufficient authorization"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/profiles.zip")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportSchoolProfilesZip(HttpServletResponse response) throws IOException {
+        log.info("Request to export all student profiles in a ZIP");
+        
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=school_profiles.zip");
+        
+        exportPDFService.writeSchoolProfilesZip(response.getOutputStream());
+        
+        log.info("Student profiles ZIP export of the school completed");
+    }
 }
@@ -0,0 +1,135 @@
+package com.riccardo.giangiulio.gestionescuola.controller;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.riccardo.giangiulio.gestionescuola.config.Workload;
+import com.riccardo.giangiulio.gestionescuola.config.WorkloadType;
+import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidTimeRangeException;
+import com.riccardo.giangiulio.gestionescuola.service.ExportParquetService;
+import com.riccardo.giangiulio.gestionescuola.service.SchoolClassService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+
+@RestController
+@RequestMapping("/api/export")
+@Tag(name = "Export Parquet Controller", description = "API for the export of analytics data in Parquet format")
+@Workload(WorkloadType.REPORTING)
+public class ExportParquetController {
+    
+    private static final Logger log = LoggerFactory.getLogger(ExportParquetController.class);
+    private static final String PARQUET_CONTENT_TYPE = "application/vnd.apache.parquet";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final ExportParquetService exportParquetService;
+    private final SchoolClassService schoolClassService;
+    
+    @Autowired
+    public ExportParquetController(ExportParquetService exportParquetService, SchoolClassService schoolClassService) {
+        this.exportParquetService = exportParquetService;
+        this.schoolClassService = schoolClassService;
+        log.info("ExportParquetController initialized");
+    }
+    
+    @Operation(summary = "Export attendances in Parquet", 
+               description = "Export attendances with student, lesson, subject, class and teacher columns in Parquet format, filtered by lesson date and school class")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Export completed successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid date range"),
+        @ApiResponse(responseCode = "403", description = "Access denied - Insufficient authorization"),
+        @ApiResponse(responseCode = "404", description = "School class not found"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/attendance.parquet")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportAttendancesToParquet(
+            @Parameter(description = "First lesson date included") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last lesson date included") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "ID of the school class") @RequestParam(required = false) Long classId,
+            HttpServletResponse response) throws IOException {
+        log.info("Request to export attendances to Parquet from {} to {} for class {}", from, to, classId);
+        validateFilters(from, to, classId);
+        
+        try (OutputStream out = openParquetStream(response, "attendance.parquet")) {
+            exportParquetService.writeAttendancesParquet(startOf(from), endOf(to), classId, out);
+        }
+        
+        log.info("Export of attendances to Parquet completed");
+    }
+    
+    @Operation(summary = "Export exam results in Parquet", 
+               description = "Export exam results with student, exam, subject, class and teacher columns in Parquet format, filtered by exam date and school class")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Export completed successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid date range"),
+        @ApiResponse(responseCode = "403", description = "Access denied - Insufficient authorization"),
+        @ApiResponse(responseCode = "404", description = "School class not found"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping("/exam-results.parquet")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportExamResultsToParquet(
+            @Parameter(description = "First exam date included") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last exam date included") 
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "ID of the school class") @RequestParam(required = false) Long classId,
+            HttpServletResponse response) throws IOException {
+        log.info("Request to export exam results to Parquet from {} to {} for class {}", from, to, classId);
+        validateFilters(from, to, classId);
+        
+        try (OutputStream out = openParquetStream(response, "exam-results.parquet")) {
+            exportParquetService.writeExamResultsParquet(startOf(from), endOf(to), classId, out);
+        }
+        
+        log.info("Export of exam results to Parquet completed");
+    }
+    
+    /**
+     * I filtri vengono verificati prima di scrivere la risposta, così gli errori arrivano ancora come 400/404.
+     */
+    private void validateFilters(LocalDate from, LocalDate to, Long classId) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new InvalidTimeRangeException(startOf(from), startOf(to));
+        }
+        if (classId != null) {
+            schoolClassService.findById(classId);
+        }
+    }
+    
+    private OutputStream openParquetStream(HttpServletResponse response, String filename) throws IOException {
+        response.setContentType(PARQUET_CONTENT_TYPE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+        return new BufferedOutputStream(response.getOutputStream(), BUFFER_SIZE);
+    }
+    
+    private static LocalDateTime startOf(LocalDate date) {
+        return date != null ? date.atStartOfDay() : null;
+    }
+    
+    // Il giorno finale è incluso: il limite superiore esclusivo è l'inizio del giorno successivo
+    private static LocalDateTime endOf(LocalDate date) {
+        return date != null ? date.plusDays(1).atStartOfDay() : null;
+    }
+}
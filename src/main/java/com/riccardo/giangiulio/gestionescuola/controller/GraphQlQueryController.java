@@ -0,0 +1,349 @@
+package com.riccardo.giangiulio.gestionescuola.controller;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+
+import com.riccardo.giangiulio.gestionescuola.model.Attendance;
+import com.riccardo.giangiulio.gestionescuola.model.Classroom;
+import com.riccardo.giangiulio.gestionescuola.model.Course;
+import com.riccardo.giangiulio.gestionescuola.model.ERole;
+import com.riccardo.giangiulio.gestionescuola.model.Exam;
+import com.riccardo.giangiulio.gestionescuola.model.ExamResult;
+import com.riccardo.giangiulio.gestionescuola.model.Lesson;
+import com.riccardo.giangiulio.gestionescuola.model.Registration;
+import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
+import com.riccardo.giangiulio.gestionescuola.model.Subject;
+import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.service.AttendanceService;
+import com.riccardo.giangiulio.gestionescuola.service.ClassroomService;
+import com.riccardo.giangiulio.gestionescuola.service.CourseService;
+import com.riccardo.giangiulio.gestionescuola.service.ExamResultService;
+import com.riccardo.giangiulio.gestionescuola.service.ExamService;
+import com.riccardo.giangiulio.gestionescuola.service.LessonService;
+import com.riccardo.giangiulio.gestionescuola.service.RegistrationService;
+import com.riccardo.giangiulio.gestionescuola.service.SchoolClassService;
+import com.riccardo.giangiulio.gestionescuola.service.SubjectService;
+import com.riccardo.giangiulio.gestionescuola.service.UserService;
+
+/**
+ * Endpoint GraphQL in sola lettura ({@code /graphql}, schema in {@code graphql/schema.graphqls}).
+ *
+ * Ogni associazione è risolta da un {@link BatchMapping}: Spring GraphQL raccoglie in un DataLoader per richiesta
+ * tutte le entità dello stesso livello e il metodo le carica con una sola query {@code IN}, quindi il numero di
+ * query dipende dalla forma della richiesta e non dal numero di risultati. Le associazioni a uno già caricate
+ * dall'entity graph della query precedente non vengono lette di nuovo.
+ *
+ * Le regole di accesso sono le stesse degli endpoint REST corrispondenti: un campo non consentito al ruolo
+ * restituisce un errore {@code FORBIDDEN} limitato a quel campo.
+ */
+@Controller
+public class GraphQlQueryController {
+
+    private final SchoolClassService schoolClassService;
+    private final CourseService courseService;
+    private final SubjectService subjectService;
+    private final ClassroomService classroomService;
+    private final LessonService lessonService;
+    private final ExamService examService;
+    private final ExamResultService examResultService;
+    private final AttendanceService attendanceService;
+    private final RegistrationService registrationService;
+    private final UserService userService;
+
+    @Autowired
+    public GraphQlQueryController(
+            SchoolClassService schoolClassService,
+            CourseService courseService,
+            SubjectService subjectService,
+            ClassroomService classroomService,
+            LessonService lessonService,
+            ExamService examService,
+            ExamResultService examResultService,
+            AttendanceService attendanceService,
+            RegistrationService registrationService,
+            UserService userService) {
+        this.schoolClassService = schoolClassService;
+        this.courseService = courseService;
+        this.subjectService = subjectService;
+        this.classroomService = classroomService;
+        this.lessonService = lessonService;
+        this.examService = examService;
+        this.examResultService = examResultService;
+        this.attendanceService = attendanceService;
+        this.registrationService = registrationService;
+        this.userService = userService;
+    }
+
+    @QueryMapping
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
+    public SchoolClass schoolClass(@Argument Long id) {
+        return schoolClassService.findById(id);
+    }
+
+    @QueryMapping
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
+    public List<SchoolClass> schoolClasses(@Argument List<Long> ids) {
+        List<Long> requestedIds = MultiGetRequests.distinctIds(ids);
+        Map<Long, SchoolClass> schoolClasses = byId(schoolClassService.findAllByIds(requestedIds), SchoolClass::getId);
+        return requestedIds.stream().map(schoolClasses::get).filter(Objects::nonNull).toList();
+    }
+
+    @QueryMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public Course course(@Argument Long id) {
+        return courseService.findById(id);
+    }
+
+    @QueryMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<Course> courses() {
+        return courseService.findAll();
+    }
+
+    @QueryMapping
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
+    public Lesson lesson(@Argument Long id) {
+        return lessonService.findById(id);
+    }
+
+    @QueryMapping
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
+    public Exam exam(@Argument Long id) {
+        return examService.findById(id);
+    }
+
+    @QueryMapping
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    public User user(@Argument Long id) {
+        return userService.findById(id);
+    }
+
+    // Classe
+
+    @BatchMapping(typeName = "SchoolClass", field = "course")
+    public Map<SchoolClass, Course> schoolClassCourse(List<SchoolClass> schoolClasses) {
+        return loadToOne(schoolClasses, SchoolClass::getCourse, Course::getId, courseService::findAllByIds);
+    }
+
+    @BatchMapping(typeName = "SchoolClass")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Map<SchoolClass, List<User>> teachers(List<SchoolClass> schoolClasses) {
+        Map<Long, SchoolClass> loaded = byId(schoolClassService.findAllByIds(ids(schoolClasses, SchoolClass::getId)),
+                SchoolClass::getId);
+        Map<SchoolClass, List<User>> teachers = new HashMap<>();
+        for (SchoolClass schoolClass : schoolClasses) {
+            SchoolClass withTeachers = loaded.get(schoolClass.getId());
+            teachers.put(schoolClass, withTeachers != null ? new ArrayList<>(withTeachers.getTeachers()) : List.of());
+        }
+        return teachers;
+    }
+
+    @BatchMapping(typeName = "SchoolClass")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    public Map<SchoolClass, List<User>> students(List<SchoolClass> schoolClasses) {
+        Map<Long, Set<User>> studentsByClass = new HashMap<>();
+        List<Registration> registrations =
+                registrationService.findActiveBySchoolClassIds(ids(schoolClasses, SchoolClass::getId));
+        for (Registration registration : registrations) {
+            User student = registration.getStudent();
+            if (student.getRole() != null && student.getRole().getName() == ERole.ROLE_STUDENT) {
+                studentsByClass.computeIfAbsent(registration.getSchoolClass().getId(), id -> new LinkedHashSet<>())
+                        .add(student);
+            }
+        }
+        Map<SchoolClass, List<User>> students = new HashMap<>();
+        for (SchoolClass schoolClass : schoolClasses) {
+            students.put(schoolClass, new ArrayList<>(studentsByClass.getOrDefault(schoolClass.getId(), Set.of())));
+        }
+        return students;
+    }
+
+    @BatchMapping(typeName = "SchoolClass")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    public Map<SchoolClass, List<Lesson>> lessons(List<SchoolClass> schoolClasses) {
+        return loadToMany(schoolClasses, SchoolClass::getId,
+                lessonService::findBySchoolClassIds, lesson -> lesson.getSchoolClass().getId());
+    }
+
+    @BatchMapping(typeName = "SchoolClass")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
+    public Map<SchoolClass, List<Exam>> exams(List<SchoolClass> schoolClasses) {
+        return loadToMany(schoolClasses, SchoolClass::getId,
+                examService::findBySchoolClassIds, exam -> exam.getSchoolClass().getId());
+    }
+
+    // Corso
+
+    @BatchMapping(typeName = "Course")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
+    public Map<Course, List<Subject>> subjects(List<Course> courses) {
+        Map<Long, Course> loaded = byId(courseService.findAllByIds(ids(courses, Course::getId)), Course::getId);
+        Map<Course, List<Subject>> subjects = new HashMap<>();
+        for (Course course : courses) {
+            Course withSubjects = loaded.get(course.getId());
+            subjects.put(course, withSubjects != null ? new ArrayList<>(withSubjects.getSubjects()) : List.of());
+        }
+        return subjects;
+    }
+
+    @BatchMapping(typeName = "Course", field = "exams")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
+    public Map<Course, List<Exam>> courseExams(List<Course> courses) {
+        Map<Long, Course> loaded = byId(courseService.findAllByIds(ids(courses, Course::getId)), Course::getId);
+        Map<Course, List<Exam>> exams = new HashMap<>();
+        for (Course course : courses) {
+            Course withExams = loaded.get(course.getId());
+            exams.put(course, withExams != null ? new ArrayList<>(withExams.getExams()) : List.of());
+        }
+        return exams;
+    }
+
+    // Materia
+
+    @BatchMapping(typeName = "Subject", field = "teacher")
+    public Map<Subject, User> subjectTeacher(List<Subject> subjects) {
+        return loadToOne(subjects, Subject::getTeacher, User::getId, userService::findAllByIds);
+    }
+
+    // Lezione
+
+    @BatchMapping(typeName = "Lesson", field = "schoolClass")
+    public Map<Lesson, SchoolClass> lessonSchoolClass(List<Lesson> lessons) {
+        return loadToOne(lessons, Lesson::getSchoolClass, SchoolClass::getId, schoolClassService::findAllByIds);
+    }
+
+    @BatchMapping(typeName = "Lesson", field = "teacher")
+    public Map<Lesson, User> lessonTeacher(List<Lesson> lessons) {
+        return loadToOne(lessons, Lesson::getTeacher, User::getId, userService::findAllByIds);
+    }
+
+    @BatchMapping(typeName = "Lesson", field = "classroom")
+    public Map<Lesson, Classroom> lessonClassroom(List<Lesson> lessons) {
+        return loadToOne(lessons, Lesson::getClassroom, Classroom::getId, classroomService::findAllByIds);
+    }
+
+    @BatchMapping(typeName = "Lesson", field = "subject")
+    public Map<Lesson, Subject> lessonSubject(List<Lesson> lessons) {
+        return loadToOne(lessons, Lesson::getSubject, Subject::getId, subjectService::findAllByIds);
+    }
+
+    @BatchMapping(typeName = "Lesson")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    public Map<Lesson, List<Attendance>> attendances(List<Lesson> lessons) {
+        return loadToMany(lessons, Lesson::getId,
+                attendanceService::findByLessonIds, attendance -> attendance.getLesson().getId());
+    }
+
+    @BatchMapping(typeName = "Attendance", field = "student")
+    public Map<Attendance, User> attendanceStudent(List<Attendance> attendances) {
+        return loadToOne(attendances, Attendance::getStudent, User::getId, userService::findAllByIds);
+    }
+
+    // Esame
+
+    @BatchMapping(typeName = "Exam", field = "classroom")
+    public Map<Exam, Classroom> examClassroom(List<Exam> exams) {
+        return loadToOne(exams, Exam::getClassroom, Classroom::getId, classroomService::findAllByIds);
+    }
+
+    @BatchMapping(typeName = "Exam", field = "subject")
+    public Map<Exam, Subject> examSubject(List<Exam> exams) {
+        return loadToOne(exams, Exam::getSubject, Subject::getId, subjectService::findAllByIds);
+    }
+
+    @BatchMapping(typeName = "Exam", field = "schoolClass")
+    public Map<Exam, SchoolClass> examSchoolClass(List<Exam> exams) {
+        return loadToOne(exams, Exam::getSchoolClass, SchoolClass::getId, schoolClassService::findAllByIds);
+    }
+
+    @BatchMapping(typeName = "Exam", field = "teacher")
+    public Map<Exam, User> examTeacher(List<Exam> exams) {
+        return loadToOne(exams, Exam::getTeacher, User::getId, userService::findAllByIds);
+    }
+
+    @BatchMapping(typeName = "Exam")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    public Map<Exam, List<ExamResult>> results(List<Exam> exams) {
+        return loadToMany(exams, Exam::getId,
+                examResultService::findByExamIds, examResult -> examResult.getExam().getId());
+    }
+
+    @BatchMapping(typeName = "ExamResult", field = "student")
+    public Map<ExamResult, User> examResultStudent(List<ExamResult> examResults) {
+        return loadToOne(examResults, ExamResult::getStudent, User::getId, userService::findAllByIds);
+    }
+
+    // Utente: il ruolo è sempre caricato insieme all'utente dagli entity graph dei service
+
+    @SchemaMapping(typeName = "User", field = "role")
+    public ERole role(User user) {
+        return user.getRole() != null ? user.getRole().getName() : null;
+    }
+
+    /**
+     * Associazione a uno: le entità di destinazione già inizializzate vengono riusate, le altre (proxy)
+     * vengono caricate tutte insieme per id.
+     */
+    private static <S, T> Map<S, T> loadToOne(List<S> sources, Function<S, T> association, Function<T, Long> idOf,
+            Function<Collection<Long>, List<T>> loader) {
+        Set<Long> missingIds = new LinkedHashSet<>();
+        for (S source : sources) {
+            T target = association.apply(source);
+            if (target != null && !Hibernate.isInitialized(target)) {
+                missingIds.add(idOf.apply(target));
+            }
+        }
+        Map<Long, T> loaded = missingIds.isEmpty() ? Map.of() : byId(loader.apply(missingIds), idOf);
+        Map<S, T> targets = new HashMap<>();
+        for (S source : sources) {
+            T target = association.apply(source);
+            T resolved = target == null || Hibernate.isInitialized(target)
+                    ? target
+                    : loaded.get(idOf.apply(target));
+            if (resolved != null) {
+                targets.put(source, resolved);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Associazione a molti: una query per tutte le entità di partenza, i risultati vengono poi divisi per id
+     * mantenendo l'ordine della query.
+     */
+    private static <S, T> Map<S, List<T>> loadToMany(List<S> sources, Function<S, Long> idOf,
+            Function<Collection<Long>, List<T>> loader, Function<T, Long> parentIdOf) {
+        Map<Long, List<T>> byParent = loader.apply(ids(sources, idOf)).stream()
+                .collect(Collectors.groupingBy(parentIdOf));
+        Map<S, List<T>> targets = new HashMap<>();
+        for (S source : sources) {
+            targets.put(source, byParent.getOrDefault(idOf.apply(source), List.of()));
+        }
+        return targets;
+    }
+
+    private static <T> List<Long> ids(Collection<T> entities, Function<T, Long> idOf) {
+        return entities.stream().map(idOf).distinct().toList();
+    }
+
+    private static <T> Map<Long, T> byId(List<T> entities, Function<T, Long> idOf) {
+        return entities.stream().collect(Collectors.toMap(idOf, Function.identity(), (first, second) -> first));
+    }
+}
@@ -1,10 +1,15 @@
 package com.riccardo.giangiulio.gestionescuola.controller;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,14 +24,23 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.riccardo.giangiulio.gestionescuola.config.Workload;
+import com.riccardo.giangiulio.gestionescuola.config.WorkloadType;
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSet;
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSetSpecs;
 import com.riccardo.giangiulio.gestionescuola.dto.mapper.LessonMapperDTO;
 import com.riccardo.giangiulio.gestionescuola.dto.model.LessonDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.MultiGetDTO;
+import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.LessonNotFoundException;
+import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidTimeRangeException;
 import com.riccardo.giangiulio.gestionescuola.model.Classroom;
 import com.riccardo.giangiulio.gestionescuola.model.Lesson;
 import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.Subject;
 import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.specification.LessonSpecifications;
 import com.riccardo.giangiulio.gestionescuola.service.ClassroomService;
+import com.riccardo.giangiulio.gestionescuola.service.FieldSetQueryService;
 import com.riccardo.giangiulio.gestionescuola.service.LessonService;
 import com.riccardo.giangiulio.gestionescuola.service.SchoolClassService;
 import com.riccardo.giangiulio.gestionescuola.service.SubjectService;
@@ -45,7 +59,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Lesson Controller", description = "API for the management of lessons")
 public class LessonController {
     
+    private static final Sort BY_ID = Sort.by("id");
+    
     private final LessonService lessonService;
+    private final FieldSetQueryService fieldSetQueryService;
     private final UserService userService;
     private final ClassroomService classroomService;
     private final SchoolClassService schoolClassService;
@@ -57,12 +74,14 @@ public class LessonController {
             UserService userService,
             ClassroomService classroomService,
             SchoolClassService schoolClassService,
-            SubjectService subjectService) {
+            SubjectService subjectService,
+            FieldSetQueryService fieldSetQueryService) {
         this.lessonService = lessonService;
         this.userService = userService;
         this.classroomService = classroomService;
         this.schoolClassService = schoolClassService;
         this.subjectService = subjectService;
+        this.fieldSetQueryService = fieldSetQueryService;
     }
     
     @Operation(summary = "Get lesson by ID", description = "Returns a lesson based on the specified ID")
@@ -73,12 +92,33 @@ public class LessonController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
     @GetMapping("/{id}")
-    public ResponseEntity<LessonDTO> getLessonById(
-            @Parameter(description = "ID of the lesson to search for") @PathVariable Long id) {
+    public ResponseEntity<?> getLessonById(
+            @Parameter(description = "ID of the lesson to search for") @PathVariable Long id,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, LessonSpecifications.hasId(id))
+                    .orElseThrow(() -> new LessonNotFoundException(id)));
+        }
         Lesson lesson = lessonService.findById(id);
         LessonDTO lessonDTO = LessonMapperDTO.toDTO(lesson);
         return ResponseEntity.ok(lessonDTO);
     }
+
+    @Operation(summary = "Get lessons by IDs", description = "Returns the lessons with the specified IDs in a single request, in the requested order, and the IDs that were not found")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lessons found, missing IDs listed in missingIds"),
+        @ApiResponse(responseCode = "400", description = "Empty ID list or more than " + MultiGetRequests.MAX_IDS + " IDs"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDTO<LessonDTO>> getLessonsByIds(
+            @Parameter(description = MultiGetRequests.PARAMETER_DESCRIPTION) @RequestParam List<Long> ids) {
+        List<Long> requestedIds = MultiGetRequests.distinctIds(ids);
+        List<Lesson> lessons = lessonService.findAllByIds(requestedIds);
+        return ResponseEntity.ok(MultiGetRequests.response(
+                requestedIds, lessons, Lesson::getId, LessonMapperDTO::toDTO));
+    }
     
     @Operation(summary = "Get all lessons", description = "Returns the list of all lessons")
     @ApiResponses(value = {
@@ -86,8 +126,13 @@ public class LessonController {
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PreAuthorize("hasRole('ADMIN')")
+    @Workload(WorkloadType.REPORTING)
     @GetMapping
-    public ResponseEntity<List<LessonDTO>> getAllLessons() {
+    public ResponseEntity<?> getAllLessons(
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, null, BY_ID));
+        }
         List<LessonDTO> lessonDTOs = lessonService.findAll().stream()
                 .map(LessonMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -148,9 +193,13 @@ public class LessonController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
     @GetMapping("/teacher/{teacherId}")
-    public ResponseEntity<List<LessonDTO>> getLessonsByTeacher(
-            @Parameter(description = "ID of the teacher") @PathVariable Long teacherId) {
+    public ResponseEntity<?> getLessonsByTeacher(
+            @Parameter(description = "ID of the teacher") @PathVariable Long teacherId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
         User teacher = userService.findById(teacherId);
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, LessonSpecifications.hasTeacher(teacher), BY_ID));
+        }
         List<LessonDTO> lessonDTOs = lessonService.findByTeacher(teacher).stream()
                 .map(LessonMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -165,9 +214,13 @@ public class LessonController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
     @GetMapping("/class/{classId}")
-    public ResponseEntity<List<LessonDTO>> getLessonsBySchoolClass(
-            @Parameter(description = "ID of the school class") @PathVariable Long classId) {
+    public ResponseEntity<?> getLessonsBySchoolClass(
+            @Parameter(description = "ID of the school class") @PathVariable Long classId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
         SchoolClass schoolClass = schoolClassService.findById(classId);
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, LessonSpecifications.hasSchoolClass(schoolClass), BY_ID));
+        }
         List<LessonDTO> lessonDTOs = lessonService.findBySchoolClass(schoolClass).stream()
                 .map(LessonMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -182,9 +235,13 @@ public class LessonController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
     @GetMapping("/classroom/{classroomId}")
-    public ResponseEntity<List<LessonDTO>> getLessonsByClassroom(
-            @Parameter(description = "ID of the classroom") @PathVariable Long classroomId) {
+    public ResponseEntity<?> getLessonsByClassroom(
+            @Parameter(description = "ID of the classroom") @PathVariable Long classroomId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
         Classroom classroom = classroomService.findById(classroomId);
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, LessonSpecifications.hasClassroom(classroom), BY_ID));
+        }
         List<LessonDTO> lessonDTOs = lessonService.findByClassroom(classroom).stream()
                 .map(LessonMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -199,9 +256,13 @@ public class LessonController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
     @GetMapping("/subject/{subjectId}")
-    public ResponseEntity<List<LessonDTO>> getLessonsBySubject(
-            @Parameter(description = "ID of the subject") @PathVariable Long subjectId) {
+    public ResponseEntity<?> getLessonsBySubject(
+            @Parameter(description = "ID of the subject") @PathVariable Long subjectId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
         Subject subject = subjectService.findById(subjectId);
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, LessonSpecifications.hasSubject(subject), BY_ID));
+        }
         List<LessonDTO> lessonDTOs = lessonService.findBySubject(subject).stream()
                 .map(LessonMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -216,11 +277,18 @@ public class LessonController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
     @GetMapping("/date-range")
-    public ResponseEntity<List<LessonDTO>> getLessonsByDateRange(
+    public ResponseEntity<?> getLessonsByDateRange(
             @Parameter(description = "Start date") 
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
             @Parameter(description = "End date") 
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            if (start.isAfter(end)) {
+                throw new InvalidTimeRangeException(start, end);
+            }
+            return ResponseEntity.ok(findFields(fields, LessonSpecifications.startsBetween(start, end), BY_ID));
+        }
         List<LessonDTO> lessonDTOs = lessonService.findByDateRange(start, end).stream()
                 .map(LessonMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -235,9 +303,15 @@ public class LessonController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
     @GetMapping("/class/{classId}/upcoming")
-    public ResponseEntity<List<LessonDTO>> getUpcomingLessonsBySchoolClass(
-            @Parameter(description = "ID of the school class") @PathVariable Long classId) {
+    public ResponseEntity<?> getUpcomingLessonsBySchoolClass(
+            @Parameter(description = "ID of the school class") @PathVariable Long classId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
         SchoolClass schoolClass = schoolClassService.findById(classId);
+        if (FieldSet.isRequested(fields)) {
+            Specification<Lesson> upcoming = LessonSpecifications.hasSchoolClass(schoolClass)
+                    .and(LessonSpecifications.startsFrom(LocalDateTime.now()));
+            return ResponseEntity.ok(findFields(fields, upcoming, Sort.by("startDateTime")));
+        }
         List<LessonDTO> lessonDTOs = lessonService.findUpcomingLessonsBySchoolClass(schoolClass).stream()
                 .map(LessonMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -251,10 +325,22 @@ public class LessonController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
     @GetMapping("/today")
-    public ResponseEntity<List<LessonDTO>> getTodayLessons() {
+    public ResponseEntity<?> getTodayLessons(
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, LessonSpecifications.startsOn(LocalDate.now()), BY_ID));
+        }
         List<LessonDTO> lessonDTOs = lessonService.findTodayLessons().stream()
                 .map(LessonMapperDTO::toDTO)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(lessonDTOs);
     }
+    
+    private List<Map<String, Object>> findFields(String fields, Specification<Lesson> specification, Sort sort) {
+        return fieldSetQueryService.findAll(Lesson.class, FieldSet.parse(fields, FieldSetSpecs.LESSON), specification, sort);
+    }
+    
+    private Optional<Map<String, Object>> findFields(String fields, Specification<Lesson> specification) {
+        return fieldSetQueryService.findOne(Lesson.class, FieldSet.parse(fields, FieldSetSpecs.LESSON), specification);
+    }
 }
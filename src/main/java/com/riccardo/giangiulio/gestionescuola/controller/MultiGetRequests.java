@@ -0,0 +1,62 @@
+package com.riccardo.giangiulio.gestionescuola.controller;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.riccardo.giangiulio.gestionescuola.dto.model.MultiGetDTO;
+import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidIdListException;
+
+/**
+ * Letture multiple con {@code GET /api/{risorsa}?ids=1,2,3}: una sola query per tutti gli id al posto di una
+ * richiesta per risorsa. Gli id duplicati vengono letti una volta sola e oltre {@link #MAX_IDS} la richiesta
+ * viene rifiutata, così la dimensione della query e della risposta resta limitata.
+ */
+final class MultiGetRequests {
+
+    static final int MAX_IDS = 100;
+
+    static final String PARAMETER_DESCRIPTION =
+            "Comma-separated IDs to fetch in a single request, at most " + MAX_IDS + " (e.g. 1,2,3)";
+
+    private MultiGetRequests() {
+    }
+
+    /**
+     * Id richiesti senza duplicati, nell'ordine in cui compaiono.
+     */
+    static List<Long> distinctIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.contains(null)) {
+            throw new InvalidIdListException("The ids parameter must be a comma-separated list of IDs");
+        }
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinctIds.size() > MAX_IDS) {
+            throw new InvalidIdListException(
+                    "Too many IDs requested: " + distinctIds.size() + " (maximum " + MAX_IDS + ")");
+        }
+        return distinctIds;
+    }
+
+    /**
+     * Converte le entità trovate nei DTO, nell'ordine degli id richiesti, e riporta gli id mancanti.
+     */
+    static <E, D> MultiGetDTO<D> response(List<Long> ids, List<E> entities, Function<E, Long> idOf,
+            Function<E, D> toDTO) {
+        Map<Long, E> entitiesById = entities.stream()
+                .collect(Collectors.toMap(idOf, Function.identity(), (first, second) -> first));
+        List<D> items = new ArrayList<>(entitiesById.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            E entity = entitiesById.get(id);
+            if (entity != null) {
+                items.add(toDTO.apply(entity));
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new MultiGetDTO<>(items, missingIds);
+    }
+}
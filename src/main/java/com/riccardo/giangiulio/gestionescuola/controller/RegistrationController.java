@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -18,12 +19,19 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.riccardo.giangiulio.gestionescuola.config.Workload;
+import com.riccardo.giangiulio.gestionescuola.config.WorkloadType;
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSet;
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSetSpecs;
 import com.riccardo.giangiulio.gestionescuola.dto.mapper.RegistrationMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.MultiGetDTO;
 import com.riccardo.giangiulio.gestionescuola.dto.model.RegistrationDTO;
+import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.RegistrationNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.model.Registration;
 import com.riccardo.giangiulio.gestionescuola.model.RegistrationStatus;
 import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.service.FieldSetQueryService;
 import com.riccardo.giangiulio.gestionescuola.service.RegistrationService;
 import com.riccardo.giangiulio.gestionescuola.service.SchoolClassService;
 import com.riccardo.giangiulio.gestionescuola.service.UserService;
@@ -41,18 +49,23 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Registration Controller", description = "API for the management of student registrations")
 public class RegistrationController {
     
+    private static final Sort BY_ID = Sort.by("id");
+    
     private final RegistrationService registrationService;
     private final UserService userService;
     private final SchoolClassService schoolClassService;
+    private final FieldSetQueryService fieldSetQueryService;
     
     @Autowired
     public RegistrationController(
             RegistrationService registrationService,
             UserService userService,
-            SchoolClassService schoolClassService) {
+            SchoolClassService schoolClassService,
+            FieldSetQueryService fieldSetQueryService) {
         this.registrationService = registrationService;
         this.userService = userService;
         this.schoolClassService = schoolClassService;
+        this.fieldSetQueryService = fieldSetQueryService;
     }
     
     @Operation(summary = "Get registration by ID", description = "Returns a registration based on the specified ID")
@@ -63,12 +76,33 @@ public class RegistrationController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
     @GetMapping("/{id}")
-    public ResponseEntity<RegistrationDTO> getRegistrationById(
-            @Parameter(description = "ID of the registration to search for") @PathVariable Long id) {
+    public ResponseEntity<?> getRegistrationById(
+            @Parameter(description = "ID of the registration to search for") @PathVariable Long id,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(fieldSetQueryService.findById(Registration.class, FieldSet.parse(fields, FieldSetSpecs.REGISTRATION), id)
+                    .orElseThrow(() -> new RegistrationNotFoundException(id)));
+        }
         Registration registration = registrationService.findById(id);
         RegistrationDTO registrationDTO = RegistrationMapperDTO.toDTO(registration);
         return ResponseEntity.ok(registrationDTO);
     }
+
+    @Operation(summary = "Get registrations by IDs", description = "Returns the registrations with the specified IDs in a single request, in the requested order, and the IDs that were not found")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Registrations found, missing IDs listed in missingIds"),
+        @ApiResponse(responseCode = "400", description = "Empty ID list or more than " + MultiGetRequests.MAX_IDS + " IDs"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDTO<RegistrationDTO>> getRegistrationsByIds(
+            @Parameter(description = MultiGetRequests.PARAMETER_DESCRIPTION) @RequestParam List<Long> ids) {
+        List<Long> requestedIds = MultiGetRequests.distinctIds(ids);
+        List<Registration> registrations = registrationService.findAllByIds(requestedIds);
+        return ResponseEntity.ok(MultiGetRequests.response(
+                requestedIds, registrations, Registration::getId, RegistrationMapperDTO::toDTO));
+    }
     
     @Operation(summary = "Get all registrations", description = "Returns the list of all registrations")
     @ApiResponses(value = {
@@ -76,8 +110,13 @@ public class RegistrationController {
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PreAuthorize("hasRole('ADMIN')")
+    @Workload(WorkloadType.REPORTING)
     @GetMapping
-    public ResponseEntity<List<RegistrationDTO>> getAllRegistrations() {
+    public ResponseEntity<?> getAllRegistrations(
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(fieldSetQueryService.findAll(Registration.class, FieldSet.parse(fields, FieldSetSpecs.REGISTRATION), null, BY_ID));
+        }
         List<RegistrationDTO> registrationDTOs = registrationService.findAll().stream()
                 .map(RegistrationMapperDTO::toDTO)
                 .collect(Collectors.toList());
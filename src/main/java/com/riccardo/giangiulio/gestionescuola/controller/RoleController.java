@@ -1,6 +1,8 @@
 package com.riccardo.giangiulio.gestionescuola.controller;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,12 +15,17 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.riccardo.giangiulio.gestionescuola.dto.mapper.RoleMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.MultiGetDTO;
 import com.riccardo.giangiulio.gestionescuola.dto.model.RoleDTO;
 import com.riccardo.giangiulio.gestionescuola.model.ERole;
 import com.riccardo.giangiulio.gestionescuola.model.Role;
+import com.riccardo.giangiulio.gestionescuola.service.DataVersionService.DataSet;
+import com.riccardo.giangiulio.gestionescuola.service.EntityTagService;
 import com.riccardo.giangiulio.gestionescuola.service.RoleService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -35,20 +42,29 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Role Controller", description = "API for the management of roles")
 public class RoleController {
     
+    private static final Set<DataSet> ROLE_NESTED_DATA = EnumSet.noneOf(DataSet.class);
+    private static final Set<DataSet> ROLE_DATA = EnumSet.of(DataSet.ROLES);
+    
     private final RoleService roleService;
+    private final EntityTagService entityTagService;
     
     @Autowired
-    public RoleController(RoleService roleService) {
+    public RoleController(RoleService roleService, EntityTagService entityTagService) {
         this.roleService = roleService;
+        this.entityTagService = entityTagService;
     }
     
     @Operation(summary = "Get all roles", description = "Returns the list of all available roles")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Roles found"),
+        @ApiResponse(responseCode = "304", description = "List not modified since the version identified by If-None-Match"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping
-    public ResponseEntity<List<RoleDTO>> getAllRoles() {
+    public ResponseEntity<List<RoleDTO>> getAllRoles(WebRequest webRequest) {
+        if (ConditionalRequests.checkNotModified(webRequest, entityTagService.collectionTag("roles", ROLE_DATA))) {
+            return null;
+        }
         List<Role> roles = roleService.getAllRoles();
         List<RoleDTO> roleDTOs = roles.stream()
                 .map(RoleMapperDTO::toDTO)
@@ -59,16 +75,36 @@ public class RoleController {
     @Operation(summary = "Get role by ID", description = "Returns a role based on the specified ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Role found", content = @Content(schema = @Schema(implementation = RoleDTO.class))),
+        @ApiResponse(responseCode = "304", description = "Resource not modified since the version identified by If-None-Match"),
         @ApiResponse(responseCode = "404", description = "Role not found"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @GetMapping("/{id}")
     public ResponseEntity<RoleDTO> getRoleById(
-            @Parameter(description = "ID of the role to search for") @PathVariable Long id) {
+            @Parameter(description = "ID of the role to search for") @PathVariable Long id,
+            WebRequest webRequest) {
+        if (ConditionalRequests.checkNotModified(webRequest, roleTag(id, roleService.getRoleVersionById(id)))) {
+            return null;
+        }
         Role role = roleService.getRoleById(id);
         RoleDTO roleDTO = RoleMapperDTO.toDTO(role);
         return ResponseEntity.ok(roleDTO);
     }
+
+    @Operation(summary = "Get roles by IDs", description = "Returns the roles with the specified IDs in a single request, in the requested order, and the IDs that were not found")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Roles found, missing IDs listed in missingIds"),
+        @ApiResponse(responseCode = "400", description = "Empty ID list or more than " + MultiGetRequests.MAX_IDS + " IDs"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDTO<RoleDTO>> getRolesByIds(
+            @Parameter(description = MultiGetRequests.PARAMETER_DESCRIPTION) @RequestParam List<Long> ids) {
+        List<Long> requestedIds = MultiGetRequests.distinctIds(ids);
+        List<Role> roles = roleService.getRolesByIds(requestedIds);
+        return ResponseEntity.ok(MultiGetRequests.response(
+                requestedIds, roles, Role::getId, RoleMapperDTO::toDTO));
+    }
     
     @Operation(summary = "Get role by name", description = "Returns a role based on the specified name")
     @ApiResponses(value = {
@@ -112,4 +148,7 @@ public class RoleController {
         return ResponseEntity.ok().build();
     }
     
+    private String roleTag(Long id, long version) {
+        return entityTagService.entityTag("role", id, version, ROLE_NESTED_DATA);
+    }
 }
@@ -1,9 +1,13 @@
 package com.riccardo.giangiulio.gestionescuola.controller;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -17,15 +21,21 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSet;
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSetSpecs;
 import com.riccardo.giangiulio.gestionescuola.dto.mapper.RegistrationMapperDTO;
 import com.riccardo.giangiulio.gestionescuola.dto.mapper.SchoolClassMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.MultiGetDTO;
 import com.riccardo.giangiulio.gestionescuola.dto.model.RegistrationDTO;
 import com.riccardo.giangiulio.gestionescuola.dto.model.SchoolClassDTO;
+import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.SchoolClassNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.model.Course;
 import com.riccardo.giangiulio.gestionescuola.model.Registration;
 import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.specification.SchoolClassSpecifications;
 import com.riccardo.giangiulio.gestionescuola.service.CourseService;
+import com.riccardo.giangiulio.gestionescuola.service.FieldSetQueryService;
 import com.riccardo.giangiulio.gestionescuola.service.SchoolClassService;
 import com.riccardo.giangiulio.gestionescuola.service.UserService;
 
@@ -42,7 +52,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "School Class Controller", description = "APIs for school class management")
 public class SchoolClassController {
     
+    private static final Sort BY_ID = Sort.by("id");
+    
     private final SchoolClassService schoolClassService;
+    private final FieldSetQueryService fieldSetQueryService;
     private final UserService userService;
     private final CourseService courseService;
     
@@ -50,10 +63,12 @@ public class SchoolClassController {
     public SchoolClassController(
             SchoolClassService schoolClassService,
             UserService userService,
-            CourseService courseService) {
+            CourseService courseService,
+            FieldSetQueryService fieldSetQueryService) {
         this.schoolClassService = schoolClassService;
         this.userService = userService;
         this.courseService = courseService;
+        this.fieldSetQueryService = fieldSetQueryService;
     }
     
     @Operation(summary = "Get class by ID", description = "Returns a school class based on the specified ID")
@@ -64,12 +79,33 @@ public class SchoolClassController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
     @GetMapping("/{id}")
-    public ResponseEntity<SchoolClassDTO> getSchoolClassById(
-            @Parameter(description = "ID of the class to search for") @PathVariable Long id) {
+    public ResponseEntity<?> getSchoolClassById(
+            @Parameter(description = "ID of the class to search for") @PathVariable Long id,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, SchoolClassSpecifications.hasId(id))
+                    .orElseThrow(() -> new SchoolClassNotFoundException(id)));
+        }
         SchoolClass schoolClass = schoolClassService.findById(id);
         SchoolClassDTO schoolClassDTO = SchoolClassMapperDTO.toDTO(schoolClass);
         return ResponseEntity.ok(schoolClassDTO);
     }
+
+    @Operation(summary = "Get classes by IDs", description = "Returns the classes with the specified IDs in a single request, in the requested order, and the IDs that were not found")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Classes found, missing IDs listed in missingIds"),
+        @ApiResponse(responseCode = "400", description = "Empty ID list or more than " + MultiGetRequests.MAX_IDS + " IDs"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDTO<SchoolClassDTO>> getSchoolClassesByIds(
+            @Parameter(description = MultiGetRequests.PARAMETER_DESCRIPTION) @RequestParam List<Long> ids) {
+        List<Long> requestedIds = MultiGetRequests.distinctIds(ids);
+        List<SchoolClass> schoolClasses = schoolClassService.findAllByIds(requestedIds);
+        return ResponseEntity.ok(MultiGetRequests.response(
+                requestedIds, schoolClasses, SchoolClass::getId, SchoolClassMapperDTO::toDTO));
+    }
     
     @Operation(summary = "Get all classes", description = "Returns the list of all school classes")
     @ApiResponses(value = {
@@ -78,7 +114,11 @@ public class SchoolClassController {
     })
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping
-    public ResponseEntity<List<SchoolClassDTO>> getAllSchoolClasses() {
+    public ResponseEntity<?> getAllSchoolClasses(
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, null, BY_ID));
+        }
         List<SchoolClassDTO> schoolClassDTOs = schoolClassService.findAll().stream()
                 .map(SchoolClassMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -139,9 +179,13 @@ public class SchoolClassController {
     })
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/course/{courseId}")
-    public ResponseEntity<List<SchoolClassDTO>> getSchoolClassesByCourse(
-            @Parameter(description = "Course ID") @PathVariable Long courseId) {
+    public ResponseEntity<?> getSchoolClassesByCourse(
+            @Parameter(description = "Course ID") @PathVariable Long courseId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
         Course course = courseService.findById(courseId);
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, SchoolClassSpecifications.hasCourse(course), BY_ID));
+        }
         List<SchoolClassDTO> schoolClassDTOs = schoolClassService.findByCourse(course).stream()
                 .map(SchoolClassMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -156,9 +200,13 @@ public class SchoolClassController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
     @GetMapping("/teacher/{teacherId}")
-    public ResponseEntity<List<SchoolClassDTO>> getSchoolClassesByTeacher(
-            @Parameter(description = "Teacher ID") @PathVariable Long teacherId) {
+    public ResponseEntity<?> getSchoolClassesByTeacher(
+            @Parameter(description = "Teacher ID") @PathVariable Long teacherId,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
         User teacher = userService.findById(teacherId);
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, SchoolClassSpecifications.hasTeacher(teacher), BY_ID));
+        }
         List<SchoolClassDTO> schoolClassDTOs = schoolClassService.findByTeacher(teacher).stream()
                 .map(SchoolClassMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -172,8 +220,13 @@ public class SchoolClassController {
     })
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/name")
-    public ResponseEntity<SchoolClassDTO> getSchoolClassesByName(
-            @Parameter(description = "Class name") @RequestParam String name) {
+    public ResponseEntity<?> getSchoolClassesByName(
+            @Parameter(description = "Class name") @RequestParam String name,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, SchoolClassSpecifications.hasName(name))
+                    .orElseThrow(() -> new SchoolClassNotFoundException(name)));
+        }
         SchoolClass schoolClass = schoolClassService.findByName(name);
         SchoolClassDTO schoolClassDTO = SchoolClassMapperDTO.toDTO(schoolClass);
         return ResponseEntity.ok(schoolClassDTO);
@@ -186,7 +239,11 @@ public class SchoolClassController {
     })
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/available")
-    public ResponseEntity<List<SchoolClassDTO>> getAvailableSchoolClasses() {
+    public ResponseEntity<?> getAvailableSchoolClasses(
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, SchoolClassSpecifications.hasAvailableSeats(), BY_ID));
+        }
         List<SchoolClassDTO> schoolClassDTOs = schoolClassService.findAvailable().stream()
                 .map(SchoolClassMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -200,7 +257,11 @@ public class SchoolClassController {
     })
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/full")
-    public ResponseEntity<List<SchoolClassDTO>> getFullSchoolClasses() {
+    public ResponseEntity<?> getFullSchoolClasses(
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(findFields(fields, SchoolClassSpecifications.isFull(), BY_ID));
+        }
         List<SchoolClassDTO> schoolClassDTOs = schoolClassService.findFull().stream()
                 .map(SchoolClassMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -285,4 +346,12 @@ public class SchoolClassController {
                 .collect(Collectors.toList());
         return ResponseEntity.ok(activeRegistrationsDTO);
     }
+    
+    private List<Map<String, Object>> findFields(String fields, Specification<SchoolClass> specification, Sort sort) {
+        return fieldSetQueryService.findAll(SchoolClass.class, FieldSet.parse(fields, FieldSetSpecs.SCHOOL_CLASS), specification, sort);
+    }
+    
+    private Optional<Map<String, Object>> findFields(String fields, Specification<SchoolClass> specification) {
+        return fieldSetQueryService.findOne(SchoolClass.class, FieldSet.parse(fields, FieldSetSpecs.SCHOOL_CLASS), specification);
+    }
 }
@@ -1,9 +1,12 @@
 package com.riccardo.giangiulio.gestionescuola.controller;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -16,12 +19,20 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSet;
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSetSpecs;
 import com.riccardo.giangiulio.gestionescuola.dto.mapper.SubjectMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.MultiGetDTO;
 import com.riccardo.giangiulio.gestionescuola.dto.model.SubjectDTO;
+import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.SubjectNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.model.Course;
 import com.riccardo.giangiulio.gestionescuola.model.Subject;
 import com.riccardo.giangiulio.gestionescuola.service.CourseService;
+import com.riccardo.giangiulio.gestionescuola.service.DataVersionService.DataSet;
+import com.riccardo.giangiulio.gestionescuola.service.EntityTagService;
+import com.riccardo.giangiulio.gestionescuola.service.FieldSetQueryService;
 import com.riccardo.giangiulio.gestionescuola.service.SubjectService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -37,38 +48,83 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Subject Controller", description = "APIs for subject management")
 public class SubjectController {
     
+    private static final Set<DataSet> SUBJECT_NESTED_DATA = EnumSet.of(DataSet.USERS, DataSet.ROLES, DataSet.COURSES);
+    private static final Set<DataSet> SUBJECT_DATA = EnumSet.of(DataSet.SUBJECTS, DataSet.USERS, DataSet.ROLES, DataSet.COURSES);
+    
+    private static final Sort BY_ID = Sort.by("id");
+    
     private final SubjectService subjectService;
+    private final EntityTagService entityTagService;
     private final CourseService courseService;
+    private final FieldSetQueryService fieldSetQueryService;
     
     @Autowired
-    public SubjectController(SubjectService subjectService, CourseService courseService) {
+    public SubjectController(SubjectService subjectService, CourseService courseService, EntityTagService entityTagService,
+            FieldSetQueryService fieldSetQueryService) {
         this.subjectService = subjectService;
         this.courseService = courseService;
+        this.entityTagService = entityTagService;
+        this.fieldSetQueryService = fieldSetQueryService;
     }
     
     @Operation(summary = "Get subject by ID", description = "Returns a subject based on the specified ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Subject found", content = @Content(schema = @Schema(implementation = SubjectDTO.class))),
+        @ApiResponse(responseCode = "304", description = "Resource not modified since the version identified by If-None-Match"),
         @ApiResponse(responseCode = "404", description = "Subject not found"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
     @GetMapping("/{id}")
-    public ResponseEntity<SubjectDTO> getSubjectById(
-            @Parameter(description = "ID of the subject to search for") @PathVariable Long id) {
+    public ResponseEntity<?> getSubjectById(
+            @Parameter(description = "ID of the subject to search for") @PathVariable Long id,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        if (ConditionalRequests.checkNotModified(webRequest, subjectTag(id, subjectService.findVersionById(id)))) {
+            return null;
+        }
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(fieldSetQueryService.findById(Subject.class, FieldSet.parse(fields, FieldSetSpecs.SUBJECT), id)
+                    .orElseThrow(() -> new SubjectNotFoundException(id)));
+        }
         Subject subject = subjectService.findById(id);
         SubjectDTO subjectDTO = SubjectMapperDTO.toDTO(subject);
         return ResponseEntity.ok(subjectDTO);
     }
+
+    @Operation(summary = "Get subjects by IDs", description = "Returns the subjects with the specified IDs in a single request, in the requested order, and the IDs that were not found")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Subjects found, missing IDs listed in missingIds"),
+        @ApiResponse(responseCode = "400", description = "Empty ID list or more than " + MultiGetRequests.MAX_IDS + " IDs"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER') or hasRole('STUDENT')")
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDTO<SubjectDTO>> getSubjectsByIds(
+            @Parameter(description = MultiGetRequests.PARAMETER_DESCRIPTION) @RequestParam List<Long> ids) {
+        List<Long> requestedIds = MultiGetRequests.distinctIds(ids);
+        List<Subject> subjects = subjectService.findAllByIds(requestedIds);
+        return ResponseEntity.ok(MultiGetRequests.response(
+                requestedIds, subjects, Subject::getId, SubjectMapperDTO::toDTO));
+    }
     
     @Operation(summary = "Get all subjects", description = "Returns the list of all subjects")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "List of subjects found"),
+        @ApiResponse(responseCode = "304", description = "List not modified since the version identified by If-None-Match"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping
-    public ResponseEntity<List<SubjectDTO>> getAllSubjects() {
+    public ResponseEntity<?> getAllSubjects(
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields,
+            WebRequest webRequest) {
+        if (ConditionalRequests.checkNotModified(webRequest, entityTagService.collectionTag("subjects", SUBJECT_DATA))) {
+            return null;
+        }
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(fieldSetQueryService.findAll(Subject.class, FieldSet.parse(fields, FieldSetSpecs.SUBJECT), null, BY_ID));
+        }
         List<SubjectDTO> subjectDTOs = subjectService.findAll().stream()
                 .map(SubjectMapperDTO::toDTO)
                 .collect(Collectors.toList());
@@ -93,6 +149,7 @@ public class SubjectController {
     @Operation(summary = "Update a subject", description = "Updates the data of an existing subject")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Subject updated successfully"),
+        @ApiResponse(responseCode = "412", description = "If-Match does not match the current version of the resource"),
         @ApiResponse(responseCode = "404", description = "Subject not found"),
         @ApiResponse(responseCode = "400", description = "Invalid subject data"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
@@ -101,10 +158,12 @@ public class SubjectController {
     @PutMapping("/{id}")
     public ResponseEntity<SubjectDTO> updateSubject(
             @Parameter(description = "ID of the subject to update") @PathVariable Long id,
-            @Parameter(description = "New subject data") @RequestBody Subject subject) {
-        Subject updatedSubject = subjectService.update(id, subject);
+            @Parameter(description = "New subject data") @RequestBody Subject subject,
+            WebRequest webRequest) {
+        Long expectedVersion = ConditionalRequests.expectedVersion(webRequest, entityTagService, "subject", id);
+        Subject updatedSubject = subjectService.update(id, subject, expectedVersion);
         SubjectDTO subjectDTO = SubjectMapperDTO.toDTO(updatedSubject);
-        return ResponseEntity.ok(subjectDTO);
+        return ResponseEntity.ok().eTag(ConditionalRequests.representationTag(webRequest, subjectTag(id, updatedSubject.getVersion()))).body(subjectDTO);
     }
     
     @Operation(summary = "Delete a subject", description = "Deletes an existing subject from the system")
@@ -169,4 +228,8 @@ public class SubjectController {
         SubjectDTO subjectDTO = SubjectMapperDTO.toDTO(updatedSubject);
         return ResponseEntity.ok(subjectDTO);
     }
-}
\ No newline at end of file
+    
+    private String subjectTag(Long id, long version) {
+        return entityTagService.entityTag("subject", id, version, SUBJECT_NESTED_DATA);
+    }
+}
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -18,11 +19,18 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.riccardo.giangiulio.gestionescuola.config.Workload;
+import com.riccardo.giangiulio.gestionescuola.config.WorkloadType;
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSet;
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSetSpecs;
 import com.riccardo.giangiulio.gestionescuola.dto.mapper.UserMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.MultiGetDTO;
 import com.riccardo.giangiulio.gestionescuola.dto.model.UserDTO;
+import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.UserNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.model.ERole;
 import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.service.FieldSetQueryService;
 import com.riccardo.giangiulio.gestionescuola.service.SchoolClassService;
 import com.riccardo.giangiulio.gestionescuola.service.UserService;
 
@@ -39,13 +47,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "User Controller", description = "API for the management of users")
 public class UserController {
     
+    private static final Sort BY_ID = Sort.by("id");
+    
     private final UserService userService;
     private final SchoolClassService schoolClassService;
+    private final FieldSetQueryService fieldSetQueryService;
     
     @Autowired
-    public UserController(UserService userService, SchoolClassService schoolClassService) {
+    public UserController(UserService userService, SchoolClassService schoolClassService, FieldSetQueryService fieldSetQueryService) {
         this.userService = userService;
         this.schoolClassService = schoolClassService;
+        this.fieldSetQueryService = fieldSetQueryService;
     }
     
     @Operation(summary = "Get user by ID", description = "Returns a user based on the specified ID")
@@ -56,21 +68,47 @@ public class UserController {
     })
     @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
     @GetMapping("/{id}")
-    public ResponseEntity<UserDTO> getUserById(
-            @Parameter(description = "ID of the user to search for") @PathVariable Long id) {
+    public ResponseEntity<?> getUserById(
+            @Parameter(description = "ID of the user to search for") @PathVariable Long id,
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(fieldSetQueryService.findById(User.class, FieldSet.parse(fields, FieldSetSpecs.USER), id)
+                    .orElseThrow(() -> new UserNotFoundException(id)));
+        }
         User user = userService.findById(id);
         UserDTO userDTO = UserMapperDTO.toDTO(user);
         return ResponseEntity.ok(userDTO);
     }
 
+    @Operation(summary = "Get users by IDs", description = "Returns the users with the specified IDs in a single request, in the requested order, and the IDs that were not found")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Users found, missing IDs listed in missingIds"),
+        @ApiResponse(responseCode = "400", description = "Empty ID list or more than " + MultiGetRequests.MAX_IDS + " IDs"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PreAuthorize("hasRole('ADMIN') or hasRole('TEACHER')")
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDTO<UserDTO>> getUsersByIds(
+            @Parameter(description = MultiGetRequests.PARAMETER_DESCRIPTION) @RequestParam List<Long> ids) {
+        List<Long> requestedIds = MultiGetRequests.distinctIds(ids);
+        List<User> users = userService.findAllByIds(requestedIds);
+        return ResponseEntity.ok(MultiGetRequests.response(
+                requestedIds, users, User::getId, UserMapperDTO::toDTO));
+    }
+
     @Operation(summary = "Get all users", description = "Returns the list of all users")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "List of users found"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @PreAuthorize("hasRole('ADMIN')")
+    @Workload(WorkloadType.REPORTING)
     @GetMapping
-    public ResponseEntity<List<UserDTO>> getAllUsers() {
+    public ResponseEntity<?> getAllUsers(
+            @Parameter(description = FieldSet.PARAMETER_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (FieldSet.isRequested(fields)) {
+            return ResponseEntity.ok(fieldSetQueryService.findAll(User.class, FieldSet.parse(fields, FieldSetSpecs.USER), null, BY_ID));
+        }
         List<UserDTO> userDTOs = userService.findAll().stream()
                 .map(UserMapperDTO::toDTO)
                 .collect(Collectors.toList());
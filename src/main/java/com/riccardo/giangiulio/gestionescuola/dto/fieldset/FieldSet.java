@@ -0,0 +1,75 @@
+package com.riccardo.giangiulio.gestionescuola.dto.fieldset;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidFieldSetException;
+
+/**
+ * Campi richiesti con il parametro {@code ?fields=}, ad esempio {@code id,title,teacher.lastName,classroom}.
+ * Un'associazione senza sottocampi restituisce la forma completa del DTO annidato; l'id di ogni associazione
+ * richiesta è sempre incluso, così un'associazione assente si distingue da una con i campi nulli.
+ */
+public final class FieldSet {
+
+    public static final String PARAMETER_DESCRIPTION =
+            "Comma-separated fields to return, nested paths allowed (e.g. id,title,teacher.lastName). Omit for the full object";
+
+    private final List<String> paths;
+
+    private FieldSet(List<String> paths) {
+        this.paths = paths;
+    }
+
+    public static boolean isRequested(String fields) {
+        return fields != null && !fields.isBlank();
+    }
+
+    public static FieldSet parse(String fields, FieldSetSpec spec) {
+        Set<String> paths = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String path = field.trim();
+            if (!path.isEmpty()) {
+                resolve(path, spec, paths);
+            }
+        }
+        if (paths.isEmpty()) {
+            throw new InvalidFieldSetException("No fields requested");
+        }
+        return new FieldSet(new ArrayList<>(paths));
+    }
+
+    private static void resolve(String path, FieldSetSpec spec, Set<String> paths) {
+        String[] segments = path.split("\\.");
+        FieldSetSpec current = spec;
+        StringBuilder prefix = new StringBuilder();
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            boolean last = i == segments.length - 1;
+            if (last && current.hasAttribute(segment)) {
+                paths.add(prefix + segment);
+                return;
+            }
+            FieldSetSpec association = current.getAssociation(segment);
+            if (association == null) {
+                throw new InvalidFieldSetException("Unknown or not selectable field: " + path);
+            }
+            prefix.append(segment).append('.');
+            paths.add(prefix + "id");
+            if (last) {
+                association.collectAll(prefix.toString(), paths);
+                return;
+            }
+            current = association;
+        }
+    }
+
+    /**
+     * Percorsi dei campi semplici da selezionare, ad esempio {@code teacher.role.name}.
+     */
+    public List<String> getPaths() {
+        return paths;
+    }
+}
@@ -0,0 +1,51 @@
+package com.riccardo.giangiulio.gestionescuola.dto.fieldset;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Campi selezionabili con {@code ?fields=} per la forma di un DTO: attributi semplici e associazioni a singolo valore,
+ * con lo stesso nome dell'attributo dell'entità. Le collezioni non sono selezionabili: moltiplicherebbero le righe
+ * della query.
+ */
+public final class FieldSetSpec {
+
+    private final List<String> attributes;
+    private final Map<String, FieldSetSpec> associations;
+
+    private FieldSetSpec(List<String> attributes, Map<String, FieldSetSpec> associations) {
+        this.attributes = attributes;
+        this.associations = associations;
+    }
+
+    public static FieldSetSpec of(String... attributes) {
+        return new FieldSetSpec(List.of(attributes), Collections.emptyMap());
+    }
+
+    public FieldSetSpec with(String association, FieldSetSpec spec) {
+        Map<String, FieldSetSpec> copy = new LinkedHashMap<>(associations);
+        copy.put(association, spec);
+        return new FieldSetSpec(attributes, Collections.unmodifiableMap(copy));
+    }
+
+    public boolean hasAttribute(String name) {
+        return attributes.contains(name);
+    }
+
+    public FieldSetSpec getAssociation(String name) {
+        return associations.get(name);
+    }
+
+    /**
+     * Aggiunge tutti i campi della forma completa del DTO, associazioni comprese.
+     */
+    void collectAll(String prefix, Set<String> paths) {
+        for (String attribute : attributes) {
+            paths.add(prefix + attribute);
+        }
+        associations.forEach((name, spec) -> spec.collectAll(prefix + name + ".", paths));
+    }
+}
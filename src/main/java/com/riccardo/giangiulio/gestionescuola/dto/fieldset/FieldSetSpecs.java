@@ -0,0 +1,63 @@
+package com.riccardo.giangiulio.gestionescuola.dto.fieldset;
+
+/**
+ * Campi selezionabili delle risorse che supportano {@code ?fields=}, con la stessa forma dei rispettivi DTO.
+ */
+public final class FieldSetSpecs {
+
+    public static final FieldSetSpec ROLE = FieldSetSpec.of("id", "name");
+
+    public static final FieldSetSpec USER = FieldSetSpec.of("id", "firstName", "lastName", "email")
+            .with("role", ROLE);
+
+    public static final FieldSetSpec CLASSROOM = FieldSetSpec.of("id", "name", "capacity");
+
+    public static final FieldSetSpec SUBJECT_SIMPLE = FieldSetSpec.of("id", "name", "description");
+
+    public static final FieldSetSpec COURSE_SIMPLE = FieldSetSpec.of("id", "title", "description", "duration", "price");
+
+    public static final FieldSetSpec SCHOOL_CLASS_SIMPLE = FieldSetSpec.of("id", "name", "maxStudents");
+
+    public static final FieldSetSpec LESSON_SIMPLE = FieldSetSpec.of("id", "title", "description", "startDateTime", "endDateTime");
+
+    public static final FieldSetSpec EXAM_SIMPLE = FieldSetSpec.of("id", "title", "description", "maxScore", "passingScore");
+
+    public static final FieldSetSpec LESSON = FieldSetSpec.of("id", "title", "description", "startDateTime", "endDateTime")
+            .with("schoolClass", SCHOOL_CLASS_SIMPLE)
+            .with("teacher", USER)
+            .with("classroom", CLASSROOM)
+            .with("subject", SUBJECT_SIMPLE);
+
+    public static final FieldSetSpec EXAM = FieldSetSpec.of("id", "title", "description", "date", "duration", "maxScore", "passingScore")
+            .with("classroom", CLASSROOM)
+            .with("subject", SUBJECT_SIMPLE)
+            .with("schoolClass", SCHOOL_CLASS_SIMPLE)
+            .with("teacher", USER);
+
+    // Docenti e iscrizioni sono collezioni: restano disponibili solo nella risposta completa
+    public static final FieldSetSpec SCHOOL_CLASS = FieldSetSpec.of("id", "name", "maxStudents")
+            .with("course", COURSE_SIMPLE);
+
+    // Materie ed esami del corso sono collezioni: restano disponibili solo nella risposta completa
+    public static final FieldSetSpec COURSE = COURSE_SIMPLE;
+
+    // I corsi della materia sono una collezione: restano disponibili solo nella risposta completa
+    public static final FieldSetSpec SUBJECT = FieldSetSpec.of("id", "name", "description")
+            .with("teacher", USER);
+
+    public static final FieldSetSpec REGISTRATION = FieldSetSpec.of("id", "registrationDate", "status")
+            .with("student", USER)
+            .with("course", COURSE_SIMPLE)
+            .with("schoolClass", SCHOOL_CLASS_SIMPLE);
+
+    public static final FieldSetSpec ATTENDANCE = FieldSetSpec.of("id", "present", "entryTime", "exitTime")
+            .with("student", USER)
+            .with("lesson", LESSON_SIMPLE);
+
+    public static final FieldSetSpec EXAM_RESULT = FieldSetSpec.of("id", "score", "notes", "date")
+            .with("exam", EXAM_SIMPLE)
+            .with("student", USER);
+
+    private FieldSetSpecs() {
+    }
+}
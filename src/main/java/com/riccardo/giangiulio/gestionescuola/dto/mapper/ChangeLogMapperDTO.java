@@ -0,0 +1,22 @@
+package com.riccardo.giangiulio.gestionescuola.dto.mapper;
+
+import java.util.stream.Collectors;
+
+import com.riccardo.giangiulio.gestionescuola.dto.model.ChangeFeedDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.ChangeLogEntryDTO;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeLogEntry;
+import com.riccardo.giangiulio.gestionescuola.service.ChangeFeed;
+
+public class ChangeLogMapperDTO {
+
+    public static ChangeLogEntryDTO toDTO(ChangeLogEntry entry) {
+        return new ChangeLogEntryDTO(entry.getEntityType(), entry.getEntityId(), entry.getOperation(), entry.getVersion(),
+                entry.getChangedAt());
+    }
+
+    public static ChangeFeedDTO toDTO(ChangeFeed feed) {
+        return new ChangeFeedDTO(feed.getChanges().stream()
+                .map(ChangeLogMapperDTO::toDTO)
+                .collect(Collectors.toList()), feed.getCursor(), feed.isHasMore(), feed.isResync());
+    }
+}
@@ -0,0 +1,12 @@
+package com.riccardo.giangiulio.gestionescuola.dto.mapper;
+
+import com.riccardo.giangiulio.gestionescuola.dto.model.ExportJobDTO;
+import com.riccardo.giangiulio.gestionescuola.service.ExportJob;
+
+public class ExportJobMapperDTO {
+
+    public static ExportJobDTO toDTO(ExportJob job) {
+        return new ExportJobDTO(job.getId(), job.getType(), job.getTargetId(), job.getStatus(), job.getBytesWritten(),
+                job.getCreatedAt(), job.getStartedAt(), job.getCompletedAt(), job.getError());
+    }
+}
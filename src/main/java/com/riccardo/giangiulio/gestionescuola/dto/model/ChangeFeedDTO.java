@@ -0,0 +1,42 @@
+package com.riccardo.giangiulio.gestionescuola.dto.model;
+
+import java.util.List;
+
+/**
+ * Risposta del feed delle modifiche: le modifiche dopo il cursore richiesto e il cursore da usare nella
+ * richiesta successiva. Con {@code resync} il client deve ricaricare tutti i dati e ripartire da {@code cursor}.
+ */
+public class ChangeFeedDTO {
+
+    private List<ChangeLogEntryDTO> changes;
+    private String cursor;
+    private boolean hasMore;
+    private boolean resync;
+
+    public ChangeFeedDTO() {
+
+    }
+
+    public ChangeFeedDTO(List<ChangeLogEntryDTO> changes, String cursor, boolean hasMore, boolean resync) {
+        this.changes = changes;
+        this.cursor = cursor;
+        this.hasMore = hasMore;
+        this.resync = resync;
+    }
+
+    public List<ChangeLogEntryDTO> getChanges() {
+        return changes;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public boolean isResync() {
+        return resync;
+    }
+}
@@ -0,0 +1,48 @@
+package com.riccardo.giangiulio.gestionescuola.dto.model;
+
+import java.time.Instant;
+
+import com.riccardo.giangiulio.gestionescuola.model.ChangeEntityType;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeOperation;
+
+public class ChangeLogEntryDTO {
+
+    private ChangeEntityType type;
+    private Long id;
+    private ChangeOperation operation;
+    private Long version;
+    private Instant changedAt;
+
+    public ChangeLogEntryDTO() {
+
+    }
+
+    public ChangeLogEntryDTO(ChangeEntityType type, Long id, ChangeOperation operation, Long version,
+            Instant changedAt) {
+        this.type = type;
+        this.id = id;
+        this.operation = operation;
+        this.version = version;
+        this.changedAt = changedAt;
+    }
+
+    public ChangeEntityType getType() {
+        return type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public ChangeOperation getOperation() {
+        return operation;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+}
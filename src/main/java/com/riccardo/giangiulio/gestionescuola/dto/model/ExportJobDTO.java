@@ -0,0 +1,74 @@
+package com.riccardo.giangiulio.gestionescuola.dto.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.riccardo.giangiulio.gestionescuola.model.ExportJobStatus;
+import com.riccardo.giangiulio.gestionescuola.model.ExportJobType;
+
+public class ExportJobDTO {
+    
+    private UUID id;
+    private ExportJobType type;
+    private Long targetId;
+    private ExportJobStatus status;
+    private long bytesWritten;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private String error;
+
+    public ExportJobDTO() {
+
+    }
+
+    public ExportJobDTO(UUID id, ExportJobType type, Long targetId, ExportJobStatus status, long bytesWritten,
+            LocalDateTime createdAt, LocalDateTime startedAt, LocalDateTime completedAt, String error) {
+        this.id = id;
+        this.type = type;
+        this.targetId = targetId;
+        this.status = status;
+        this.bytesWritten = bytesWritten;
+        this.createdAt = createdAt;
+        this.startedAt = startedAt;
+        this.completedAt = completedAt;
+        this.error = error;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public ExportJobType getType() {
+        return type;
+    }
+
+    public Long getTargetId() {
+        return targetId;
+    }
+
+    public ExportJobStatus getStatus() {
+        return status;
+    }
+
+    // Avanzamento: byte già scritti nel file di spool
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,34 @@
+package com.riccardo.giangiulio.gestionescuola.dto.model;
+
+import com.riccardo.giangiulio.gestionescuola.model.ExportJobType;
+
+public class ExportJobRequestDTO {
+    
+    private ExportJobType type;
+    private Long targetId;
+    
+    public ExportJobRequestDTO() {
+
+    }
+
+    public ExportJobRequestDTO(ExportJobType type, Long targetId) {
+        this.type = type;
+        this.targetId = targetId;
+    }
+
+    public ExportJobType getType() {
+        return type;
+    }
+
+    public Long getTargetId() {
+        return targetId;
+    }
+
+    public void setType(ExportJobType type) {
+        this.type = type;
+    }
+
+    public void setTargetId(Long targetId) {
+        this.targetId = targetId;
+    }
+}
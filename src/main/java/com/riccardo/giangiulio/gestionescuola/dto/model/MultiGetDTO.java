@@ -0,0 +1,38 @@
+package com.riccardo.giangiulio.gestionescuola.dto.model;
+
+import java.util.List;
+
+/**
+ * Risposta delle letture multiple ({@code ?ids=1,2,3}): le risorse trovate, nell'ordine degli id richiesti,
+ * e gli id a cui non corrisponde nessuna risorsa.
+ */
+public class MultiGetDTO<T> {
+
+    private List<T> items;
+    private List<Long> missingIds;
+
+    public MultiGetDTO() {
+
+    }
+
+    public MultiGetDTO(List<T> items, List<Long> missingIds) {
+        this.items = items;
+        this.missingIds = missingIds;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public List<Long> getMissingIds() {
+        return missingIds;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public void setMissingIds(List<Long> missingIds) {
+        this.missingIds = missingIds;
+    }
+}
@@ -1,20 +1,30 @@
 package com.riccardo.giangiulio.gestionescuola.exception;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.ResourceNotFoundException;
+import com.riccardo.giangiulio.gestionescuola.exception.OverloadException.ServiceOverloadedException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.BusinessValidationException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.ClassroomCapacityExceededException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.DuplicateRegistrationException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.EmailAlreadyExistException;
+import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.ExportJobNotReadyException;
+import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.PreconditionFailedException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.SchoolClassFullException;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
     
+    @Value("${myapp.datasource.retry-after-seconds:1}")
+    private long databaseRetryAfterSeconds;
+    
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<String> handleResourceNotFound(ResourceNotFoundException ex) {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
@@ -28,12 +38,25 @@ public class GlobalExceptionHandler {
      // Gestione specifica per duplicazioni (conflict)
      @ExceptionHandler({
         DuplicateRegistrationException.class,
-        EmailAlreadyExistException.class
+        EmailAlreadyExistException.class,
+        ExportJobNotReadyException.class
     })
     public ResponseEntity<String> handleConflict(BusinessValidationException ex) {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
     }
     
+    // Modifica concorrente rilevata dalla colonna @Version: il client deve rileggere la risorsa e riprovare
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLocking(OptimisticLockingFailureException ex) {
+        return new ResponseEntity<>("The resource was modified concurrently, reload it and retry", HttpStatus.CONFLICT);
+    }
+    
+    // If-Match non corrisponde alla versione letta nella transazione di aggiornamento
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<String> handlePreconditionFailed(PreconditionFailedException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.PRECONDITION_FAILED);
+    }
+    
     // Gestione specifica per risorse piene
     @ExceptionHandler({
         SchoolClassFullException.class,
@@ -43,6 +66,22 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY);
     }
     
+    // Gestione per risorse sovraccariche: risposta immediata con indicazione di quando riprovare
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<String> handleOverloaded(ServiceOverloadedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+            .body(ex.getMessage());
+    }
+    
+    // Nessuna connessione libera nel pool entro il timeout: il database è saturo, il client può riprovare a breve
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<String> handleDatabaseUnavailable(CannotCreateTransactionException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(databaseRetryAfterSeconds))
+            .body("The database is busy, retry later");
+    }
+    
     // Gestione generica per eccezioni non gestite
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleGeneric(Exception ex) {
@@ -0,0 +1,9 @@
+package com.riccardo.giangiulio.gestionescuola.exception.NotFoundException;
+
+import java.util.UUID;
+
+public class ExportJobNotFoundException extends ResourceNotFoundException {
+    public ExportJobNotFoundException(UUID id) {
+        super("Export job not found with ID: " + id);
+    }
+}
@@ -0,0 +1,7 @@
+package com.riccardo.giangiulio.gestionescuola.exception.OverloadException;
+
+public class ExportQueueFullException extends ServiceOverloadedException {
+    public ExportQueueFullException(long retryAfterSeconds) {
+        super("Too many export jobs queued, please retry later", retryAfterSeconds);
+    }
+}
@@ -0,0 +1,7 @@
+package com.riccardo.giangiulio.gestionescuola.exception.OverloadException;
+
+public class PasswordHashingOverloadedException extends ServiceOverloadedException {
+    public PasswordHashingOverloadedException(long retryAfterSeconds) {
+        super("Too many authentication requests in progress, please retry later", retryAfterSeconds);
+    }
+}
@@ -0,0 +1,7 @@
+package com.riccardo.giangiulio.gestionescuola.exception.OverloadException;
+
+public class WorkloadSaturatedException extends ServiceOverloadedException {
+    public WorkloadSaturatedException(String workload, long retryAfterSeconds) {
+        super("Too many concurrent " + workload + " requests, please retry later", retryAfterSeconds);
+    }
+}
@@ -0,0 +1,11 @@
+package com.riccardo.giangiulio.gestionescuola.exception.ValidationException;
+
+import java.util.UUID;
+
+import com.riccardo.giangiulio.gestionescuola.model.ExportJobStatus;
+
+public class ExportJobNotReadyException extends BusinessValidationException {
+    public ExportJobNotReadyException(UUID id, ExportJobStatus status) {
+        super("Export job " + id + " is not ready for download, current status: " + status);
+    }
+}
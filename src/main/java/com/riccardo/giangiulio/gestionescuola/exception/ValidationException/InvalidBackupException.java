@@ -0,0 +1,7 @@
+package com.riccardo.giangiulio.gestionescuola.exception.ValidationException;
+
+public class InvalidBackupException extends BusinessValidationException {
+    public InvalidBackupException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.riccardo.giangiulio.gestionescuola.exception.ValidationException;
+
+public class InvalidChangeFeedRequestException extends BusinessValidationException {
+    public InvalidChangeFeedRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.riccardo.giangiulio.gestionescuola.exception.ValidationException;
+
+public class InvalidExportJobException extends BusinessValidationException {
+    public InvalidExportJobException(String message) {
+        super(message);
+    }
+}
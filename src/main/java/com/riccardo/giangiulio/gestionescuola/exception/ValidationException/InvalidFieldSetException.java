@@ -0,0 +1,7 @@
+package com.riccardo.giangiulio.gestionescuola.exception.ValidationException;
+
+public class InvalidFieldSetException extends BusinessValidationException {
+    public InvalidFieldSetException(String message) {
+        super(message);
+    }
+}
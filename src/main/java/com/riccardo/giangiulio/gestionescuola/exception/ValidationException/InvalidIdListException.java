@@ -0,0 +1,7 @@
+package com.riccardo.giangiulio.gestionescuola.exception.ValidationException;
+
+public class InvalidIdListException extends BusinessValidationException {
+    public InvalidIdListException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.riccardo.giangiulio.gestionescuola.exception.ValidationException;
+
+public class PreconditionFailedException extends BusinessValidationException {
+    public PreconditionFailedException(String resource, Long id) {
+        super("The " + resource + " with ID " + id + " was modified: If-Match does not match its current version");
+    }
+}
@@ -0,0 +1,20 @@
+package com.riccardo.giangiulio.gestionescuola.model;
+
+/**
+ * Formato delle tabelle nell'archivio di backup: NDJSON leggibile e portabile,
+ * oppure COPY binario di PostgreSQL, più compatto e veloce da ripristinare.
+ */
+public enum BackupFormat {
+    NDJSON("ndjson"),
+    COPY("copy");
+
+    private final String fileExtension;
+
+    BackupFormat(String fileExtension) {
+        this.fileExtension = fileExtension;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+}
@@ -0,0 +1,7 @@
+package com.riccardo.giangiulio.gestionescuola.model;
+
+public enum ChangeEntityType {
+    LESSON,
+    EXAM,
+    REGISTRATION
+}
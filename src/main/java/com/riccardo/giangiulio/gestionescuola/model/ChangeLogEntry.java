@@ -0,0 +1,91 @@
+package com.riccardo.giangiulio.gestionescuola.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "change_log", indexes = {
+    @Index(name = "idx_change_log_position", columnList = "transactionId, id"),
+    @Index(name = "idx_change_log_entity", columnList = "entityType, entityId"),
+    @Index(name = "idx_change_log_changed_at", columnList = "changedAt")
+})
+public class ChangeLogEntry {
+
+    // Crescente nell'ordine di scrittura: ordina le voci della stessa transazione
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Id PostgreSQL della transazione che ha scritto la voce: con l'id forma la posizione usata dai cursori
+    private Long transactionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ChangeEntityType entityType;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private ChangeOperation operation;
+
+    // Versione (@Version) dell'entità dopo la modifica, o al momento dell'eliminazione
+    private Long version;
+
+    @Column(nullable = false)
+    private Instant changedAt;
+
+    // Costruttore vuoto
+    public ChangeLogEntry() {
+    }
+
+    // Costruttore con parametri
+    public ChangeLogEntry(Long transactionId, ChangeEntityType entityType, Long entityId, ChangeOperation operation,
+            Long version, Instant changedAt) {
+        this.transactionId = transactionId;
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.operation = operation;
+        this.version = version;
+        this.changedAt = changedAt;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public ChangeEntityType getEntityType() {
+        return entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public ChangeOperation getOperation() {
+        return operation;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+}
@@ -0,0 +1,57 @@
+package com.riccardo.giangiulio.gestionescuola.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Unica riga con lo stato del registro delle modifiche, necessario per riconoscere i cursori non più validi.
+ */
+@Entity
+@Table(name = "change_log_state")
+public class ChangeLogState {
+
+    public static final Long SINGLETON_ID = 1L;
+
+    @Id
+    private Long id;
+
+    // Incrementata a ogni ripristino: i cursori di una generazione precedente richiedono una risincronizzazione
+    @Column(nullable = false)
+    private long generation;
+
+    // Transazione dell'ultima eliminazione rimossa dal registro: un cursore che non la supera potrebbe non averla vista
+    @Column(nullable = false)
+    private long horizon;
+
+    // Costruttore vuoto
+    public ChangeLogState() {
+    }
+
+    // Costruttore con parametri
+    public ChangeLogState(Long id) {
+        this.id = id;
+    }
+
+    // Getters e Setters
+    public Long getId() {
+        return id;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(long generation) {
+        this.generation = generation;
+    }
+
+    public long getHorizon() {
+        return horizon;
+    }
+
+    public void setHorizon(long horizon) {
+        this.horizon = horizon;
+    }
+}
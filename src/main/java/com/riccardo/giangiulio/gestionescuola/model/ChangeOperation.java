@@ -0,0 +1,7 @@
+package com.riccardo.giangiulio.gestionescuola.model;
+
+public enum ChangeOperation {
+    CREATED,
+    UPDATED,
+    DELETED       // Tombstone: rimosso dopo il periodo di conservazione del registro
+}
@@ -0,0 +1,8 @@
+package com.riccardo.giangiulio.gestionescuola.model;
+
+public enum ExportJobStatus {
+    QUEUED,       // In attesa di un thread libero
+    RUNNING,      // Export in corso, il file viene scritto nella directory di spool
+    COMPLETED,    // File pronto per il download
+    FAILED,       // Export terminato con errore
+}
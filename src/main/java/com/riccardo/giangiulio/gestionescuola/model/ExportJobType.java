@@ -0,0 +1,37 @@
+package com.riccardo.giangiulio.gestionescuola.model;
+
+/**
+ * Export eseguibili come job in background, con il formato del file prodotto.
+ */
+public enum ExportJobType {
+    STUDENTS_CSV("text/csv", "csv", false),
+    TEACHERS_CSV("text/csv", "csv", false),
+    REGISTRATIONS_CSV("text/csv", "csv", false),
+    COURSES_EXAMS_EXCEL("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx", false),
+    STUDENT_PROFILE_PDF("application/pdf", "pdf", true),
+    CLASS_PROFILES_ZIP("application/zip", "zip", true),
+    SCHOOL_PROFILES_ZIP("application/zip", "zip", false);
+
+    private final String contentType;
+    private final String fileExtension;
+    private final boolean targetRequired;
+
+    ExportJobType(String contentType, String fileExtension, boolean targetRequired) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+        this.targetRequired = targetRequired;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    // Studente o classe a cui si riferisce l'export
+    public boolean isTargetRequired() {
+        return targetRequired;
+    }
+}
@@ -2,6 +2,8 @@ package com.riccardo.giangiulio.gestionescuola.model;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -12,6 +14,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
@@ -21,6 +24,10 @@ public class Registration {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
     private LocalDateTime registrationDate;
 
     @Enumerated(EnumType.STRING)
@@ -56,6 +63,10 @@ public class Registration {
         return id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public LocalDateTime getRegistrationDate() {
         return registrationDate;    
     }
@@ -0,0 +1,70 @@
+package com.riccardo.giangiulio.gestionescuola.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "revoked_tokens", indexes = @Index(name = "idx_revoked_tokens_expires_at", columnList = "expiresAt"))
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Identificativo (jti) del token revocato
+    @Column(unique = true, nullable = false, length = 36)
+    private String tokenId;
+
+    private Long userId;
+
+    // Scadenza del token: oltre questa data la revoca non serve più e la riga può essere eliminata
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    // Costruttore vuoto
+    public RevokedToken() {
+    }
+
+    // Costruttore con parametri
+    public RevokedToken(String tokenId, Long userId, Instant expiresAt) {
+        this.tokenId = tokenId;
+        this.userId = userId;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters e Setters
+    public Long getId() {
+        return id;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public void setTokenId(String tokenId) {
+        this.tokenId = tokenId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -49,6 +49,10 @@ public class User {
     @Column(unique = true, nullable = false)
     private String username;
 
+    // Incrementata a ogni cambio di password o ruolo: i token emessi con una versione precedente non sono più validi
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int tokenVersion;
+
     // Costruttore vuoto
     public User() {
     }
@@ -125,6 +129,14 @@ public class User {
         this.username = username;
     }
 
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void incrementTokenVersion() {
+        this.tokenVersion++;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
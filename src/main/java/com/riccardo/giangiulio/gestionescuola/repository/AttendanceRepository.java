@@ -1,18 +1,36 @@
 package com.riccardo.giangiulio.gestionescuola.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import com.riccardo.giangiulio.gestionescuola.model.Attendance;
 import com.riccardo.giangiulio.gestionescuola.model.Lesson;
 import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.AttendanceExportRow;
+
+import jakarta.persistence.QueryHint;
 
 public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
+
+    @EntityGraph(attributePaths = {"student.role", "lesson"})
+    List<Attendance> findByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"student.role"})
+    List<Attendance> findByLessonIdIn(Collection<Long> lessonIds);
+
+    @EntityGraph(attributePaths = {"student.role", "lesson"})
+    List<Attendance> findWithStudentAndLessonByLessonId(Long lessonId);
     
     List<Attendance> findByLesson(Lesson lesson);
     
@@ -31,4 +49,25 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     @Query("SELECT COUNT(a) FROM Attendance a WHERE a.student = :student AND a.present = false")
     Long countAbsentByStudent(@Param("student") User student);
     
+    // Grafo di tipo fetch: le altre associazioni EAGER della lezione non vengono caricate con query aggiuntive
+    @EntityGraph(attributePaths = {"student", "lesson"})
+    @Query("SELECT a FROM Attendance a WHERE a.student.id IN :studentIds ORDER BY a.id")
+    List<Attendance> findByStudentIdInWithLesson(@Param("studentIds") Collection<Long> studentIds);
+    
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a.id AS id, a.present AS present, a.entryTime AS entryTime, a.exitTime AS exitTime, " +
+           "s.id AS studentId, s.firstName AS studentFirstName, s.lastName AS studentLastName, " +
+           "l.id AS lessonId, l.title AS lessonTitle, l.startDateTime AS lessonStart, l.endDateTime AS lessonEnd, " +
+           "sub.name AS subjectName, sc.id AS schoolClassId, sc.name AS schoolClassName, " +
+           "t.id AS teacherId, t.firstName AS teacherFirstName, t.lastName AS teacherLastName " +
+           "FROM Attendance a JOIN a.student s JOIN a.lesson l LEFT JOIN l.subject sub " +
+           "LEFT JOIN l.schoolClass sc LEFT JOIN l.teacher t " +
+           "WHERE (:from IS NULL OR l.startDateTime >= :from) AND (:to IS NULL OR l.startDateTime < :to) " +
+           "AND (:schoolClassId IS NULL OR sc.id = :schoolClassId) ORDER BY l.startDateTime, a.id")
+    Stream<AttendanceExportRow> streamExportRows(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                 @Param("schoolClassId") Long schoolClassId);
+    
 }
\ No newline at end of file
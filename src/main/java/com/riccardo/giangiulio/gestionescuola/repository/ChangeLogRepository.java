@@ -0,0 +1,56 @@
+package com.riccardo.giangiulio.gestionescuola.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.riccardo.giangiulio.gestionescuola.model.ChangeEntityType;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeLogEntry;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeOperation;
+
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+    // Voci dopo la posizione (transazione, id) e scritte da transazioni già terminate prima di :completedBefore
+    @Query("SELECT c FROM ChangeLogEntry c WHERE (c.transactionId > :sinceTransaction " +
+           "OR (c.transactionId = :sinceTransaction AND c.id > :sinceId)) " +
+           "AND c.transactionId < :completedBefore AND c.entityType IN :types ORDER BY c.transactionId, c.id")
+    List<ChangeLogEntry> findChanges(
+            @Param("sinceTransaction") long sinceTransaction,
+            @Param("sinceId") long sinceId,
+            @Param("completedBefore") long completedBefore,
+            @Param("types") Collection<ChangeEntityType> types,
+            Pageable pageable);
+
+    // Id della transazione corrente, assegnato da PostgreSQL alla prima scrittura
+    @Query(value = "SELECT CAST(CAST(pg_current_xact_id() AS text) AS bigint)", nativeQuery = true)
+    long findCurrentTransactionId();
+
+    // Transazione più vecchia ancora in corso: tutte quelle con id minore sono terminate
+    @Query(value = "SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint)", nativeQuery = true)
+    long findOldestRunningTransactionId();
+
+    @Query("SELECT COALESCE(MAX(c.transactionId), 0) FROM ChangeLogEntry c")
+    long findLastTransactionId();
+
+    // Restano solo le voci più recenti di ogni entità
+    @Modifying
+    @Query("DELETE FROM ChangeLogEntry c WHERE c.changedAt < :before AND EXISTS (" +
+           "SELECT n.id FROM ChangeLogEntry n WHERE n.entityType = c.entityType AND n.entityId = c.entityId " +
+           "AND (n.transactionId > c.transactionId OR (n.transactionId = c.transactionId AND n.id > c.id)))")
+    int deleteSuperseded(@Param("before") Instant before);
+
+    @Query("SELECT MAX(c.transactionId) FROM ChangeLogEntry c WHERE c.operation = :operation AND c.changedAt < :before")
+    Long findLastTransactionIdByOperationBefore(
+            @Param("operation") ChangeOperation operation, @Param("before") Instant before);
+
+    @Modifying
+    @Query("DELETE FROM ChangeLogEntry c WHERE c.operation = :operation AND c.transactionId <= :lastTransactionId")
+    int deleteByOperationUpTo(
+            @Param("operation") ChangeOperation operation, @Param("lastTransactionId") long lastTransactionId);
+}
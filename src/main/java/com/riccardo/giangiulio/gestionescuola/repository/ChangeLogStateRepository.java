@@ -0,0 +1,8 @@
+package com.riccardo.giangiulio.gestionescuola.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.riccardo.giangiulio.gestionescuola.model.ChangeLogState;
+
+public interface ChangeLogStateRepository extends JpaRepository<ChangeLogState, Long> {
+}
@@ -26,4 +26,7 @@ public interface ClassroomRepository extends JpaRepository<Classroom, Long> {
     @Query("SELECT cl FROM Classroom cl WHERE cl.capacity >= " +
            "(SELECT COUNT(r) FROM Registration r WHERE r.schoolClass.id = :schoolClassId AND r.status = 'ACTIVE')")
     List<Classroom> findClassroomsWithSufficientCapacityForSchoolClass(@Param("schoolClassId") Long schoolClassId);
+    
+    @Query("SELECT c.version FROM Classroom c WHERE c.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 }
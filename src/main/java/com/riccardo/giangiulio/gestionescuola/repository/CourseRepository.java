@@ -1,13 +1,42 @@
 package com.riccardo.giangiulio.gestionescuola.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import com.riccardo.giangiulio.gestionescuola.model.Course;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.CourseExamRow;
+
+import jakarta.persistence.QueryHint;
 
 public interface CourseRepository extends JpaRepository<Course, Long> {
+
+    @EntityGraph(attributePaths = {"subjects", "exams"})
+    List<Course> findByIdIn(Collection<Long> ids);
     
     Optional<Course> findByTitle(String title);
     
+    // Corsi ed esami in un'unica query, letti a blocchi tramite cursore (richiede una transazione attiva)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c.id AS courseId, c.title AS courseTitle, c.description AS courseDescription, " +
+           "c.duration AS courseDuration, c.price AS coursePrice, e.id AS examId, e.title AS examTitle, " +
+           "e.description AS examDescription, e.date AS examDate, e.duration AS examDuration, " +
+           "e.maxScore AS examMaxScore, e.passingScore AS examPassingScore " +
+           "FROM Course c LEFT JOIN c.exams e ORDER BY c.id, e.date, e.id")
+    Stream<CourseExamRow> streamCoursesWithExams();
+    
+    // Solo la versione, senza caricare l'entità: basta per confrontare l'ETag di una richiesta condizionale
+    @Query("SELECT c.version FROM Course c WHERE c.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 }
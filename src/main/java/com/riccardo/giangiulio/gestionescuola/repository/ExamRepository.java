@@ -1,9 +1,11 @@
 package com.riccardo.giangiulio.gestionescuola.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -16,6 +18,12 @@ import com.riccardo.giangiulio.gestionescuola.model.Subject;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 
 public interface ExamRepository extends JpaRepository<Exam, Long> {
+
+    @EntityGraph(attributePaths = {"classroom", "subject", "schoolClass", "teacher.role"})
+    List<Exam> findByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"classroom", "subject", "teacher.role"})
+    List<Exam> findBySchoolClassIdInOrderByDateAsc(Collection<Long> schoolClassIds);
     
     Optional<Exam> findByTitle(String title);
     
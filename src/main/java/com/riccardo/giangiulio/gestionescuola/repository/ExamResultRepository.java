@@ -1,17 +1,32 @@
 package com.riccardo.giangiulio.gestionescuola.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import com.riccardo.giangiulio.gestionescuola.model.Exam;
 import com.riccardo.giangiulio.gestionescuola.model.ExamResult;
 import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.ExamResultExportRow;
+
+import jakarta.persistence.QueryHint;
 
 public interface ExamResultRepository extends JpaRepository<ExamResult, Long> {
+
+    @EntityGraph(attributePaths = {"exam", "student.role"})
+    List<ExamResult> findByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"student.role"})
+    List<ExamResult> findByExamIdIn(Collection<Long> examIds);
     
     List<ExamResult> findByExam(Exam exam);
     
@@ -36,4 +51,26 @@ public interface ExamResultRepository extends JpaRepository<ExamResult, Long> {
     
     @Query("SELECT COUNT(er) FROM ExamResult er WHERE er.student = :student AND er.score >= er.exam.passingScore")
     Long countPassedByStudent(@Param("student") User student);
+    
+    // Grafo di tipo fetch: le altre associazioni EAGER dell'esame non vengono caricate con query aggiuntive
+    @EntityGraph(attributePaths = {"student", "exam"})
+    @Query("SELECT er FROM ExamResult er WHERE er.student.id IN :studentIds ORDER BY er.id")
+    List<ExamResult> findByStudentIdInWithExam(@Param("studentIds") Collection<Long> studentIds);
+    
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT er.id AS id, er.score AS score, er.date AS date, " +
+           "s.id AS studentId, s.firstName AS studentFirstName, s.lastName AS studentLastName, " +
+           "e.id AS examId, e.title AS examTitle, e.date AS examDate, " +
+           "e.maxScore AS examMaxScore, e.passingScore AS examPassingScore, " +
+           "sub.name AS subjectName, sc.id AS schoolClassId, sc.name AS schoolClassName, " +
+           "t.id AS teacherId, t.firstName AS teacherFirstName, t.lastName AS teacherLastName " +
+           "FROM ExamResult er JOIN er.student s JOIN er.exam e LEFT JOIN e.subject sub " +
+           "LEFT JOIN e.schoolClass sc LEFT JOIN e.teacher t " +
+           "WHERE (:from IS NULL OR e.date >= :from) AND (:to IS NULL OR e.date < :to) " +
+           "AND (:schoolClassId IS NULL OR sc.id = :schoolClassId) ORDER BY e.date, er.id")
+    Stream<ExamResultExportRow> streamExportRows(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                 @Param("schoolClassId") Long schoolClassId);
 }
@@ -1,8 +1,10 @@
 package com.riccardo.giangiulio.gestionescuola.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,6 +16,14 @@ import com.riccardo.giangiulio.gestionescuola.model.Subject;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 
 public interface LessonRepository extends JpaRepository<Lesson, Long> {
+
+    // Fetch graph: una sola query con le associazioni lette da LessonMapperDTO,
+    // le altre (anche se EAGER, come il corso della classe) non vengono caricate
+    @EntityGraph(attributePaths = {"schoolClass", "teacher.role", "classroom", "subject"})
+    List<Lesson> findByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"teacher.role", "classroom", "subject"})
+    List<Lesson> findBySchoolClassIdInOrderByStartDateTimeAsc(Collection<Long> schoolClassIds);
         
     List<Lesson> findBySchoolClass(SchoolClass schoolClass);
     
@@ -1,18 +1,32 @@
 package com.riccardo.giangiulio.gestionescuola.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import com.riccardo.giangiulio.gestionescuola.model.Registration;
 import com.riccardo.giangiulio.gestionescuola.model.RegistrationStatus;
 import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.RegistrationExportRow;
+
+import jakarta.persistence.QueryHint;
 
 public interface RegistrationRepository extends JpaRepository<Registration, Long> {
+
+    @EntityGraph(attributePaths = {"student.role", "course", "schoolClass"})
+    List<Registration> findByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"student.role"})
+    List<Registration> findBySchoolClassIdInAndStatus(Collection<Long> schoolClassIds, RegistrationStatus status);
     
     List<Registration> findByStudent(User student);
     
@@ -33,4 +47,20 @@ public interface RegistrationRepository extends JpaRepository<Registration, Long
     
     @Query("SELECT r FROM Registration r WHERE r.schoolClass = :schoolClass AND r.status = 'ACTIVE'")
     List<Registration> findActiveBySchoolClass(@Param("schoolClass") SchoolClass schoolClass);
+    
+    // Grafo di tipo fetch: le altre associazioni EAGER di corso e classe non vengono caricate con query aggiuntive
+    @EntityGraph(attributePaths = {"student", "course", "schoolClass"})
+    @Query("SELECT r FROM Registration r WHERE r.student.id IN :studentIds ORDER BY r.id")
+    List<Registration> findByStudentIdInWithDetails(@Param("studentIds") Collection<Long> studentIds);
+    
+    // Studente, corso e classe nella stessa query, letti a blocchi tramite cursore (richiede una transazione attiva)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r.id AS id, s.firstName AS studentFirstName, s.lastName AS studentLastName, " +
+           "s.email AS studentEmail, c.title AS courseTitle, sc.name AS schoolClassName, " +
+           "r.registrationDate AS registrationDate, r.status AS status " +
+           "FROM Registration r JOIN r.student s JOIN r.course c LEFT JOIN r.schoolClass sc ORDER BY r.id")
+    Stream<RegistrationExportRow> streamExportRows();
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package com.riccardo.giangiulio.gestionescuola.repository;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.riccardo.giangiulio.gestionescuola.model.ERole;
 import com.riccardo.giangiulio.gestionescuola.model.Role;
@@ -12,4 +14,7 @@ public interface RoleRepository extends JpaRepository<Role, Long> {
     Optional<Role> findByName(ERole name);
 
     Boolean existsByName(String name);
+
+    @Query("SELECT r.version FROM Role r WHERE r.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 }
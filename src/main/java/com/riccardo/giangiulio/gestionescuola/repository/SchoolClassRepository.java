@@ -1,8 +1,10 @@
 package com.riccardo.giangiulio.gestionescuola.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,6 +14,9 @@ import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 
 public interface SchoolClassRepository extends JpaRepository<SchoolClass, Long> {
+
+    @EntityGraph(attributePaths = {"course", "teachers.role", "registrations"})
+    List<SchoolClass> findByIdIn(Collection<Long> ids);
     
     List<SchoolClass> findByCourse(Course course);
     
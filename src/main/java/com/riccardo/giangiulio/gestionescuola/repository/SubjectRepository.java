@@ -1,7 +1,9 @@
 package com.riccardo.giangiulio.gestionescuola.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,9 +12,15 @@ import com.riccardo.giangiulio.gestionescuola.model.Course;
 import com.riccardo.giangiulio.gestionescuola.model.Subject;
 
 public interface SubjectRepository extends JpaRepository<Subject, Long> {
+
+    @EntityGraph(attributePaths = {"teacher.role", "courses"})
+    List<Subject> findByIdIn(Collection<Long> ids);
     
     Optional<Subject> findByName(String name);
     
     @Query("SELECT s FROM Subject s JOIN s.courses c WHERE c = :course")
     List<Subject> findByCourse(@Param("course") Course course);
+    
+    @Query("SELECT s.version FROM Subject s WHERE s.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 }
@@ -1,17 +1,28 @@
 package com.riccardo.giangiulio.gestionescuola.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import com.riccardo.giangiulio.gestionescuola.model.ERole;
 import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.UserExportRow;
+
+import jakarta.persistence.QueryHint;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    @EntityGraph(attributePaths = {"role"})
+    List<User> findByIdIn(Collection<Long> ids);
     
     Boolean existsByEmail(String email);
     
@@ -20,6 +31,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u WHERE u.role.name = :role")
     List<User> findByRole(@Param("role") ERole role);
     
+    // Solo le colonne esportate, lette a blocchi tramite cursore (richiede una transazione attiva)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u.id AS id, u.firstName AS firstName, u.lastName AS lastName, u.email AS email, " +
+           "u.username AS username, u.birthDate AS birthDate " +
+           "FROM User u WHERE u.role.name = :role ORDER BY u.id")
+    Stream<UserExportRow> streamExportRowsByRole(@Param("role") ERole role);
+    
     @Query("SELECT u FROM User u WHERE u.role.name = 'ROLE_STUDENT' AND u.id IN " +
            "(SELECT DISTINCT reg.student.id FROM Registration reg WHERE reg.schoolClass = :schoolClass AND reg.status = 'ACTIVE')")
     List<User> findStudentsBySchoolClass(@Param("schoolClass") SchoolClass schoolClass);
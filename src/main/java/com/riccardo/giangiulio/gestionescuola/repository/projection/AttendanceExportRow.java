@@ -0,0 +1,44 @@
+package com.riccardo.giangiulio.gestionescuola.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Colonne denormalizzate di una presenza esportate in Parquet: studente, lezione, materia,
+ * classe e docente sono letti nella stessa query.
+ */
+public interface AttendanceExportRow {
+
+    Long getId();
+
+    Boolean getPresent();
+
+    LocalDateTime getEntryTime();
+
+    LocalDateTime getExitTime();
+
+    Long getStudentId();
+
+    String getStudentFirstName();
+
+    String getStudentLastName();
+
+    Long getLessonId();
+
+    String getLessonTitle();
+
+    LocalDateTime getLessonStart();
+
+    LocalDateTime getLessonEnd();
+
+    String getSubjectName();
+
+    Long getSchoolClassId();
+
+    String getSchoolClassName();
+
+    Long getTeacherId();
+
+    String getTeacherFirstName();
+
+    String getTeacherLastName();
+}
@@ -0,0 +1,35 @@
+package com.riccardo.giangiulio.gestionescuola.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Riga della join corso-esami usata dall'export Excel: una riga per ogni esame del corso,
+ * oppure una sola riga con i campi dell'esame a null per i corsi senza esami.
+ */
+public interface CourseExamRow {
+
+    Long getCourseId();
+
+    String getCourseTitle();
+
+    String getCourseDescription();
+
+    String getCourseDuration();
+
+    BigDecimal getCoursePrice();
+
+    Long getExamId();
+
+    String getExamTitle();
+
+    String getExamDescription();
+
+    LocalDateTime getExamDate();
+
+    Integer getExamDuration();
+
+    Double getExamMaxScore();
+
+    Double getExamPassingScore();
+}
@@ -0,0 +1,44 @@
+package com.riccardo.giangiulio.gestionescuola.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Colonne denormalizzate di un risultato d'esame esportate in Parquet: studente, esame, materia,
+ * classe e docente sono letti nella stessa query.
+ */
+public interface ExamResultExportRow {
+
+    Long getId();
+
+    Double getScore();
+
+    LocalDateTime getDate();
+
+    Long getStudentId();
+
+    String getStudentFirstName();
+
+    String getStudentLastName();
+
+    Long getExamId();
+
+    String getExamTitle();
+
+    LocalDateTime getExamDate();
+
+    Double getExamMaxScore();
+
+    Double getExamPassingScore();
+
+    String getSubjectName();
+
+    Long getSchoolClassId();
+
+    String getSchoolClassName();
+
+    Long getTeacherId();
+
+    String getTeacherFirstName();
+
+    String getTeacherLastName();
+}
@@ -0,0 +1,28 @@
+package com.riccardo.giangiulio.gestionescuola.repository.projection;
+
+import java.time.LocalDateTime;
+
+import com.riccardo.giangiulio.gestionescuola.model.RegistrationStatus;
+
+/**
+ * Colonne di un'iscrizione esportate in CSV: studente, corso e classe sono letti nella stessa query,
+ * la classe è null per le iscrizioni non ancora assegnate.
+ */
+public interface RegistrationExportRow {
+
+    Long getId();
+
+    String getStudentFirstName();
+
+    String getStudentLastName();
+
+    String getStudentEmail();
+
+    String getCourseTitle();
+
+    String getSchoolClassName();
+
+    LocalDateTime getRegistrationDate();
+
+    RegistrationStatus getStatus();
+}
@@ -0,0 +1,21 @@
+package com.riccardo.giangiulio.gestionescuola.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Colonne di un utente esportate in CSV, lette senza caricare l'entità.
+ */
+public interface UserExportRow {
+
+    Long getId();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getEmail();
+
+    String getUsername();
+
+    LocalDate getBirthDate();
+}
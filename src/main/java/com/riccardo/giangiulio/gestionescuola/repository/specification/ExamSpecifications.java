@@ -0,0 +1,67 @@
+package com.riccardo.giangiulio.gestionescuola.repository.specification;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.riccardo.giangiulio.gestionescuola.model.Classroom;
+import com.riccardo.giangiulio.gestionescuola.model.Course;
+import com.riccardo.giangiulio.gestionescuola.model.Exam;
+import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
+import com.riccardo.giangiulio.gestionescuola.model.Subject;
+import com.riccardo.giangiulio.gestionescuola.model.User;
+
+/**
+ * Filtri degli esami equivalenti alle query di {@link com.riccardo.giangiulio.gestionescuola.repository.ExamRepository},
+ * usati dalle letture con {@code ?fields=}. Il confronto con un'entità usa la chiave esterna, senza join.
+ */
+public final class ExamSpecifications {
+
+    private ExamSpecifications() {
+    }
+
+    public static Specification<Exam> hasId(Long id) {
+        return (root, query, cb) -> cb.equal(root.get("id"), id);
+    }
+
+    public static Specification<Exam> hasTitle(String title) {
+        return (root, query, cb) -> cb.equal(root.get("title"), title);
+    }
+
+    public static Specification<Exam> hasDate(LocalDateTime date) {
+        return (root, query, cb) -> cb.equal(root.get("date"), date);
+    }
+
+    public static Specification<Exam> hasSubject(Subject subject) {
+        return (root, query, cb) -> cb.equal(root.get("subject"), subject);
+    }
+
+    public static Specification<Exam> hasSchoolClass(SchoolClass schoolClass) {
+        return (root, query, cb) -> cb.equal(root.get("schoolClass"), schoolClass);
+    }
+
+    public static Specification<Exam> hasTeacher(User teacher) {
+        return (root, query, cb) -> cb.equal(root.get("teacher"), teacher);
+    }
+
+    public static Specification<Exam> hasClassroom(Classroom classroom) {
+        return (root, query, cb) -> cb.equal(root.get("classroom"), classroom);
+    }
+
+    // MEMBER OF diventa una sottoquery: la tabella di join non moltiplica le righe
+    public static Specification<Exam> belongsToCourse(Course course) {
+        return (root, query, cb) -> cb.isMember(course, root.get("courses"));
+    }
+
+    public static Specification<Exam> dateBetween(LocalDateTime start, LocalDateTime end) {
+        return (root, query, cb) -> cb.between(root.get("date"), start, end);
+    }
+
+    public static Specification<Exam> dateAfter(LocalDateTime date) {
+        return (root, query, cb) -> cb.greaterThan(root.get("date"), date);
+    }
+
+    public static Specification<Exam> dateBefore(LocalDateTime date) {
+        return (root, query, cb) -> cb.lessThan(root.get("date"), date);
+    }
+}
@@ -0,0 +1,56 @@
+package com.riccardo.giangiulio.gestionescuola.repository.specification;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.riccardo.giangiulio.gestionescuola.model.Classroom;
+import com.riccardo.giangiulio.gestionescuola.model.Lesson;
+import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
+import com.riccardo.giangiulio.gestionescuola.model.Subject;
+import com.riccardo.giangiulio.gestionescuola.model.User;
+
+/**
+ * Filtri delle lezioni equivalenti alle query di {@link com.riccardo.giangiulio.gestionescuola.repository.LessonRepository},
+ * usati dalle letture con {@code ?fields=}. Il confronto con un'entità usa la chiave esterna, senza join.
+ */
+public final class LessonSpecifications {
+
+    private LessonSpecifications() {
+    }
+
+    public static Specification<Lesson> hasId(Long id) {
+        return (root, query, cb) -> cb.equal(root.get("id"), id);
+    }
+
+    public static Specification<Lesson> hasTeacher(User teacher) {
+        return (root, query, cb) -> cb.equal(root.get("teacher"), teacher);
+    }
+
+    public static Specification<Lesson> hasSchoolClass(SchoolClass schoolClass) {
+        return (root, query, cb) -> cb.equal(root.get("schoolClass"), schoolClass);
+    }
+
+    public static Specification<Lesson> hasClassroom(Classroom classroom) {
+        return (root, query, cb) -> cb.equal(root.get("classroom"), classroom);
+    }
+
+    public static Specification<Lesson> hasSubject(Subject subject) {
+        return (root, query, cb) -> cb.equal(root.get("subject"), subject);
+    }
+
+    public static Specification<Lesson> startsBetween(LocalDateTime start, LocalDateTime end) {
+        return (root, query, cb) -> cb.between(root.get("startDateTime"), start, end);
+    }
+
+    public static Specification<Lesson> startsFrom(LocalDateTime from) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("startDateTime"), from);
+    }
+
+    public static Specification<Lesson> startsOn(LocalDate day) {
+        return (root, query, cb) -> cb.and(
+            cb.greaterThanOrEqualTo(root.get("startDateTime"), day.atStartOfDay()),
+            cb.lessThan(root.get("startDateTime"), day.plusDays(1).atStartOfDay()));
+    }
+}
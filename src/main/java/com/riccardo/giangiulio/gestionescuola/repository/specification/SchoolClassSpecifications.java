@@ -0,0 +1,41 @@
+package com.riccardo.giangiulio.gestionescuola.repository.specification;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.riccardo.giangiulio.gestionescuola.model.Course;
+import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
+import com.riccardo.giangiulio.gestionescuola.model.User;
+
+/**
+ * Filtri delle classi equivalenti alle query di {@link com.riccardo.giangiulio.gestionescuola.repository.SchoolClassRepository},
+ * usati dalle letture con {@code ?fields=}. Il confronto con un'entità usa la chiave esterna, senza join.
+ */
+public final class SchoolClassSpecifications {
+
+    private SchoolClassSpecifications() {
+    }
+
+    public static Specification<SchoolClass> hasId(Long id) {
+        return (root, query, cb) -> cb.equal(root.get("id"), id);
+    }
+
+    public static Specification<SchoolClass> hasName(String name) {
+        return (root, query, cb) -> cb.equal(root.get("name"), name);
+    }
+
+    public static Specification<SchoolClass> hasCourse(Course course) {
+        return (root, query, cb) -> cb.equal(root.get("course"), course);
+    }
+
+    public static Specification<SchoolClass> hasTeacher(User teacher) {
+        return (root, query, cb) -> cb.isMember(teacher, root.get("teachers"));
+    }
+
+    public static Specification<SchoolClass> hasAvailableSeats() {
+        return (root, query, cb) -> cb.lessThan(cb.size(root.get("registrations")), root.get("maxStudents"));
+    }
+
+    public static Specification<SchoolClass> isFull() {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(cb.size(root.get("registrations")), root.get("maxStudents"));
+    }
+}
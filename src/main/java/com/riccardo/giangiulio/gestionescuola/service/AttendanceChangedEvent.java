@@ -0,0 +1,52 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import com.riccardo.giangiulio.gestionescuola.model.Attendance;
+
+/**
+ * Evento pubblicato da {@link AttendanceService} a ogni salvataggio, modifica o eliminazione di una presenza.
+ * Per le eliminazioni la presenza non è più disponibile e {@link #getAttendance()} restituisce null.
+ * Se una modifica sposta la presenza su un'altra lezione, {@link #getPreviousLessonId()} indica quella di partenza.
+ */
+public class AttendanceChangedEvent {
+
+    public enum Operation {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Operation operation;
+    private final Long attendanceId;
+    private final Long lessonId;
+    private final Long previousLessonId;
+    private final Attendance attendance;
+
+    public AttendanceChangedEvent(Operation operation, Long attendanceId, Long lessonId, Long previousLessonId,
+            Attendance attendance) {
+        this.operation = operation;
+        this.attendanceId = attendanceId;
+        this.lessonId = lessonId;
+        this.previousLessonId = previousLessonId;
+        this.attendance = attendance;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public Long getAttendanceId() {
+        return attendanceId;
+    }
+
+    public Long getLessonId() {
+        return lessonId;
+    }
+
+    public Long getPreviousLessonId() {
+        return previousLessonId;
+    }
+
+    public Attendance getAttendance() {
+        return attendance;
+    }
+}
@@ -1,10 +1,14 @@
 package com.riccardo.giangiulio.gestionescuola.service;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,6 +21,7 @@ import com.riccardo.giangiulio.gestionescuola.model.Lesson;
 import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 import com.riccardo.giangiulio.gestionescuola.repository.AttendanceRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.AttendanceExportRow;
 
 @Service
 public class AttendanceService {
@@ -26,15 +31,18 @@ public class AttendanceService {
     private final AttendanceRepository attendanceRepository;
     private final UserService userService;
     private final LessonService lessonService;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Autowired
     public AttendanceService(
             AttendanceRepository attendanceRepository,
             UserService userService,
-            LessonService lessonService) {
+            LessonService lessonService,
+            ApplicationEventPublisher eventPublisher) {
         this.attendanceRepository = attendanceRepository;
         this.userService = userService;
         this.lessonService = lessonService;
+        this.eventPublisher = eventPublisher;
         log.info("AttendanceService initialized");
     }
     
@@ -51,7 +59,26 @@ public class AttendanceService {
                 return new AttendanceNotFoundException(id);
             });
     }
+
+    public List<Attendance> findAllByIds(Collection<Long> ids) {
+        log.debug("Finding attendances with ids: {}", ids);
+        return attendanceRepository.findByIdIn(ids);
+    }
+
+    public List<Attendance> findByLessonIds(Collection<Long> lessonIds) {
+        log.debug("Finding attendances for lesson ids: {}", lessonIds);
+        return attendanceRepository.findByLessonIdIn(lessonIds);
+    }
     
+    /**
+     * Presenze della lezione con studente e lezione già caricati, convertibili in DTO anche senza una sessione aperta.
+     */
+    public List<Attendance> findByLessonIdWithDetails(Long lessonId) {
+        log.debug("Finding attendances with details for lesson id: {}", lessonId);
+        return attendanceRepository.findWithStudentAndLessonByLessonId(lessonId);
+    }
+    
+    @Transactional
     public Attendance save(Attendance attendanceRequest) {
         log.debug("Saving attendance for lesson {} and student {}", 
             attendanceRequest.getLesson().getId(), attendanceRequest.getStudent().getId());
@@ -74,6 +101,8 @@ public class AttendanceService {
         
         Attendance savedAttendance = attendanceRepository.save(attendance);
         log.info("Attendance saved successfully with ID: {}", savedAttendance.getId());
+        eventPublisher.publishEvent(new AttendanceChangedEvent(AttendanceChangedEvent.Operation.CREATED,
+                savedAttendance.getId(), lesson.getId(), null, savedAttendance));
         return savedAttendance;
     }
     
@@ -81,6 +110,7 @@ public class AttendanceService {
     public Attendance update(Long id, Attendance attendance) {
         log.debug("Updating attendance with id: {}", id);
         Attendance existingAttendance = findById(id);
+        Long previousLessonId = existingAttendance.getLesson().getId();
         
         if (attendance.getPresent() != null) {
             existingAttendance.setPresent(attendance.getPresent());
@@ -101,18 +131,26 @@ public class AttendanceService {
         validateAttendance(existingAttendance);
         Attendance updatedAttendance = attendanceRepository.save(existingAttendance);
         log.info("Attendance updated successfully with ID: {}", id);
+        Long lessonId = updatedAttendance.getLesson().getId();
+        eventPublisher.publishEvent(new AttendanceChangedEvent(AttendanceChangedEvent.Operation.UPDATED, id, lessonId,
+                previousLessonId.equals(lessonId) ? null : previousLessonId, updatedAttendance));
         return updatedAttendance;
     }
     
     @Transactional
     public void deleteById(Long id) {
         log.warn("Attempting to delete attendance with id: {}", id);
-        if (!attendanceRepository.existsById(id)) {
-            log.error("Failed to delete attendance: Not found with ID: {}", id);
-            throw new AttendanceNotFoundException(id);
-        }
-        attendanceRepository.deleteById(id);
+        // La presenza viene letta per conoscerne la lezione, che serve all'evento di eliminazione
+        Attendance attendance = attendanceRepository.findById(id)
+            .orElseThrow(() -> {
+                log.error("Failed to delete attendance: Not found with ID: {}", id);
+                return new AttendanceNotFoundException(id);
+            });
+        Long lessonId = attendance.getLesson().getId();
+        attendanceRepository.delete(attendance);
         log.info("Attendance deleted successfully with ID: {}", id);
+        eventPublisher.publishEvent(new AttendanceChangedEvent(AttendanceChangedEvent.Operation.DELETED,
+                id, lessonId, null, null));
     }
     
     public List<Attendance> findByLesson(Lesson lesson) {
@@ -124,6 +162,23 @@ public class AttendanceService {
         return attendances;
     }
     
+    /**
+     * Presenze di più studenti in un'unica query, con la lezione già caricata.
+     */
+    public List<Attendance> findByStudentIds(Collection<Long> studentIds) {
+        log.debug("Finding attendances for {} students", studentIds.size());
+        return attendanceRepository.findByStudentIdInWithLesson(studentIds);
+    }
+    
+    /**
+     * Colonne esportate delle presenze nell'intervallo [from, to) e della classe indicata; i filtri null sono ignorati.
+     * Lo stream va consumato e chiuso all'interno di una transazione del chiamante.
+     */
+    public Stream<AttendanceExportRow> streamExportRows(LocalDateTime from, LocalDateTime to, Long schoolClassId) {
+        log.debug("Streaming attendance export rows from {} to {} for class {}", from, to, schoolClassId);
+        return attendanceRepository.streamExportRows(from, to, schoolClassId);
+    }
+    
     public List<Attendance> findByStudent(User student) {
         log.debug("Finding attendances for student id: {}", student.getId());
         List<Attendance> attendances = attendanceRepository.findByStudent(student);
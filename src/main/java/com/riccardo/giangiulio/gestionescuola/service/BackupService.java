@@ -0,0 +1,312 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.riccardo.giangiulio.gestionescuola.config.Workload;
+import com.riccardo.giangiulio.gestionescuola.config.WorkloadType;
+import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidBackupException;
+import com.riccardo.giangiulio.gestionescuola.model.BackupFormat;
+
+/**
+ * Backup logico completo del database in un archivio ZIP, con una voce per tabella in formato NDJSON
+ * o COPY binario di PostgreSQL, e ripristino dello stesso archivio.
+ * Le tabelle sono lette e scritte in streaming su una sola connessione JDBC, senza passare da JPA:
+ * la memoria utilizzata non dipende dal numero di righe.
+ *
+ * Il COPY binario dipende dall'ordine e dal tipo delle colonne, quindi va ripristinato sulla stessa
+ * versione dello schema; l'NDJSON associa i valori per nome di colonna.
+ */
+@Service
+@Workload(WorkloadType.REPORTING)
+public class BackupService {
+    
+    private static final Logger log = LoggerFactory.getLogger(BackupService.class);
+    
+    static final String MANIFEST_ENTRY = "manifest.json";
+    
+    // Ordine compatibile con le chiavi esterne: ogni tabella segue quelle a cui fa riferimento
+    static final List<String> TABLES = List.of(
+        "roles", "users", "classrooms", "subjects", "courses", "course_subject", "school_classes",
+        "class_teacher", "registrations", "lessons", "exams", "course_exam", "exam_results", "attendances");
+    
+    /*
+     * Tabelle escluse di proposito, che il ripristino lascia com'erano:
+     * - revoked_tokens: ripristinare le revoche del backup riattiverebbe i token revocati dopo di esso;
+     * - change_log e change_log_state: il registro descrive le modifiche dei dati sostituiti, viene svuotato e
+     *   cambia generazione alla ricezione di DataRestoredEvent, e la generazione non deve tornare indietro.
+     */
+    static final List<String> EXCLUDED_TABLES = List.of("revoked_tokens", "change_log", "change_log_state");
+    
+    // Tabelle con chiave primaria generata, la cui sequenza va riallineata dopo il ripristino
+    private static final List<String> IDENTITY_TABLES = List.of(
+        "roles", "users", "classrooms", "subjects", "courses", "school_classes",
+        "registrations", "lessons", "exams", "exam_results", "attendances");
+    
+    private static final int FETCH_SIZE = 1000;
+    private static final int INSERT_BATCH_SIZE = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    public BackupService(DataSource dataSource, ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher) {
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        log.info("BackupService initialized");
+    }
+    
+    /**
+     * Scrive l'archivio di backup sullo stream indicato e restituisce il numero di righe per tabella.
+     * Tutte le tabelle sono lette nella stessa transazione REPEATABLE READ, quindi da un'unica istantanea coerente.
+     */
+    public Map<String, Long> writeBackup(BackupFormat format, OutputStream outputStream) throws IOException {
+        log.info("Starting {} backup of {} tables", format, TABLES.size());
+        long startTime = System.currentTimeMillis();
+        Map<String, Long> rows = new LinkedHashMap<>();
+        
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        // Compressione rapida: il collo di bottiglia deve restare la lettura dal database
+        zip.setLevel(Deflater.BEST_SPEED);
+        
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            connection.setAutoCommit(false);
+            try {
+                zip.putNextEntry(new ZipEntry(MANIFEST_ENTRY));
+                zip.write(objectMapper.writeValueAsBytes(new BackupManifest(format.name(), LocalDateTime.now().toString(), TABLES)));
+                zip.closeEntry();
+                
+                for (String table : TABLES) {
+                    zip.putNextEntry(new ZipEntry(table + "." + format.getFileExtension()));
+                    long count = format == BackupFormat.COPY
+                        ? copyManager(connection).copyOut("COPY " + table + " TO STDOUT (FORMAT binary)", zip)
+                        : writeNdjson(connection, table, zip);
+                    zip.closeEntry();
+                    rows.put(table, count);
+                    log.debug("Backed up {} rows of table {}", count, table);
+                }
+                zip.finish();
+            } finally {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            log.error("Error during backup", e);
+            throw new IOException("Backup failed: " + e.getMessage(), e);
+        }
+        
+        log.info("Backup completed in {} ms: {}", System.currentTimeMillis() - startTime, rows);
+        return rows;
+    }
+    
+    /**
+     * Sostituisce tutti i dati con quelli dell'archivio, in un'unica transazione: in caso di errore
+     * il database resta invariato. Le tabelle vengono svuotate, caricate nell'ordine delle chiavi esterne
+     * e le sequenze delle chiavi primarie riallineate al valore massimo ripristinato.
+     * La versione dei token di ogni utente non torna mai indietro: un "revoca tutti" eseguito dopo il backup
+     * resta valido anche dopo il ripristino.
+     */
+    public Map<String, Long> restore(InputStream inputStream) throws IOException {
+        log.info("Starting restore from backup archive");
+        long startTime = System.currentTimeMillis();
+        Map<String, Long> rows = new LinkedHashMap<>();
+        
+        ZipInputStream zip = new ZipInputStream(inputStream);
+        BackupFormat format = readManifest(zip);
+        
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    // Solo i vincoli dichiarati DEFERRABLE vengono rinviati: gli altri sono rispettati dall'ordine di caricamento
+                    statement.execute("SET CONSTRAINTS ALL DEFERRED");
+                    statement.execute("CREATE TEMPORARY TABLE restore_token_versions ON COMMIT DROP AS " +
+                        "SELECT id, token_version FROM users");
+                    statement.execute("TRUNCATE TABLE " + String.join(", ", TABLES) + " CASCADE");
+                }
+                
+                int lastTableIndex = -1;
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    String table = tableOf(entry.getName(), format);
+                    int tableIndex = TABLES.indexOf(table);
+                    if (tableIndex <= lastTableIndex) {
+                        throw new InvalidBackupException("Unexpected position of table " + table + " in the backup archive");
+                    }
+                    lastTableIndex = tableIndex;
+                    
+                    long count = format == BackupFormat.COPY
+                        ? copyManager(connection).copyIn("COPY " + table + " FROM STDIN (FORMAT binary)", zip)
+                        : insertNdjson(connection, table, zip);
+                    rows.put(table, count);
+                    log.debug("Restored {} rows of table {}", count, table);
+                }
+                if (rows.size() != TABLES.size()) {
+                    throw new InvalidBackupException("The backup archive does not contain all the tables: " + rows.keySet());
+                }
+                
+                resetSequences(connection);
+                keepTokenVersions(connection);
+                connection.commit();
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            log.error("Error during restore", e);
+            throw new IOException("Restore failed: " + e.getMessage(), e);
+        }
+        
+        eventPublisher.publishEvent(new DataRestoredEvent(rows));
+        log.info("Restore completed in {} ms: {}", System.currentTimeMillis() - startTime, rows);
+        return rows;
+    }
+    
+    private long writeNdjson(Connection connection, String table, OutputStream out) throws SQLException, IOException {
+        long count = 0;
+        // Il writer non viene chiuso: chiuderebbe anche l'archivio
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT row_to_json(t)::text FROM " + table + " t")) {
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    writer.write(resultSet.getString(1));
+                    writer.write('\n');
+                    count++;
+                }
+            }
+        }
+        writer.flush();
+        return count;
+    }
+    
+    /**
+     * Inserisce le righe NDJSON a blocchi: ogni blocco diventa un array JSON convertito in righe
+     * della tabella da {@code json_populate_recordset}, che associa i valori per nome di colonna.
+     */
+    private long insertNdjson(Connection connection, String table, InputStream in) throws SQLException, IOException {
+        long count = 0;
+        // Il reader non viene chiuso: chiuderebbe anche l'archivio
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO " + table + " SELECT * FROM json_populate_recordset(NULL::" + table + ", ?::json)")) {
+            StringBuilder batch = new StringBuilder();
+            int batchRows = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                batch.append(batchRows == 0 ? '[' : ',').append(line);
+                batchRows++;
+                if (batchRows == INSERT_BATCH_SIZE) {
+                    count += insertBatch(statement, batch);
+                    batchRows = 0;
+                }
+            }
+            if (batchRows > 0) {
+                count += insertBatch(statement, batch);
+            }
+        }
+        return count;
+    }
+    
+    private int insertBatch(PreparedStatement statement, StringBuilder batch) throws SQLException {
+        statement.setString(1, batch.append(']').toString());
+        batch.setLength(0);
+        return statement.executeUpdate();
+    }
+    
+    private void resetSequences(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : IDENTITY_TABLES) {
+                statement.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), " +
+                    "COALESCE(MAX(id), 0) + 1, false) FROM " + table);
+            }
+        }
+    }
+    
+    private void keepTokenVersions(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            int updated = statement.executeUpdate("UPDATE users u SET token_version = t.token_version " +
+                "FROM restore_token_versions t WHERE u.id = t.id AND t.token_version > u.token_version");
+            log.debug("Kept the newer token version of {} users", updated);
+        }
+    }
+    
+    private BackupFormat readManifest(ZipInputStream zip) throws IOException {
+        ZipEntry first = zip.getNextEntry();
+        if (first == null || !MANIFEST_ENTRY.equals(first.getName())) {
+            throw new InvalidBackupException("The backup archive must start with " + MANIFEST_ENTRY);
+        }
+        BackupManifest manifest;
+        try {
+            manifest = objectMapper.readValue(zip.readAllBytes(), BackupManifest.class);
+        } catch (IOException e) {
+            throw new InvalidBackupException("Invalid backup manifest: " + e.getMessage());
+        }
+        if (manifest.format() == null) {
+            throw new InvalidBackupException("The backup manifest does not specify the format");
+        }
+        try {
+            return BackupFormat.valueOf(manifest.format());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidBackupException("Unsupported backup format: " + manifest.format());
+        }
+    }
+    
+    /**
+     * Il nome della tabella viene usato nelle istruzioni SQL, quindi deve essere uno di quelli noti.
+     */
+    private String tableOf(String entryName, BackupFormat format) {
+        String suffix = "." + format.getFileExtension();
+        String table = entryName.endsWith(suffix) ? entryName.substring(0, entryName.length() - suffix.length()) : null;
+        if (table == null || !TABLES.contains(table)) {
+            throw new InvalidBackupException("Unexpected entry in the backup archive: " + entryName);
+        }
+        return table;
+    }
+    
+    private CopyManager copyManager(Connection connection) throws SQLException {
+        return connection.unwrap(PGConnection.class).getCopyAPI();
+    }
+    
+    private record BackupManifest(String format, String createdAt, List<String> tables) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.util.List;
+
+import com.riccardo.giangiulio.gestionescuola.model.ChangeLogEntry;
+
+/**
+ * Pagina del feed delle modifiche restituita da {@link ChangeLogService#getChanges}.
+ * Con {@link #isResync()} le modifiche non sono disponibili: il client deve ricaricare tutti i dati
+ * e ripartire dal cursore restituito.
+ */
+public class ChangeFeed {
+
+    private final List<ChangeLogEntry> changes;
+    private final String cursor;
+    private final boolean hasMore;
+    private final boolean resync;
+
+    public ChangeFeed(List<ChangeLogEntry> changes, String cursor, boolean hasMore, boolean resync) {
+        this.changes = changes;
+        this.cursor = cursor;
+        this.hasMore = hasMore;
+        this.resync = resync;
+    }
+
+    public List<ChangeLogEntry> getChanges() {
+        return changes;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public boolean isResync() {
+        return resync;
+    }
+}
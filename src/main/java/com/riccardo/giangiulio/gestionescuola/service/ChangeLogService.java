@@ -0,0 +1,183 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.riccardo.giangiulio.gestionescuola.model.ChangeEntityType;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeLogEntry;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeLogState;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeOperation;
+import com.riccardo.giangiulio.gestionescuola.repository.ChangeLogRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.ChangeLogStateRepository;
+
+/**
+ * Registro delle modifiche (outbox transazionale) di lezioni, esami e iscrizioni, letto dai client per
+ * sincronizzarsi in modo incrementale al posto di riscaricare gli elenchi completi.
+ * Ogni voce viene scritta nella stessa transazione della modifica, quindi esiste solo se la modifica è stata salvata.
+ * Le voci sono ordinate per transazione PostgreSQL e poi per id: il cursore ({@code <generazione>-<transazione>-<id>})
+ * è la posizione dell'ultima voce letta. Il feed restituisce solo le voci delle transazioni più vecchie di quella
+ * più vecchia ancora in corso ({@code pg_snapshot_xmin}): le voci di una transazione ancora aperta, anche se hanno
+ * un id minore di voci già salvate, arrivano quindi sempre dopo il cursore, a qualunque ora venga completata.
+ * Una transazione di scrittura molto lunga trattiene il feed fino alla sua conclusione.
+ */
+@Service
+public class ChangeLogService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeLogService.class);
+
+    private final ChangeLogRepository changeLogRepository;
+    private final ChangeLogStateRepository changeLogStateRepository;
+    private final Duration compactAfter;
+    private final Duration tombstoneRetention;
+
+    @Autowired
+    public ChangeLogService(
+            ChangeLogRepository changeLogRepository,
+            ChangeLogStateRepository changeLogStateRepository,
+            @Value("${myapp.changes.compact-after-minutes:60}") long compactAfterMinutes,
+            @Value("${myapp.changes.retention-days:30}") long retentionDays) {
+        this.changeLogRepository = changeLogRepository;
+        this.changeLogStateRepository = changeLogStateRepository;
+        this.compactAfter = Duration.ofMinutes(compactAfterMinutes);
+        this.tombstoneRetention = Duration.ofDays(retentionDays);
+        log.info("ChangeLogService initialized");
+    }
+
+    /**
+     * Registra la modifica nella transazione del service chiamante: senza una transazione attiva
+     * la voce potrebbe esistere anche per una modifica annullata, e la chiamata viene rifiutata.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(ChangeEntityType entityType, Long entityId, ChangeOperation operation, Long version) {
+        long transactionId = changeLogRepository.findCurrentTransactionId();
+        changeLogRepository.save(
+            new ChangeLogEntry(transactionId, entityType, entityId, operation, version, Instant.now()));
+        log.debug("Recorded {} of {} {} at version {}", operation, entityType, entityId, version);
+    }
+
+    /**
+     * Modifiche successive al cursore, nell'ordine in cui sono state scritte. Senza cursore, con un cursore
+     * non valido o anteriore a eliminazioni già rimosse dal registro, la risposta chiede una risincronizzazione.
+     * Le voci delle transazioni non ancora terminate non vengono restituite e il cursore non le supera.
+     */
+    @Transactional(readOnly = true)
+    public ChangeFeed getChanges(String since, Set<ChangeEntityType> types, int limit) {
+        ChangeLogState state = currentState();
+        // Le transazioni precedenti sono terminate: le loro voci sono tutte visibili e le prossime avranno id maggiore
+        long completedBefore = changeLogRepository.findOldestRunningTransactionId();
+        Position head = new Position(completedBefore, 0);
+
+        Position sincePosition = parseCursor(since, state.getGeneration());
+        if (sincePosition == null || sincePosition.transactionId() <= state.getHorizon()) {
+            log.info("Change feed resync requested for cursor {}", since);
+            return new ChangeFeed(List.of(), cursor(state.getGeneration(), head), false, true);
+        }
+
+        Set<ChangeEntityType> entityTypes = types == null || types.isEmpty()
+            ? EnumSet.allOf(ChangeEntityType.class)
+            : types;
+        List<ChangeLogEntry> changes = changeLogRepository.findChanges(sincePosition.transactionId(),
+            sincePosition.id(), completedBefore, entityTypes, PageRequest.of(0, limit + 1));
+        boolean hasMore = changes.size() > limit;
+        Position position;
+        if (hasMore) {
+            changes = changes.subList(0, limit);
+            ChangeLogEntry last = changes.get(limit - 1);
+            position = new Position(last.getTransactionId(), last.getId());
+        } else {
+            // Le voci degli altri tipi delle transazioni terminate sono già state escluse dal filtro
+            position = head.isAfter(sincePosition) ? head : sincePosition;
+        }
+        log.debug("Returning {} changes after cursor {}", changes.size(), since);
+        return new ChangeFeed(changes, cursor(state.getGeneration(), position), hasMore, false);
+    }
+
+    /**
+     * Compattazione periodica: delle voci più vecchie di {@code compact-after-minutes} resta solo l'ultima
+     * di ogni entità, e le eliminazioni più vecchie di {@code retention-days} vengono rimosse. I cursori
+     * anteriori all'ultima eliminazione rimossa riceveranno una richiesta di risincronizzazione.
+     */
+    @Scheduled(fixedDelayString = "${myapp.changes.compaction-interval-ms:600000}")
+    @Transactional
+    public void compact() {
+        Instant now = Instant.now();
+        int superseded = changeLogRepository.deleteSuperseded(now.minus(compactAfter));
+
+        int tombstones = 0;
+        Long lastTombstone = changeLogRepository.findLastTransactionIdByOperationBefore(
+            ChangeOperation.DELETED, now.minus(tombstoneRetention));
+        if (lastTombstone != null) {
+            ChangeLogState state = currentState();
+            state.setHorizon(Math.max(state.getHorizon(), lastTombstone));
+            changeLogStateRepository.save(state);
+            tombstones = changeLogRepository.deleteByOperationUpTo(ChangeOperation.DELETED, lastTombstone);
+        }
+        if (superseded > 0 || tombstones > 0) {
+            log.info("Compacted change log: {} superseded entries and {} expired deletions removed",
+                superseded, tombstones);
+        }
+    }
+
+    /**
+     * Un ripristino sostituisce i dati senza passare dai service: il registro non li descrive più
+     * e tutti i client devono risincronizzarsi.
+     */
+    @EventListener
+    @Transactional
+    public void onDataRestored(DataRestoredEvent event) {
+        ChangeLogState state = currentState();
+        state.setGeneration(state.getGeneration() + 1);
+        state.setHorizon(Math.max(state.getHorizon(), changeLogRepository.findLastTransactionId()));
+        changeLogStateRepository.save(state);
+        changeLogRepository.deleteAllInBatch();
+        log.info("Change log reset after restore, generation {}", state.getGeneration());
+    }
+
+    private ChangeLogState currentState() {
+        return changeLogStateRepository.findById(ChangeLogState.SINGLETON_ID)
+            .orElseGet(() -> new ChangeLogState(ChangeLogState.SINGLETON_ID));
+    }
+
+    private static String cursor(long generation, Position position) {
+        return generation + "-" + position.transactionId() + "-" + position.id();
+    }
+
+    private static Position parseCursor(String cursor, long generation) {
+        if (cursor == null) {
+            return null;
+        }
+        String[] parts = cursor.split("-");
+        try {
+            if (parts.length != 3 || Long.parseLong(parts[0]) != generation) {
+                return null;
+            }
+            long transactionId = Long.parseLong(parts[1]);
+            long id = Long.parseLong(parts[2]);
+            return transactionId < 0 || id < 0 ? null : new Position(transactionId, id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Posizione nel registro: prima la transazione che ha scritto la voce, poi l'id della voce
+    private record Position(long transactionId, long id) {
+
+        boolean isAfter(Position other) {
+            return transactionId > other.transactionId || (transactionId == other.transactionId && id > other.id);
+        }
+    }
+}
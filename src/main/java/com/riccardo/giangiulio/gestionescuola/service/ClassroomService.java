@@ -1,11 +1,13 @@
 package com.riccardo.giangiulio.gestionescuola.service;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,9 +15,11 @@ import org.springframework.transaction.annotation.Transactional;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.ClassroomNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.ClassroomCapacityExceededException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidTimeRangeException;
+import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.PreconditionFailedException;
 import com.riccardo.giangiulio.gestionescuola.model.Classroom;
 import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.repository.ClassroomRepository;
+import com.riccardo.giangiulio.gestionescuola.service.DataVersionService.DataSet;
 
 @Service
 public class ClassroomService {
@@ -24,11 +28,14 @@ public class ClassroomService {
     
     private final ClassroomRepository classroomRepository;
     private final SchoolClassService schoolClassService;
+    private final DataVersionService dataVersionService;
     
     @Autowired
-    public ClassroomService(ClassroomRepository classroomRepository, @Lazy SchoolClassService schoolClassService) {
+    public ClassroomService(ClassroomRepository classroomRepository, @Lazy SchoolClassService schoolClassService,
+            DataVersionService dataVersionService) {
         this.classroomRepository = classroomRepository;
         this.schoolClassService = schoolClassService;
+        this.dataVersionService = dataVersionService;
         log.info("ClassroomService initialized");
     }
     
@@ -45,6 +52,20 @@ public class ClassroomService {
                 return new ClassroomNotFoundException(id);
             });
     }
+
+    public List<Classroom> findAllByIds(Collection<Long> ids) {
+        log.debug("Finding classrooms with ids: {}", ids);
+        return classroomRepository.findAllById(ids);
+    }
+    
+    public long findVersionById(Long id) {
+        log.debug("Finding version of classroom with id: {}", id);
+        return classroomRepository.findVersionById(id)
+            .orElseThrow(() -> {
+                log.error("Classroom not found with ID: {}", id);
+                return new ClassroomNotFoundException(id);
+            });
+    }
     
     @Transactional
     public Classroom save(Classroom classroom) {
@@ -54,14 +75,29 @@ public class ClassroomService {
             throw new ClassroomCapacityExceededException(0L, 0, classroom.getCapacity());
         }
         Classroom savedClassroom = classroomRepository.save(classroom);
+        dataVersionService.bump(DataSet.CLASSROOMS);
         log.info("Classroom saved successfully with ID: {}", savedClassroom.getId());
         return savedClassroom;
     }
     
     @Transactional
     public Classroom update(Long id, Classroom classroom) {
+        return update(id, classroom, null);
+    }
+    
+    /**
+     * Aggiornamento condizionale: con {@code expectedVersion} non nullo la modifica viene applicata solo se la
+     * versione letta in questa transazione coincide. Una modifica concorrente che termina prima del flush viene
+     * rilevata dalla colonna {@code @Version} e segnalata con la stessa eccezione.
+     */
+    @Transactional
+    public Classroom update(Long id, Classroom classroom, Long expectedVersion) {
         log.info("Updating classroom with id: {}", id);
         Classroom existingClassroom = findById(id);
+        if (expectedVersion != null && !expectedVersion.equals(existingClassroom.getVersion())) {
+            log.warn("Failed to update classroom {}: expected version {}, current version {}", id, expectedVersion, existingClassroom.getVersion());
+            throw new PreconditionFailedException("classroom", id);
+        }
 
         // Aggiorna solo i campi non nulli
         if (classroom.getName() != null && !classroom.getName().isEmpty()) {
@@ -75,7 +111,17 @@ public class ClassroomService {
             }
             existingClassroom.setCapacity(classroom.getCapacity());
         }
-        Classroom updatedClassroom = classroomRepository.save(existingClassroom);
+        Classroom updatedClassroom;
+        try {
+            updatedClassroom = classroomRepository.saveAndFlush(existingClassroom);
+        } catch (OptimisticLockingFailureException e) {
+            if (expectedVersion == null) {
+                throw e;
+            }
+            log.warn("Failed to update classroom {}: modified concurrently after version {}", id, expectedVersion);
+            throw new PreconditionFailedException("classroom", id);
+        }
+        dataVersionService.bump(DataSet.CLASSROOMS);
         log.info("Classroom updated successfully with ID: {}", id);
         return updatedClassroom;
     }
@@ -88,6 +134,7 @@ public class ClassroomService {
             throw new ClassroomNotFoundException(id);
         }
         classroomRepository.deleteById(id);
+        dataVersionService.bump(DataSet.CLASSROOMS);
         log.info("Classroom deleted successfully with ID: {}", id);
     }
     
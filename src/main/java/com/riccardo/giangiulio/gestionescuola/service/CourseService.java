@@ -1,21 +1,27 @@
 package com.riccardo.giangiulio.gestionescuola.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
     
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.CourseNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.ExamNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.SubjectNotFoundException;
+import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.PreconditionFailedException;
 import com.riccardo.giangiulio.gestionescuola.model.Course;
 import com.riccardo.giangiulio.gestionescuola.model.Exam;
 import com.riccardo.giangiulio.gestionescuola.model.Subject;
 import com.riccardo.giangiulio.gestionescuola.repository.CourseRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.CourseExamRow;
+import com.riccardo.giangiulio.gestionescuola.service.DataVersionService.DataSet;
 
 @Service
 public class CourseService {
@@ -25,12 +31,15 @@ public class CourseService {
     private final CourseRepository courseRepository;
     private final SubjectService subjectService;
     private final ExamService examService;
+    private final DataVersionService dataVersionService;
     
     @Autowired
-    public CourseService(CourseRepository courseRepository, SubjectService subjectService, ExamService examService) {
+    public CourseService(CourseRepository courseRepository, SubjectService subjectService, ExamService examService,
+            DataVersionService dataVersionService) {
         this.courseRepository = courseRepository;
         this.subjectService = subjectService;
         this.examService = examService;
+        this.dataVersionService = dataVersionService;
         log.info("CourseService initialized");
     }
     
@@ -41,6 +50,15 @@ public class CourseService {
         return courses;
     }
     
+    /**
+     * Restituisce corsi ed esami come righe della join, ordinate per corso.
+     * Lo stream va consumato e chiuso all'interno di una transazione del chiamante.
+     */
+    public Stream<CourseExamRow> streamCoursesWithExams() {
+        log.debug("Streaming courses with their exams");
+        return courseRepository.streamCoursesWithExams();
+    }
+    
     public Course findById(Long id) {
         log.debug("Finding course with id: {}", id);
         return courseRepository.findById(id)
@@ -49,17 +67,45 @@ public class CourseService {
                 return new CourseNotFoundException(id);
             });
     }
+
+    public List<Course> findAllByIds(Collection<Long> ids) {
+        log.debug("Finding courses with ids: {}", ids);
+        return courseRepository.findByIdIn(ids);
+    }
+    
+    /**
+     * Versione corrente ({@code @Version}) letta senza caricare l'entità.
+     */
+    public long findVersionById(Long id) {
+        log.debug("Finding version of course with id: {}", id);
+        return courseRepository.findVersionById(id)
+            .orElseThrow(() -> {
+                log.error("Course not found with ID: {}", id);
+                return new CourseNotFoundException(id);
+            });
+    }
     
     @Transactional
     public Course save(Course course) {
         log.info("Saving course: {}", course.getTitle());
         Course savedCourse = courseRepository.save(course);
+        dataVersionService.bump(DataSet.COURSES);
         log.info("Course saved successfully with title: {}", savedCourse.getTitle());
         return savedCourse;
     }
     
     @Transactional
     public Course update(Long id, Course course) {
+        return update(id, course, null);
+    }
+    
+    /**
+     * Aggiornamento condizionale: con {@code expectedVersion} non nullo la modifica viene applicata solo se la
+     * versione letta in questa transazione coincide. Una modifica concorrente che termina prima del flush viene
+     * rilevata dalla colonna {@code @Version} e segnalata con la stessa eccezione.
+     */
+    @Transactional
+    public Course update(Long id, Course course, Long expectedVersion) {
         log.info("Updating course with id: {}", id);
         Optional<Course> existingCourseOptional = courseRepository.findById(id);
 
@@ -69,6 +115,10 @@ public class CourseService {
         }
 
         Course existingCourse = existingCourseOptional.get();
+        if (expectedVersion != null && !expectedVersion.equals(existingCourse.getVersion())) {
+            log.warn("Failed to update course {}: expected version {}, current version {}", id, expectedVersion, existingCourse.getVersion());
+            throw new PreconditionFailedException("course", id);
+        }
         if (course.getTitle() != null && !course.getTitle().isEmpty()) {
             existingCourse.setTitle(course.getTitle());
         }
@@ -87,7 +137,17 @@ public class CourseService {
         if (course.getExams() != null && !course.getExams().isEmpty()) {
             existingCourse.setExams(course.getExams());
         }
-        Course updatedCourse = courseRepository.save(existingCourse);
+        Course updatedCourse;
+        try {
+            updatedCourse = courseRepository.saveAndFlush(existingCourse);
+        } catch (OptimisticLockingFailureException e) {
+            if (expectedVersion == null) {
+                throw e;
+            }
+            log.warn("Failed to update course {}: modified concurrently after version {}", id, expectedVersion);
+            throw new PreconditionFailedException("course", id);
+        }
+        dataVersionService.bump(DataSet.COURSES);
         log.info("Course updated successfully with ID: {}", id);
         return updatedCourse;
     }
@@ -100,6 +160,7 @@ public class CourseService {
             throw new CourseNotFoundException(id);
         }
         courseRepository.deleteById(id);
+        dataVersionService.bump(DataSet.COURSES);
         log.info("Course deleted successfully with ID: {}", id);
     }
     
@@ -130,6 +191,7 @@ public class CourseService {
         
         course.getSubjects().add(subject);
         courseRepository.save(course);
+        dataVersionService.bump(DataSet.COURSES);
         log.info("Successfully added subject {} to course {}", subjectId, courseId);
     }
     
@@ -148,6 +210,7 @@ public class CourseService {
         
         course.getSubjects().remove(subject);
         courseRepository.save(course);
+        dataVersionService.bump(DataSet.COURSES);
         log.info("Successfully removed subject {} from course {}", subjectId, courseId);
     }
     
@@ -166,6 +229,7 @@ public class CourseService {
         
         course.getExams().add(exam);
         courseRepository.save(course);
+        dataVersionService.bump(DataSet.COURSES);
         log.info("Exam {} added successfully to course {}", examId, courseId);
     }
     
@@ -184,6 +248,7 @@ public class CourseService {
         
         course.getExams().remove(exam);
         courseRepository.save(course);
+        dataVersionService.bump(DataSet.COURSES);
         log.info("Exam {} removed successfully from course {}", examId, courseId);
     }
 }
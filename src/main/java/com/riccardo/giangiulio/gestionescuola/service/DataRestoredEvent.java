@@ -0,0 +1,20 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.util.Map;
+
+/**
+ * Evento pubblicato da {@link BackupService} dopo il commit di un ripristino.
+ * Tutti i dati sono stati sostituiti senza passare dai service: cache e versioni in memoria vanno invalidate.
+ */
+public class DataRestoredEvent {
+
+    private final Map<String, Long> restoredRows;
+
+    public DataRestoredEvent(Map<String, Long> restoredRows) {
+        this.restoredRows = restoredRows;
+    }
+
+    public Map<String, Long> getRestoredRows() {
+        return restoredRows;
+    }
+}
@@ -0,0 +1,87 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Versione di modifica per ogni tabella esportata o servita con ETag, incrementata dai percorsi di salvataggio, modifica ed eliminazione
+ * dei service. Le versioni sono in memoria e ripartono a ogni avvio: l'epoca di avvio fa parte della chiave
+ * restituita da {@link #versionKey}, così le chiavi di esecuzioni diverse non coincidono mai.
+ */
+@Service
+public class DataVersionService {
+    
+    private static final Logger log = LoggerFactory.getLogger(DataVersionService.class);
+    
+    public enum DataSet {
+        USERS,
+        REGISTRATIONS,
+        COURSES,
+        EXAMS,
+        SCHOOL_CLASSES,
+        SUBJECTS,
+        CLASSROOMS,
+        ROLES
+    }
+    
+    private final long epoch = System.currentTimeMillis();
+    private final Map<DataSet, AtomicLong> versions = new EnumMap<>(DataSet.class);
+    
+    public DataVersionService() {
+        for (DataSet dataSet : DataSet.values()) {
+            versions.put(dataSet, new AtomicLong());
+        }
+        log.info("DataVersionService initialized");
+    }
+    
+    /**
+     * Incrementa la versione della tabella. Dentro una transazione l'incremento avviene dopo il commit:
+     * un export che legge la nuova versione vede quindi sempre anche i dati modificati.
+     */
+    public void bump(DataSet dataSet) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.get(dataSet).incrementAndGet();
+                }
+            });
+        } else {
+            versions.get(dataSet).incrementAndGet();
+        }
+    }
+    
+    public long getVersion(DataSet dataSet) {
+        return versions.get(dataSet).get();
+    }
+    
+    /**
+     * Chiave che cambia a ogni modifica di una delle tabelle indicate, ad esempio {@code 1718000000000-3.0.7}.
+     */
+    public String versionKey(Set<DataSet> dataSets) {
+        return epoch + "-" + dataSets.stream()
+                .sorted()
+                .map(dataSet -> String.valueOf(getVersion(dataSet)))
+                .collect(Collectors.joining("."));
+    }
+    
+    /**
+     * Un ripristino sostituisce tutte le tabelle senza passare dai service.
+     */
+    @EventListener
+    public void onDataRestored(DataRestoredEvent event) {
+        for (DataSet dataSet : DataSet.values()) {
+            bump(dataSet);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.riccardo.giangiulio.gestionescuola.service.DataVersionService.DataSet;
+
+/**
+ * ETag delle risorse di riferimento (corsi, materie, aule, ruoli).
+ * Per una singola risorsa l'ETag deriva dalla colonna {@code @Version} dell'entità e, se il DTO contiene dati di altre
+ * tabelle, dalle loro versioni; per una lista deriva solo dalle versioni delle tabelle ({@link DataVersionService}).
+ * Sono ETag forti: possono essere usati anche in {@code If-Match} per evitare aggiornamenti persi.
+ */
+@Service
+public class EntityTagService {
+
+    private static final Logger log = LoggerFactory.getLogger(EntityTagService.class);
+
+    private final DataVersionService dataVersionService;
+
+    @Autowired
+    public EntityTagService(DataVersionService dataVersionService) {
+        this.dataVersionService = dataVersionService;
+        log.info("EntityTagService initialized");
+    }
+
+    /**
+     * ETag di una singola risorsa, ad esempio {@code "course-12-v3"} oppure, con dati annidati,
+     * {@code "course-12-v3-1718000000000-4.1"}.
+     */
+    public String entityTag(String resource, Long id, long version, Set<DataSet> nestedDataSets) {
+        String tag = resource + "-" + id + "-v" + version;
+        if (!nestedDataSets.isEmpty()) {
+            tag += "-" + dataVersionService.versionKey(nestedDataSets);
+        }
+        return "\"" + tag + "\"";
+    }
+
+    /**
+     * Versione dell'entità contenuta in un ETag prodotto da {@link #entityTag}. La parte relativa ai dati annidati
+     * e il suffisso della codifica ({@code +cbor}, {@code +smile}) vengono ignorati perché un aggiornamento modifica
+     * solo la riga dell'entità, qualunque sia la rappresentazione letta dal client.
+     * Restituisce -1 per un ETag debole, malformato o di un'altra risorsa.
+     */
+    public long versionOf(String resource, Long id, String etag) {
+        String prefix = "\"" + resource + "-" + id + "-v";
+        if (!etag.startsWith(prefix) || !etag.endsWith("\"") || etag.length() <= prefix.length()) {
+            return -1;
+        }
+        String versionPart = etag.substring(prefix.length(), etag.length() - 1);
+        try {
+            return Long.parseLong(versionPart.split("[-+]", 2)[0]);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * ETag di una lista: cambia a ogni salvataggio, modifica o eliminazione in una delle tabelle indicate.
+     */
+    public String collectionTag(String resource, Set<DataSet> dataSets) {
+        return "\"" + resource + "-" + dataVersionService.versionKey(dataSets) + "\"";
+    }
+}
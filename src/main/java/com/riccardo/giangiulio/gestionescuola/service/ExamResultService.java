@@ -1,6 +1,9 @@
 package com.riccardo.giangiulio.gestionescuola.service;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +18,7 @@ import com.riccardo.giangiulio.gestionescuola.model.Exam;
 import com.riccardo.giangiulio.gestionescuola.model.ExamResult;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 import com.riccardo.giangiulio.gestionescuola.repository.ExamResultRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.ExamResultExportRow;
 
 @Service
 public class ExamResultService {
@@ -49,6 +53,16 @@ public class ExamResultService {
                 return new ExamResultNotFoundException(id);
             });
     }
+
+    public List<ExamResult> findAllByIds(Collection<Long> ids) {
+        log.debug("Finding exam results with ids: {}", ids);
+        return examResultRepository.findByIdIn(ids);
+    }
+
+    public List<ExamResult> findByExamIds(Collection<Long> examIds) {
+        log.debug("Finding exam results for exam ids: {}", examIds);
+        return examResultRepository.findByExamIdIn(examIds);
+    }
     
     public ExamResult save(ExamResult examResultRequest) {
         log.debug("Saving exam result for exam {} and student {}", 
@@ -122,6 +136,23 @@ public class ExamResultService {
         return results;
     }
     
+    /**
+     * Risultati d'esame di più studenti in un'unica query, con l'esame già caricato.
+     */
+    public List<ExamResult> findByStudentIds(Collection<Long> studentIds) {
+        log.debug("Finding exam results for {} students", studentIds.size());
+        return examResultRepository.findByStudentIdInWithExam(studentIds);
+    }
+    
+    /**
+     * Colonne esportate delle risultati d'esame nell'intervallo [from, to) e della classe indicata; i filtri null sono ignorati.
+     * Lo stream va consumato e chiuso all'interno di una transazione del chiamante.
+     */
+    public Stream<ExamResultExportRow> streamExportRows(LocalDateTime from, LocalDateTime to, Long schoolClassId) {
+        log.debug("Streaming exam result export rows from {} to {} for class {}", from, to, schoolClassId);
+        return examResultRepository.streamExportRows(from, to, schoolClassId);
+    }
+    
     public List<ExamResult> findByStudent(User student) {
         log.debug("Finding exam results for student id: {}", student.getId());
         if (!userService.isStudent(student)) {
@@ -1,6 +1,7 @@
 package com.riccardo.giangiulio.gestionescuola.service;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -16,6 +17,8 @@ import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.Clas
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidExamDataException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidTeacherException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidTimeRangeException;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeEntityType;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeOperation;
 import com.riccardo.giangiulio.gestionescuola.model.Classroom;
 import com.riccardo.giangiulio.gestionescuola.model.Course;
 import com.riccardo.giangiulio.gestionescuola.model.Exam;
@@ -23,6 +26,7 @@ import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.Subject;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 import com.riccardo.giangiulio.gestionescuola.repository.ExamRepository;
+import com.riccardo.giangiulio.gestionescuola.service.DataVersionService.DataSet;
 
 @Service
 public class ExamService {
@@ -34,6 +38,8 @@ public class ExamService {
     private final SchoolClassService schoolClassService;
     private final UserService userService;
     private final SubjectService subjectService;
+    private final DataVersionService dataVersionService;
+    private final ChangeLogService changeLogService;
     
     @Autowired
     public ExamService(
@@ -41,12 +47,16 @@ public class ExamService {
             ClassroomService classroomService,
             @Lazy SchoolClassService schoolClassService,
             UserService userService,
-            SubjectService subjectService) {
+            SubjectService subjectService,
+            DataVersionService dataVersionService,
+            ChangeLogService changeLogService) {
         this.examRepository = examRepository;
         this.classroomService = classroomService;
         this.schoolClassService = schoolClassService;
         this.userService = userService;
         this.subjectService = subjectService;
+        this.dataVersionService = dataVersionService;
+        this.changeLogService = changeLogService;
         log.info("ExamService initialized");
     }
     
@@ -65,6 +75,16 @@ public class ExamService {
                 return new ExamNotFoundException(id);
             });
     }
+
+    public List<Exam> findAllByIds(Collection<Long> ids) {
+        log.debug("Finding exams with ids: {}", ids);
+        return examRepository.findByIdIn(ids);
+    }
+
+    public List<Exam> findBySchoolClassIds(Collection<Long> schoolClassIds) {
+        log.debug("Finding exams for school class ids: {}", schoolClassIds);
+        return examRepository.findBySchoolClassIdInOrderByDateAsc(schoolClassIds);
+    }
     
     @Transactional
     public Exam save(Exam examRequest) {
@@ -90,6 +110,9 @@ public class ExamService {
         validateExam(exam);
         
         Exam savedExam = examRepository.save(exam);
+        dataVersionService.bump(DataSet.EXAMS);
+        changeLogService.record(ChangeEntityType.EXAM, savedExam.getId(), ChangeOperation.CREATED, savedExam.getVersion());
+        
         log.info("Exam saved successfully with id: {}", savedExam.getId());
         return savedExam;
     }
@@ -133,7 +156,11 @@ public class ExamService {
         
         validateExam(existingExam);
         
-        Exam updatedExam = examRepository.save(existingExam);
+        // Flush immediato: la versione registrata è quella incrementata dall'aggiornamento
+        Exam updatedExam = examRepository.saveAndFlush(existingExam);
+        dataVersionService.bump(DataSet.EXAMS);
+        changeLogService.record(ChangeEntityType.EXAM, id, ChangeOperation.UPDATED, updatedExam.getVersion());
+        
         log.info("Exam updated successfully with ID: {}", id);
         return updatedExam;
     }
@@ -141,11 +168,14 @@ public class ExamService {
     @Transactional
     public void deleteById(Long id) {
         log.warn("Attempting to delete exam with id: {}", id);
-        if (!examRepository.existsById(id)) {
-            log.error("Attempting to delete non-existent exam with ID: {}", id);
-            throw new ExamNotFoundException(id);
-        }
-        examRepository.deleteById(id);
+        Exam exam = examRepository.findById(id)
+            .orElseThrow(() -> {
+                log.error("Attempting to delete non-existent exam with ID: {}", id);
+                return new ExamNotFoundException(id);
+            });
+        examRepository.delete(exam);
+        dataVersionService.bump(DataSet.EXAMS);
+        changeLogService.record(ChangeEntityType.EXAM, id, ChangeOperation.DELETED, exam.getVersion());
         log.info("Exam deleted successfully with ID: {}", id);
     }
     
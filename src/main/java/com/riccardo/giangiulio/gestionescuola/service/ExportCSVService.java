@@ -3,7 +3,8 @@ package com.riccardo.giangiulio.gestionescuola.service;
 import java.io.IOException;
 import java.io.Writer;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.Iterator;
+import java.util.stream.Stream;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
@@ -11,104 +12,127 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.riccardo.giangiulio.gestionescuola.config.Workload;
+import com.riccardo.giangiulio.gestionescuola.config.WorkloadType;
 import com.riccardo.giangiulio.gestionescuola.model.ERole;
-import com.riccardo.giangiulio.gestionescuola.model.Registration;
-import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.RegistrationExportRow;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.UserExportRow;
+
+import io.micrometer.core.instrument.Timer;
 
 @Service
+@Workload(WorkloadType.REPORTING)
 public class ExportCSVService {
     private static final Logger log = LoggerFactory.getLogger(ExportCSVService.class);
     
     private final UserService userService;
     private final RegistrationService registrationService;
+    private final ExportMetrics exportMetrics;
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    
+    // Ogni quante righe svuotare il buffer verso il client: quando l'export non è in cache la richiesta che lo genera
+    // lo riceve mentre il cursore avanza, anche compresso in gzip
+    static final int FLUSH_INTERVAL = 1000;
+    
+    private static final CSVFormat USER_FORMAT = CSVFormat.DEFAULT.builder()
+            .setHeader("ID", "Name", "Surname", "Email", "Username", "Birth Date")
+            .build();
+    
+    private static final CSVFormat REGISTRATION_FORMAT = CSVFormat.DEFAULT.builder()
+            .setHeader("ID", "Student", "Student Email", "Course", "Class", "Registration Date", "Status")
+            .build();
     
     @Autowired
-    public ExportCSVService(UserService userService, RegistrationService registrationService) {
+    public ExportCSVService(UserService userService, RegistrationService registrationService, ExportMetrics exportMetrics) {
         this.userService = userService;
         this.registrationService = registrationService;
+        this.exportMetrics = exportMetrics;
         log.info("ExportCSVService inizialized");
     }
     
+    @Transactional(readOnly = true)
     public void exportStudentsToCSV(Writer writer) throws IOException {
-        log.info("Starting export of students to CSV");
-        List<User> students = userService.findByRole(ERole.ROLE_STUDENT);
+        exportUsersToCSV(writer, ERole.ROLE_STUDENT, "students");
+    }
+    
+    @Transactional(readOnly = true)
+    public void exportTeachersToCSV(Writer writer) throws IOException {
+        exportUsersToCSV(writer, ERole.ROLE_TEACHER, "teachers");
+    }
+    
+    @Transactional(readOnly = true)
+    public void exportRegistrationsToCSV(Writer writer) throws IOException {
+        log.info("Starting export of registrations to CSV");
+        Timer.Sample sample = exportMetrics.start();
         
-        try (CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.builder()
-                .setHeader("ID", "Name", "Surname", "Email", "Username", "Birth Date")
-                .build())) {
+        try (Stream<RegistrationExportRow> registrations = registrationService.streamExportRows();
+             CSVPrinter csvPrinter = new CSVPrinter(writer, REGISTRATION_FORMAT)) {
             
-            for (User student : students) {
-                csvPrinter.printRecord(
-                    student.getId(),
-                    student.getFirstName(),
-                    student.getLastName(),
-                    student.getEmail(),
-                    student.getUsername(),
-                    student.getBirthDate() != null ? student.getBirthDate().format(DATE_FORMATTER) : ""
-                );
-            }
+            int count = printRows(csvPrinter, registrations, registration -> csvPrinter.printRecord(
+                registration.getId(),
+                registration.getStudentFirstName() + " " + registration.getStudentLastName(),
+                registration.getStudentEmail(),
+                registration.getCourseTitle(),
+                registration.getSchoolClassName() != null ? registration.getSchoolClassName() : "",
+                registration.getRegistrationDate() != null ? 
+                    registration.getRegistrationDate().format(DATE_TIME_FORMATTER) : "",
+                registration.getStatus().toString()
+            ));
             
-            log.info("Exported {} students to CSV", students.size());
+            exportMetrics.recordCompleted(sample, "registrations", "csv", count);
+            log.info("Exported {} registrations to CSV", count);
         } catch (IOException e) {
-            log.error("Error during export of students to CSV", e);
+            log.error("Error during export of registrations to CSV", e);
             throw e;
         }
     }
     
-    public void exportTeachersToCSV(Writer writer) throws IOException {
-        log.info("Starting export of teachers to CSV");
-        List<User> teachers = userService.findByRole(ERole.ROLE_TEACHER);
+    private void exportUsersToCSV(Writer writer, ERole role, String type) throws IOException {
+        log.info("Starting export of {} to CSV", type);
+        Timer.Sample sample = exportMetrics.start();
         
-        try (CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.builder()
-                .setHeader("ID", "Name", "Surname", "Email", "Username", "Birth Date")
-                .build())) {
+        try (Stream<UserExportRow> users = userService.streamExportRowsByRole(role);
+             CSVPrinter csvPrinter = new CSVPrinter(writer, USER_FORMAT)) {
             
-            for (User teacher : teachers) {
-                csvPrinter.printRecord(
-                    teacher.getId(),
-                    teacher.getFirstName(),
-                    teacher.getLastName(),
-                    teacher.getEmail(),
-                    teacher.getUsername(),
-                    teacher.getBirthDate() != null ? teacher.getBirthDate().format(DATE_FORMATTER) : ""
-                );
-            }
+            int count = printRows(csvPrinter, users, user -> csvPrinter.printRecord(
+                user.getId(),
+                user.getFirstName(),
+                user.getLastName(),
+                user.getEmail(),
+                user.getUsername(),
+                user.getBirthDate() != null ? user.getBirthDate().format(DATE_FORMATTER) : ""
+            ));
             
-            log.info("Exported {} teachers to CSV", teachers.size());
+            exportMetrics.recordCompleted(sample, type, "csv", count);
+            log.info("Exported {} {} to CSV", count, type);
         } catch (IOException e) {
-            log.error("Error during export of teachers to CSV", e);
+            log.error("Error during export of {} to CSV", type, e);
             throw e;
         }
     }
     
-    public void exportRegistrationsToCSV(Writer writer) throws IOException {
-        log.info("Starting export of registrations to CSV");
-        List<Registration> registrations = registrationService.findAll();
-        
-        try (CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.builder()
-                .setHeader("ID", "Student", "Student Email", "Course", "Class", "Registration Date", "Status")
-                .build())) {
-            
-            for (Registration registration : registrations) {
-                csvPrinter.printRecord(
-                    registration.getId(),
-                    registration.getStudent().getFirstName() + " " + registration.getStudent().getLastName(),
-                    registration.getStudent().getEmail(),
-                    registration.getCourse().getTitle(),
-                    registration.getSchoolClass() != null ? registration.getSchoolClass().getName() : "",
-                    registration.getRegistrationDate() != null ? 
-                        registration.getRegistrationDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")) : "",
-                    registration.getStatus().toString()
-                );
+    /**
+     * Scrive le righe dello stream una alla volta, svuotando il buffer ogni {@link #FLUSH_INTERVAL} righe.
+     */
+    private <T> int printRows(CSVPrinter csvPrinter, Stream<T> rows, RowPrinter<T> printer) throws IOException {
+        int count = 0;
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            printer.print(iterator.next());
+            if (++count % FLUSH_INTERVAL == 0) {
+                csvPrinter.flush();
             }
-            
-            log.info("Exported {} registrations to CSV", registrations.size());
-        } catch (IOException e) {
-            log.error("Error during export of registrations to CSV", e);
-            throw e;
         }
+        csvPrinter.flush();
+        return count;
+    }
+    
+    @FunctionalInterface
+    private interface RowPrinter<T> {
+        void print(T row) throws IOException;
     }
 }
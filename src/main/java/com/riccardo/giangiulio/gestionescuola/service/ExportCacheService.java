@@ -0,0 +1,393 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.riccardo.giangiulio.gestionescuola.service.DataVersionService.DataSet;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cache su disco degli export, indicizzata dalle versioni delle tabelle da cui dipendono.
+ * Un file resta valido finché nessuna delle tabelle viene modificata; alla generazione di una nuova versione
+ * i file delle versioni precedenti dello stesso export vengono eliminati.
+ * I file vengono consegnati già aperti: l'apertura e l'eliminazione sono serializzate da un lock, quindi una
+ * richiesta che sta ancora inviando una versione precedente continua a leggerla dal proprio handle anche dopo che
+ * il file è stato rimosso dalla directory. Su filesystem che non permettono di eliminare file aperti l'eliminazione
+ * fallisce e il file viene rimosso alla generazione successiva o al riavvio.
+ * Richieste concorrenti per lo stesso export non ancora in cache attendono un'unica generazione.
+ * Con {@link #send} la richiesta che esegue la generazione riceve l'export mentre viene scritto nel file, quelle in
+ * attesa leggono il file completato; la variante gzip viene salvata accanto al file e compressa una sola volta.
+ */
+@Service
+public class ExportCacheService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ExportCacheService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String GZIP_SUFFIX = ".gz";
+    
+    private final DataVersionService dataVersionService;
+    private final Path cacheDirectory;
+    
+    private final Map<Path, CompletableFuture<Void>> inProgress = new ConcurrentHashMap<>();
+    private final ReadWriteLock fileLock = new ReentrantReadWriteLock();
+    
+    @Autowired
+    public ExportCacheService(DataVersionService dataVersionService,
+            @Value("${myapp.export.cache.dir:${java.io.tmpdir}/gestione-scuola-export-cache}") String cacheDirectory) {
+        this.dataVersionService = dataVersionService;
+        this.cacheDirectory = Paths.get(cacheDirectory).toAbsolutePath();
+        log.info("ExportCacheService initialized with cache directory {}", this.cacheDirectory);
+    }
+    
+    /**
+     * Le versioni ripartono a ogni avvio, quindi i file di un'esecuzione precedente non sono più validi.
+     */
+    @PostConstruct
+    public void initCacheDirectory() throws IOException {
+        Files.createDirectories(cacheDirectory);
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            files.filter(Files::isRegularFile).forEach(this::deleteQuietly);
+        }
+    }
+    
+    /**
+     * ETag debole dell'export: cambia a ogni modifica delle tabelle da cui dipende.
+     * È debole perché lo stesso contenuto può essere inviato compresso o meno.
+     */
+    public String etag(String exportName, Set<DataSet> dataSets) {
+        return "W/\"" + exportName + "-" + dataVersionService.versionKey(dataSets) + "\"";
+    }
+    
+    /**
+     * Restituisce il file dell'export per le versioni correnti, aperto in lettura e generato se non è ancora in cache.
+     * Il chiamante deve chiudere il canale.
+     * Le versioni vengono lette prima della generazione: se i dati cambiano nel frattempo, il file viene
+     * salvato con la versione precedente e la richiesta successiva lo rigenera.
+     */
+    public FileChannel getOrGenerate(String exportName, String extension, Set<DataSet> dataSets, ExportWriter writer)
+            throws IOException {
+        while (true) {
+            String key = exportName + "-" + dataVersionService.versionKey(dataSets);
+            Path file = cacheDirectory.resolve(key + "." + extension);
+            FileChannel cached = openIfPresent(file);
+            if (cached != null) {
+                log.debug("Export {} served from cache", key);
+                return cached;
+            }
+            
+            generateOnce(file, () -> {
+                generate(file, key, writer);
+                deleteOtherVersions(exportName, key);
+            });
+            FileChannel generated = openIfPresent(file);
+            if (generated != null) {
+                return generated;
+            }
+            // Una generazione più recente ha eliminato il file prima che venisse aperto: si riparte dalle versioni correnti
+            log.debug("Export {} replaced by a newer version before being opened, retrying", key);
+        }
+    }
+    
+    /**
+     * Invia l'export per le versioni correnti, compresso in gzip se richiesto.
+     * In cache il file viene inviato con la sua dimensione; altrimenti la richiesta che lo genera riceve i byte
+     * mentre vengono scritti nel file, con i flush del writer, senza attendere la fine della generazione.
+     * Il target viene aperto solo al primo byte: un errore prima dell'invio lascia la risposta intatta.
+     */
+    public void send(String exportName, String extension, Set<DataSet> dataSets, boolean gzip, ExportWriter writer,
+            ExportTarget target) throws IOException {
+        while (true) {
+            String key = exportName + "-" + dataVersionService.versionKey(dataSets);
+            Path file = cacheDirectory.resolve(key + "." + extension);
+            Path compressed = cacheDirectory.resolve(key + "." + extension + GZIP_SUFFIX);
+            if (sendIfPresent(gzip ? compressed : file, target)) {
+                log.debug("Export {} served from cache", key);
+                return;
+            }
+            
+            if (!Files.exists(file)) {
+                ResponseTee tee = new ResponseTee(target, gzip);
+                boolean generated = generateOnce(file, () -> {
+                    generate(file, key, out -> {
+                        try (OutputStream teeOut = tee.attach(out)) {
+                            writer.write(teeOut);
+                        }
+                    });
+                    deleteOtherVersions(exportName, key);
+                });
+                if (generated) {
+                    tee.checkClient();
+                    return;
+                }
+            } else if (gzip) {
+                try {
+                    generateOnce(compressed, () -> generate(compressed, key, out -> compress(file, out)));
+                } catch (NoSuchFileException e) {
+                    log.debug("Export {} replaced by a newer version before being compressed, retrying", key);
+                }
+            }
+            // Il file è stato generato da un'altra richiesta o sostituito da una versione più recente: si riparte
+        }
+    }
+    
+    /**
+     * Esegue la generazione del file se nessun'altra richiesta la sta già eseguendo, altrimenti ne attende la fine.
+     * Restituisce true solo se la generazione è stata eseguita da questa chiamata.
+     */
+    private boolean generateOnce(Path file, Generation work) throws IOException {
+        CompletableFuture<Void> generation = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inProgress.putIfAbsent(file, generation);
+        if (existing != null) {
+            log.debug("Waiting for export {} generated by another request", file.getFileName());
+            await(existing);
+            return false;
+        }
+        
+        try {
+            boolean generated = false;
+            if (!Files.exists(file)) {
+                work.run();
+                generated = true;
+            }
+            generation.complete(null);
+            return generated;
+        } catch (IOException | RuntimeException e) {
+            generation.completeExceptionally(e);
+            throw e;
+        } finally {
+            inProgress.remove(file, generation);
+        }
+    }
+    
+    private boolean sendIfPresent(Path file, ExportTarget target) throws IOException {
+        FileChannel channel = openIfPresent(file);
+        if (channel == null) {
+            return false;
+        }
+        try (channel) {
+            Channels.newInputStream(channel).transferTo(target.open(channel.size()));
+        }
+        return true;
+    }
+    
+    private void compress(Path file, OutputStream out) throws IOException {
+        FileChannel source = openIfPresent(file);
+        if (source == null) {
+            throw new NoSuchFileException(file.toString());
+        }
+        try (source; OutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE)) {
+            Channels.newInputStream(source).transferTo(gzip);
+        }
+    }
+    
+    private FileChannel openIfPresent(Path file) throws IOException {
+        fileLock.readLock().lock();
+        try {
+            return FileChannel.open(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } finally {
+            fileLock.readLock().unlock();
+        }
+    }
+    
+    private void generate(Path file, String key, ExportWriter writer) throws IOException {
+        log.info("Generating export {} into cache", key);
+        Path partFile = Files.createTempFile(cacheDirectory, key, ".part");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partFile), BUFFER_SIZE)) {
+                writer.write(out);
+            }
+            Files.move(partFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            deleteQuietly(partFile);
+        }
+    }
+    
+    private void deleteOtherVersions(String exportName, String currentKey) throws IOException {
+        String prefix = exportName + "-";
+        String current = currentKey + ".";
+        fileLock.writeLock().lock();
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(prefix) && !name.startsWith(current) && !name.endsWith(".part");
+                    })
+                    .forEach(this::deleteQuietly);
+        } finally {
+            fileLock.writeLock().unlock();
+        }
+    }
+    
+    private void await(CompletableFuture<Void> generation) throws IOException {
+        try {
+            generation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for export generation", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Export generation failed", cause);
+        }
+    }
+    
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Unable to delete cached export {}: {}", file, e.getMessage());
+        }
+    }
+    
+    @FunctionalInterface
+    public interface ExportWriter {
+        void write(OutputStream outputStream) throws IOException;
+    }
+    
+    /**
+     * Destinazione dell'export inviato da {@link #send}; la dimensione è negativa se non è ancora nota.
+     */
+    @FunctionalInterface
+    public interface ExportTarget {
+        OutputStream open(long contentLength) throws IOException;
+    }
+    
+    @FunctionalInterface
+    private interface Generation {
+        void run() throws IOException;
+    }
+    
+    /**
+     * Copia verso il client i byte scritti nel file di cache durante la generazione.
+     * Se il client si disconnette la generazione prosegue per le richieste in attesa e l'errore viene
+     * segnalato da {@link #checkClient()} dopo che il file è stato salvato.
+     */
+    private static final class ResponseTee extends OutputStream {
+        
+        private final ExportTarget target;
+        private final boolean gzip;
+        private OutputStream file;
+        private OutputStream client;
+        private IOException clientError;
+        
+        ResponseTee(ExportTarget target, boolean gzip) {
+            this.target = target;
+            this.gzip = gzip;
+        }
+        
+        OutputStream attach(OutputStream file) {
+            this.file = file;
+            return this;
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            file.write(b);
+            OutputStream out = client();
+            if (out != null) {
+                try {
+                    out.write(b);
+                } catch (IOException e) {
+                    clientFailed(e);
+                }
+            }
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            file.write(b, off, len);
+            OutputStream out = client();
+            if (out != null) {
+                try {
+                    out.write(b, off, len);
+                } catch (IOException e) {
+                    clientFailed(e);
+                }
+            }
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            OutputStream out = client();
+            if (out != null) {
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    clientFailed(e);
+                }
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            try {
+                file.close();
+            } finally {
+                OutputStream out = client();
+                if (out != null) {
+                    try {
+                        out.close();
+                    } catch (IOException e) {
+                        clientFailed(e);
+                    }
+                }
+            }
+        }
+        
+        void checkClient() throws IOException {
+            if (clientError != null) {
+                throw clientError;
+            }
+        }
+        
+        private OutputStream client() {
+            if (client == null && clientError == null) {
+                try {
+                    OutputStream response = target.open(-1);
+                    client = gzip ? new GZIPOutputStream(response, BUFFER_SIZE, true) : response;
+                } catch (IOException e) {
+                    clientFailed(e);
+                }
+            }
+            return client;
+        }
+        
+        private void clientFailed(IOException e) {
+            log.debug("Client disconnected during export generation: {}", e.getMessage());
+            if (clientError == null) {
+                clientError = e;
+            }
+            client = null;
+        }
+    }
+}
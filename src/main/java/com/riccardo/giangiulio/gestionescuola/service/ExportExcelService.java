@@ -1,9 +1,11 @@
 package com.riccardo.giangiulio.gestionescuola.service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 import org.apache.poi.ss.usermodel.BorderStyle;
 import org.apache.poi.ss.usermodel.Cell;
@@ -15,132 +17,152 @@ import org.apache.poi.ss.usermodel.IndexedColors;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import com.riccardo.giangiulio.gestionescuola.model.Course;
-import com.riccardo.giangiulio.gestionescuola.model.Exam;
+import com.riccardo.giangiulio.gestionescuola.config.Workload;
+import com.riccardo.giangiulio.gestionescuola.config.WorkloadType;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.CourseExamRow;
+
+import io.micrometer.core.instrument.Timer;
 
 @Service
+@Workload(WorkloadType.REPORTING)
 public class ExportExcelService {
     
     private static final Logger log = LoggerFactory.getLogger(ExportExcelService.class);
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
     
+    // Righe mantenute in memoria per foglio: le precedenti vengono scritte su file temporaneo
+    private static final int ROW_ACCESS_WINDOW = 100;
+    private static final int MAX_COLUMN_WIDTH_CHARS = 80;
+    
     private final CourseService courseService;
-    private final ExamService examService;
+    private final ExportMetrics exportMetrics;
     
     @Autowired
-    public ExportExcelService(CourseService courseService, ExamService examService) {
+    public ExportExcelService(CourseService courseService, ExportMetrics exportMetrics) {
         this.courseService = courseService;
-        this.examService = examService;
+        this.exportMetrics = exportMetrics;
         log.info("ExportExcelService initialized");
     }
     
-    public byte[] generateCoursesAndExamsExcel() throws IOException {
+    /**
+     * Scrive il file Excel con corsi ed esami direttamente sullo stream indicato.
+     * Corsi ed esami vengono letti con un'unica query a cursore e scritti in un workbook SXSSF,
+     * quindi la memoria utilizzata non cresce con il numero di corsi ed esami.
+     */
+    @Transactional(readOnly = true)
+    public void writeCoursesAndExamsExcel(OutputStream outputStream) throws IOException {
         log.info("Generating Excel file with courses and exams");
+        Timer.Sample sample = exportMetrics.start();
         
-        List<Course> courses = courseService.findAll();
-        
-        try (Workbook workbook = new XSSFWorkbook()) {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try (Stream<CourseExamRow> rows = courseService.streamCoursesWithExams()) {
             // Create styles
             CellStyle headerStyle = createHeaderStyle(workbook);
             CellStyle dataStyle = createDataStyle(workbook);
             
             // Create courses sheet
             Sheet coursesSheet = workbook.createSheet("Courses");
+            ColumnWidths coursesWidths = new ColumnWidths(5);
             
             // Create header row for courses
             Row headerRow = coursesSheet.createRow(0);
-            createCell(headerRow, 0, "ID", headerStyle);
-            createCell(headerRow, 1, "Title", headerStyle);
-            createCell(headerRow, 2, "Description", headerStyle);
-            createCell(headerRow, 3, "Duration", headerStyle);
-            createCell(headerRow, 4, "Price", headerStyle);
-            
-            // Fill data rows for courses
-            int rowNum = 1;
-            for (Course course : courses) {
-                Row row = coursesSheet.createRow(rowNum++);
-                createCell(row, 0, course.getId().toString(), dataStyle);
-                createCell(row, 1, course.getTitle(), dataStyle);
-                createCell(row, 2, course.getDescription(), dataStyle);
-                createCell(row, 3, course.getDuration(), dataStyle);
-                createCell(row, 4, course.getPrice().toString(), dataStyle);
-            }
-            
-            // Auto size columns
-            for (int i = 0; i < 5; i++) {
-                coursesSheet.autoSizeColumn(i);
-            }
+            createCell(headerRow, 0, "ID", headerStyle, coursesWidths);
+            createCell(headerRow, 1, "Title", headerStyle, coursesWidths);
+            createCell(headerRow, 2, "Description", headerStyle, coursesWidths);
+            createCell(headerRow, 3, "Duration", headerStyle, coursesWidths);
+            createCell(headerRow, 4, "Price", headerStyle, coursesWidths);
             
             // Create exams sheet
             Sheet examsSheet = workbook.createSheet("Exams by Course");
+            ColumnWidths examsWidths = new ColumnWidths(7);
             
-            // Course counter for exams sheet
+            // Le righe arrivano ordinate per corso: i due fogli vengono scritti in un solo passaggio
             int courseCounter = 0;
-            int currentRow = 0;
+            int examCounter = 0;
+            int courseRow = 1;
+            int examRowNum = 0;
+            Long currentCourseId = null;
             
-            for (Course course : courses) {
-                // Create course header
-                Row courseHeaderRow = examsSheet.createRow(currentRow++);
-                createCell(courseHeaderRow, 0, "Course: " + course.getTitle(), headerStyle);
-                
-                // Create exam header row
-                Row examHeaderRow = examsSheet.createRow(currentRow++);
-                createCell(examHeaderRow, 0, "ID", headerStyle);
-                createCell(examHeaderRow, 1, "Title", headerStyle);
-                createCell(examHeaderRow, 2, "Description", headerStyle);
-                createCell(examHeaderRow, 3, "Date", headerStyle);
-                createCell(examHeaderRow, 4, "Duration (min)", headerStyle);
-                createCell(examHeaderRow, 5, "Max Score", headerStyle);
-                createCell(examHeaderRow, 6, "Passing Score", headerStyle);
+            Iterator<CourseExamRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                CourseExamRow current = iterator.next();
                 
-                // Get exams for this course
-                List<Exam> exams = course.getExams() != null && !course.getExams().isEmpty() ?
-                        course.getExams().stream().toList() : examService.findByCourse(course);
+                if (!Objects.equals(currentCourseId, current.getCourseId())) {
+                    if (currentCourseId != null) {
+                        // Add empty row as separator
+                        examRowNum++;
+                    }
+                    currentCourseId = current.getCourseId();
+                    courseCounter++;
+                    
+                    // Fill data row for the course
+                    Row row = coursesSheet.createRow(courseRow++);
+                    createCell(row, 0, current.getCourseId().toString(), dataStyle, coursesWidths);
+                    createCell(row, 1, current.getCourseTitle(), dataStyle, coursesWidths);
+                    createCell(row, 2, current.getCourseDescription(), dataStyle, coursesWidths);
+                    createCell(row, 3, current.getCourseDuration(), dataStyle, coursesWidths);
+                    createCell(row, 4, current.getCoursePrice() != null ? current.getCoursePrice().toString() : "",
+                            dataStyle, coursesWidths);
+                    
+                    // Create course header
+                    Row courseHeaderRow = examsSheet.createRow(examRowNum++);
+                    createCell(courseHeaderRow, 0, "Course: " + current.getCourseTitle(), headerStyle, null);
+                    
+                    // Create exam header row
+                    Row examHeaderRow = examsSheet.createRow(examRowNum++);
+                    createCell(examHeaderRow, 0, "ID", headerStyle, examsWidths);
+                    createCell(examHeaderRow, 1, "Title", headerStyle, examsWidths);
+                    createCell(examHeaderRow, 2, "Description", headerStyle, examsWidths);
+                    createCell(examHeaderRow, 3, "Date", headerStyle, examsWidths);
+                    createCell(examHeaderRow, 4, "Duration (min)", headerStyle, examsWidths);
+                    createCell(examHeaderRow, 5, "Max Score", headerStyle, examsWidths);
+                    createCell(examHeaderRow, 6, "Passing Score", headerStyle, examsWidths);
+                }
                 
-                if (exams.isEmpty()) {
+                if (current.getExamId() == null) {
                     // If no exams, add a message
-                    Row noExamsRow = examsSheet.createRow(currentRow++);
-                    createCell(noExamsRow, 0, "No exams found for this course", dataStyle);
+                    Row noExamsRow = examsSheet.createRow(examRowNum++);
+                    createCell(noExamsRow, 0, "No exams found for this course", dataStyle, null);
                 } else {
                     // Add exam data
-                    for (Exam exam : exams) {
-                        Row examRow = examsSheet.createRow(currentRow++);
-                        createCell(examRow, 0, exam.getId().toString(), dataStyle);
-                        createCell(examRow, 1, exam.getTitle(), dataStyle);
-                        createCell(examRow, 2, exam.getDescription(), dataStyle);
-                        createCell(examRow, 3, exam.getDate() != null ? 
-                                exam.getDate().format(DATE_TIME_FORMATTER) : "N/A", dataStyle);
-                        createCell(examRow, 4, String.valueOf(exam.getDuration()), dataStyle);
-                        createCell(examRow, 5, String.valueOf(exam.getMaxScore()), dataStyle);
-                        createCell(examRow, 6, String.valueOf(exam.getPassingScore()), dataStyle);
-                    }
+                    examCounter++;
+                    Row examRow = examsSheet.createRow(examRowNum++);
+                    createCell(examRow, 0, current.getExamId().toString(), dataStyle, examsWidths);
+                    createCell(examRow, 1, current.getExamTitle(), dataStyle, examsWidths);
+                    createCell(examRow, 2, current.getExamDescription(), dataStyle, examsWidths);
+                    createCell(examRow, 3, current.getExamDate() != null ? 
+                            current.getExamDate().format(DATE_TIME_FORMATTER) : "N/A", dataStyle, examsWidths);
+                    createCell(examRow, 4, String.valueOf(current.getExamDuration()), dataStyle, examsWidths);
+                    createCell(examRow, 5, String.valueOf(current.getExamMaxScore()), dataStyle, examsWidths);
+                    createCell(examRow, 6, String.valueOf(current.getExamPassingScore()), dataStyle, examsWidths);
                 }
-                
-                // Add empty row as separator
-                currentRow++;
-                courseCounter++;
             }
             
-            // Auto size columns for exams sheet
-            for (int i = 0; i < 7; i++) {
-                examsSheet.autoSizeColumn(i);
-            }
+            // Larghezze calcolate dalla lunghezza dei testi, senza la misurazione AWT di autoSizeColumn
+            coursesWidths.applyTo(coursesSheet);
+            examsWidths.applyTo(examsSheet);
             
             // Write to output stream
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             workbook.write(outputStream);
+            outputStream.flush();
             
-            log.info("Excel generation completed with {} courses", courseCounter);
-            return outputStream.toByteArray();
+            exportMetrics.recordCompleted(sample, "courses-exams", "xlsx", courseCounter + examCounter);
+            log.info("Excel generation completed with {} courses and {} exams", courseCounter, examCounter);
         } catch (Exception e) {
             log.error("Error generating Excel file: ", e);
             throw e;
+        } finally {
+            // Elimina i file temporanei delle righe già scritte
+            workbook.dispose();
+            workbook.close();
         }
     }
     
@@ -169,10 +191,37 @@ public class ExportExcelService {
         return style;
     }
     
-    private Cell createCell(Row row, int column, String value, CellStyle style) {
+    private Cell createCell(Row row, int column, String value, CellStyle style, ColumnWidths widths) {
         Cell cell = row.createCell(column);
         cell.setCellValue(value);
         cell.setCellStyle(style);
+        if (widths != null) {
+            widths.track(column, value);
+        }
         return cell;
     }
+    
+    /**
+     * Larghezza massima in caratteri per colonna, aggiornata durante la scrittura delle righe.
+     */
+    private static final class ColumnWidths {
+        private final int[] maxChars;
+        
+        ColumnWidths(int columns) {
+            this.maxChars = new int[columns];
+        }
+        
+        void track(int column, String value) {
+            if (value != null && value.length() > maxChars[column]) {
+                maxChars[column] = value.length();
+            }
+        }
+        
+        void applyTo(Sheet sheet) {
+            for (int i = 0; i < maxChars.length; i++) {
+                // Unità di 1/256 di carattere, con margine per bordi e grassetto
+                sheet.setColumnWidth(i, (Math.min(maxChars[i], MAX_COLUMN_WIDTH_CHARS) + 2) * 256);
+            }
+        }
+    }
 }
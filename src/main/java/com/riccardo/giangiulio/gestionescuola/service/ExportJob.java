@@ -0,0 +1,106 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.riccardo.giangiulio.gestionescuola.model.ExportJobStatus;
+import com.riccardo.giangiulio.gestionescuola.model.ExportJobType;
+
+/**
+ * Stato di un export eseguito in background. Aggiornato dal thread del job e letto dalle richieste di stato,
+ * per questo i campi mutabili sono volatile.
+ */
+public class ExportJob {
+
+    private final UUID id;
+    private final ExportJobType type;
+    private final Long targetId;
+    private final String requestedBy;
+    private final LocalDateTime createdAt;
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    private volatile ExportJobStatus status = ExportJobStatus.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime completedAt;
+    private volatile String error;
+    private volatile Path file;
+
+    public ExportJob(ExportJobType type, Long targetId, String requestedBy) {
+        this.id = UUID.randomUUID();
+        this.type = type;
+        this.targetId = targetId;
+        this.requestedBy = requestedBy;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public ExportJobType getType() {
+        return type;
+    }
+
+    public Long getTargetId() {
+        return targetId;
+    }
+
+    public String getRequestedBy() {
+        return requestedBy;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public ExportJobStatus getStatus() {
+        return status;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public String getFileName() {
+        return type.name().toLowerCase() + "_" + id + "." + type.getFileExtension();
+    }
+
+    void addBytesWritten(long bytes) {
+        bytesWritten.addAndGet(bytes);
+    }
+
+    void markRunning() {
+        startedAt = LocalDateTime.now();
+        status = ExportJobStatus.RUNNING;
+    }
+
+    void markCompleted(Path file) {
+        this.file = file;
+        completedAt = LocalDateTime.now();
+        status = ExportJobStatus.COMPLETED;
+    }
+
+    void markFailed(String error) {
+        this.error = error;
+        completedAt = LocalDateTime.now();
+        status = ExportJobStatus.FAILED;
+    }
+}
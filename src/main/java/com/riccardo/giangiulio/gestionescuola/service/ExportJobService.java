@@ -0,0 +1,283 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.riccardo.giangiulio.gestionescuola.config.WorkloadLimiter;
+import com.riccardo.giangiulio.gestionescuola.config.WorkloadType;
+import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.ExportJobNotFoundException;
+import com.riccardo.giangiulio.gestionescuola.exception.OverloadException.ExportQueueFullException;
+import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.ExportJobNotReadyException;
+import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidExportJobException;
+import com.riccardo.giangiulio.gestionescuola.model.ExportJobStatus;
+import com.riccardo.giangiulio.gestionescuola.model.ExportJobType;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Esegue gli export in background su un pool limitato e salva il risultato nella directory di spool.
+ * Lo stato dei job è mantenuto in memoria: i file rimasti da un'esecuzione precedente vengono eliminati all'avvio,
+ * quelli dei job terminati dopo il periodo di conservazione configurato.
+ */
+@Service
+public class ExportJobService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ExportJobService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String PART_SUFFIX = ".part";
+    
+    private final ExportCSVService exportCSVService;
+    private final ExportExcelService exportExcelService;
+    private final ExportPDFService exportPDFService;
+    private final WorkloadLimiter workloadLimiter;
+    private final Path spoolDirectory;
+    private final long retentionMinutes;
+    private final long retryAfterSeconds;
+    private final ThreadPoolExecutor executor;
+    
+    private final Map<UUID, ExportJob> jobs = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public ExportJobService(
+            ExportCSVService exportCSVService,
+            ExportExcelService exportExcelService,
+            ExportPDFService exportPDFService,
+            WorkloadLimiter workloadLimiter,
+            MeterRegistry meterRegistry,
+            @Value("${myapp.export.jobs.spool-dir:${java.io.tmpdir}/gestione-scuola-exports}") String spoolDirectory,
+            @Value("${myapp.export.jobs.threads:2}") int threads,
+            @Value("${myapp.export.jobs.queue-capacity:20}") int queueCapacity,
+            @Value("${myapp.export.jobs.retention-minutes:60}") long retentionMinutes,
+            @Value("${myapp.export.jobs.retry-after-seconds:30}") long retryAfterSeconds,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.exportCSVService = exportCSVService;
+        this.exportExcelService = exportExcelService;
+        this.exportPDFService = exportPDFService;
+        this.workloadLimiter = workloadLimiter;
+        this.spoolDirectory = Paths.get(spoolDirectory).toAbsolutePath();
+        this.retentionMinutes = retentionMinutes;
+        this.retryAfterSeconds = retryAfterSeconds;
+        
+        // Con i thread virtuali il pool resta di "threads" esecutori: il limite serve a non occupare più connessioni
+        // e più spazio di spool di quanto previsto, non a risparmiare thread
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(virtualThreads));
+        
+        Gauge.builder("gestionescuola.export.jobs.queued", executor, e -> e.getQueue().size())
+                .description("Export jobs waiting for a free thread")
+                .register(meterRegistry);
+        Gauge.builder("gestionescuola.export.jobs.running", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Export jobs currently running")
+                .register(meterRegistry);
+        
+        log.info("ExportJobService initialized with {} {} threads, queue capacity {}, spool directory {}",
+                threads, virtualThreads ? "virtual" : "platform", queueCapacity, this.spoolDirectory);
+    }
+    
+    private static ThreadFactory threadFactory(boolean virtualThreads) {
+        if (virtualThreads) {
+            return Thread.ofVirtual().name("export-job-", 1).factory();
+        }
+        return Thread.ofPlatform().name("export-job-", 1).daemon(true).factory();
+    }
+    
+    /**
+     * Crea la directory di spool ed elimina i file dei job di un'esecuzione precedente, non più raggiungibili.
+     */
+    @PostConstruct
+    public void initSpoolDirectory() throws IOException {
+        Files.createDirectories(spoolDirectory);
+        try (Stream<Path> files = Files.list(spoolDirectory)) {
+            files.filter(Files::isRegularFile).forEach(this::deleteQuietly);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    public ExportJob submit(ExportJobType type, Long targetId, String requestedBy) {
+        if (type == null) {
+            throw new InvalidExportJobException("The export type is required");
+        }
+        if (type.isTargetRequired() && targetId == null) {
+            throw new InvalidExportJobException("The export type " + type + " requires a target ID");
+        }
+        
+        ExportJob job = new ExportJob(type, targetId, requestedBy);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            log.warn("Export job queue full, rejecting {} export requested by {}", type, requestedBy);
+            throw new ExportQueueFullException(retryAfterSeconds);
+        }
+        
+        log.info("Export job {} of type {} queued by {}", job.getId(), type, requestedBy);
+        return job;
+    }
+    
+    public ExportJob findById(UUID id) {
+        log.debug("Finding export job with id: {}", id);
+        ExportJob job = jobs.get(id);
+        if (job == null) {
+            throw new ExportJobNotFoundException(id);
+        }
+        return job;
+    }
+    
+    /**
+     * Restituisce il job solo se il file è pronto per il download.
+     */
+    public ExportJob findCompletedById(UUID id) {
+        ExportJob job = findById(id);
+        if (job.getStatus() != ExportJobStatus.COMPLETED) {
+            throw new ExportJobNotReadyException(id, job.getStatus());
+        }
+        return job;
+    }
+    
+    /**
+     * Copia l'intervallo richiesto del file del job sul canale di destinazione con {@link FileChannel#transferTo}.
+     * Verso l'output stream di una risposta servlet la copia passa comunque per un buffer del JDK: viene usata
+     * solo quando il connettore non supporta sendfile.
+     */
+    public long transferResult(ExportJob job, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(job.getFile(), StandardOpenOption.READ)) {
+            long transferred = 0;
+            while (transferred < count) {
+                long written = channel.transferTo(position + transferred, count - transferred, target);
+                if (written <= 0) {
+                    break;
+                }
+                transferred += written;
+            }
+            return transferred;
+        }
+    }
+    
+    /**
+     * Elimina i job terminati da più del periodo di conservazione e i relativi file.
+     */
+    @Scheduled(fixedDelayString = "${myapp.export.jobs.cleanup-interval-ms:300000}")
+    public void purgeExpired() {
+        LocalDateTime threshold = LocalDateTime.now().minusMinutes(retentionMinutes);
+        int before = jobs.size();
+        jobs.values().removeIf(job -> {
+            if (job.getCompletedAt() == null || !job.getCompletedAt().isBefore(threshold)) {
+                return false;
+            }
+            if (job.getFile() != null) {
+                deleteQuietly(job.getFile());
+            }
+            return true;
+        });
+        int purged = before - jobs.size();
+        if (purged > 0) {
+            log.info("Purged {} expired export jobs", purged);
+        }
+    }
+    
+    private void run(ExportJob job) {
+        job.markRunning();
+        log.info("Export job {} of type {} started", job.getId(), job.getType());
+        Path partFile = spoolDirectory.resolve(job.getId() + PART_SUFFIX);
+        
+        // Il job attende un posto nella classe dei report senza timeout: la coda dei job esiste proprio per
+        // non rifiutare il lavoro quando gli export richiesti via HTTP occupano tutti i posti
+        try (WorkloadLimiter.Scope scope = workloadLimiter.enterWhenAvailable(WorkloadType.REPORTING)) {
+            try (OutputStream out = new ProgressOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(partFile), BUFFER_SIZE), job)) {
+                writeExport(job, out);
+            }
+            // Il file diventa visibile con il nome definitivo solo quando è completo
+            Path file = Files.move(partFile, spoolDirectory.resolve(job.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+            job.markCompleted(file);
+            log.info("Export job {} completed, {} bytes written", job.getId(), job.getBytesWritten());
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Export job {} failed: ", job.getId(), e);
+            deleteQuietly(partFile);
+            job.markFailed(e.getMessage());
+        }
+    }
+    
+    private void writeExport(ExportJob job, OutputStream out) throws IOException {
+        switch (job.getType()) {
+            case STUDENTS_CSV -> exportCSVService.exportStudentsToCSV(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            case TEACHERS_CSV -> exportCSVService.exportTeachersToCSV(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            case REGISTRATIONS_CSV -> exportCSVService.exportRegistrationsToCSV(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            case COURSES_EXAMS_EXCEL -> exportExcelService.writeCoursesAndExamsExcel(out);
+            case STUDENT_PROFILE_PDF -> out.write(exportPDFService.generateStudentProfilePDF(job.getTargetId()));
+            case CLASS_PROFILES_ZIP -> exportPDFService.writeClassProfilesZip(job.getTargetId(), out);
+            case SCHOOL_PROFILES_ZIP -> exportPDFService.writeSchoolProfilesZip(out);
+        }
+    }
+    
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Unable to delete export file {}: {}", file, e.getMessage());
+        }
+    }
+    
+    /**
+     * Conta i byte scritti, esposti come avanzamento del job.
+     */
+    private static final class ProgressOutputStream extends FilterOutputStream {
+        private final ExportJob job;
+        
+        ProgressOutputStream(OutputStream out, ExportJob job) {
+            super(out);
+            this.job = job;
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            job.addBytesWritten(1);
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            job.addBytesWritten(len);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Metriche comuni agli export CSV, Excel e PDF: durata, numero di righe e dimensione del file generato,
+ * etichettate per tipo di export e formato.
+ */
+@Component
+public class ExportMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public ExportMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * Registra la durata dell'export e il numero di righe (o record) prodotte.
+     */
+    public void recordCompleted(Timer.Sample sample, String type, String format, int rows) {
+        sample.stop(Timer.builder("gestionescuola.export.duration")
+            .description("Durata della generazione degli export")
+            .tag("type", type)
+            .tag("format", format)
+            .register(meterRegistry));
+        DistributionSummary.builder("gestionescuola.export.rows")
+            .description("Numero di righe esportate")
+            .tag("type", type)
+            .tag("format", format)
+            .register(meterRegistry)
+            .record(rows);
+    }
+
+    /**
+     * Registra la dimensione in byte del file generato, per gli export prodotti in memoria.
+     */
+    public void recordSize(String type, String format, int bytes) {
+        DistributionSummary.builder("gestionescuola.export.size")
+            .description("Dimensione dei file esportati")
+            .baseUnit("bytes")
+            .tag("type", type)
+            .tag("format", format)
+            .register(meterRegistry)
+            .record(bytes);
+    }
+}
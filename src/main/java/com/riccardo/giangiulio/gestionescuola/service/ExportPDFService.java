@@ -2,92 +2,331 @@ package com.riccardo.giangiulio.gestionescuola.service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import com.itextpdf.kernel.colors.ColorConstants;
-import com.itextpdf.kernel.colors.DeviceRgb;
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
-import com.itextpdf.layout.borders.SolidBorder;
 import com.itextpdf.layout.element.Cell;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.element.Table;
-import com.itextpdf.layout.properties.TextAlignment;
+import com.riccardo.giangiulio.gestionescuola.config.Workload;
+import com.riccardo.giangiulio.gestionescuola.config.WorkloadType;
 import com.riccardo.giangiulio.gestionescuola.model.Attendance;
+import com.riccardo.giangiulio.gestionescuola.model.ERole;
 import com.riccardo.giangiulio.gestionescuola.model.ExamResult;
 import com.riccardo.giangiulio.gestionescuola.model.Registration;
+import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
 @Service
+@Workload(WorkloadType.REPORTING)
 public class ExportPDFService {
     
     private static final Logger log = LoggerFactory.getLogger(ExportPDFService.class);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
     
+    // Tabelle del profilo: intestazioni e stili sono condivisi, ogni documento crea solo le proprie celle
+    private static final PdfTableTemplate<Registration> REGISTRATIONS_TABLE = new PdfTableTemplate<>(
+            (table, reg) -> table
+                    .addCell(PdfStyles.dataCell(reg.getId().toString()))
+                    .addCell(PdfStyles.dataCell(reg.getCourse().getTitle()))
+                    .addCell(PdfStyles.dataCell(reg.getSchoolClass() != null ? reg.getSchoolClass().getName() : "N/A"))
+                    .addCell(PdfStyles.dataCell(reg.getRegistrationDate() != null ? 
+                            reg.getRegistrationDate().format(DATE_TIME_FORMATTER) : "N/A"))
+                    .addCell(PdfStyles.dataCell(reg.getStatus().toString())),
+            "ID", "Course", "Class", "Registration Date", "Status");
+    
+    private static final PdfTableTemplate<ExamResult> EXAM_RESULTS_TABLE = new PdfTableTemplate<>(
+            (table, result) -> {
+                boolean isPassed = result.getScore() >= result.getExam().getPassingScore();
+                table.addCell(PdfStyles.dataCell(result.getId().toString()))
+                        .addCell(PdfStyles.dataCell(result.getExam().getTitle()))
+                        .addCell(PdfStyles.dataCell(String.format("%.1f", result.getScore()))
+                                .addStyle(isPassed ? PdfStyles.PASSED : PdfStyles.FAILED))
+                        .addCell(PdfStyles.dataCell(result.getDate() != null ? 
+                                result.getDate().format(DATE_TIME_FORMATTER) : "N/A"));
+            },
+            "ID", "Exam", "Score", "Date");
+    
+    private static final PdfTableTemplate<Attendance> ATTENDANCES_TABLE = new PdfTableTemplate<>(
+            (table, att) -> {
+                Cell lessonCell = PdfStyles.dataCell(att.getLesson().getTitle());
+                if (!att.getPresent()) {
+                    lessonCell.addStyle(PdfStyles.FAILED);
+                    lessonCell.add(new Paragraph(" (Absent)").addStyle(PdfStyles.ABSENT_NOTE));
+                }
+                table.addCell(PdfStyles.dataCell(att.getId().toString()))
+                        .addCell(lessonCell)
+                        .addCell(PdfStyles.dataCell(att.getLesson().getStartDateTime() != null ? 
+                                att.getLesson().getStartDateTime().format(DATE_FORMATTER) : "N/A"))
+                        .addCell(PdfStyles.dataCell(att.getEntryTime() != null ? 
+                                att.getEntryTime().format(DATE_TIME_FORMATTER) : "N/A"))
+                        .addCell(PdfStyles.dataCell(att.getExitTime() != null ? 
+                                att.getExitTime().format(DATE_TIME_FORMATTER) : "N/A"));
+            },
+            "ID", "Lesson", "Date", "Entry", "Exit");
+    
+    // Studenti i cui dati vengono caricati insieme, con tre query per blocco
+    static final int PROFILE_BATCH_SIZE = 200;
+    
     private final UserService userService;
     private final RegistrationService registrationService;
     private final ExamResultService examResultService;
     private final AttendanceService attendanceService;
+    private final SchoolClassService schoolClassService;
+    private final PdfRenderResources pdfRenderResources;
+    private final ExportMetrics exportMetrics;
+    
+    // Transazioni brevi in sola lettura per i blocchi degli ZIP, che non tengono una connessione durante l'invio
+    private final TransactionTemplate readOnlyTransaction;
+    
+    // Pool di rendering dei profili, dimensionato sui core; ogni richiesta ZIP tiene al più maxInFlight PDF in memoria
+    private final ExecutorService renderExecutor;
+    private final int maxInFlight;
     
     @Autowired
     public ExportPDFService(
             UserService userService,
             RegistrationService registrationService,
             ExamResultService examResultService,
-            AttendanceService attendanceService) {
+            AttendanceService attendanceService,
+            SchoolClassService schoolClassService,
+            PdfRenderResources pdfRenderResources,
+            ExportMetrics exportMetrics,
+            PlatformTransactionManager transactionManager) {
         this.userService = userService;
         this.registrationService = registrationService;
         this.examResultService = examResultService;
         this.attendanceService = attendanceService;
-        log.info("ExportPDFService initialized");
+        this.schoolClassService = schoolClassService;
+        this.pdfRenderResources = pdfRenderResources;
+        this.exportMetrics = exportMetrics;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        
+        int threads = Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.renderExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "pdf-render-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.maxInFlight = threads * 2;
+        log.info("ExportPDFService initialized with {} PDF rendering threads", threads);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        renderExecutor.shutdownNow();
     }
     
+    @Transactional(readOnly = true)
     public byte[] generateStudentProfilePDF(Long studentId) throws IOException {
         log.info("Generating PDF profile for student with ID: {}", studentId);
+        Timer.Sample sample = exportMetrics.start();
         
         // Retrieve student data
         User student = userService.findById(studentId);
-        List<Registration> registrations = registrationService.findByStudent(student);
-        List<ExamResult> examResults = examResultService.findByStudent(student);
-        List<Attendance> attendances = attendanceService.findByStudent(student);
+        StudentProfileData data = new StudentProfileData(
+                student,
+                registrationService.findByStudent(student),
+                examResultService.findByStudent(student),
+                attendanceService.findByStudent(student),
+                examResultService.findAverageScoreByStudent(student),
+                examResultService.countPassedByStudent(student),
+                attendanceService.countPresentByStudent(student),
+                attendanceService.countAbsentByStudent(student));
+        
+        byte[] pdfBytes = renderStudentProfile(data);
+        exportMetrics.recordCompleted(sample, "student-profile", "pdf", data.rowCount());
+        exportMetrics.recordSize("student-profile", "pdf", pdfBytes.length);
+        
+        log.info("Student profile PDF generation completed");
+        return pdfBytes;
+    }
+    
+    /**
+     * Scrive sullo stream uno ZIP con il profilo PDF di ogni studente della classe.
+     */
+    public void writeClassProfilesZip(Long classId, OutputStream outputStream) throws IOException {
+        List<User> students = readOnlyTransaction.execute(status -> {
+            SchoolClass schoolClass = schoolClassService.findById(classId);
+            return userService.findStudentsBySchoolClass(schoolClass);
+        });
+        log.info("Generating PDF profiles ZIP for school class with ID: {}", classId);
+        writeProfilesZip(students, "class-profiles", outputStream);
+    }
+    
+    /**
+     * Scrive sullo stream uno ZIP con il profilo PDF di tutti gli studenti della scuola.
+     */
+    public void writeSchoolProfilesZip(OutputStream outputStream) throws IOException {
+        log.info("Generating PDF profiles ZIP for all students");
+        List<User> students = readOnlyTransaction.execute(status -> userService.findByRole(ERole.ROLE_STUDENT));
+        writeProfilesZip(students, "school-profiles", outputStream);
+    }
+    
+    /**
+     * I dati vengono caricati a blocchi di {@link #PROFILE_BATCH_SIZE} studenti con query sull'insieme,
+     * i PDF sono generati in parallelo sul pool di rendering e aggiunti allo ZIP nell'ordine in cui terminano.
+     * Ogni blocco viene letto in una propria transazione in sola lettura: la connessione resta occupata solo per
+     * le query, mentre il rendering e l'invio dello ZIP avvengono fuori da ogni transazione su entità già caricate.
+     */
+    private void writeProfilesZip(List<User> students, String type, OutputStream outputStream) throws IOException {
+        Timer.Sample sample = exportMetrics.start();
+        CompletionService<ProfileEntry> completionService = new ExecutorCompletionService<>(renderExecutor);
+        Set<Future<ProfileEntry>> inFlight = new HashSet<>();
+        int written = 0;
+        int rows = 0;
         
-        // Statistics
-        Double averageScore = examResultService.findAverageScoreByStudent(student);
-        Long passedExams = examResultService.countPassedByStudent(student);
-        Long presentDays = attendanceService.countPresentByStudent(student);
-        Long absentDays = attendanceService.countAbsentByStudent(student);
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        try {
+            for (int from = 0; from < students.size(); from += PROFILE_BATCH_SIZE) {
+                List<User> batch = students.subList(from, Math.min(from + PROFILE_BATCH_SIZE, students.size()));
+                for (StudentProfileData data : readOnlyTransaction.execute(status -> loadProfileData(batch))) {
+                    // Prima di accodare un nuovo profilo, scrive quelli già pronti oltre il limite
+                    while (inFlight.size() >= maxInFlight) {
+                        rows += writeEntry(zip, completionService.take(), inFlight);
+                        written++;
+                    }
+                    inFlight.add(completionService.submit(() -> new ProfileEntry(data, renderStudentProfile(data))));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                rows += writeEntry(zip, completionService.take(), inFlight);
+                written++;
+            }
+            zip.finish();
+            zip.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("PDF profiles generation interrupted", e);
+        } catch (IOException | RuntimeException e) {
+            log.error("Error generating PDF profiles ZIP: ", e);
+            throw e;
+        } finally {
+            // In caso di errore annulla i profili ancora in coda o in generazione
+            inFlight.forEach(future -> future.cancel(true));
+        }
+        
+        exportMetrics.recordCompleted(sample, type, "zip", rows);
+        log.info("PDF profiles ZIP completed with {} students", written);
+    }
+    
+    private int writeEntry(ZipOutputStream zip, Future<ProfileEntry> future, Set<Future<ProfileEntry>> inFlight)
+            throws IOException, InterruptedException {
+        inFlight.remove(future);
+        ProfileEntry entry;
+        try {
+            entry = future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Error generating PDF profile", cause);
+        }
+        
+        zip.putNextEntry(new ZipEntry("student_profile_" + entry.data().student().getId() + ".pdf"));
+        zip.write(entry.pdf());
+        zip.closeEntry();
+        // Invia al client ogni profilo appena aggiunto
+        zip.flush();
+        return entry.data().rowCount();
+    }
+    
+    /**
+     * Carica i dati dei profili di un blocco di studenti con una query per iscrizioni, risultati e presenze.
+     * Le statistiche sono calcolate in memoria con le stesse regole delle query per singolo studente.
+     */
+    private List<StudentProfileData> loadProfileData(List<User> students) {
+        List<Long> studentIds = students.stream().map(User::getId).toList();
+        
+        Map<Long, List<Registration>> registrations = registrationService.findByStudentIds(studentIds).stream()
+                .collect(Collectors.groupingBy(registration -> registration.getStudent().getId()));
+        Map<Long, List<ExamResult>> examResults = examResultService.findByStudentIds(studentIds).stream()
+                .collect(Collectors.groupingBy(result -> result.getStudent().getId()));
+        Map<Long, List<Attendance>> attendances = attendanceService.findByStudentIds(studentIds).stream()
+                .collect(Collectors.groupingBy(attendance -> attendance.getStudent().getId()));
+        
+        List<StudentProfileData> profiles = new ArrayList<>(students.size());
+        for (User student : students) {
+            List<ExamResult> studentResults = examResults.getOrDefault(student.getId(), Collections.emptyList());
+            List<Attendance> studentAttendances = attendances.getOrDefault(student.getId(), Collections.emptyList());
+            
+            OptionalDouble average = studentResults.stream()
+                    .filter(result -> result.getScore() != null)
+                    .mapToDouble(ExamResult::getScore)
+                    .average();
+            long passedExams = studentResults.stream()
+                    .filter(result -> result.getScore() != null
+                            && result.getScore() >= result.getExam().getPassingScore())
+                    .count();
+            long presentDays = studentAttendances.stream()
+                    .filter(attendance -> Boolean.TRUE.equals(attendance.getPresent()))
+                    .count();
+            long absentDays = studentAttendances.stream()
+                    .filter(attendance -> Boolean.FALSE.equals(attendance.getPresent()))
+                    .count();
+            
+            profiles.add(new StudentProfileData(
+                    student,
+                    registrations.getOrDefault(student.getId(), Collections.emptyList()),
+                    studentResults,
+                    studentAttendances,
+                    average.isPresent() ? average.getAsDouble() : null,
+                    passedExams,
+                    presentDays,
+                    absentDays));
+        }
+        return profiles;
+    }
+    
+    private byte[] renderStudentProfile(StudentProfileData data) throws IOException {
+        User student = data.student();
         
-        // Create PDF document
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        PdfWriter writer = new PdfWriter(baos);
-        PdfDocument pdf = new PdfDocument(writer);
-        Document document = new Document(pdf);
+        Document document = pdfRenderResources.openDocument(baos);
         
         try {
-            // Title
-            Paragraph title = new Paragraph("Student Profile")
-                    .setFontSize(20)
-                    .setBold()
-                    .setTextAlignment(TextAlignment.CENTER)
-                    .setFontColor(new DeviceRgb(0, 75, 155));
-            document.add(title);
+            document.add(PdfStyles.title("Student Profile"));
             
             // Personal information
-            document.add(new Paragraph("\nPersonal Information")
-                    .setFontSize(16)
-                    .setBold()
-                    .setFontColor(new DeviceRgb(0, 75, 155)));
+            document.add(PdfStyles.section("Personal Information"));
             
             Table infoTable = new Table(2).useAllAvailableWidth();
-            
             addTableRow(infoTable, "ID:", student.getId().toString());
             addTableRow(infoTable, "First Name:", student.getFirstName());
             addTableRow(infoTable, "Last Name:", student.getLastName());
@@ -95,143 +334,56 @@ public class ExportPDFService {
             addTableRow(infoTable, "Username:", student.getUsername());
             addTableRow(infoTable, "Birth Date:", student.getBirthDate() != null ? 
                     student.getBirthDate().format(DATE_FORMATTER) : "N/A");
-            
             document.add(infoTable);
             
             // General statistics
-            document.add(new Paragraph("\nStatistics")
-                    .setFontSize(16)
-                    .setBold()
-                    .setFontColor(new DeviceRgb(0, 75, 155)));
+            document.add(PdfStyles.section("Statistics"));
             
             Table statsTable = new Table(2).useAllAvailableWidth();
-            
-            addTableRow(statsTable, "Average Score:", averageScore != null ? 
-                    String.format("%.2f", averageScore) : "N/A");
-            addTableRow(statsTable, "Passed Exams:", passedExams != null ? 
-                    passedExams.toString() : "0");
-            addTableRow(statsTable, "Present Days:", presentDays != null ? 
-                    presentDays.toString() : "0");
-            addTableRow(statsTable, "Absent Days:", absentDays != null ? 
-                    absentDays.toString() : "0");
-            
+            addTableRow(statsTable, "Average Score:", data.averageScore() != null ? 
+                    String.format("%.2f", data.averageScore()) : "N/A");
+            addTableRow(statsTable, "Passed Exams:", data.passedExams() != null ? 
+                    data.passedExams().toString() : "0");
+            addTableRow(statsTable, "Present Days:", data.presentDays() != null ? 
+                    data.presentDays().toString() : "0");
+            addTableRow(statsTable, "Absent Days:", data.absentDays() != null ? 
+                    data.absentDays().toString() : "0");
             document.add(statsTable);
             
             // Registrations
-            document.add(new Paragraph("\nRegistrations")
-                    .setFontSize(16)
-                    .setBold()
-                    .setFontColor(new DeviceRgb(0, 75, 155)));
-            
-            if (registrations.isEmpty()) {
-                document.add(new Paragraph("No registrations found.").setItalic());
+            document.add(PdfStyles.section("Registrations"));
+            if (data.registrations().isEmpty()) {
+                document.add(PdfStyles.note("No registrations found."));
             } else {
-                Table regTable = new Table(5).useAllAvailableWidth();
-                
-                // Table header for registrations
-                addTableHeader(regTable, "ID", "Course", "Class", "Registration Date", "Status");
-                
-                // Table rows for registrations
-                for (Registration reg : registrations) {
-                    regTable.addCell(new Cell().add(new Paragraph(reg.getId().toString())));
-                    regTable.addCell(new Cell().add(new Paragraph(reg.getCourse().getTitle())));
-                    regTable.addCell(new Cell().add(new Paragraph(reg.getSchoolClass() != null ? 
-                            reg.getSchoolClass().getName() : "N/A")));
-                    regTable.addCell(new Cell().add(new Paragraph(reg.getRegistrationDate() != null ? 
-                            reg.getRegistrationDate().format(DATE_TIME_FORMATTER) : "N/A")));
-                    regTable.addCell(new Cell().add(new Paragraph(reg.getStatus().toString())));
-                }
-                
-                document.add(regTable);
+                REGISTRATIONS_TABLE.render(document, data.registrations());
             }
             
             // Exam results
-            document.add(new Paragraph("\nExam Results")
-                    .setFontSize(16)
-                    .setBold()
-                    .setFontColor(new DeviceRgb(0, 75, 155)));
-            
-            if (examResults.isEmpty()) {
-                document.add(new Paragraph("No exam results found.").setItalic());
+            document.add(PdfStyles.section("Exam Results"));
+            if (data.examResults().isEmpty()) {
+                document.add(PdfStyles.note("No exam results found."));
             } else {
-                Table examTable = new Table(4).useAllAvailableWidth();
-                
-                // Table header for results
-                addTableHeader(examTable, "ID", "Exam", "Score", "Date");
-                
-                // Table rows for results
-                for (ExamResult result : examResults) {
-                    examTable.addCell(new Cell().add(new Paragraph(result.getId().toString())));
-                    examTable.addCell(new Cell().add(new Paragraph(result.getExam().getTitle())));
-                    
-                    Cell scoreCell = new Cell().add(new Paragraph(String.format("%.1f", result.getScore())));
-                    boolean isPassed = result.getScore() >= result.getExam().getPassingScore();
-                    if (isPassed) {
-                        scoreCell.setFontColor(ColorConstants.GREEN);
-                    } else {
-                        scoreCell.setFontColor(ColorConstants.RED);
-                    }
-                    examTable.addCell(scoreCell);
-                    
-                    examTable.addCell(new Cell().add(new Paragraph(result.getDate() != null ? 
-                            result.getDate().format(DATE_TIME_FORMATTER) : "N/A")));
-                }
-                
-                document.add(examTable);
+                EXAM_RESULTS_TABLE.render(document, data.examResults());
             }
             
             // Attendances (last 10)
-            document.add(new Paragraph("\nAttendance at Lessons (last 10)")
-                    .setFontSize(16)
-                    .setBold()
-                    .setFontColor(new DeviceRgb(0, 75, 155)));
-            
-            if (attendances.isEmpty()) {
-                document.add(new Paragraph("No attendance/absence registered.").setItalic());
+            document.add(PdfStyles.section("Attendance at Lessons (last 10)"));
+            if (data.attendances().isEmpty()) {
+                document.add(PdfStyles.note("No attendance/absence registered."));
             } else {
-                Table attTable = new Table(5).useAllAvailableWidth();
-                
-                // Table header for attendances
-                addTableHeader(attTable, "ID", "Lesson", "Date", "Entry", "Exit");
-                
-                // Table rows for attendances (limited to 10)
-                int limit = Math.min(10, attendances.size());
-                for (int i = 0; i < limit; i++) {
-                    Attendance att = attendances.get(i);
-                    attTable.addCell(new Cell().add(new Paragraph(att.getId().toString())));
-                    
-                    Cell lessonCell = new Cell().add(new Paragraph(att.getLesson().getTitle()));
-                    if (!att.getPresent()) {
-                        lessonCell.setFontColor(ColorConstants.RED);
-                        lessonCell.add(new Paragraph(" (Absent)").setFontColor(ColorConstants.RED).setItalic());
-                    }
-                    attTable.addCell(lessonCell);
-                    
-                    attTable.addCell(new Cell().add(new Paragraph(att.getLesson().getStartDateTime() != null ? 
-                            att.getLesson().getStartDateTime().format(DATE_FORMATTER) : "N/A")));
-                    attTable.addCell(new Cell().add(new Paragraph(att.getEntryTime() != null ? 
-                            att.getEntryTime().format(DATE_TIME_FORMATTER) : "N/A")));
-                    attTable.addCell(new Cell().add(new Paragraph(att.getExitTime() != null ? 
-                            att.getExitTime().format(DATE_TIME_FORMATTER) : "N/A")));
-                }
-                
-                document.add(attTable);
+                List<Attendance> attendances = data.attendances();
+                ATTENDANCES_TABLE.render(document, attendances.subList(0, Math.min(10, attendances.size())));
             }
             
             // Footer
-            document.add(new Paragraph("\nDocument generated on " + 
-                    java.time.LocalDateTime.now().format(DATE_TIME_FORMATTER))
-                    .setFontSize(8)
-                    .setItalic()
-                    .setTextAlignment(TextAlignment.RIGHT));
+            document.add(PdfStyles.footer("\nDocument generated on " + 
+                    java.time.LocalDateTime.now().format(DATE_TIME_FORMATTER)));
             
             // Important: close and flush to ensure the PDF is correctly written
             document.close();
-            writer.flush();
             
-            log.info("Student profile PDF generation completed");
             return baos.toByteArray();
-        } catch (IOException | IllegalArgumentException | NullPointerException e) {
+        } catch (IllegalArgumentException | NullPointerException e) {
             log.error("Error generating PDF: ", e);
             throw e;
         } catch (RuntimeException e) {
@@ -241,26 +393,25 @@ public class ExportPDFService {
     }
     
     private void addTableRow(Table table, String label, String value) {
-        Cell labelCell = new Cell()
-                .add(new Paragraph(label).setBold())
-                .setBorder(new SolidBorder(ColorConstants.LIGHT_GRAY, 0.5f))
-                .setBackgroundColor(new DeviceRgb(240, 240, 240));
-        
-        Cell valueCell = new Cell()
-                .add(new Paragraph(value))
-                .setBorder(new SolidBorder(ColorConstants.LIGHT_GRAY, 0.5f));
-        
-        table.addCell(labelCell);
-        table.addCell(valueCell);
+        table.addCell(PdfStyles.labelCell(label));
+        table.addCell(PdfStyles.valueCell(value));
     }
     
-    private void addTableHeader(Table table, String... headers) {
-        for (String header : headers) {
-            Cell cell = new Cell()
-                    .add(new Paragraph(header).setBold())
-                    .setBackgroundColor(new DeviceRgb(220, 220, 220))
-                    .setTextAlignment(TextAlignment.CENTER);
-            table.addCell(cell);
+    private record StudentProfileData(
+            User student,
+            List<Registration> registrations,
+            List<ExamResult> examResults,
+            List<Attendance> attendances,
+            Double averageScore,
+            Long passedExams,
+            Long presentDays,
+            Long absentDays) {
+        
+        int rowCount() {
+            return registrations.size() + examResults.size() + attendances.size();
         }
     }
+    
+    private record ProfileEntry(StudentProfileData data, byte[] pdf) {
+    }
 }
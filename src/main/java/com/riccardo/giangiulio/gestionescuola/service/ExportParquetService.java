@@ -0,0 +1,307 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.riccardo.giangiulio.gestionescuola.config.Workload;
+import com.riccardo.giangiulio.gestionescuola.config.WorkloadType;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.AttendanceExportRow;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.ExamResultExportRow;
+
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Export colonnare in formato Parquet per l'analisi dei dati.
+ * Le righe vengono lette con una query a cursore e scritte in row group compressi con Snappy e codifica a dizionario.
+ * I timestamp sono scritti come orari locali (senza fuso) in millisecondi.
+ */
+@Service
+@Workload(WorkloadType.REPORTING)
+public class ExportParquetService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ExportParquetService.class);
+    
+    private static final MessageType ATTENDANCE_SCHEMA = MessageTypeParser.parseMessageType("""
+        message attendance {
+          required int64 attendance_id;
+          optional boolean present;
+          optional int64 entry_time (TIMESTAMP(MILLIS,false));
+          optional int64 exit_time (TIMESTAMP(MILLIS,false));
+          required int64 student_id;
+          optional binary student_first_name (STRING);
+          optional binary student_last_name (STRING);
+          required int64 lesson_id;
+          optional binary lesson_title (STRING);
+          optional int64 lesson_start (TIMESTAMP(MILLIS,false));
+          optional int64 lesson_end (TIMESTAMP(MILLIS,false));
+          optional binary subject_name (STRING);
+          optional int64 school_class_id;
+          optional binary school_class_name (STRING);
+          optional int64 teacher_id;
+          optional binary teacher_first_name (STRING);
+          optional binary teacher_last_name (STRING);
+        }
+        """);
+    
+    private static final MessageType EXAM_RESULT_SCHEMA = MessageTypeParser.parseMessageType("""
+        message exam_result {
+          required int64 exam_result_id;
+          optional double score;
+          optional boolean passed;
+          optional int64 result_date (TIMESTAMP(MILLIS,false));
+          required int64 student_id;
+          optional binary student_first_name (STRING);
+          optional binary student_last_name (STRING);
+          required int64 exam_id;
+          optional binary exam_title (STRING);
+          optional int64 exam_date (TIMESTAMP(MILLIS,false));
+          optional double exam_max_score;
+          optional double exam_passing_score;
+          optional binary subject_name (STRING);
+          optional int64 school_class_id;
+          optional binary school_class_name (STRING);
+          optional int64 teacher_id;
+          optional binary teacher_first_name (STRING);
+          optional binary teacher_last_name (STRING);
+        }
+        """);
+    
+    private final AttendanceService attendanceService;
+    private final ExamResultService examResultService;
+    private final ExportMetrics exportMetrics;
+    
+    // Dimensione dei row group: al raggiungimento della soglia il row group corrente viene scritto sullo stream
+    @Value("${myapp.export.parquet.row-group-size-mb:16}")
+    private int rowGroupSizeMb;
+    
+    @Autowired
+    public ExportParquetService(AttendanceService attendanceService, ExamResultService examResultService,
+                                ExportMetrics exportMetrics) {
+        this.attendanceService = attendanceService;
+        this.examResultService = examResultService;
+        this.exportMetrics = exportMetrics;
+        log.info("ExportParquetService initialized");
+    }
+    
+    /**
+     * Scrive le presenze delle lezioni iniziate nell'intervallo [from, to) della classe indicata.
+     * I filtri null sono ignorati.
+     */
+    @Transactional(readOnly = true)
+    public void writeAttendancesParquet(LocalDateTime from, LocalDateTime to, Long schoolClassId,
+                                        OutputStream outputStream) throws IOException {
+        log.info("Starting export of attendances to Parquet from {} to {} for class {}", from, to, schoolClassId);
+        Timer.Sample sample = exportMetrics.start();
+        
+        try (Stream<AttendanceExportRow> rows = attendanceService.streamExportRows(from, to, schoolClassId)) {
+            int count = writeRows(outputStream, ATTENDANCE_SCHEMA, rows, (row, group) -> {
+                group.append("attendance_id", row.getId());
+                appendBoolean(group, "present", row.getPresent());
+                appendTimestamp(group, "entry_time", row.getEntryTime());
+                appendTimestamp(group, "exit_time", row.getExitTime());
+                group.append("student_id", row.getStudentId());
+                appendString(group, "student_first_name", row.getStudentFirstName());
+                appendString(group, "student_last_name", row.getStudentLastName());
+                group.append("lesson_id", row.getLessonId());
+                appendString(group, "lesson_title", row.getLessonTitle());
+                appendTimestamp(group, "lesson_start", row.getLessonStart());
+                appendTimestamp(group, "lesson_end", row.getLessonEnd());
+                appendString(group, "subject_name", row.getSubjectName());
+                appendLong(group, "school_class_id", row.getSchoolClassId());
+                appendString(group, "school_class_name", row.getSchoolClassName());
+                appendLong(group, "teacher_id", row.getTeacherId());
+                appendString(group, "teacher_first_name", row.getTeacherFirstName());
+                appendString(group, "teacher_last_name", row.getTeacherLastName());
+            });
+            
+            exportMetrics.recordCompleted(sample, "attendances", "parquet", count);
+            log.info("Exported {} attendances to Parquet", count);
+        } catch (IOException e) {
+            log.error("Error during export of attendances to Parquet", e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Scrive i risultati degli esami svolti nell'intervallo [from, to) della classe indicata.
+     * I filtri null sono ignorati.
+     */
+    @Transactional(readOnly = true)
+    public void writeExamResultsParquet(LocalDateTime from, LocalDateTime to, Long schoolClassId,
+                                        OutputStream outputStream) throws IOException {
+        log.info("Starting export of exam results to Parquet from {} to {} for class {}", from, to, schoolClassId);
+        Timer.Sample sample = exportMetrics.start();
+        
+        try (Stream<ExamResultExportRow> rows = examResultService.streamExportRows(from, to, schoolClassId)) {
+            int count = writeRows(outputStream, EXAM_RESULT_SCHEMA, rows, (row, group) -> {
+                group.append("exam_result_id", row.getId());
+                appendDouble(group, "score", row.getScore());
+                if (row.getScore() != null && row.getExamPassingScore() != null) {
+                    group.append("passed", row.getScore() >= row.getExamPassingScore());
+                }
+                appendTimestamp(group, "result_date", row.getDate());
+                group.append("student_id", row.getStudentId());
+                appendString(group, "student_first_name", row.getStudentFirstName());
+                appendString(group, "student_last_name", row.getStudentLastName());
+                group.append("exam_id", row.getExamId());
+                appendString(group, "exam_title", row.getExamTitle());
+                appendTimestamp(group, "exam_date", row.getExamDate());
+                appendDouble(group, "exam_max_score", row.getExamMaxScore());
+                appendDouble(group, "exam_passing_score", row.getExamPassingScore());
+                appendString(group, "subject_name", row.getSubjectName());
+                appendLong(group, "school_class_id", row.getSchoolClassId());
+                appendString(group, "school_class_name", row.getSchoolClassName());
+                appendLong(group, "teacher_id", row.getTeacherId());
+                appendString(group, "teacher_first_name", row.getTeacherFirstName());
+                appendString(group, "teacher_last_name", row.getTeacherLastName());
+            });
+            
+            exportMetrics.recordCompleted(sample, "exam_results", "parquet", count);
+            log.info("Exported {} exam results to Parquet", count);
+        } catch (IOException e) {
+            log.error("Error during export of exam results to Parquet", e);
+            throw e;
+        }
+    }
+    
+    private <T> int writeRows(OutputStream outputStream, MessageType schema, Stream<T> rows,
+                              RowMapper<T> mapper) throws IOException {
+        SimpleGroupFactory groupFactory = new SimpleGroupFactory(schema);
+        int count = 0;
+        try (ParquetWriter<Group> writer = ExampleParquetWriter.builder(new StreamOutputFile(outputStream))
+                .withType(schema)
+                .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+                .withCompressionCodec(CompressionCodecName.SNAPPY)
+                .withDictionaryEncoding(true)
+                .withRowGroupSize(rowGroupSizeMb * 1024L * 1024L)
+                .build()) {
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Group group = groupFactory.newGroup();
+                mapper.map(iterator.next(), group);
+                writer.write(group);
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    private static void appendString(Group group, String field, String value) {
+        if (value != null) {
+            group.append(field, value);
+        }
+    }
+    
+    private static void appendLong(Group group, String field, Long value) {
+        if (value != null) {
+            group.append(field, value);
+        }
+    }
+    
+    private static void appendDouble(Group group, String field, Double value) {
+        if (value != null) {
+            group.append(field, value);
+        }
+    }
+    
+    private static void appendBoolean(Group group, String field, Boolean value) {
+        if (value != null) {
+            group.append(field, value);
+        }
+    }
+    
+    private static void appendTimestamp(Group group, String field, LocalDateTime value) {
+        if (value != null) {
+            group.append(field, value.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+    
+    @FunctionalInterface
+    private interface RowMapper<T> {
+        void map(T row, Group group);
+    }
+    
+    /**
+     * File Parquet scritto in sequenza su uno stream, ad esempio la risposta HTTP.
+     * Il writer chiude lo stream al termine: la chiusura viene trasformata in un flush,
+     * così lo stream resta di proprietà del chiamante.
+     */
+    private static final class StreamOutputFile implements OutputFile {
+        
+        private final OutputStream target;
+        
+        private StreamOutputFile(OutputStream target) {
+            this.target = target;
+        }
+        
+        @Override
+        public PositionOutputStream create(long blockSizeHint) {
+            return createOrOverwrite(blockSizeHint);
+        }
+        
+        @Override
+        public PositionOutputStream createOrOverwrite(long blockSizeHint) {
+            return new PositionOutputStream() {
+                private long position;
+                
+                @Override
+                public long getPos() {
+                    return position;
+                }
+                
+                @Override
+                public void write(int b) throws IOException {
+                    target.write(b);
+                    position++;
+                }
+                
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    target.write(b, off, len);
+                    position += len;
+                }
+                
+                @Override
+                public void flush() throws IOException {
+                    target.flush();
+                }
+                
+                @Override
+                public void close() throws IOException {
+                    target.flush();
+                }
+            };
+        }
+        
+        @Override
+        public boolean supportsBlockSize() {
+            return false;
+        }
+        
+        @Override
+        public long defaultBlockSize() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSet;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * Esegue le letture con {@code ?fields=}: la query seleziona solo le colonne dei campi richiesti e aggiunge
+ * un LEFT JOIN solo per le associazioni da cui legge almeno un campo. Il risultato è una mappa annidata con
+ * la stessa forma del DTO, limitata ai campi richiesti.
+ */
+@Service
+public class FieldSetQueryService {
+    
+    private static final Logger log = LoggerFactory.getLogger(FieldSetQueryService.class);
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    public FieldSetQueryService() {
+        log.info("FieldSetQueryService initialized");
+    }
+    
+    @Transactional(readOnly = true)
+    public <T> List<Map<String, Object>> findAll(Class<T> entityClass, FieldSet fieldSet,
+                                                 Specification<T> specification, Sort sort) {
+        log.debug("Finding {} with fields {}", entityClass.getSimpleName(), fieldSet.getPaths());
+        List<Tuple> tuples = entityManager.createQuery(buildQuery(entityClass, fieldSet, specification, sort))
+                .getResultList();
+        
+        List<Map<String, Object>> results = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            results.add(toMap(fieldSet.getPaths(), tuple));
+        }
+        return results;
+    }
+    
+    @Transactional(readOnly = true)
+    public <T> Optional<Map<String, Object>> findOne(Class<T> entityClass, FieldSet fieldSet, Specification<T> specification) {
+        List<Map<String, Object>> results = findAll(entityClass, fieldSet, specification, Sort.unsorted());
+        return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+    }
+    
+    /**
+     * Lettura per chiave primaria, per le risorse che non hanno altri filtri espressi come {@link Specification}.
+     */
+    @Transactional(readOnly = true)
+    public <T> Optional<Map<String, Object>> findById(Class<T> entityClass, FieldSet fieldSet, Long id) {
+        return findOne(entityClass, fieldSet, (root, query, cb) -> cb.equal(root.get("id"), id));
+    }
+    
+    <T> CriteriaQuery<Tuple> buildQuery(Class<T> entityClass, FieldSet fieldSet, Specification<T> specification, Sort sort) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<T> root = query.from(entityClass);
+        
+        Map<String, From<?, ?>> joins = new HashMap<>();
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String path : fieldSet.getPaths()) {
+            int lastDot = path.lastIndexOf('.');
+            From<?, ?> from = lastDot < 0 ? root : join(root, joins, path.substring(0, lastDot));
+            selections.add(from.get(path.substring(lastDot + 1)));
+        }
+        query.multiselect(selections);
+        
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (sort != null && sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        }
+        return query;
+    }
+    
+    // Un solo join per associazione, riusato da tutti i campi che la attraversano
+    private From<?, ?> join(Root<?> root, Map<String, From<?, ?>> joins, String associationPath) {
+        From<?, ?> existing = joins.get(associationPath);
+        if (existing != null) {
+            return existing;
+        }
+        int lastDot = associationPath.lastIndexOf('.');
+        From<?, ?> parent = lastDot < 0 ? root : join(root, joins, associationPath.substring(0, lastDot));
+        From<?, ?> join = parent.join(associationPath.substring(lastDot + 1), JoinType.LEFT);
+        joins.put(associationPath, join);
+        return join;
+    }
+    
+    /**
+     * Ricostruisce la forma annidata del DTO; un'associazione il cui id è null (LEFT JOIN senza corrispondenza)
+     * diventa null invece di un oggetto con tutti i campi nulli.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toMap(List<String> paths, Tuple tuple) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (int i = 0; i < paths.size(); i++) {
+            String[] segments = paths.get(i).split("\\.");
+            Map<String, Object> current = result;
+            for (int s = 0; s < segments.length - 1 && current != null; s++) {
+                if (current.containsKey(segments[s])) {
+                    current = (Map<String, Object>) current.get(segments[s]);
+                } else {
+                    // Il primo campo di ogni associazione è il suo id
+                    Map<String, Object> nested = tuple.get(i) != null ? new LinkedHashMap<>() : null;
+                    current.put(segments[s], nested);
+                    current = nested;
+                }
+            }
+            if (current != null) {
+                current.put(segments[segments.length - 1], tuple.get(i));
+            }
+        }
+        return result;
+    }
+}
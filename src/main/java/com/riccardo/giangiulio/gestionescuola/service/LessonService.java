@@ -1,6 +1,7 @@
 package com.riccardo.giangiulio.gestionescuola.service;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +16,8 @@ import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.Clas
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.ClassroomNotAvailableException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidTeacherException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidTimeRangeException;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeEntityType;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeOperation;
 import com.riccardo.giangiulio.gestionescuola.model.Classroom;
 import com.riccardo.giangiulio.gestionescuola.model.Lesson;
 import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
@@ -22,6 +25,9 @@ import com.riccardo.giangiulio.gestionescuola.model.Subject;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 import com.riccardo.giangiulio.gestionescuola.repository.LessonRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 @Service
 public class LessonService {
 
@@ -32,6 +38,8 @@ public class LessonService {
     private final UserService userService;
     private final SchoolClassService schoolClassService;
     private final SubjectService subjectService;
+    private final ChangeLogService changeLogService;
+    private final Timer conflictCheckTimer;
 
     @Autowired
     public LessonService(
@@ -39,12 +47,18 @@ public class LessonService {
             ClassroomService classroomService,
             UserService userService,
             SchoolClassService schoolClassService,
-            SubjectService subjectService) {
+            SubjectService subjectService,
+            ChangeLogService changeLogService,
+            MeterRegistry meterRegistry) {
         this.lessonRepository = lessonRepository;
         this.classroomService = classroomService;
         this.userService = userService;
         this.schoolClassService = schoolClassService;
         this.subjectService = subjectService;
+        this.changeLogService = changeLogService;
+        this.conflictCheckTimer = Timer.builder("gestionescuola.lesson.conflict.check")
+            .description("Durata del controllo dei conflitti d'aula (query della finestra ±24h e filtro)")
+            .register(meterRegistry);
         log.info("LessonService initialized");
     }
 
@@ -62,6 +76,16 @@ public class LessonService {
             });
     }
 
+    public List<Lesson> findAllByIds(Collection<Long> ids) {
+        log.debug("Finding lessons with ids: {}", ids);
+        return lessonRepository.findByIdIn(ids);
+    }
+
+    public List<Lesson> findBySchoolClassIds(Collection<Long> schoolClassIds) {
+        log.debug("Finding lessons for school class ids: {}", schoolClassIds);
+        return lessonRepository.findBySchoolClassIdInOrderByStartDateTimeAsc(schoolClassIds);
+    }
+
     public List<Lesson> findByTeacher(User teacher) {
         log.debug("Finding lessons for teacher id: {}", teacher.getId());
         List<Lesson> lessons = lessonRepository.findByTeacher(teacher);
@@ -150,6 +174,7 @@ public class LessonService {
 
         validateLesson(lesson);
         Lesson savedLesson = lessonRepository.save(lesson);
+        changeLogService.record(ChangeEntityType.LESSON, savedLesson.getId(), ChangeOperation.CREATED, savedLesson.getVersion());
         log.info("Lesson saved successfully with ID: {}", savedLesson.getId());
         return savedLesson;
     }
@@ -195,7 +220,9 @@ public class LessonService {
 
         
         validateLesson(existingLesson);
-        Lesson updatedLesson = lessonRepository.save(existingLesson);
+        // Flush immediato: la versione registrata è quella incrementata dall'aggiornamento
+        Lesson updatedLesson = lessonRepository.saveAndFlush(existingLesson);
+        changeLogService.record(ChangeEntityType.LESSON, id, ChangeOperation.UPDATED, updatedLesson.getVersion());
         log.info("Lesson updated successfully with ID: {}", id);
         return updatedLesson;
     }
@@ -203,11 +230,13 @@ public class LessonService {
     @Transactional
     public void deleteById(Long id) {
         log.debug("Deleting lesson with id: {}", id);
-        if (!lessonRepository.existsById(id)) {
-            log.error("Attempting to delete non-existent lesson with ID: {}", id);
-            throw new LessonNotFoundException(id);
-        }
-        lessonRepository.deleteById(id);
+        Lesson lesson = lessonRepository.findById(id)
+            .orElseThrow(() -> {
+                log.error("Attempting to delete non-existent lesson with ID: {}", id);
+                return new LessonNotFoundException(id);
+            });
+        lessonRepository.delete(lesson);
+        changeLogService.record(ChangeEntityType.LESSON, id, ChangeOperation.DELETED, lesson.getVersion());
         log.info("Lesson deleted successfully with ID: {}", id);
     }
 
@@ -243,20 +272,15 @@ public class LessonService {
         // Verifica che la materia esista
         subjectService.findById(lesson.getSubject().getId());
         
-        List<Lesson> conflictingLessons = lessonRepository.findByStartDateTimeBetween(
-            lesson.getStartDateTime().minusHours(24), // Marge di sicurezza per prendere tutte le possibili sovrapposizioni 
-            lesson.getEndDateTime().plusHours(24)     // Marge di sicurezza per prendere tutte le possibili sovrapposizioni
-        );
+        boolean conflict = conflictCheckTimer.record(() -> {
+            List<Lesson> conflictingLessons = lessonRepository.findByStartDateTimeBetween(
+                lesson.getStartDateTime().minusHours(24), // Marge di sicurezza per prendere tutte le possibili sovrapposizioni 
+                lesson.getEndDateTime().plusHours(24)     // Marge di sicurezza per prendere tutte le possibili sovrapposizioni
+            );
+            return hasClassroomConflict(lesson, conflictingLessons);
+        });
         
-        // Filtra le lezioni per trovare quelle che si sovrappongono nel periodo richiesto
-        // ed esclude la lezione stessa se ha già un ID (aggiornamento)
-        boolean isNotAvailable = conflictingLessons.stream()
-            .filter(l -> l.getClassroom().getId().equals(lesson.getClassroom().getId())) // Solo per l'aula richiesta
-            .filter(l -> (l.getStartDateTime().isBefore(lesson.getEndDateTime()) && 
-                         l.getEndDateTime().isAfter(lesson.getStartDateTime()))) // Controllo sovrapposizione
-            .anyMatch(l -> !l.getId().equals(lesson.getId())); // Esclude la lezione stessa
-        
-        if (isNotAvailable) {
+        if (conflict) {
             log.warn("Classroom {} is not available in the specified time slot", lesson.getClassroom().getId());
             throw new ClassroomNotAvailableException(lesson.getClassroom().getId(), 
                 lesson.getStartDateTime(), lesson.getEndDateTime());
@@ -264,4 +288,16 @@ public class LessonService {
         
         log.debug("Lesson validation completed successfully");
     }
+
+    /**
+     * Filtra le lezioni candidate per trovare quelle che si sovrappongono nel periodo richiesto
+     * nella stessa aula, escludendo la lezione stessa se ha già un ID (aggiornamento).
+     */
+    static boolean hasClassroomConflict(Lesson lesson, List<Lesson> candidates) {
+        return candidates.stream()
+            .filter(l -> l.getClassroom().getId().equals(lesson.getClassroom().getId())) // Solo per l'aula richiesta
+            .filter(l -> (l.getStartDateTime().isBefore(lesson.getEndDateTime()) && 
+                         l.getEndDateTime().isAfter(lesson.getStartDateTime()))) // Controllo sovrapposizione
+            .anyMatch(l -> !l.getId().equals(lesson.getId())); // Esclude la lezione stessa
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+
+/**
+ * Risorse di rendering PDF caricate una sola volta all'avvio.
+ * Il font program (metriche e glifi) è in sola lettura dopo il caricamento ed è condiviso da tutti i thread;
+ * il {@link com.itextpdf.kernel.font.PdfFont} invece appartiene a un solo documento per vincolo di iText,
+ * quindi viene creato per ogni documento a partire dal programma già caricato, senza rileggere il font.
+ */
+@Component
+public class PdfRenderResources {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfRenderResources.class);
+
+    private final FontProgram fontProgram;
+
+    public PdfRenderResources() throws IOException {
+        this.fontProgram = FontProgramFactory.createFont(StandardFonts.HELVETICA);
+        log.info("PdfRenderResources initialized");
+    }
+
+    /**
+     * Apre un documento che scrive sullo stream indicato, con il font condiviso già impostato.
+     */
+    public Document openDocument(OutputStream outputStream) throws IOException {
+        PdfDocument pdf = new PdfDocument(new PdfWriter(outputStream));
+        Document document = new Document(pdf);
+        document.setFont(PdfFontFactory.createFont(fontProgram, PdfEncodings.WINANSI));
+        return document;
+    }
+}
@@ -0,0 +1,97 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.layout.Style;
+import com.itextpdf.layout.borders.Border;
+import com.itextpdf.layout.borders.SolidBorder;
+import com.itextpdf.layout.element.Cell;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.properties.TextAlignment;
+
+/**
+ * Colori, bordi e stili condivisi dai documenti PDF.
+ * Sono creati una sola volta e mai modificati dopo l'inizializzazione, quindi possono essere usati
+ * da più documenti e da più thread di rendering contemporaneamente; gli elementi che li usano
+ * (paragrafi e celle) restano invece nuovi per ogni documento.
+ */
+final class PdfStyles {
+
+    static final DeviceRgb PRIMARY_COLOR = new DeviceRgb(0, 75, 155);
+    static final DeviceRgb LABEL_BACKGROUND = new DeviceRgb(240, 240, 240);
+    static final DeviceRgb HEADER_BACKGROUND = new DeviceRgb(220, 220, 220);
+    static final Border LIGHT_BORDER = new SolidBorder(ColorConstants.LIGHT_GRAY, 0.5f);
+
+    static final Style TITLE = new Style()
+            .setFontSize(20)
+            .setBold()
+            .setTextAlignment(TextAlignment.CENTER)
+            .setFontColor(PRIMARY_COLOR);
+
+    static final Style SECTION = new Style()
+            .setFontSize(16)
+            .setBold()
+            .setFontColor(PRIMARY_COLOR);
+
+    static final Style BOLD = new Style().setBold();
+
+    static final Style NOTE = new Style().setItalic();
+
+    static final Style FOOTER = new Style()
+            .setFontSize(8)
+            .setItalic()
+            .setTextAlignment(TextAlignment.RIGHT);
+
+    static final Style PASSED = new Style().setFontColor(ColorConstants.GREEN);
+
+    static final Style FAILED = new Style().setFontColor(ColorConstants.RED);
+
+    static final Style ABSENT_NOTE = new Style()
+            .setFontColor(ColorConstants.RED)
+            .setItalic();
+
+    static final Style LABEL_CELL = new Style()
+            .setBorder(LIGHT_BORDER)
+            .setBackgroundColor(LABEL_BACKGROUND);
+
+    static final Style VALUE_CELL = new Style().setBorder(LIGHT_BORDER);
+
+    static final Style HEADER_CELL = new Style()
+            .setBackgroundColor(HEADER_BACKGROUND)
+            .setTextAlignment(TextAlignment.CENTER);
+
+    private PdfStyles() {
+    }
+
+    static Paragraph title(String text) {
+        return new Paragraph(text).addStyle(TITLE);
+    }
+
+    static Paragraph section(String text) {
+        return new Paragraph("\n" + text).addStyle(SECTION);
+    }
+
+    static Paragraph note(String text) {
+        return new Paragraph(text).addStyle(NOTE);
+    }
+
+    static Paragraph footer(String text) {
+        return new Paragraph(text).addStyle(FOOTER);
+    }
+
+    static Cell labelCell(String label) {
+        return new Cell().add(new Paragraph(label).addStyle(BOLD)).addStyle(LABEL_CELL);
+    }
+
+    static Cell valueCell(String value) {
+        return new Cell().add(new Paragraph(value)).addStyle(VALUE_CELL);
+    }
+
+    static Cell headerCell(String header) {
+        return new Cell().add(new Paragraph(header).addStyle(BOLD)).addStyle(HEADER_CELL);
+    }
+
+    static Cell dataCell(String value) {
+        return new Cell().add(new Paragraph(value));
+    }
+}
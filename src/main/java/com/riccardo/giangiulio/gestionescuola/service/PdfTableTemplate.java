@@ -0,0 +1,55 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.util.List;
+
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Table;
+
+/**
+ * Tabella PDF preconfigurata: intestazioni e scrittura delle righe sono definite una volta,
+ * ogni chiamata a {@link #render} crea solo la tabella del documento.
+ * Oltre {@link #LARGE_TABLE_THRESHOLD} righe la tabella viene aggiunta subito al documento in modalità
+ * "large table" e svuotata ogni {@link #FLUSH_ROWS} righe, così il layout delle righe già scritte non resta in memoria.
+ */
+final class PdfTableTemplate<T> {
+
+    static final int LARGE_TABLE_THRESHOLD = 100;
+    static final int FLUSH_ROWS = 50;
+
+    private final String[] headers;
+    private final RowWriter<T> rowWriter;
+
+    PdfTableTemplate(RowWriter<T> rowWriter, String... headers) {
+        this.rowWriter = rowWriter;
+        this.headers = headers.clone();
+    }
+
+    void render(Document document, List<T> rows) {
+        boolean largeTable = rows.size() > LARGE_TABLE_THRESHOLD;
+        Table table = new Table(headers.length, largeTable).useAllAvailableWidth();
+        for (String header : headers) {
+            table.addHeaderCell(PdfStyles.headerCell(header));
+        }
+
+        if (largeTable) {
+            document.add(table);
+        }
+        int count = 0;
+        for (T row : rows) {
+            rowWriter.write(table, row);
+            if (largeTable && ++count % FLUSH_ROWS == 0) {
+                table.flush();
+            }
+        }
+        if (largeTable) {
+            table.complete();
+        } else {
+            document.add(table);
+        }
+    }
+
+    @FunctionalInterface
+    interface RowWriter<T> {
+        void write(Table table, T row);
+    }
+}
@@ -1,8 +1,10 @@
 package com.riccardo.giangiulio.gestionescuola.service;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,12 +16,16 @@ import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.Regist
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.DuplicateRegistrationException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidStudentException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.SchoolClassFullException;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeEntityType;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeOperation;
 import com.riccardo.giangiulio.gestionescuola.model.Course;
 import com.riccardo.giangiulio.gestionescuola.model.Registration;
 import com.riccardo.giangiulio.gestionescuola.model.RegistrationStatus;
 import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 import com.riccardo.giangiulio.gestionescuola.repository.RegistrationRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.RegistrationExportRow;
+import com.riccardo.giangiulio.gestionescuola.service.DataVersionService.DataSet;
 
 @Service
 public class RegistrationService {
@@ -30,17 +36,23 @@ public class RegistrationService {
     private final UserService userService;
     private final SchoolClassService schoolClassService;
     private final CourseService courseService;
+    private final DataVersionService dataVersionService;
+    private final ChangeLogService changeLogService;
     
     @Autowired
     public RegistrationService(
             RegistrationRepository registrationRepository,
             UserService userService,
             SchoolClassService schoolClassService,
-            CourseService courseService) {
+            CourseService courseService,
+            DataVersionService dataVersionService,
+            ChangeLogService changeLogService) {
         this.registrationRepository = registrationRepository;
         this.userService = userService;
         this.schoolClassService = schoolClassService;
         this.courseService = courseService;
+        this.dataVersionService = dataVersionService;
+        this.changeLogService = changeLogService;
         log.info("RegistrationService initialized");
     }
     
@@ -49,6 +61,15 @@ public class RegistrationService {
         return registrationRepository.findAll();
     }
     
+    /**
+     * Restituisce le colonne esportate di tutte le iscrizioni, ordinate per id.
+     * Lo stream va consumato e chiuso all'interno di una transazione del chiamante.
+     */
+    public Stream<RegistrationExportRow> streamExportRows() {
+        log.debug("Streaming registration export rows");
+        return registrationRepository.streamExportRows();
+    }
+    
     public Registration findById(Long id) {
         log.debug("Finding registration with id: {}", id);
         return registrationRepository.findById(id)
@@ -57,7 +78,18 @@ public class RegistrationService {
                 return new RegistrationNotFoundException(id);
             });
     }
+
+    public List<Registration> findAllByIds(Collection<Long> ids) {
+        log.debug("Finding registrations with ids: {}", ids);
+        return registrationRepository.findByIdIn(ids);
+    }
+
+    public List<Registration> findActiveBySchoolClassIds(Collection<Long> schoolClassIds) {
+        log.debug("Finding active registrations for school class ids: {}", schoolClassIds);
+        return registrationRepository.findBySchoolClassIdInAndStatus(schoolClassIds, RegistrationStatus.ACTIVE);
+    }
     
+    @Transactional
     public Registration save(Registration registrationRequest) {
         log.debug("Saving registration for student {} and school class {}", 
             registrationRequest.getStudent().getId(), registrationRequest.getSchoolClass().getId());
@@ -74,6 +106,9 @@ public class RegistrationService {
         registration.setCourse(course);
         validateRegistration(registration);
         Registration savedRegistration = registrationRepository.save(registration);
+        dataVersionService.bump(DataSet.REGISTRATIONS);
+        changeLogService.record(ChangeEntityType.REGISTRATION, savedRegistration.getId(), ChangeOperation.CREATED,
+            savedRegistration.getVersion());
         log.info("Registration saved successfully with ID: {}", savedRegistration.getId());
         return savedRegistration;
     }
@@ -107,21 +142,37 @@ public class RegistrationService {
         }
         
         validateRegistration(existingRegistration);
-        Registration updatedRegistration = registrationRepository.save(existingRegistration);
+        // Flush immediato: la versione registrata è quella incrementata dall'aggiornamento
+        Registration updatedRegistration = registrationRepository.saveAndFlush(existingRegistration);
+        dataVersionService.bump(DataSet.REGISTRATIONS);
+        changeLogService.record(ChangeEntityType.REGISTRATION, id, ChangeOperation.UPDATED,
+            updatedRegistration.getVersion());
         log.info("Registration updated successfully with ID: {}", id);
         return updatedRegistration;
     }
     
+    @Transactional
     public void deleteById(Long id) {
         log.warn("Attempting to delete registration with id: {}", id);
-        if (!registrationRepository.existsById(id)) {
-            log.error("Failed to delete registration: Not found with ID: {}", id);
-            throw new RegistrationNotFoundException(id);
-        }
-        registrationRepository.deleteById(id);
+        Registration registration = registrationRepository.findById(id)
+            .orElseThrow(() -> {
+                log.error("Failed to delete registration: Not found with ID: {}", id);
+                return new RegistrationNotFoundException(id);
+            });
+        registrationRepository.delete(registration);
+        dataVersionService.bump(DataSet.REGISTRATIONS);
+        changeLogService.record(ChangeEntityType.REGISTRATION, id, ChangeOperation.DELETED, registration.getVersion());
         log.info("Registration deleted successfully with ID: {}", id);
     }
     
+    /**
+     * Iscrizioni di più studenti in un'unica query, con corso e classe già caricati.
+     */
+    public List<Registration> findByStudentIds(Collection<Long> studentIds) {
+        log.debug("Finding registrations for {} students", studentIds.size());
+        return registrationRepository.findByStudentIdInWithDetails(studentIds);
+    }
+    
     public List<Registration> findByStudent(User student) {
         log.debug("Finding registrations for student id: {}", student.getId());
         List<Registration> registrations = registrationRepository.findByStudent(student);
@@ -203,7 +254,10 @@ public class RegistrationService {
             return registration;
         }
         registration.setStatus(newStatus);
-        Registration updatedRegistration = registrationRepository.save(registration);
+        Registration updatedRegistration = registrationRepository.saveAndFlush(registration);
+        dataVersionService.bump(DataSet.REGISTRATIONS);
+        changeLogService.record(ChangeEntityType.REGISTRATION, id, ChangeOperation.UPDATED,
+            updatedRegistration.getVersion());
         log.info("Registration status changed successfully to {} for ID: {}", newStatus, id);
         
         return updatedRegistration;
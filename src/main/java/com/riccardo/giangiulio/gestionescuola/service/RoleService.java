@@ -1,5 +1,6 @@
 package com.riccardo.giangiulio.gestionescuola.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +14,7 @@ import com.riccardo.giangiulio.gestionescuola.model.Role;
 import com.riccardo.giangiulio.gestionescuola.repository.RoleRepository;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.RoleNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.DuplicateRoleException;
+import com.riccardo.giangiulio.gestionescuola.service.DataVersionService.DataSet;
 
 @Service
 public class RoleService {
@@ -20,10 +22,12 @@ public class RoleService {
     private static final Logger log = LoggerFactory.getLogger(RoleService.class);
     
     private final RoleRepository roleRepository;
+    private final DataVersionService dataVersionService;
     
     @Autowired
-    public RoleService(RoleRepository roleRepository) {
+    public RoleService(RoleRepository roleRepository, DataVersionService dataVersionService) {
         this.roleRepository = roleRepository;
+        this.dataVersionService = dataVersionService;
         log.info("RoleService initialized");
     }
     
@@ -42,6 +46,20 @@ public class RoleService {
                 return new RoleNotFoundException(id);
             });
     }
+
+    public List<Role> getRolesByIds(Collection<Long> ids) {
+        log.debug("Finding roles with ids: {}", ids);
+        return roleRepository.findAllById(ids);
+    }
+    
+    public long getRoleVersionById(Long id) {
+        log.debug("Finding version of role with id: {}", id);
+        return roleRepository.findVersionById(id)
+            .orElseThrow(() -> {
+                log.error("Role not found with id: {}", id);
+                return new RoleNotFoundException(id);
+            });
+    }
     
     public Role getRoleByName(ERole name) {
         log.debug("Finding role by name: {}", name);
@@ -62,6 +80,7 @@ public class RoleService {
         }
         
         Role savedRole = roleRepository.save(role);
+        dataVersionService.bump(DataSet.ROLES);
         log.info("Role saved successfully with ID: {}", savedRole.getId());
         return savedRole;
     }
@@ -74,6 +93,7 @@ public class RoleService {
         }
         
         roleRepository.deleteById(id);
+        dataVersionService.bump(DataSet.ROLES);
         log.info("Role deleted successfully with id: {}", id);
     }
     
@@ -90,6 +110,7 @@ public class RoleService {
             }
         }
         if (createdRoles > 0) {
+            dataVersionService.bump(DataSet.ROLES);
             log.info("Successfully created {} basic roles", createdRoles);
         } else {
             log.info("All basic roles already exist");
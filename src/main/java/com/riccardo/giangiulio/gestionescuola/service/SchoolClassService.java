@@ -1,5 +1,6 @@
 package com.riccardo.giangiulio.gestionescuola.service;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -21,6 +22,7 @@ import com.riccardo.giangiulio.gestionescuola.model.RegistrationStatus;
 import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 import com.riccardo.giangiulio.gestionescuola.repository.SchoolClassRepository;
+import com.riccardo.giangiulio.gestionescuola.service.DataVersionService.DataSet;
 
 @Service
 public class SchoolClassService {
@@ -30,15 +32,18 @@ public class SchoolClassService {
     private final SchoolClassRepository schoolClassRepository;
     private final UserService userService;
     private final CourseService courseService;
+    private final DataVersionService dataVersionService;
     
     @Autowired
     public SchoolClassService(
             SchoolClassRepository schoolClassRepository,
             UserService userService,
-            CourseService courseService) {
+            CourseService courseService,
+            DataVersionService dataVersionService) {
         this.schoolClassRepository = schoolClassRepository;
         this.userService = userService;
         this.courseService = courseService;
+        this.dataVersionService = dataVersionService;
         log.info("SchoolClassService initialized");
     }
     
@@ -57,6 +62,11 @@ public class SchoolClassService {
                 return new SchoolClassNotFoundException(id);
             });
     }
+
+    public List<SchoolClass> findAllByIds(Collection<Long> ids) {
+        log.debug("Finding school classes with ids: {}", ids);
+        return schoolClassRepository.findByIdIn(ids);
+    }
     
     @Transactional
     public SchoolClass save(SchoolClass schoolClassRequest) {
@@ -88,6 +98,7 @@ public class SchoolClassService {
 
         validateSchoolClass(schoolClass);
         SchoolClass savedClass = schoolClassRepository.save(schoolClass);
+        dataVersionService.bump(DataSet.SCHOOL_CLASSES);
         log.info("School class saved successfully with ID: {}", savedClass.getId());
         return savedClass;
     }
@@ -130,6 +141,8 @@ public class SchoolClassService {
         validateSchoolClass(existingSchoolClass);
         
         SchoolClass updatedClass = schoolClassRepository.save(existingSchoolClass);
+        dataVersionService.bump(DataSet.SCHOOL_CLASSES);
+        
         log.info("School class updated successfully with ID: {}", id);
         return updatedClass;
     }
@@ -145,6 +158,8 @@ public class SchoolClassService {
         }
         
         schoolClassRepository.deleteById(id);
+        dataVersionService.bump(DataSet.SCHOOL_CLASSES);
+        
         log.info("School class deleted successfully with ID: {}", id);
     }
     
@@ -213,6 +228,7 @@ public class SchoolClassService {
         
         schoolClass.getTeachers().add(teacher);
         SchoolClass updatedClass = schoolClassRepository.save(schoolClass);
+        dataVersionService.bump(DataSet.SCHOOL_CLASSES);
         log.info("Teacher {} added successfully to school class {}", teacherId, schoolClassId);
         return updatedClass;
     }
@@ -233,6 +249,8 @@ public class SchoolClassService {
         }
         
         SchoolClass updatedClass = schoolClassRepository.save(schoolClass);
+        dataVersionService.bump(DataSet.SCHOOL_CLASSES);
+        
         log.info("Teacher {} removed successfully from school class {}", teacherId, schoolClassId);
         return updatedClass;
     }
@@ -1,19 +1,23 @@
 package com.riccardo.giangiulio.gestionescuola.service;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.SubjectNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidTeacherException;
+import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.PreconditionFailedException;
 import com.riccardo.giangiulio.gestionescuola.model.Course;
 import com.riccardo.giangiulio.gestionescuola.model.Subject;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 import com.riccardo.giangiulio.gestionescuola.repository.SubjectRepository;
+import com.riccardo.giangiulio.gestionescuola.service.DataVersionService.DataSet;
 
 @Service
 public class SubjectService {
@@ -22,11 +26,14 @@ public class SubjectService {
     
     private final SubjectRepository subjectRepository;
     private final UserService userService;
+    private final DataVersionService dataVersionService;
     
     @Autowired
-    public SubjectService(SubjectRepository subjectRepository, UserService userService) {
+    public SubjectService(SubjectRepository subjectRepository, UserService userService,
+            DataVersionService dataVersionService) {
         this.subjectRepository = subjectRepository;
         this.userService = userService;
+        this.dataVersionService = dataVersionService;
         log.info("SubjectService initialized");
     }
     
@@ -45,6 +52,20 @@ public class SubjectService {
                 return new SubjectNotFoundException(id);
             });
     }
+
+    public List<Subject> findAllByIds(Collection<Long> ids) {
+        log.debug("Finding subjects with ids: {}", ids);
+        return subjectRepository.findByIdIn(ids);
+    }
+    
+    public long findVersionById(Long id) {
+        log.debug("Finding version of subject with id: {}", id);
+        return subjectRepository.findVersionById(id)
+            .orElseThrow(() -> {
+                log.error("Subject not found with ID: {}", id);
+                return new SubjectNotFoundException(id);
+            });
+    }
     
     @Transactional
     public Subject save(Subject subjectRequest) {
@@ -63,15 +84,30 @@ public class SubjectService {
         subject.setTeacher(teacher);
         
         Subject savedSubject = subjectRepository.save(subject);
+        dataVersionService.bump(DataSet.SUBJECTS);
         log.info("Subject saved successfully with ID: {}", savedSubject.getId());
         return savedSubject;
     }
     
     @Transactional
     public Subject update(Long id, Subject subjectRequest) {
+        return update(id, subjectRequest, null);
+    }
+    
+    /**
+     * Aggiornamento condizionale: con {@code expectedVersion} non nullo la modifica viene applicata solo se la
+     * versione letta in questa transazione coincide. Una modifica concorrente che termina prima del flush viene
+     * rilevata dalla colonna {@code @Version} e segnalata con la stessa eccezione.
+     */
+    @Transactional
+    public Subject update(Long id, Subject subjectRequest, Long expectedVersion) {
         log.info("Updating subject with id: {}", id);
         
         Subject existingSubject = findById(id);
+        if (expectedVersion != null && !expectedVersion.equals(existingSubject.getVersion())) {
+            log.warn("Failed to update subject {}: expected version {}, current version {}", id, expectedVersion, existingSubject.getVersion());
+            throw new PreconditionFailedException("subject", id);
+        }
         
         if (subjectRequest.getName() != null) {
             existingSubject.setName(subjectRequest.getName());
@@ -92,7 +128,17 @@ public class SubjectService {
             existingSubject.setTeacher(teacher);
         }
         
-        Subject updatedSubject = subjectRepository.save(existingSubject);
+        Subject updatedSubject;
+        try {
+            updatedSubject = subjectRepository.saveAndFlush(existingSubject);
+        } catch (OptimisticLockingFailureException e) {
+            if (expectedVersion == null) {
+                throw e;
+            }
+            log.warn("Failed to update subject {}: modified concurrently after version {}", id, expectedVersion);
+            throw new PreconditionFailedException("subject", id);
+        }
+        dataVersionService.bump(DataSet.SUBJECTS);
         log.info("Subject updated successfully with ID: {}", id);
         return updatedSubject;
     }
@@ -104,6 +150,7 @@ public class SubjectService {
             throw new SubjectNotFoundException(id);
         }
         subjectRepository.deleteById(id);
+        dataVersionService.bump(DataSet.SUBJECTS);
         log.info("Subject deleted successfully with ID: {}", id);
     }
     
@@ -139,6 +186,7 @@ public class SubjectService {
         
         subject.setTeacher(teacher);
         Subject updatedSubject = subjectRepository.save(subject);
+        dataVersionService.bump(DataSet.SUBJECTS);
         log.info("Teacher {} assigned successfully to subject {}", teacherId, subjectId);
         return updatedSubject;
     }
@@ -0,0 +1,37 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+/**
+ * Evento pubblicato da {@link UserService} quando un utente viene modificato (dati anagrafici, password, ruolo)
+ * o eliminato. La versione del token cambia solo per password e ruolo.
+ * Permette al livello di autenticazione di invalidare i token e i dati in memoria relativi all'utente.
+ */
+public class UserSecurityChangedEvent {
+
+    private final Long userId;
+    private final String username;
+    private final int tokenVersion;
+    private final boolean deleted;
+
+    public UserSecurityChangedEvent(Long userId, String username, int tokenVersion, boolean deleted) {
+        this.userId = userId;
+        this.username = username;
+        this.tokenVersion = tokenVersion;
+        this.deleted = deleted;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+}
@@ -1,10 +1,13 @@
 package com.riccardo.giangiulio.gestionescuola.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,6 +22,8 @@ import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 import com.riccardo.giangiulio.gestionescuola.repository.RoleRepository;
 import com.riccardo.giangiulio.gestionescuola.repository.UserRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.UserExportRow;
+import com.riccardo.giangiulio.gestionescuola.service.DataVersionService.DataSet;
 
 @Service
 public class UserService {
@@ -28,12 +33,17 @@ public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final RoleRepository roleRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataVersionService dataVersionService;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, RoleRepository roleRepository) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, RoleRepository roleRepository,
+            ApplicationEventPublisher eventPublisher, DataVersionService dataVersionService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.roleRepository = roleRepository;
+        this.eventPublisher = eventPublisher;
+        this.dataVersionService = dataVersionService;
         log.info("UserService initialized");
     }
 
@@ -58,6 +68,11 @@ public class UserService {
         return user;
     }
 
+    public List<User> findAllByIds(Collection<Long> ids) {
+        log.debug("Finding users with ids: {}", ids);
+        return userRepository.findByIdIn(ids);
+    }
+
     public User findByEmail(String email) {
         log.debug("Finding user by email: {}", email);
         return userRepository.findByEmail(email)
@@ -86,17 +101,21 @@ public class UserService {
             user.setPassword(passwordEncoder.encode(user.getPassword()));
         }
         User savedUser = userRepository.save(user);
+        dataVersionService.bump(DataSet.USERS);
         log.info("User saved successfully with ID: {}", savedUser.getId());
         return savedUser;
     }
 
     public void deleteById(Long id) {
         log.warn("Attempting to delete user with ID: {}", id);
-        if (!userRepository.existsById(id)) {
-            log.error("Failed to delete user: User not found with ID: {}", id);
-            throw new UserNotFoundException(id);
-        }
+        User existingUser = userRepository.findById(id)
+                .orElseThrow(() -> {
+                    log.error("Failed to delete user: User not found with ID: {}", id);
+                    return new UserNotFoundException(id);
+                });
         userRepository.deleteById(id);
+        dataVersionService.bump(DataSet.USERS);
+        publishSecurityChange(existingUser, true);
         log.info("User deleted successfully with ID: {}", id);
     }
 
@@ -117,11 +136,20 @@ public class UserService {
             existingUser.setEmail(user.getEmail());
         }
         
+        boolean roleChanged = false;
         if (user.getRole() != null) {
+            roleChanged = existingUser.getRole() == null || !existingUser.getRole().getId().equals(user.getRole().getId());
             existingUser.setRole(user.getRole());
+            if (roleChanged) {
+                existingUser.incrementTokenVersion();
+            }
         }
         
         User updatedUser = userRepository.save(existingUser);
+        dataVersionService.bump(DataSet.USERS);
+        
+        // Pubblicato anche senza cambio di ruolo: i dettagli dell'utente in cache devono essere aggiornati
+        publishSecurityChange(updatedUser, false);
         log.info("User updated successfully with ID: {}", id);
         return updatedUser;
     }
@@ -136,10 +164,26 @@ public class UserService {
         }
         
         existingUser.setPassword(passwordEncoder.encode(newPassword));
+        existingUser.incrementTokenVersion();
         userRepository.save(existingUser);
+        dataVersionService.bump(DataSet.USERS);
+        publishSecurityChange(existingUser, false);
         log.info("Password changed successfully for user ID: {}", userId);
     }
     
+    /**
+     * Invalida tutti i token già emessi per l'utente, incrementandone la versione.
+     */
+    public void revokeAllTokens(Long userId) {
+        log.info("Revoking all tokens for user ID: {}", userId);
+        User existingUser = findById(userId);
+        existingUser.incrementTokenVersion();
+        userRepository.save(existingUser);
+        dataVersionService.bump(DataSet.USERS);
+        publishSecurityChange(existingUser, false);
+        log.info("All tokens revoked for user ID: {}", userId);
+    }
+    
     public User assignRole(Long userId, ERole name) {
         log.info("Assigning role {} to user ID: {}", name, userId);
         User existingUser = findById(userId);
@@ -150,7 +194,10 @@ public class UserService {
                 });
         
         existingUser.setRole(role);
+        existingUser.incrementTokenVersion();
         User updatedUser = userRepository.save(existingUser);
+        dataVersionService.bump(DataSet.USERS);
+        publishSecurityChange(updatedUser, false);
         log.info("Role {} assigned successfully to user ID: {}", name, userId);
         return updatedUser;
     }
@@ -160,6 +207,15 @@ public class UserService {
         return userRepository.findByRole(role);
     }
     
+    /**
+     * Restituisce le colonne esportate degli utenti con il ruolo indicato, ordinate per id.
+     * Lo stream va consumato e chiuso all'interno di una transazione del chiamante.
+     */
+    public Stream<UserExportRow> streamExportRowsByRole(ERole role) {
+        log.debug("Streaming export rows for users with role: {}", role);
+        return userRepository.streamExportRowsByRole(role);
+    }
+    
     public List<User> findStudentsBySchoolClass(SchoolClass schoolClass) {
         log.debug("Finding students in school class: {}", schoolClass.getId());
         return userRepository.findStudentsBySchoolClass(schoolClass);
@@ -189,4 +245,12 @@ public class UserService {
         log.debug("Checking if user {} is an admin", user.getId());
         return user.getRole() != null && user.getRole().getName() == ERole.ROLE_ADMIN;
     }
+
+    /**
+     * Notifica la modifica o l'eliminazione di un utente, così che i token già emessi vengano riverificati
+     * sul database e i dettagli in cache vengano invalidati.
+     */
+    private void publishSecurityChange(User user, boolean deleted) {
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getId(), user.getUsername(), user.getTokenVersion(), deleted));
+    }
 }
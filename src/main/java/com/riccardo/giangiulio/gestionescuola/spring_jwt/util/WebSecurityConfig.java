@@ -1,6 +1,7 @@
 package com.riccardo.giangiulio.gestionescuola.spring_jwt.util;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -16,8 +17,12 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 
 import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.jwt.AuthEntryPointJwt;
 import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.jwt.AuthTokenFilter;
+import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services.BoundedPasswordEncoder;
 import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services.UserDetailsServiceImpl;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+
 /**
  * Configurazione della sicurezza dell'applicazione.
  * Definisce i provider di autenticazione, i filtri di sicurezza e le regole di accesso.
@@ -32,6 +37,26 @@ public class WebSecurityConfig {
   @Autowired
   private AuthEntryPointJwt unauthorizedHandler;
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${myapp.security.bcrypt-strength:10}")
+  private int bcryptStrength;
+
+  // 0 = un thread per core disponibile
+  @Value("${myapp.security.password-hashing.threads:0}")
+  private int passwordHashingThreads;
+
+  @Value("${myapp.security.password-hashing.queue-capacity:64}")
+  private int passwordHashingQueueCapacity;
+
+  @Value("${myapp.security.password-hashing.retry-after-seconds:2}")
+  private long passwordHashingRetryAfterSeconds;
+
+  // Le metriche rivelano volumi e latenze per endpoint: l'accesso senza token va abilitato esplicitamente
+  @Value("${myapp.metrics.prometheus.public-access:false}")
+  private boolean prometheusPublicAccess;
+
   @Bean
   public AuthTokenFilter authenticationJwtTokenFilter() {
     return new AuthTokenFilter();
@@ -43,6 +68,8 @@ public class WebSecurityConfig {
 
     authProvider.setUserDetailsService(userDetailsService);
     authProvider.setPasswordEncoder(passwordEncoder());
+    // Dopo un login riuscito ricalcola l'hash delle password salvate con un costo diverso da quello configurato
+    authProvider.setUserDetailsPasswordService(userDetailsService);
 
     return authProvider;
   }
@@ -54,10 +81,13 @@ public class WebSecurityConfig {
 
   /**
    * Configura l'algoritmo di hashing per la gestione delle password.
+   * BCrypt viene eseguito su un pool dedicato con coda limitata (vedi {@link BoundedPasswordEncoder}).
    */
   @Bean
   public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+    int threads = passwordHashingThreads > 0 ? passwordHashingThreads : Runtime.getRuntime().availableProcessors();
+    return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), threads,
+        passwordHashingQueueCapacity, passwordHashingRetryAfterSeconds, meterRegistry);
   }
 
   /**
@@ -88,7 +118,14 @@ public class WebSecurityConfig {
             "/swagger-ui.html",   // Swagger UI principale
             "/webjars/**"         // Risorse statiche di Swagger
             ).permitAll()
+
+          // Health check senza token, scraping Prometheus solo se abilitato; il resto di Actuator agli admin
+          .requestMatchers(publicActuatorEndpoints()).permitAll()
+          .requestMatchers("/actuator/**").hasRole("ADMIN")
   
+          // Invii successivi delle risposte asincrone (stream SSE): la richiesta originale è già stata autorizzata
+          .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
           // Tutte le altre richieste devono essere autenticate
           .anyRequest().authenticated();
   
@@ -100,6 +137,12 @@ public class WebSecurityConfig {
   
       return http.build();
   }
+
+  private String[] publicActuatorEndpoints() {
+    return prometheusPublicAccess
+        ? new String[] { "/actuator/health", "/actuator/prometheus" }
+        : new String[] { "/actuator/health" };
+  }
   
 
 }
@@ -11,8 +11,12 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services.TokenRevocationService;
+import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services.UserDetailsImpl;
 import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services.UserDetailsServiceImpl;
 
+import io.jsonwebtoken.Claims;
+
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -28,6 +32,12 @@ public class AuthTokenFilter extends OncePerRequestFilter {
   
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
   
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
   
@@ -40,12 +50,10 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         throws ServletException, IOException {
       try {
         String jwt = parseJwt(request);
-        if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-          String username = jwtUtils.getUserNameFromJwtToken(jwt);
-  
-          
-          // Carica i dettagli dell'utente e imposta l'autenticazione nel contesto di sicurezza
-          UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        Claims claims = jwt != null ? jwtUtils.parseJwtToken(jwt) : null;
+        UserDetails userDetails = claims != null ? resolveUserDetails(claims) : null;
+        if (userDetails != null) {
+          // Imposta l'autenticazione nel contesto di sicurezza
           UsernamePasswordAuthenticationToken authentication =
               new UsernamePasswordAuthenticationToken(  
                   userDetails,
@@ -62,6 +70,37 @@ public class AuthTokenFilter extends OncePerRequestFilter {
       // Passa la richiesta al prossimo filtro della catena
       filterChain.doFilter(request, response);
     }
+
+
+    /**
+    * Costruisce i dettagli dell'utente dai claim del token. Il database viene interrogato solo per i token
+    * senza claim di id/ruolo/versione, per il primo token di ogni utente dall'avvio e per una versione non più
+    * corrente; restituisce null se la versione
+    * del token è stata superata da un cambio di password o ruolo o se il token è stato revocato.
+    */
+    private UserDetails resolveUserDetails(Claims claims) {
+      if (tokenRevocationService.isRevoked(claims.getId())) {
+        logger.warn("Rejected revoked JWT {}", claims.getId());
+        return null;
+      }
+
+      Long userId = claims.get(JwtUtils.CLAIM_USER_ID, Long.class);
+      String role = claims.get(JwtUtils.CLAIM_ROLE, String.class);
+      Integer tokenVersion = claims.get(JwtUtils.CLAIM_TOKEN_VERSION, Integer.class);
+
+      if (userId != null && role != null && tokenVersion != null
+          && tokenVersionRegistry.isCurrent(userId, tokenVersion)) {
+        return UserDetailsImpl.fromTokenClaims(userId, claims.getSubject(), role, tokenVersion);
+      }
+
+      UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername(claims.getSubject());
+      if (tokenVersion != null && tokenVersion != userDetails.getTokenVersion()) {
+        logger.warn("Rejected JWT with stale token version for user {}", userDetails.getId());
+        return null;
+      }
+      tokenVersionRegistry.update(userDetails.getId(), userDetails.getTokenVersion());
+      return userDetails;
+    }
   
   
     /**
@@ -1,6 +1,7 @@
 package com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.jwt;
 
 import java.util.Date;
+import java.util.UUID;
 
 import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services.UserDetailsImpl;
 import org.slf4j.Logger;
@@ -19,6 +20,10 @@ import io.jsonwebtoken.*;
 public class JwtUtils {
   private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+  public static final String CLAIM_USER_ID = "id";
+  public static final String CLAIM_ROLE = "role";
+  public static final String CLAIM_TOKEN_VERSION = "ver";
+
   @Value("${myapp.jwtSecret}")
   private String jwtSecret;
 
@@ -28,13 +33,20 @@ public class JwtUtils {
 
   /**
    * Genera un token JWT basato sull'utente autenticato.
+   * Oltre allo username contiene id, ruolo e versione del token dell'utente, così che il filtro
+   * possa autenticare le richieste senza interrogare il database, e un identificativo (jti) usato per la revoca.
    */
   public String generateJwtToken(Authentication authentication) {
 
     UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+    String role = userPrincipal.getAuthorities().iterator().next().getAuthority();
 
     return Jwts.builder()
+        .setId(UUID.randomUUID().toString())
         .setSubject((userPrincipal.getUsername()))
+        .claim(CLAIM_USER_ID, userPrincipal.getId())
+        .claim(CLAIM_ROLE, role)
+        .claim(CLAIM_TOKEN_VERSION, userPrincipal.getTokenVersion())
         .setIssuedAt(new Date())
         .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
         .signWith(SignatureAlgorithm.HS512, jwtSecret)
@@ -46,9 +58,16 @@ public class JwtUtils {
   }
 
   public boolean validateJwtToken(String authToken) {
+    return parseJwtToken(authToken) != null;
+  }
+
+  /**
+   * Verifica il token e ne restituisce i claim con un solo parsing.
+   * Restituisce null se il token non è valido.
+   */
+  public Claims parseJwtToken(String authToken) {
     try {
-      Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-      return true;
+      return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken).getBody();
     } catch (SignatureException e) {
       logger.error("Invalid JWT signature: {}", e.getMessage());
     } catch (MalformedJwtException e) {
@@ -61,6 +80,6 @@ public class JwtUtils {
       logger.error("JWT claims string is empty: {}", e.getMessage());
     }
 
-    return false;
+    return null;
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.jwt;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.riccardo.giangiulio.gestionescuola.service.DataRestoredEvent;
+import com.riccardo.giangiulio.gestionescuola.service.UserSecurityChangedEvent;
+
+/**
+ * Versioni correnti dei token degli utenti, popolate alla prima verifica sul database e aggiornate
+ * a ogni modifica (password, ruolo, revoca di tutti i token, eliminazione).
+ * Un token la cui versione coincide con quella nota viene accettato dai soli claim; per un utente non ancora
+ * noto (ad esempio dopo un riavvio) o con una versione diversa {@link AuthTokenFilter} verifica la versione
+ * sul database, che viene poi memorizzata qui.
+ * Le versioni possono solo crescere: una richiesta che ha letto dal database la versione precedente non può
+ * riportarla nel registro dopo una modifica, e le modifiche vengono applicate solo dopo il commit.
+ */
+@Component
+public class TokenVersionRegistry {
+  private static final Logger logger = LoggerFactory.getLogger(TokenVersionRegistry.class);
+
+  // Versione di un utente eliminato: nessun token viene più accettato dai soli claim
+  private static final int DELETED = Integer.MIN_VALUE;
+
+  private final Map<Long, Integer> currentVersions = new ConcurrentHashMap<>();
+
+  /**
+   * Vero solo se la versione dell'utente è nota e coincide: un utente assente dal registro non è mai
+   * considerato invariato, perché la sua versione potrebbe essere cambiata prima dell'avvio.
+   */
+  public boolean isCurrent(Long userId, int tokenVersion) {
+    Integer current = currentVersions.get(userId);
+    return current != null && current == tokenVersion;
+  }
+
+  /**
+   * Memorizza la versione letta dal database, a meno che nel registro ce ne sia già una più recente
+   * o l'utente sia stato eliminato.
+   */
+  public void update(Long userId, int tokenVersion) {
+    currentVersions.merge(userId, tokenVersion,
+        (current, read) -> current == DELETED ? DELETED : Math.max(current, read));
+  }
+
+  /**
+   * Applicata dopo il commit: prima, una richiesta concorrente leggerebbe ancora la versione precedente.
+   * Senza transazione attiva l'evento viene applicato subito.
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+    if (event.isDeleted()) {
+      // Un utente eliminato non ha più una versione valida: i suoi token passano sempre dal database
+      currentVersions.put(event.getUserId(), DELETED);
+      logger.debug("User {} deleted: token version discarded", event.getUserId());
+      return;
+    }
+    update(event.getUserId(), event.getTokenVersion());
+    logger.debug("Token version of user {} set to {}", event.getUserId(), event.getTokenVersion());
+  }
+
+  @EventListener
+  public void onDataRestored(DataRestoredEvent event) {
+    clear();
+    logger.info("Database restored: token versions will be verified against the database");
+  }
+
+  // Stato equivalente a un riavvio: ogni utente viene riverificato sul database alla prima richiesta
+  void clear() {
+    currentVersions.clear();
+  }
+}
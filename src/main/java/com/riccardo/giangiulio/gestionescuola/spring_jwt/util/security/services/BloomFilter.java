@@ -0,0 +1,78 @@
+package com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter thread-safe per stringhe, usato come filtro rapido davanti all'insieme dei token revocati.
+ * Non produce falsi negativi: se {@link #mightContain(String)} restituisce false la stringa non è mai stata aggiunta.
+ */
+class BloomFilter {
+
+  private final AtomicLongArray bits;
+  private final int bitCount;
+  private final int hashCount;
+
+  /**
+   * Dimensiona il filtro per il numero di elementi atteso e la probabilità di falsi positivi desiderata.
+   */
+  BloomFilter(int expectedInsertions, double falsePositiveRate) {
+    int n = Math.max(1, expectedInsertions);
+    long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    this.bitCount = (int) Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    this.bits = new AtomicLongArray((bitCount + 63) / 64);
+  }
+
+  void put(String value) {
+    long hash = hash64(value);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashCount; i++) {
+      int index = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+      setBit(index);
+    }
+  }
+
+  boolean mightContain(String value) {
+    long hash = hash64(value);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashCount; i++) {
+      int index = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+      if ((bits.get(index >>> 6) & (1L << index)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void setBit(int index) {
+    int word = index >>> 6;
+    long mask = 1L << index;
+    long current;
+    do {
+      current = bits.get(word);
+      if ((current & mask) != 0) {
+        return;
+      }
+    } while (!bits.compareAndSet(word, current, current | mask));
+  }
+
+  /**
+   * FNV-1a a 64 bit seguito dal finalizzatore di MurmurHash3 per distribuire i bit.
+   */
+  private static long hash64(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
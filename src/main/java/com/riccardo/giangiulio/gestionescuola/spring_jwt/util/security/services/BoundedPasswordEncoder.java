@@ -0,0 +1,146 @@
+package com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.riccardo.giangiulio.gestionescuola.exception.OverloadException.PasswordHashingOverloadedException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * PasswordEncoder che esegue hashing e verifica BCrypt su un pool dedicato, dimensionato sui core disponibili.
+ * Le richieste in eccesso attendono in una coda limitata; quando anche la coda è piena vengono rifiutate
+ * subito con {@link PasswordHashingOverloadedException} (503 con Retry-After).
+ * Il pool limita la CPU usata da BCrypt, non i thread delle richieste: il thread chiamante resta bloccato finché
+ * l'hash non è calcolato, quindi durante un picco di login restano occupati al più threads + queueCapacity thread
+ * del server, e la capacità della coda va tenuta sotto il numero di thread del server.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+  private static final Logger logger = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+
+  private final PasswordEncoder delegate;
+  private final ThreadPoolExecutor executor;
+  private final long retryAfterSeconds;
+
+  private final Timer encodeTimer;
+  private final Timer matchesTimer;
+  private final Timer queueWaitTimer;
+  private final Counter rejectedCounter;
+
+  public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long retryAfterSeconds,
+      MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.retryAfterSeconds = retryAfterSeconds;
+
+    AtomicInteger threadCounter = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> {
+          Thread thread = new Thread(runnable, "password-hashing-" + threadCounter.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+
+    this.encodeTimer = Timer.builder("gestionescuola.security.password.hash")
+        .description("Durata delle operazioni BCrypt")
+        .tag("operation", "encode")
+        .register(meterRegistry);
+    this.matchesTimer = Timer.builder("gestionescuola.security.password.hash")
+        .description("Durata delle operazioni BCrypt")
+        .tag("operation", "matches")
+        .register(meterRegistry);
+    this.queueWaitTimer = Timer.builder("gestionescuola.security.password.queue.wait")
+        .description("Attesa in coda prima dell'esecuzione di BCrypt")
+        .register(meterRegistry);
+    this.rejectedCounter = Counter.builder("gestionescuola.security.password.rejected")
+        .description("Operazioni BCrypt rifiutate per coda piena")
+        .register(meterRegistry);
+    Gauge.builder("gestionescuola.security.password.queue.size", executor, e -> e.getQueue().size())
+        .description("Operazioni BCrypt in attesa")
+        .register(meterRegistry);
+    Gauge.builder("gestionescuola.security.password.active", executor, ThreadPoolExecutor::getActiveCount)
+        .description("Operazioni BCrypt in esecuzione")
+        .register(meterRegistry);
+
+    logger.info("Password hashing executor started with {} threads and queue capacity {}", threads, queueCapacity);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return submit(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return submit(() -> matchesTimer.record(() -> delegate.matches(rawPassword, encodedPassword)));
+  }
+
+  /**
+   * Nessun calcolo BCrypt: eseguito direttamente sul thread chiamante.
+   */
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  private <T> T submit(Callable<T> task) {
+    // Già su un thread del pool (chiamata annidata): eseguire direttamente evita un deadlock
+    if (Thread.currentThread().getName().startsWith("password-hashing-")) {
+      return call(task);
+    }
+
+    long enqueuedAt = System.nanoTime();
+    Future<T> future;
+    try {
+      future = executor.submit(() -> {
+        queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+        return task.call();
+      });
+    } catch (RejectedExecutionException e) {
+      rejectedCounter.increment();
+      logger.warn("Password hashing queue full, rejecting request");
+      throw new PasswordHashingOverloadedException(retryAfterSeconds);
+    }
+
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IllegalStateException("Password hashing failed", e.getCause());
+    }
+  }
+
+  private static <T> T call(Callable<T> task) {
+    try {
+      return task.call();
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException("Password hashing failed", e);
+    }
+  }
+}
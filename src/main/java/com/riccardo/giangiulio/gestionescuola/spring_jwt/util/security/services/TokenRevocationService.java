@@ -0,0 +1,115 @@
+package com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.riccardo.giangiulio.gestionescuola.model.RevokedToken;
+import com.riccardo.giangiulio.gestionescuola.repository.RevokedTokenRepository;
+
+/**
+ * Gestisce la revoca dei singoli token JWT (logout).
+ * Le revoche sono salvate su PostgreSQL e replicate in memoria in un Bloom filter, che scarta in O(1)
+ * la quasi totalità dei token validi, e in una mappa esatta jti → scadenza che elimina i falsi positivi.
+ * Le voci scadono insieme ai token e la struttura in memoria viene ricostruita all'avvio e a ogni pulizia.
+ */
+@Service
+public class TokenRevocationService implements SmartInitializingSingleton {
+  private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+  private final RevokedTokenRepository revokedTokenRepository;
+  private final int expectedRevocations;
+  private final double falsePositiveRate;
+
+  private final Map<String, Instant> revokedTokens = new ConcurrentHashMap<>();
+  private volatile BloomFilter bloomFilter;
+
+  @Autowired
+  public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+      @Value("${myapp.security.revocation.expected-revocations:100000}") int expectedRevocations,
+      @Value("${myapp.security.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+    this.revokedTokenRepository = revokedTokenRepository;
+    this.expectedRevocations = expectedRevocations;
+    this.falsePositiveRate = falsePositiveRate;
+    this.bloomFilter = new BloomFilter(expectedRevocations, falsePositiveRate);
+  }
+
+  /**
+   * Verifica se il token è stato revocato, senza accedere al database.
+   */
+  public boolean isRevoked(String tokenId) {
+    if (tokenId == null || !bloomFilter.mightContain(tokenId)) {
+      return false;
+    }
+    Instant expiresAt = revokedTokens.get(tokenId);
+    return expiresAt != null && expiresAt.isAfter(Instant.now());
+  }
+
+  @Transactional
+  public void revoke(String tokenId, Long userId, Instant expiresAt) {
+    if (tokenId == null || !expiresAt.isAfter(Instant.now()) || revokedTokens.containsKey(tokenId)) {
+      return;
+    }
+    if (!revokedTokenRepository.existsByTokenId(tokenId)) {
+      revokedTokenRepository.save(new RevokedToken(tokenId, userId, expiresAt));
+    }
+    // Il monitor protegge solo strutture in memoria (nessun I/O al suo interno), quindi non blocca il carrier
+    // di un thread virtuale: la scrittura sul database avviene prima, fuori dal blocco
+    synchronized (this) {
+      revokedTokens.put(tokenId, expiresAt);
+      bloomFilter.put(tokenId);
+    }
+    logger.info("Revoked token {} of user {}", tokenId, userId);
+  }
+
+  /**
+   * Caricamento iniziale, eseguito dopo la creazione dei singleton e quindi prima che il server web accetti
+   * richieste: con ApplicationReadyEvent un token revocato restava valido finché i runner di avvio non terminavano.
+   */
+  @Override
+  public void afterSingletonsInstantiated() {
+    loadRevokedTokens();
+  }
+
+  /**
+   * Carica in memoria le revoche ancora valide salvate sul database.
+   */
+  @Transactional(readOnly = true)
+  public void loadRevokedTokens() {
+    Instant now = Instant.now();
+    revokedTokens.clear();
+    for (RevokedToken revokedToken : revokedTokenRepository.findByExpiresAtAfter(now)) {
+      revokedTokens.put(revokedToken.getTokenId(), revokedToken.getExpiresAt());
+    }
+    rebuildBloomFilter();
+    logger.info("Loaded {} revoked tokens", revokedTokens.size());
+  }
+
+  /**
+   * Elimina le revoche dei token ormai scaduti e ricostruisce il Bloom filter, che non supporta la rimozione.
+   */
+  @Scheduled(fixedDelayString = "${myapp.security.revocation.cleanup-interval-ms:600000}")
+  @Transactional
+  public void purgeExpired() {
+    Instant now = Instant.now();
+    int deleted = revokedTokenRepository.deleteExpired(now);
+    revokedTokens.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+    rebuildBloomFilter();
+    logger.debug("Purged {} expired revoked tokens", deleted);
+  }
+
+  private synchronized void rebuildBloomFilter() {
+    BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, revokedTokens.size() * 2), falsePositiveRate);
+    revokedTokens.keySet().forEach(rebuilt::put);
+    bloomFilter = rebuilt;
+  }
+}
@@ -32,6 +32,8 @@ public class UserDetailsImpl implements UserDetails {
 
   private List<GrantedAuthority> authorities;
 
+  private int tokenVersion;
+
   public UserDetailsImpl() {
 
   }
@@ -76,6 +78,10 @@ public class UserDetailsImpl implements UserDetails {
   public LocalDate getBirthDate() {
     return birthDate;
   }
+
+  public int getTokenVersion() {
+    return tokenVersion;
+  }
   
   public void setEmail(String email) {
     this.email = email;
@@ -109,7 +115,7 @@ public class UserDetailsImpl implements UserDetails {
         new SimpleGrantedAuthority(user.getRole().getName().name())
     );
 
-    return new UserDetailsImpl(
+    UserDetailsImpl userDetails = new UserDetailsImpl(
         user.getId(),
         user.getFirstName(),
         user.getLastName(),
@@ -118,6 +124,20 @@ public class UserDetailsImpl implements UserDetails {
         user.getPassword(),
         user.getBirthDate(),
         authorities);
+    userDetails.tokenVersion = user.getTokenVersion();
+    return userDetails;
+  }
+
+  /**
+  * Crea un'istanza di UserDetailsImpl a partire dai claim di un token già verificato, senza accedere al database.
+  * Contiene solo id, username e ruolo: i dati anagrafici e la password non sono disponibili.
+  */
+  public static UserDetailsImpl fromTokenClaims(Long id, String username, String role, int tokenVersion) {
+    UserDetailsImpl userDetails = new UserDetailsImpl(
+        id, null, null, null, username, null, null,
+        List.of(new SimpleGrantedAuthority(role)));
+    userDetails.tokenVersion = tokenVersion;
+    return userDetails;
   }
 
   @Override
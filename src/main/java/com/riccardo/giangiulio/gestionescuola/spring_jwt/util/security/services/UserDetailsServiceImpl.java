@@ -1,28 +1,123 @@
 package com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services;
 
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 import com.riccardo.giangiulio.gestionescuola.repository.UserRepository;
+import com.riccardo.giangiulio.gestionescuola.service.DataRestoredEvent;
+import com.riccardo.giangiulio.gestionescuola.service.UserSecurityChangedEvent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 
+/**
+ * Carica i dettagli degli utenti per Spring Security, con una cache in memoria limitata per dimensione e durata.
+ * Le voci vengono invalidate a ogni modifica o eliminazione dell'utente ({@link UserSecurityChangedEvent}),
+ * sia subito sia dopo il commit della transazione, così che un caricamento concorrente non possa
+ * reinserire la password o il ruolo precedenti.
+ */
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
+  private static final Logger logger = LoggerFactory.getLogger(UserDetailsServiceImpl.class);
 
   @Autowired
   UserRepository userRepository;
 
+  @Autowired(required = false)
+  MeterRegistry meterRegistry;
+
+  @Value("${myapp.security.user-cache.enabled:true}")
+  private boolean cacheEnabled;
+
+  @Value("${myapp.security.user-cache.max-size:10000}")
+  private long cacheMaxSize;
+
+  @Value("${myapp.security.user-cache.ttl-seconds:300}")
+  private long cacheTtlSeconds;
+
+  private Cache<String, UserDetailsImpl> cache;
+
+  @PostConstruct
+  public void initCache() {
+    cache = Caffeine.newBuilder()
+        .maximumSize(cacheMaxSize)
+        .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+        .recordStats()
+        .build();
+
+    if (meterRegistry != null) {
+      CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+      Gauge.builder("gestionescuola.security.user.cache.hit.ratio", cache, c -> c.stats().hitRate())
+          .description("Percentuale di caricamenti dei dettagli utente serviti dalla cache")
+          .register(meterRegistry);
+    }
+    logger.info("UserDetails cache {} (max size {}, ttl {}s)", cacheEnabled ? "enabled" : "disabled",
+        cacheMaxSize, cacheTtlSeconds);
+  }
+
+  /**
+   * Nessuna transazione esplicita: in caso di hit non viene aperta alcuna connessione,
+   * mentre la query del repository (con il ruolo caricato in EAGER) ha già la propria transazione.
+   */
   @Override
-  @Transactional
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+    if (!cacheEnabled) {
+      return loadFromDatabase(username);
+    }
+    return cache.get(username, this::loadFromDatabase);
+  }
+
+  private UserDetailsImpl loadFromDatabase(String username) {
     User user = userRepository.findByUsername(username)
         .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
 
     return UserDetailsImpl.build(user);
   }
 
+  /**
+   * Salva l'hash ricalcolato al costo BCrypt configurato dopo un login riuscito.
+   * Non è un cambio di password: la versione dei token resta invariata.
+   */
+  @Override
+  public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+    User user = userRepository.findByUsername(userDetails.getUsername())
+        .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + userDetails.getUsername()));
+    user.setPassword(newPassword);
+    userRepository.save(user);
+    cache.invalidate(user.getUsername());
+    logger.info("Password hash of user {} upgraded to the configured BCrypt cost", user.getId());
+    return UserDetailsImpl.build(user);
+  }
+
+  @EventListener
+  public void evictOnChange(UserSecurityChangedEvent event) {
+    cache.invalidate(event.getUsername());
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+  public void evictAfterCommit(UserSecurityChangedEvent event) {
+    cache.invalidate(event.getUsername());
+  }
+
+  @EventListener
+  public void evictOnRestore(DataRestoredEvent event) {
+    cache.invalidateAll();
+  }
 }
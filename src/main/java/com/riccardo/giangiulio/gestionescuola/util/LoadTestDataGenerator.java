@@ -0,0 +1,244 @@
+package com.riccardo.giangiulio.gestionescuola.util;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.riccardo.giangiulio.gestionescuola.model.Attendance;
+import com.riccardo.giangiulio.gestionescuola.model.Classroom;
+import com.riccardo.giangiulio.gestionescuola.model.Course;
+import com.riccardo.giangiulio.gestionescuola.model.ERole;
+import com.riccardo.giangiulio.gestionescuola.model.Exam;
+import com.riccardo.giangiulio.gestionescuola.model.ExamResult;
+import com.riccardo.giangiulio.gestionescuola.model.Lesson;
+import com.riccardo.giangiulio.gestionescuola.model.Registration;
+import com.riccardo.giangiulio.gestionescuola.model.Role;
+import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
+import com.riccardo.giangiulio.gestionescuola.model.Subject;
+import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.AttendanceRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.ClassroomRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.CourseRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.ExamRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.ExamResultRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.LessonRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.RegistrationRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.RoleRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.SchoolClassRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.SubjectRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.UserRepository;
+
+/**
+ * Genera un dataset di dimensioni realistiche per i test di carico.
+ * Attivo solo con il profilo Spring {@code loadtest}; viene eseguito dopo {@link DataLoaderRunner}
+ * e non rigenera i dati se sono già presenti.
+ *
+ * Tutti gli utenti generati hanno password {@code password} (username {@code lt.student.N}, {@code lt.teacher.N}).
+ */
+@Component
+@Profile("loadtest")
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class LoadTestDataGenerator implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestDataGenerator.class);
+
+    public static final String STUDENT_USERNAME_PREFIX = "lt.student.";
+    public static final String TEACHER_USERNAME_PREFIX = "lt.teacher.";
+    public static final String PASSWORD = "password";
+
+    @Value("${myapp.loadtest.students:2000}")
+    private int studentCount;
+
+    @Value("${myapp.loadtest.teachers:50}")
+    private int teacherCount;
+
+    @Value("${myapp.loadtest.students-per-class:25}")
+    private int studentsPerClass;
+
+    @Value("${myapp.loadtest.lessons-per-class:40}")
+    private int lessonsPerClass;
+
+    @Value("${myapp.loadtest.exams-per-class:5}")
+    private int examsPerClass;
+
+    @Value("${myapp.loadtest.attended-lessons-per-class:10}")
+    private int attendedLessonsPerClass;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private SubjectRepository subjectRepository;
+
+    @Autowired
+    private ClassroomRepository classroomRepository;
+
+    @Autowired
+    private SchoolClassRepository schoolClassRepository;
+
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private ExamRepository examRepository;
+
+    @Autowired
+    private ExamResultRepository examResultRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Override
+    public void run(String... args) throws Exception {
+        if (userRepository.existsByUsername(STUDENT_USERNAME_PREFIX + 0)) {
+            log.info("Load test dataset already present, skipping generation");
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        log.info("Generating load test dataset: {} students, {} teachers", studentCount, teacherCount);
+
+        Role teacherRole = findOrCreateRole(ERole.ROLE_TEACHER);
+        Role studentRole = findOrCreateRole(ERole.ROLE_STUDENT);
+
+        // Un solo hash BCrypt condiviso: calcolarne uno per utente richiederebbe minuti
+        String encodedPassword = passwordEncoder.encode(PASSWORD);
+
+        List<User> teachers = new ArrayList<>();
+        for (int i = 0; i < teacherCount; i++) {
+            teachers.add(new User("Docente" + i, "Carico" + i, TEACHER_USERNAME_PREFIX + i + "@scuola.it",
+                TEACHER_USERNAME_PREFIX + i, encodedPassword, LocalDate.of(1970, 1, 1).plusDays(i * 97L), teacherRole));
+        }
+        teachers = userRepository.saveAll(teachers);
+
+        List<User> students = new ArrayList<>();
+        for (int i = 0; i < studentCount; i++) {
+            students.add(new User("Studente" + i, "Carico" + i, STUDENT_USERNAME_PREFIX + i + "@scuola.it",
+                STUDENT_USERNAME_PREFIX + i, encodedPassword, LocalDate.of(2000, 1, 1).plusDays(i % 3650), studentRole));
+        }
+        students = userRepository.saveAll(students);
+
+        List<Subject> subjects = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            subjects.add(new Subject("Materia LT " + i, "Materia generata per i test di carico", teachers.get(i % teachers.size())));
+        }
+        subjects = subjectRepository.saveAll(subjects);
+
+        int classCount = Math.max(1, (studentCount + studentsPerClass - 1) / studentsPerClass);
+
+        List<Classroom> classrooms = new ArrayList<>();
+        for (int i = 0; i < classCount; i++) {
+            classrooms.add(new Classroom("Aula LT " + i, studentsPerClass + 10));
+        }
+        classrooms = classroomRepository.saveAll(classrooms);
+
+        List<Course> courses = new ArrayList<>();
+        int courseCount = Math.max(1, classCount / 4);
+        for (int i = 0; i < courseCount; i++) {
+            Course course = new Course("Corso LT " + i, "Corso generato per i test di carico", "12 mesi", new BigDecimal("750.00"));
+            course.getSubjects().add(subjects.get(i % subjects.size()));
+            course.getSubjects().add(subjects.get((i + 1) % subjects.size()));
+            courses.add(course);
+        }
+        courses = courseRepository.saveAll(courses);
+
+        List<SchoolClass> schoolClasses = new ArrayList<>();
+        for (int i = 0; i < classCount; i++) {
+            Set<User> classTeachers = new HashSet<>();
+            classTeachers.add(teachers.get(i % teachers.size()));
+            classTeachers.add(teachers.get((i + 1) % teachers.size()));
+            schoolClasses.add(new SchoolClass("Classe LT " + i, courses.get(i % courses.size()), studentsPerClass,
+                classTeachers, new HashSet<>()));
+        }
+        schoolClasses = schoolClassRepository.saveAll(schoolClasses);
+
+        List<Registration> registrations = new ArrayList<>();
+        for (int i = 0; i < students.size(); i++) {
+            SchoolClass schoolClass = schoolClasses.get(i / studentsPerClass);
+            registrations.add(new Registration(students.get(i), schoolClass.getCourse(), schoolClass));
+        }
+        registrationRepository.saveAll(registrations);
+
+        // Lezioni ed esami nel futuro, un'aula dedicata per classe per evitare sovrapposizioni
+        LocalDateTime firstSlot = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.DAYS).withHour(8);
+        List<Lesson> lessons = new ArrayList<>();
+        List<Exam> exams = new ArrayList<>();
+        for (int c = 0; c < classCount; c++) {
+            SchoolClass schoolClass = schoolClasses.get(c);
+            User teacher = teachers.get(c % teachers.size());
+            for (int l = 0; l < lessonsPerClass; l++) {
+                LocalDateTime start = firstSlot.plusDays(l / 4).plusHours(2L * (l % 4));
+                lessons.add(new Lesson("Lezione LT " + c + "-" + l, "Lezione generata per i test di carico",
+                    start, start.plusHours(2), schoolClass, teacher, classrooms.get(c), subjects.get(l % subjects.size())));
+            }
+            for (int e = 0; e < examsPerClass; e++) {
+                exams.add(new Exam("Esame LT " + c + "-" + e, "Esame generato per i test di carico",
+                    firstSlot.plusDays(30L + e * 7L), 90, classrooms.get(c), subjects.get(e % subjects.size()),
+                    30.0, 18.0, schoolClass, teacher));
+            }
+        }
+        lessons = lessonRepository.saveAll(lessons);
+        exams = examRepository.saveAll(exams);
+
+        for (int i = 0; i < exams.size(); i++) {
+            courses.get((i / examsPerClass) % courses.size()).getExams().add(exams.get(i));
+        }
+        courseRepository.saveAll(courses);
+
+        List<ExamResult> examResults = new ArrayList<>();
+        List<Attendance> attendances = new ArrayList<>();
+        for (int i = 0; i < students.size(); i++) {
+            int classIndex = i / studentsPerClass;
+            User student = students.get(i);
+            for (int e = 0; e < examsPerClass; e++) {
+                Exam exam = exams.get(classIndex * examsPerClass + e);
+                examResults.add(new ExamResult(12.0 + (i + e) % 19, "Risultato generato",
+                    LocalDateTime.now().minusDays(1 + e), exam, student));
+            }
+            for (int l = 0; l < Math.min(attendedLessonsPerClass, lessonsPerClass); l++) {
+                Lesson lesson = lessons.get(classIndex * lessonsPerClass + l);
+                Attendance attendance = new Attendance(true, lesson.getStartDateTime(), lesson.getEndDateTime(), student, lesson);
+                attendance.setPresent((i + l) % 10 != 0);
+                attendances.add(attendance);
+            }
+        }
+        examResultRepository.saveAll(examResults);
+        attendanceRepository.saveAll(attendances);
+
+        log.info("Load test dataset generated in {} ms: {} classes, {} lessons, {} exams, {} results, {} attendances",
+            System.currentTimeMillis() - startTime, classCount, lessons.size(), exams.size(),
+            examResults.size(), attendances.size());
+    }
+
+    private Role findOrCreateRole(ERole name) {
+        return roleRepository.findByName(name).orElseGet(() -> roleRepository.save(new Role(name)));
+    }
+}
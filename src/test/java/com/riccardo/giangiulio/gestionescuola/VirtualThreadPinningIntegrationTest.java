@@ -0,0 +1,103 @@
+package com.riccardo.giangiulio.gestionescuola;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.riccardo.giangiulio.gestionescuola.service.LessonService;
+import com.riccardo.giangiulio.gestionescuola.service.SchoolClassService;
+import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services.TokenRevocationService;
+import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services.UserDetailsServiceImpl;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Verifica che il percorso di una richiesta (autenticazione, revoca dei token, query JPA) non blocchi il carrier
+ * di un thread virtuale: il pinning viene rilevato con l'evento JFR {@code jdk.VirtualThreadPinned}, e con
+ * {@code -Djdk.tracePinnedThreads=full} (impostato da surefire) lo stack dei casi trovati finisce nell'output.
+ * Non è transazionale: le query girano sui thread virtuali, ciascuno con la propria transazione.
+ */
+@SpringBootTest
+@ActiveProfiles({"test", "virtual-threads"})
+public class VirtualThreadPinningIntegrationTest {
+
+    @Autowired
+    private LessonService lessonService;
+
+    @Autowired
+    private SchoolClassService schoolClassService;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Value("${myapp.datasource.max-connections}")
+    private int maxConnections;
+
+    @Test
+    public void testRequestPathDoesNotPinCarrierThreads() throws Exception {
+        List<String> pinnedStacks = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinnedStacks.add(describe(event)));
+            recording.startAsync();
+
+            // Più thread che connessioni: i thread attendono sul pool oltre che sulle risposte del database
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> requests = new ArrayList<>();
+                for (int i = 0; i < maxConnections * 4; i++) {
+                    String username = "pinning-check-" + i;
+                    requests.add(executor.submit(() -> {
+                        for (int iteration = 0; iteration < 5; iteration++) {
+                            simulateRequest(username);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> request : requests) {
+                    request.get();
+                }
+            }
+            recording.stop();
+        }
+
+        assertTrue(pinnedStacks.isEmpty(), "Virtual threads pinned while blocking:\n" + String.join("\n", pinnedStacks));
+    }
+
+    private void simulateRequest(String username) {
+        try {
+            userDetailsService.loadUserByUsername(username);
+        } catch (UsernameNotFoundException e) {
+            // Utente inesistente: interessa solo la query eseguita
+        }
+        tokenRevocationService.isRevoked(username);
+        schoolClassService.findAll();
+        lessonService.findTodayLessons();
+    }
+
+    private static String describe(RecordedEvent event) {
+        StringBuilder description = new StringBuilder(event.getDuration().toString());
+        if (event.getStackTrace() != null) {
+            event.getStackTrace().getFrames().forEach(frame -> description.append("\n    at ")
+                    .append(frame.getMethod().getType().getName()).append('.').append(frame.getMethod().getName())
+                    .append(':').append(frame.getLineNumber()));
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,172 @@
+package com.riccardo.giangiulio.gestionescuola.config;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.riccardo.giangiulio.gestionescuola.exception.OverloadException.WorkloadSaturatedException;
+import com.riccardo.giangiulio.gestionescuola.model.ExportJobStatus;
+import com.riccardo.giangiulio.gestionescuola.model.ExportJobType;
+import com.riccardo.giangiulio.gestionescuola.service.ExportCSVService;
+import com.riccardo.giangiulio.gestionescuola.service.ExportJob;
+import com.riccardo.giangiulio.gestionescuola.service.ExportJobService;
+import com.riccardo.giangiulio.gestionescuola.service.LessonService;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = "myapp.workload.reporting.queue-timeout-ms=100")
+@ActiveProfiles("test")
+@Transactional
+public class WorkloadIsolationIntegrationTest {
+
+    @Autowired
+    private WorkloadLimiter workloadLimiter;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("interactiveDataSource")
+    private HikariDataSource interactiveDataSource;
+
+    @Autowired
+    @Qualifier("reportingDataSource")
+    private HikariDataSource reportingDataSource;
+
+    @Autowired
+    private ExportCSVService exportCSVService;
+
+    @Autowired
+    private ExportJobService exportJobService;
+
+    @Autowired
+    private LessonService lessonService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${myapp.workload.reporting.max-concurrent}")
+    private int reportingMaxConcurrent;
+
+    @Test
+    public void testConnectionsAreRoutedByWorkload() throws Exception {
+        assertSame(interactiveDataSource, dataSource.unwrap(HikariDataSource.class));
+        try (WorkloadLimiter.Scope scope = workloadLimiter.enter(WorkloadType.REPORTING)) {
+            assertEquals(WorkloadType.REPORTING, WorkloadContext.current());
+            assertSame(reportingDataSource, dataSource.unwrap(HikariDataSource.class));
+
+            // Una seconda entrata nella stessa classe non occupa un altro posto
+            try (WorkloadLimiter.Scope nested = workloadLimiter.enter(WorkloadType.REPORTING)) {
+                assertEquals(1.0, gauge("gestionescuola.workload.active", WorkloadType.REPORTING));
+            }
+        }
+        assertEquals(WorkloadType.INTERACTIVE, WorkloadContext.current());
+        assertEquals(0.0, gauge("gestionescuola.workload.active", WorkloadType.REPORTING));
+    }
+
+    @Test
+    public void testSaturatedReportingDoesNotBlockInteractive() throws Exception {
+        CountDownLatch occupied = new CountDownLatch(reportingMaxConcurrent);
+        CountDownLatch finished = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(reportingMaxConcurrent);
+        List<Future<?>> reports = new ArrayList<>();
+        try {
+            // Tutti i posti dei report occupati da operazioni lunghe
+            for (int i = 0; i < reportingMaxConcurrent; i++) {
+                reports.add(executor.submit(() -> {
+                    try (WorkloadLimiter.Scope scope = workloadLimiter.enter(WorkloadType.REPORTING)) {
+                        occupied.countDown();
+                        finished.await();
+                    }
+                    return null;
+                }));
+            }
+            assertTrue(occupied.await(10, TimeUnit.SECONDS));
+
+            double rejectedBefore = rejected(WorkloadType.REPORTING);
+            WorkloadSaturatedException exception = assertThrows(WorkloadSaturatedException.class,
+                    () -> exportCSVService.exportStudentsToCSV(new StringWriter()));
+            assertEquals(5, exception.getRetryAfterSeconds());
+            assertEquals(rejectedBefore + 1, rejected(WorkloadType.REPORTING));
+
+            // Il carico interattivo continua a usare il proprio pool
+            assertNotNull(lessonService.findAll());
+        } finally {
+            finished.countDown();
+            for (Future<?> report : reports) {
+                report.get(10, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testExportJobWaitsForSaturatedReporting() throws Exception {
+        CountDownLatch occupied = new CountDownLatch(reportingMaxConcurrent);
+        CountDownLatch finished = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(reportingMaxConcurrent);
+        List<Future<?>> reports = new ArrayList<>();
+        ExportJob job;
+        try {
+            for (int i = 0; i < reportingMaxConcurrent; i++) {
+                reports.add(executor.submit(() -> {
+                    try (WorkloadLimiter.Scope scope = workloadLimiter.enter(WorkloadType.REPORTING)) {
+                        occupied.countDown();
+                        finished.await();
+                    }
+                    return null;
+                }));
+            }
+            assertTrue(occupied.await(10, TimeUnit.SECONDS));
+
+            // Il job resta in attesa ben oltre il timeout di coda delle richieste HTTP senza fallire
+            job = exportJobService.submit(ExportJobType.STUDENTS_CSV, null, "workload_test");
+            Thread.sleep(500);
+            assertEquals(ExportJobStatus.RUNNING, job.getStatus());
+            assertEquals(0, job.getBytesWritten());
+        } finally {
+            finished.countDown();
+            for (Future<?> report : reports) {
+                report.get(10, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+        }
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (job.getStatus() != ExportJobStatus.COMPLETED && System.currentTimeMillis() < deadline) {
+            assertTrue(job.getStatus() != ExportJobStatus.FAILED, "Export job failed: " + job.getError());
+            Thread.sleep(50);
+        }
+        assertEquals(ExportJobStatus.COMPLETED, job.getStatus());
+    }
+
+    private double gauge(String name, WorkloadType workload) {
+        return meterRegistry.get(name).tag("workload", workload.tag()).gauge().value();
+    }
+
+    private double rejected(WorkloadType workload) {
+        return meterRegistry.get("gestionescuola.workload.rejected").tag("workload", workload.tag()).counter().count();
+    }
+}
@@ -0,0 +1,106 @@
+package com.riccardo.giangiulio.gestionescuola.controller;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.riccardo.giangiulio.gestionescuola.service.AttendanceChangedEvent;
+import com.riccardo.giangiulio.gestionescuola.service.AttendanceChangedEvent.Operation;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class AttendanceStreamPublisherIntegrationTest {
+
+    private static final Long LESSON_ID = 9001L;
+    private static final Long OTHER_LESSON_ID = 9002L;
+
+    @Autowired
+    private AttendanceStreamPublisher attendanceStreamPublisher;
+
+    @Test
+    public void testSnapshotThenDeltasOnlyForSubscribedLesson() throws Exception {
+        CapturingEmitter emitter = new CapturingEmitter();
+        CapturingEmitter otherEmitter = new CapturingEmitter();
+        int subscribersBefore = attendanceStreamPublisher.getSubscriberCount();
+
+        attendanceStreamPublisher.subscribe(LESSON_ID, emitter, List::of);
+        attendanceStreamPublisher.subscribe(OTHER_LESSON_ID, otherEmitter, List::of);
+        assertEquals(subscribersBefore + 2, attendanceStreamPublisher.getSubscriberCount());
+
+        String snapshot = emitter.next();
+        assertTrue(snapshot.contains("event:" + AttendanceStreamPublisher.SNAPSHOT_EVENT));
+        assertTrue(snapshot.contains("data:[]"));
+        otherEmitter.next();
+
+        attendanceStreamPublisher.onAttendanceChanged(
+                new AttendanceChangedEvent(Operation.DELETED, 42L, LESSON_ID, null, null));
+
+        String delta = emitter.next();
+        assertTrue(delta.contains("event:attendance-deleted"));
+        assertTrue(delta.contains("\"id\":42"));
+        assertNull(otherEmitter.events.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testMovedAttendanceIsDeletedFromPreviousLesson() throws Exception {
+        CapturingEmitter emitter = new CapturingEmitter();
+        attendanceStreamPublisher.subscribe(LESSON_ID, emitter, List::of);
+        emitter.next();
+
+        // La lezione di destinazione non ha iscritti: la presenza non viene nemmeno convertita in DTO
+        attendanceStreamPublisher.onAttendanceChanged(
+                new AttendanceChangedEvent(Operation.UPDATED, 7L, OTHER_LESSON_ID, LESSON_ID, null));
+
+        String delta = emitter.next();
+        assertTrue(delta.contains("event:attendance-deleted"));
+        assertTrue(delta.contains("\"id\":7"));
+    }
+
+    @Test
+    public void testFailedSnapshotDoesNotLeaveSubscriber() {
+        int subscribersBefore = attendanceStreamPublisher.getSubscriberCount();
+        assertThrows(IllegalStateException.class, () -> attendanceStreamPublisher.subscribe(LESSON_ID,
+                new CapturingEmitter(), () -> {
+                    throw new IllegalStateException("snapshot failed");
+                }));
+        assertEquals(subscribersBefore, attendanceStreamPublisher.getSubscriberCount());
+    }
+
+    /**
+     * Emitter non collegato a una risposta HTTP: registra il testo di ogni evento inviato.
+     */
+    private static class CapturingEmitter extends SseEmitter {
+
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            events.add(builder.build().stream()
+                    .map(data -> data.getData().toString())
+                    .collect(Collectors.joining()));
+        }
+
+        String next() throws InterruptedException {
+            String event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "No event received");
+            return event;
+        }
+    }
+}
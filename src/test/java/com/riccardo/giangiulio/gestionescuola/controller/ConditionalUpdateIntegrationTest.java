@@ -0,0 +1,193 @@
+package com.riccardo.giangiulio.gestionescuola.controller;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.PreconditionFailedException;
+import com.riccardo.giangiulio.gestionescuola.model.Classroom;
+import com.riccardo.giangiulio.gestionescuola.model.ERole;
+import com.riccardo.giangiulio.gestionescuola.model.Role;
+import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.UserRepository;
+import com.riccardo.giangiulio.gestionescuola.service.ClassroomService;
+import com.riccardo.giangiulio.gestionescuola.service.RoleService;
+import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.jwt.JwtUtils;
+import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services.UserDetailsImpl;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+public class ConditionalUpdateIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private ClassroomService classroomService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleService roleService;
+
+    private String adminToken;
+    private Classroom classroom;
+
+    @BeforeEach
+    public void setUp() {
+        Role adminRole;
+        try {
+            adminRole = roleService.getRoleByName(ERole.ROLE_ADMIN);
+        } catch (Exception e) {
+            adminRole = roleService.saveRole(new Role(ERole.ROLE_ADMIN));
+        }
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        User admin = userRepository.save(new User("Conditional", "Update", "conditional_update_" + timestamp + "@example.com",
+                "conditional_update_" + timestamp, "password", LocalDate.of(1990, 1, 1), adminRole));
+        UserDetailsImpl userDetails = UserDetailsImpl.build(admin);
+        adminToken = jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+        classroom = classroomService.save(new Classroom("Conditional " + timestamp, 25));
+    }
+
+    @Test
+    public void testIfNoneMatchReturnsNotModified() throws Exception {
+        String etag = currentTag();
+
+        mockMvc.perform(authorized(get("/api/classrooms/" + classroom.getId()))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void testStaleIfMatchIsRejected() throws Exception {
+        String etag = currentTag();
+
+        String updatedTag = mockMvc.perform(update("Renamed once").header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, updatedTag);
+        assertEquals(updatedTag, currentTag());
+
+        // Un secondo client con la versione letta prima dell'aggiornamento non deve sovrascriverlo
+        mockMvc.perform(update("Renamed twice").header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isPreconditionFailed());
+        assertEquals("Renamed once", classroomService.findById(classroom.getId()).getName());
+    }
+
+    @Test
+    public void testIfMatchOfAnotherResourceIsRejected() throws Exception {
+        mockMvc.perform(update("Renamed").header(HttpHeaders.IF_MATCH, "\"course-" + classroom.getId() + "-v0\""))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    public void testUpdateWithoutIfMatchIsAccepted() throws Exception {
+        mockMvc.perform(update("Renamed"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+        assertEquals("Renamed", classroomService.findById(classroom.getId()).getName());
+    }
+
+    @Test
+    public void testVersionIsComparedInsideUpdate() {
+        long staleVersion = classroom.getVersion() - 1;
+
+        assertThrows(PreconditionFailedException.class, () ->
+                classroomService.update(classroom.getId(), new Classroom("Renamed", 25), staleVersion));
+    }
+
+    @Test
+    public void testEachEncodingHasItsOwnTag() throws Exception {
+        String jsonTag = currentTag();
+        String cborTag = binaryTag(MediaType.APPLICATION_CBOR, new ObjectMapper(new CBORFactory()));
+        String smileTag = binaryTag(MediaType.parseMediaType("application/x-jackson-smile"),
+                new ObjectMapper(new SmileFactory()));
+
+        // ETag forti: byte diversi non possono avere lo stesso ETag
+        assertNotEquals(jsonTag, cborTag);
+        assertNotEquals(jsonTag, smileTag);
+        assertNotEquals(cborTag, smileTag);
+        assertTrue(cborTag.endsWith("+cbor\""));
+
+        // L'ETag del JSON non rende valida una copia CBOR, mentre quello del CBOR sì
+        mockMvc.perform(authorized(get("/api/classrooms/" + classroom.getId()))
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, jsonTag))
+                .andExpect(status().isOk());
+        mockMvc.perform(authorized(get("/api/classrooms/" + classroom.getId()))
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, cborTag))
+                .andExpect(status().isNotModified());
+
+        // Un client che legge in CBOR può aggiornare con If-Match
+        mockMvc.perform(update("Renamed from CBOR").header(HttpHeaders.IF_MATCH, cborTag))
+                .andExpect(status().isOk());
+        assertEquals("Renamed from CBOR", classroomService.findById(classroom.getId()).getName());
+    }
+
+    private String binaryTag(MediaType mediaType, ObjectMapper decoder) throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(authorized(get("/api/classrooms/" + classroom.getId())).accept(mediaType))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, mediaType.toString()))
+                .andReturn().getResponse();
+
+        JsonNode body = decoder.readTree(response.getContentAsByteArray());
+        assertEquals(classroom.getId().longValue(), body.get("id").asLong());
+        assertEquals(classroom.getName(), body.get("name").asText());
+
+        String etag = response.getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        return etag;
+    }
+
+    private String currentTag() throws Exception {
+        String etag = mockMvc.perform(authorized(get("/api/classrooms/" + classroom.getId())))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        return etag;
+    }
+
+    private MockHttpServletRequestBuilder update(String name) {
+        return authorized(put("/api/classrooms/" + classroom.getId()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"" + name + "\"}");
+    }
+
+    private MockHttpServletRequestBuilder authorized(MockHttpServletRequestBuilder request) {
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken);
+    }
+}
@@ -0,0 +1,103 @@
+package com.riccardo.giangiulio.gestionescuola.controller;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.riccardo.giangiulio.gestionescuola.model.ERole;
+import com.riccardo.giangiulio.gestionescuola.model.Role;
+import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.UserRepository;
+import com.riccardo.giangiulio.gestionescuola.service.RoleService;
+import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.jwt.JwtUtils;
+import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services.UserDetailsImpl;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+public class ExportCSVControllerIntegrationTest {
+
+    private static final String REGISTRATIONS_CSV = "/api/export/registrations/csv";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleService roleService;
+
+    private String adminToken;
+
+    @BeforeEach
+    public void setUp() {
+        Role adminRole;
+        try {
+            adminRole = roleService.getRoleByName(ERole.ROLE_ADMIN);
+        } catch (Exception e) {
+            adminRole = roleService.saveRole(new Role(ERole.ROLE_ADMIN));
+        }
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        User admin = userRepository.save(new User("Export", "Cache", "export_cache_" + timestamp + "@example.com",
+                "export_cache_" + timestamp, "password", LocalDate.of(1990, 1, 1), adminRole));
+        UserDetailsImpl userDetails = UserDetailsImpl.build(admin);
+        adminToken = jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+    }
+
+    @Test
+    public void testUnchangedExportReturnsNotModified() throws Exception {
+        MvcResult first = mockMvc.perform(get(REGISTRATIONS_CSV)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertTrue(etag.startsWith("W/"));
+
+        mockMvc.perform(get(REGISTRATIONS_CSV)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void testOtherVersionIsSentInFull() throws Exception {
+        mockMvc.perform(get(REGISTRATIONS_CSV)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken)
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"registrations-0-0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().exists(HttpHeaders.CONTENT_LENGTH));
+    }
+
+    @Test
+    public void testGzipIsSentWhenAccepted() throws Exception {
+        mockMvc.perform(get(REGISTRATIONS_CSV)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+    }
+}
@@ -0,0 +1,160 @@
+package com.riccardo.giangiulio.gestionescuola.controller;
+
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.riccardo.giangiulio.gestionescuola.model.ERole;
+import com.riccardo.giangiulio.gestionescuola.model.ExportJobStatus;
+import com.riccardo.giangiulio.gestionescuola.model.ExportJobType;
+import com.riccardo.giangiulio.gestionescuola.model.Role;
+import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.UserRepository;
+import com.riccardo.giangiulio.gestionescuola.service.ExportJob;
+import com.riccardo.giangiulio.gestionescuola.service.ExportJobService;
+import com.riccardo.giangiulio.gestionescuola.service.RoleService;
+import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.jwt.JwtUtils;
+import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services.UserDetailsImpl;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+public class ExportJobControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private ExportJobService exportJobService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleService roleService;
+
+    private String adminToken;
+    private ExportJob job;
+    private byte[] content;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Role adminRole;
+        try {
+            adminRole = roleService.getRoleByName(ERole.ROLE_ADMIN);
+        } catch (Exception e) {
+            adminRole = roleService.saveRole(new Role(ERole.ROLE_ADMIN));
+        }
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        User admin = userRepository.save(new User("Export", "Job", "export_job_" + timestamp + "@example.com",
+                "export_job_" + timestamp, "password", LocalDate.of(1990, 1, 1), adminRole));
+        UserDetailsImpl userDetails = UserDetailsImpl.build(admin);
+        adminToken = jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+
+        job = exportJobService.submit(ExportJobType.COURSES_EXAMS_EXCEL, null, admin.getUsername());
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (job.getStatus() != ExportJobStatus.COMPLETED && System.currentTimeMillis() < deadline) {
+            assertTrue(job.getStatus() != ExportJobStatus.FAILED, "Export job failed");
+            Thread.sleep(50);
+        }
+        assertEquals(ExportJobStatus.COMPLETED, job.getStatus());
+        content = Files.readAllBytes(job.getFile());
+        assertTrue(content.length > 20);
+    }
+
+    @Test
+    public void testFullDownload() throws Exception {
+        MvcResult result = mockMvc.perform(download())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, content.length))
+                .andReturn();
+
+        assertArrayEquals(content, result.getResponse().getContentAsByteArray());
+    }
+
+    @Test
+    public void testSingleRangeReturnsPartialContent() throws Exception {
+        MvcResult result = mockMvc.perform(download().header(HttpHeaders.RANGE, "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-19/" + content.length))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andReturn();
+
+        assertArrayEquals(Arrays.copyOfRange(content, 10, 20), result.getResponse().getContentAsByteArray());
+    }
+
+    @Test
+    public void testSuffixRangeReturnsLastBytes() throws Exception {
+        MvcResult result = mockMvc.perform(download().header(HttpHeaders.RANGE, "bytes=-5"))
+                .andExpect(status().isPartialContent())
+                .andReturn();
+
+        assertArrayEquals(Arrays.copyOfRange(content, content.length - 5, content.length),
+                result.getResponse().getContentAsByteArray());
+    }
+
+    @Test
+    public void testRangeBeyondEndIsNotSatisfiable() throws Exception {
+        mockMvc.perform(download().header(HttpHeaders.RANGE, "bytes=" + content.length + "-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + content.length));
+    }
+
+    @Test
+    public void testMultipleRangesFallBackToFullContent() throws Exception {
+        MvcResult result = mockMvc.perform(download().header(HttpHeaders.RANGE, "bytes=0-4,10-14"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andReturn();
+
+        assertArrayEquals(content, result.getResponse().getContentAsByteArray());
+    }
+
+    @Test
+    public void testRangeIsDelegatedToSendfileWhenSupported() throws Exception {
+        MvcResult result = mockMvc.perform(download()
+                        .header(HttpHeaders.RANGE, "bytes=10-19")
+                        .requestAttr(ExportJobController.SENDFILE_SUPPORT, Boolean.TRUE))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andReturn();
+
+        // Il corpo viene scritto dal connettore dopo la fine della richiesta, non dal controller
+        assertEquals(0, result.getResponse().getContentAsByteArray().length);
+        assertEquals(job.getFile().toAbsolutePath().toString(),
+                result.getRequest().getAttribute(ExportJobController.SENDFILE_FILENAME));
+        assertEquals(10L, result.getRequest().getAttribute(ExportJobController.SENDFILE_START));
+        assertEquals(20L, result.getRequest().getAttribute(ExportJobController.SENDFILE_END));
+    }
+
+    private MockHttpServletRequestBuilder download() {
+        return get("/api/export/jobs/" + job.getId() + "/download")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken);
+    }
+}
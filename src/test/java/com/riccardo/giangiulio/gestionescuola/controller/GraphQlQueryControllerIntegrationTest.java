@@ -0,0 +1,284 @@
+package com.riccardo.giangiulio.gestionescuola.controller;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.graphql.test.tester.ExecutionGraphQlServiceTester;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.riccardo.giangiulio.gestionescuola.model.Attendance;
+import com.riccardo.giangiulio.gestionescuola.model.Classroom;
+import com.riccardo.giangiulio.gestionescuola.model.Course;
+import com.riccardo.giangiulio.gestionescuola.model.ERole;
+import com.riccardo.giangiulio.gestionescuola.model.Exam;
+import com.riccardo.giangiulio.gestionescuola.model.ExamResult;
+import com.riccardo.giangiulio.gestionescuola.model.Lesson;
+import com.riccardo.giangiulio.gestionescuola.model.Registration;
+import com.riccardo.giangiulio.gestionescuola.model.Role;
+import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
+import com.riccardo.giangiulio.gestionescuola.model.Subject;
+import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.AttendanceRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.ClassroomRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.CourseRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.ExamRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.ExamResultRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.LessonRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.RegistrationRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.SchoolClassRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.SubjectRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.UserRepository;
+import com.riccardo.giangiulio.gestionescuola.service.RoleService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class GraphQlQueryControllerIntegrationTest {
+
+    // Pagina di una classe: ogni livello contiene entità diverse per ogni classe
+    private static final String CLASS_PAGE = """
+            query ($ids: [ID!]!) {
+              schoolClasses(ids: $ids) {
+                name
+                course { title subjects { name teacher { lastName } } }
+                teachers { lastName role }
+                students { lastName }
+                lessons {
+                  title
+                  teacher { lastName role }
+                  classroom { name }
+                  subject { name teacher { lastName } }
+                  attendances { present student { lastName } }
+                }
+                exams { title results { score student { lastName } } }
+              }
+            }
+            """;
+
+    @Autowired
+    private ExecutionGraphQlService graphQlService;
+
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SubjectRepository subjectRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ClassroomRepository classroomRepository;
+
+    @Autowired
+    private SchoolClassRepository schoolClassRepository;
+
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private ExamRepository examRepository;
+
+    @Autowired
+    private ExamResultRepository examResultRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private GraphQlTester graphQlTester;
+    private Role teacherRole;
+    private Role studentRole;
+    private List<Long> schoolClassIds;
+
+    @BeforeEach
+    public void setUp() {
+        graphQlTester = ExecutionGraphQlServiceTester.create(graphQlService);
+        teacherRole = findOrCreateRole(ERole.ROLE_TEACHER);
+        studentRole = findOrCreateRole(ERole.ROLE_STUDENT);
+
+        schoolClassIds = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            schoolClassIds.add(createSchoolClass(i).getId());
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testQueryCountDoesNotDependOnResultSize() {
+        long smallPage = countStatements(schoolClassIds.subList(0, 2));
+        long largePage = countStatements(schoolClassIds);
+
+        // Una query per campo e livello al massimo, indipendentemente dal numero di classi, lezioni ed esami
+        assertEquals(smallPage, largePage);
+        assertTrue(largePage <= 12, "Statements executed: " + largePage);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testResultsAreGroupedByParent() {
+        graphQlTester.document(CLASS_PAGE)
+                .variable("ids", List.of(schoolClassIds.get(1)))
+                .execute()
+                .path("schoolClasses[0].teachers").entityList(Object.class).hasSize(2)
+                .path("schoolClasses[0].students").entityList(Object.class).hasSize(3)
+                .path("schoolClasses[0].lessons").entityList(Object.class).hasSize(3)
+                .path("schoolClasses[0].lessons[0].attendances").entityList(Object.class).hasSize(3)
+                .path("schoolClasses[0].exams[0].results").entityList(Object.class).hasSize(3)
+                .path("schoolClasses[0].teachers[0].role").entity(String.class).isEqualTo("ROLE_TEACHER");
+    }
+
+    @Test
+    @WithMockUser(roles = "STUDENT")
+    public void testFieldsFollowRestAuthorizationRules() {
+        // Uno studente legge la classe e i suoi esami, ma non l'elenco dei docenti (riservato agli admin)
+        String document = "query ($id: ID!) { schoolClass(id: $id) { name exams { title } teachers { lastName } } }";
+        graphQlTester.document(document)
+                .variable("id", schoolClassIds.get(0))
+                .execute()
+                .errors()
+                .expect(error -> error.getErrorType() == ErrorType.FORBIDDEN
+                        && error.getPath().equals("schoolClass.teachers"))
+                .verify()
+                .path("schoolClass.name").entity(String.class).isEqualTo("Class GraphQL 0")
+                .path("schoolClass.exams").entityList(Object.class).hasSize(2);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testTooDeepQueryIsRejectedBeforeExecution() {
+        Statistics statistics = statistics();
+        String tooDeep = "query ($id: ID!) { schoolClass(id: $id) { lessons { schoolClass { lessons { schoolClass "
+                + "{ lessons { schoolClass { lessons { title } } } } } } } } }";
+
+        graphQlTester.document(tooDeep)
+                .variable("id", schoolClassIds.get(0))
+                .execute()
+                .errors()
+                .satisfy(errors -> assertFalse(errors.isEmpty()));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    private long countStatements(List<Long> ids) {
+        Statistics statistics = statistics();
+        graphQlTester.document(CLASS_PAGE)
+                .variable("ids", ids)
+                .execute()
+                .path("schoolClasses").entityList(Object.class).hasSize(ids.size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Statistics statistics() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private SchoolClass createSchoolClass(int index) {
+        String suffix = index + "_" + System.nanoTime();
+        User firstTeacher = createUser("Teacher" + index, "teacher_a_" + suffix, teacherRole);
+        User secondTeacher = createUser("Teacher" + index, "teacher_b_" + suffix, teacherRole);
+        List<User> students = List.of(
+                createUser("Student" + index, "student_a_" + suffix, studentRole),
+                createUser("Student" + index, "student_b_" + suffix, studentRole),
+                createUser("Student" + index, "student_c_" + suffix, studentRole));
+
+        Subject subject = subjectRepository.save(new Subject("Subject GraphQL " + suffix, "Description", firstTeacher));
+        Course course = new Course();
+        course.setTitle("Course GraphQL " + suffix);
+        course.setDescription("Description");
+        course.setDuration("12 months");
+        course.setPrice(BigDecimal.valueOf(1000.0));
+        course.setSubjects(new HashSet<>(Set.of(subject)));
+        course = courseRepository.save(course);
+        Classroom classroom = classroomRepository.save(new Classroom("Classroom GraphQL " + suffix, 50));
+
+        SchoolClass schoolClass = new SchoolClass();
+        schoolClass.setName("Class GraphQL " + index);
+        schoolClass.setMaxStudents(30);
+        schoolClass.setCourse(course);
+        schoolClass.setTeachers(new HashSet<>(Set.of(firstTeacher, secondTeacher)));
+        schoolClass = schoolClassRepository.save(schoolClass);
+
+        for (User student : students) {
+            registrationRepository.save(new Registration(student, course, schoolClass));
+        }
+
+        LocalDateTime start = LocalDateTime.now().plusDays(10 + index);
+        for (int i = 0; i < 3; i++) {
+            User teacher = i % 2 == 0 ? firstTeacher : secondTeacher;
+            Lesson lesson = lessonRepository.save(new Lesson("Lesson " + i, "Description", start.plusHours(3L * i),
+                    start.plusHours(3L * i + 2), schoolClass, teacher, classroom, subject));
+            for (User student : students) {
+                attendanceRepository.save(new Attendance(true, lesson.getStartDateTime(), lesson.getEndDateTime(),
+                        student, lesson));
+            }
+        }
+        for (int i = 0; i < 2; i++) {
+            Exam exam = examRepository.save(new Exam("Exam " + i, "Description", start.plusDays(30 + i), 120,
+                    classroom, subject, 30.0, 18.0, schoolClass, firstTeacher));
+            for (User student : students) {
+                examResultRepository.save(new ExamResult(24.0, null, exam.getDate(), exam, student));
+            }
+        }
+        return schoolClass;
+    }
+
+    private User createUser(String firstName, String emailPrefix, Role role) {
+        User user = new User();
+        user.setFirstName(firstName);
+        user.setLastName(emailPrefix);
+        user.setEmail(emailPrefix + "@example.com");
+        user.setUsername(emailPrefix);
+        user.setPassword("password");
+        user.setBirthDate(LocalDate.of(1990, 1, 1));
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+
+    private Role findOrCreateRole(ERole name) {
+        try {
+            return roleService.getRoleByName(name);
+        } catch (Exception e) {
+            return roleService.saveRole(new Role(name));
+        }
+    }
+}
@@ -12,6 +12,8 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +21,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.riccardo.giangiulio.gestionescuola.dto.mapper.AttendanceMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.AttendanceDTO;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.AttendanceNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.RoleNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidStudentException;
@@ -38,6 +42,10 @@ import com.riccardo.giangiulio.gestionescuola.model.User;
 import com.riccardo.giangiulio.gestionescuola.repository.AttendanceRepository;
 import com.riccardo.giangiulio.gestionescuola.repository.LessonRepository;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
 @SpringBootTest
 @ActiveProfiles("test")
 @Transactional
@@ -72,6 +80,12 @@ public class AttendanceServiceIntegrationTest {
     
     @Autowired
     private LessonRepository lessonRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
     
     private User teacherUser;
     private User studentUser;
@@ -232,6 +246,25 @@ public class AttendanceServiceIntegrationTest {
         assertNotNull(exception.getMessage());
     }
     
+    @Test
+    public void testFindAllByIds() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Gli id mancanti vengono ignorati dalla query, non causano eccezioni
+        List<AttendanceDTO> attendanceDTOs = attendanceService.findAllByIds(
+                List.of(testAttendance.getId(), Long.MAX_VALUE)).stream()
+            .map(AttendanceMapperDTO::toDTO)
+            .toList();
+
+        assertEquals(1, attendanceDTOs.size());
+        assertEquals(testAttendance.getId(), attendanceDTOs.get(0).getId());
+        // Presenze, studenti con ruolo e lezioni lette con un'unica query
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+    
     @Test
     public void testSave() {
         // Crea una nuova presenza
@@ -0,0 +1,129 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.riccardo.giangiulio.gestionescuola.model.BackupFormat;
+import com.riccardo.giangiulio.gestionescuola.model.Classroom;
+import com.riccardo.giangiulio.gestionescuola.model.ERole;
+import com.riccardo.giangiulio.gestionescuola.model.RevokedToken;
+import com.riccardo.giangiulio.gestionescuola.model.Role;
+import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.ClassroomRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.RevokedTokenRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.UserRepository;
+
+// Senza @Transactional: il ripristino usa una propria connessione e deve vedere i dati già salvati
+@SpringBootTest
+@ActiveProfiles("test")
+public class BackupServiceIntegrationTest {
+
+    @Autowired
+    private BackupService backupService;
+
+    @Autowired
+    private ClassroomService classroomService;
+
+    @Autowired
+    private ClassroomRepository classroomRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    private Classroom classroom;
+    private Classroom createdAfterBackup;
+    private User student;
+    private RevokedToken revokedAfterBackup;
+
+    @AfterEach
+    public void tearDown() {
+        if (classroom != null) {
+            classroomRepository.deleteById(classroom.getId());
+        }
+        if (createdAfterBackup != null) {
+            classroomRepository.findById(createdAfterBackup.getId()).ifPresent(classroomRepository::delete);
+        }
+        if (student != null) {
+            userRepository.deleteById(student.getId());
+        }
+        if (revokedAfterBackup != null) {
+            revokedTokenRepository.deleteById(revokedAfterBackup.getId());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(BackupFormat.class)
+    public void testBackupMutateRestore(BackupFormat format) throws Exception {
+        String timestamp = String.valueOf(System.nanoTime());
+        classroom = classroomService.save(new Classroom("Backup " + timestamp, 20));
+        student = userRepository.save(new User("Backup", "Restore", "backup_" + timestamp + "@example.com",
+                "backup_" + timestamp, "password", LocalDate.of(2000, 1, 1), studentRole()));
+        String cursor = changeLogService.getChanges(null, null, 1).getCursor();
+
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        Map<String, Long> backedUp = backupService.writeBackup(format, archive);
+        assertEquals(BackupService.TABLES, backedUp.keySet().stream().toList());
+        BackupService.EXCLUDED_TABLES.forEach(table -> assertFalse(backedUp.containsKey(table)));
+
+        classroomService.update(classroom.getId(), new Classroom("Changed " + timestamp, 40));
+        createdAfterBackup = classroomService.save(new Classroom("After backup " + timestamp, 10));
+        userService.revokeAllTokens(student.getId());
+        int revokedVersion = userRepository.findById(student.getId()).orElseThrow().getTokenVersion();
+        revokedAfterBackup = revokedTokenRepository.save(
+                new RevokedToken(UUID.randomUUID().toString(), student.getId(), Instant.now().plusSeconds(3600)));
+
+        Map<String, Long> restored = backupService.restore(new ByteArrayInputStream(archive.toByteArray()));
+        assertEquals(backedUp, restored);
+
+        Classroom restoredClassroom = classroomRepository.findById(classroom.getId()).orElseThrow();
+        assertEquals("Backup " + timestamp, restoredClassroom.getName());
+        assertEquals(20, restoredClassroom.getCapacity().intValue());
+        assertFalse(classroomRepository.existsById(createdAfterBackup.getId()));
+
+        // Le revoche e le versioni dei token successive al backup restano valide
+        assertTrue(revokedTokenRepository.existsById(revokedAfterBackup.getId()));
+        assertEquals(revokedVersion, userRepository.findById(student.getId()).orElseThrow().getTokenVersion());
+
+        // Il registro delle modifiche non viene ripristinato: i client devono risincronizzarsi
+        assertTrue(changeLogService.getChanges(cursor, null, 1).isResync());
+
+        // Le sequenze sono riallineate: un nuovo id non collide con quelli ripristinati
+        Classroom afterRestore = classroomService.save(new Classroom("After restore " + timestamp, 10));
+        classroomRepository.delete(afterRestore);
+    }
+
+    private Role studentRole() {
+        try {
+            return roleService.getRoleByName(ERole.ROLE_STUDENT);
+        } catch (Exception e) {
+            return roleService.saveRole(new Role(ERole.ROLE_STUDENT));
+        }
+    }
+}
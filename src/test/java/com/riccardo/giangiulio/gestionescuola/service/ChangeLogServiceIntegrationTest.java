@@ -0,0 +1,195 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.riccardo.giangiulio.gestionescuola.model.ChangeEntityType;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeLogEntry;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeOperation;
+import com.riccardo.giangiulio.gestionescuola.repository.ChangeLogRepository;
+
+// Senza @Transactional: il feed restituisce solo le voci delle transazioni già terminate
+@SpringBootTest(properties = {
+    "myapp.changes.compact-after-minutes=0",
+    "myapp.changes.retention-days=0"
+})
+@ActiveProfiles("test")
+public class ChangeLogServiceIntegrationTest {
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private ChangeLogRepository changeLogRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private String cursor;
+
+    @BeforeEach
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        changeLogRepository.deleteAllInBatch();
+        cursor = changeLogService.getChanges(null, null, 100).getCursor();
+    }
+
+    @Test
+    public void testNewClientIsAskedToResync() {
+        ChangeFeed feed = changeLogService.getChanges(null, null, 100);
+
+        assertTrue(feed.isResync());
+        assertTrue(feed.getChanges().isEmpty());
+        assertFalse(changeLogService.getChanges(feed.getCursor(), null, 100).isResync());
+    }
+
+    @Test
+    public void testInvalidCursorIsAskedToResync() {
+        assertTrue(changeLogService.getChanges("not-a-cursor", null, 100).isResync());
+        assertTrue(changeLogService.getChanges("999-1-1", null, 100).isResync());
+    }
+
+    @Test
+    public void testChangesAfterCursorFilteredByType() {
+        record(ChangeEntityType.LESSON, 1L, ChangeOperation.CREATED, 0L);
+        record(ChangeEntityType.EXAM, 2L, ChangeOperation.UPDATED, 3L);
+
+        ChangeFeed all = changeLogService.getChanges(cursor, null, 100);
+        assertFalse(all.isResync());
+        assertFalse(all.isHasMore());
+        assertEquals(List.of(1L, 2L), entityIds(all));
+
+        ChangeFeed exams = changeLogService.getChanges(cursor, Set.of(ChangeEntityType.EXAM), 100);
+        assertEquals(List.of(2L), entityIds(exams));
+        assertEquals(3L, exams.getChanges().get(0).getVersion());
+        // Il cursore avanza anche oltre le voci escluse dal filtro
+        assertEquals(all.getCursor(), exams.getCursor());
+
+        assertTrue(changeLogService.getChanges(all.getCursor(), null, 100).getChanges().isEmpty());
+    }
+
+    @Test
+    public void testLimitPagesChanges() {
+        for (long id = 1; id <= 3; id++) {
+            record(ChangeEntityType.REGISTRATION, id, ChangeOperation.CREATED, 0L);
+        }
+
+        ChangeFeed firstPage = changeLogService.getChanges(cursor, null, 2);
+        assertTrue(firstPage.isHasMore());
+        assertEquals(List.of(1L, 2L), entityIds(firstPage));
+
+        ChangeFeed secondPage = changeLogService.getChanges(firstPage.getCursor(), null, 2);
+        assertFalse(secondPage.isHasMore());
+        assertEquals(List.of(3L), entityIds(secondPage));
+    }
+
+    @Test
+    public void testCompactionKeepsLatestChangePerEntity() throws Exception {
+        record(ChangeEntityType.LESSON, 10L, ChangeOperation.CREATED, 0L);
+        record(ChangeEntityType.LESSON, 10L, ChangeOperation.UPDATED, 1L);
+        record(ChangeEntityType.LESSON, 10L, ChangeOperation.UPDATED, 2L);
+        Thread.sleep(5);
+
+        changeLogService.compact();
+
+        List<ChangeLogEntry> entries = changeLogRepository.findAll();
+        assertEquals(1, entries.size());
+        assertEquals(2L, entries.get(0).getVersion());
+        ChangeFeed feed = changeLogService.getChanges(cursor, null, 100);
+        assertFalse(feed.isResync());
+        assertEquals(List.of(10L), entityIds(feed));
+    }
+
+    @Test
+    public void testPurgedDeletionRequiresResync() throws Exception {
+        record(ChangeEntityType.EXAM, 20L, ChangeOperation.CREATED, 0L);
+        record(ChangeEntityType.EXAM, 20L, ChangeOperation.DELETED, 0L);
+        Thread.sleep(5);
+
+        changeLogService.compact();
+
+        assertTrue(changeLogRepository.findAll().isEmpty());
+        ChangeFeed feed = changeLogService.getChanges(cursor, null, 100);
+        assertTrue(feed.isResync());
+        assertFalse(changeLogService.getChanges(feed.getCursor(), null, 100).isResync());
+    }
+
+    @Test
+    public void testRestoreRequiresResync() {
+        record(ChangeEntityType.LESSON, 30L, ChangeOperation.CREATED, 0L);
+
+        changeLogService.onDataRestored(new DataRestoredEvent(Map.of()));
+
+        ChangeFeed feed = changeLogService.getChanges(cursor, null, 100);
+        assertTrue(feed.isResync());
+        record(ChangeEntityType.LESSON, 31L, ChangeOperation.CREATED, 0L);
+        assertEquals(List.of(31L), entityIds(changeLogService.getChanges(feed.getCursor(), null, 100)));
+    }
+
+    @Test
+    public void testSlowTransactionIsNotSkipped() throws Exception {
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // La transazione lenta scrive per prima, quindi con l'id minore, ma termina dopo l'altra
+            Future<?> slow = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                changeLogService.record(ChangeEntityType.LESSON, 40L, ChangeOperation.CREATED, 0L);
+                recorded.countDown();
+                await(commit);
+            }));
+            assertTrue(recorded.await(5, TimeUnit.SECONDS));
+            record(ChangeEntityType.LESSON, 41L, ChangeOperation.CREATED, 0L);
+
+            ChangeFeed beforeCommit = changeLogService.getChanges(cursor, null, 100);
+            assertTrue(beforeCommit.getChanges().isEmpty());
+
+            commit.countDown();
+            slow.get(5, TimeUnit.SECONDS);
+
+            ChangeFeed afterCommit = changeLogService.getChanges(beforeCommit.getCursor(), null, 100);
+            assertEquals(List.of(40L, 41L), entityIds(afterCommit));
+        } finally {
+            commit.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private void record(ChangeEntityType entityType, Long entityId, ChangeOperation operation, Long version) {
+        transactionTemplate.executeWithoutResult(
+            status -> changeLogService.record(entityType, entityId, operation, version));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<Long> entityIds(ChangeFeed feed) {
+        return feed.getChanges().stream().map(ChangeLogEntry::getEntityId).toList();
+    }
+}
@@ -12,6 +12,8 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +21,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.riccardo.giangiulio.gestionescuola.dto.mapper.ClassroomMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.ClassroomDTO;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.ClassroomNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.RoleNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.ClassroomCapacityExceededException;
@@ -36,6 +40,10 @@ import com.riccardo.giangiulio.gestionescuola.model.User;
 import com.riccardo.giangiulio.gestionescuola.repository.ClassroomRepository;
 import com.riccardo.giangiulio.gestionescuola.repository.LessonRepository;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
 @SpringBootTest
 @ActiveProfiles("test")
 @Transactional
@@ -67,6 +75,12 @@ public class ClassroomServiceIntegrationTest {
     
     @Autowired
     private LessonRepository lessonRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
     
     private Classroom classroom1;
     private Classroom classroom2;
@@ -262,6 +276,26 @@ public class ClassroomServiceIntegrationTest {
         assertNotNull(exception.getMessage());
     }
     
+    @Test
+    public void testFindAllByIds() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Gli id mancanti vengono ignorati dalla query, non causano eccezioni
+        List<ClassroomDTO> classroomDTOs = classroomService.findAllByIds(
+                List.of(classroom1.getId(), classroom2.getId(), Long.MAX_VALUE)).stream()
+            .map(ClassroomMapperDTO::toDTO)
+            .toList();
+
+        assertEquals(2, classroomDTOs.size());
+        assertTrue(classroomDTOs.stream().anyMatch(dto -> dto.getId().equals(classroom1.getId())));
+        assertTrue(classroomDTOs.stream().anyMatch(dto -> dto.getId().equals(classroom2.getId())));
+        // Le aule vengono lette con un'unica query
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+    
     @Test
     public void testSave() {
         Classroom newClassroom = new Classroom("Classroom Magna", 100);
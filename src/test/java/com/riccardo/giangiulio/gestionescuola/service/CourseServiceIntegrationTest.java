@@ -12,6 +12,8 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +21,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.riccardo.giangiulio.gestionescuola.dto.mapper.CourseMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.CourseDTO;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.CourseNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.ExamNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.SubjectNotFoundException;
@@ -33,6 +37,10 @@ import com.riccardo.giangiulio.gestionescuola.model.User;
 import com.riccardo.giangiulio.gestionescuola.repository.CourseRepository;
 import com.riccardo.giangiulio.gestionescuola.repository.ExamRepository;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
 @SpringBootTest
 @ActiveProfiles("test")
 @Transactional
@@ -61,6 +69,12 @@ public class CourseServiceIntegrationTest {
     
     @Autowired
     private ClassroomService classroomService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
     
     
     private Course testCourse;
@@ -179,6 +193,24 @@ public class CourseServiceIntegrationTest {
         assertNotNull(exception.getMessage());
     }
     
+    @Test
+    public void testFindAllByIds() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Gli id mancanti vengono ignorati dalla query, non causano eccezioni
+        List<CourseDTO> courseDTOs = courseService.findAllByIds(List.of(testCourse.getId(), Long.MAX_VALUE)).stream()
+            .map(CourseMapperDTO::toDTO)
+            .toList();
+
+        assertEquals(1, courseDTOs.size());
+        assertEquals(testCourse.getId(), courseDTOs.get(0).getId());
+        // Corsi, materie ed esami letti con un'unica query
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+    
     @Test
     public void testSave() {
         String timestamp = String.valueOf(System.currentTimeMillis());
@@ -221,6 +253,22 @@ public class CourseServiceIntegrationTest {
         assertEquals("Course Updated", retrieved.getTitle());
     }
     
+    @Test
+    public void testFindVersionByIdIncrementsOnUpdate() {
+        long initialVersion = courseService.findVersionById(testCourse.getId());
+        
+        testCourse.setTitle("Course Versioned");
+        courseService.update(testCourse.getId(), testCourse);
+        courseRepository.flush();
+        
+        assertEquals(initialVersion + 1, courseService.findVersionById(testCourse.getId()));
+    }
+    
+    @Test
+    public void testFindVersionByIdNotFound() {
+        assertThrows(CourseNotFoundException.class, () -> courseService.findVersionById(999999L));
+    }
+    
     @Test
     public void testUpdateNotFound() {
         Long nonExistentId = 999999L;
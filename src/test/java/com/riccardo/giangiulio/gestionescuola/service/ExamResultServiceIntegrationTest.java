@@ -11,6 +11,8 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +20,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.riccardo.giangiulio.gestionescuola.dto.mapper.ExamResultMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.ExamResultDTO;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.ExamResultNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidExamDataException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidStudentException;
@@ -33,6 +37,10 @@ import com.riccardo.giangiulio.gestionescuola.model.User;
 import com.riccardo.giangiulio.gestionescuola.repository.ExamRepository;
 import com.riccardo.giangiulio.gestionescuola.repository.ExamResultRepository;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
 @SpringBootTest
 @ActiveProfiles("test")
 @Transactional
@@ -64,6 +72,12 @@ public class ExamResultServiceIntegrationTest {
     
     @Autowired
     private SchoolClassService schoolClassService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
     
     private Exam testExam;
     private User studentUser;
@@ -212,6 +226,25 @@ public class ExamResultServiceIntegrationTest {
         assertNotNull(exception.getMessage());
     }
     
+    @Test
+    public void testFindAllByIds() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Gli id mancanti vengono ignorati dalla query, non causano eccezioni
+        List<ExamResultDTO> examResultDTOs = examResultService.findAllByIds(
+                List.of(testResult.getId(), Long.MAX_VALUE)).stream()
+            .map(ExamResultMapperDTO::toDTO)
+            .toList();
+
+        assertEquals(1, examResultDTOs.size());
+        assertEquals(testResult.getId(), examResultDTOs.get(0).getId());
+        // Risultati, esami e studenti con ruolo letti con un'unica query
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+    
     @Test
     public void testSave() {
         ExamResult newResult = new ExamResult();
@@ -2,6 +2,7 @@ package com.riccardo.giangiulio.gestionescuola.service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -11,6 +12,8 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,12 +21,17 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.riccardo.giangiulio.gestionescuola.dto.mapper.ExamMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.ExamDTO;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.ExamNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.ClassroomCapacityExceededException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.ClassroomNotAvailableException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidExamDataException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidTeacherException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidTimeRangeException;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeEntityType;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeLogEntry;
+import com.riccardo.giangiulio.gestionescuola.model.ChangeOperation;
 import com.riccardo.giangiulio.gestionescuola.model.Classroom;
 import com.riccardo.giangiulio.gestionescuola.model.Course;
 import com.riccardo.giangiulio.gestionescuola.model.ERole;
@@ -35,9 +43,14 @@ import com.riccardo.giangiulio.gestionescuola.model.Role;
 import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.Subject;
 import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.ChangeLogRepository;
 import com.riccardo.giangiulio.gestionescuola.repository.ExamRepository;
 import com.riccardo.giangiulio.gestionescuola.repository.LessonRepository;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
 @SpringBootTest
 @ActiveProfiles("test")
 @Transactional
@@ -73,6 +86,15 @@ public class ExamServiceIntegrationTest {
     @Autowired
     private LessonRepository lessonRepository;
     
+    @Autowired
+    private ChangeLogRepository changeLogRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     private User teacherUser;
     private User nonTeacherUser;
     private Subject subject;
@@ -214,6 +236,24 @@ public class ExamServiceIntegrationTest {
         assertNotNull(exception.getMessage());
     }
     
+    @Test
+    public void testFindAllByIds() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Gli id mancanti vengono ignorati dalla query, non causano eccezioni
+        List<ExamDTO> examDTOs = examService.findAllByIds(List.of(testExam.getId(), Long.MAX_VALUE)).stream()
+            .map(ExamMapperDTO::toDTO)
+            .toList();
+
+        assertEquals(1, examDTOs.size());
+        assertEquals(testExam.getId(), examDTOs.get(0).getId());
+        // Esami e associazioni mostrate nel DTO letti con un'unica query
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+    
     @Test
     public void testSave() {
         Exam newExam = new Exam();
@@ -409,6 +449,37 @@ public class ExamServiceIntegrationTest {
         assertNotNull(exception.getMessage());
     }
     
+    @Test
+    public void testMutationsAreRecordedInChangeLog() {
+        Exam newExam = new Exam();
+        newExam.setTitle("Change Log Exam " + System.currentTimeMillis());
+        newExam.setDescription("Description change log exam");
+        newExam.setDate(LocalDateTime.now().plusDays(14));
+        newExam.setDuration(90);
+        newExam.setMaxScore(30.0);
+        newExam.setPassingScore(18.0);
+        newExam.setClassroom(classroom);
+        newExam.setSubject(subject);
+        newExam.setSchoolClass(schoolClass);
+        newExam.setTeacher(teacherUser);
+        Exam saved = examService.save(newExam);
+        
+        Exam updateData = new Exam();
+        updateData.setDuration(120);
+        examService.update(saved.getId(), updateData);
+        examService.deleteById(saved.getId());
+        
+        List<ChangeLogEntry> entries = changeLogRepository.findAll().stream()
+            .filter(e -> e.getEntityType() == ChangeEntityType.EXAM && e.getEntityId().equals(saved.getId()))
+            .sorted(Comparator.comparing(ChangeLogEntry::getId))
+            .toList();
+        assertEquals(List.of(ChangeOperation.CREATED, ChangeOperation.UPDATED, ChangeOperation.DELETED),
+            entries.stream().map(ChangeLogEntry::getOperation).toList());
+        // La versione registrata per l'aggiornamento è quella già incrementata
+        assertEquals(entries.get(0).getVersion() + 1, entries.get(1).getVersion());
+        assertEquals(entries.get(1).getVersion(), entries.get(2).getVersion());
+    }
+    
     @Test
     public void testFindByTitle() {
         Exam exam = examService.findByTitle(testExam.getTitle());
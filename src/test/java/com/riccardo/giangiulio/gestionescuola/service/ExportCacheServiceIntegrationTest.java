@@ -0,0 +1,198 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.riccardo.giangiulio.gestionescuola.service.DataVersionService.DataSet;
+
+// Senza @Transactional: DataVersionService incrementa le versioni solo dopo il commit
+@SpringBootTest
+@ActiveProfiles("test")
+public class ExportCacheServiceIntegrationTest {
+
+    private static final Set<DataSet> DATA = Set.of(DataSet.CLASSROOMS);
+
+    @Autowired
+    private ExportCacheService exportCacheService;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Value("${myapp.export.cache.dir:${java.io.tmpdir}/gestione-scuola-export-cache}")
+    private String cacheDirectory;
+
+    @Test
+    public void testConcurrentRequestsGenerateOnce() throws Exception {
+        String exportName = "single_flight_" + System.nanoTime();
+        AtomicInteger generations = new AtomicInteger();
+        CountDownLatch generationStarted = new CountDownLatch(1);
+        CountDownLatch releaseGeneration = new CountDownLatch(1);
+        ExportCacheService.ExportWriter writer = out -> {
+            generations.incrementAndGet();
+            generationStarted.countDown();
+            try {
+                releaseGeneration.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            out.write("content".getBytes(StandardCharsets.UTF_8));
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> read(exportName, writer));
+            assertTrue(generationStarted.await(5, TimeUnit.SECONDS));
+            Future<String> second = executor.submit(() -> read(exportName, writer));
+            // Il secondo thread deve trovare la generazione in corso e attenderla
+            Thread.sleep(200);
+            releaseGeneration.countDown();
+
+            assertEquals("content", first.get(5, TimeUnit.SECONDS));
+            assertEquals("content", second.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, generations.get());
+    }
+
+    @Test
+    public void testReplacedVersionRemainsReadable() throws Exception {
+        String exportName = "replaced_" + System.nanoTime();
+
+        try (FileChannel previous = exportCacheService.getOrGenerate(exportName, "txt", DATA,
+                out -> out.write("previous".getBytes(StandardCharsets.UTF_8)))) {
+            dataVersionService.bump(DataSet.CLASSROOMS);
+            try (FileChannel current = exportCacheService.getOrGenerate(exportName, "txt", DATA,
+                    out -> out.write("current".getBytes(StandardCharsets.UTF_8)))) {
+                assertEquals("current", content(current));
+            }
+
+            // Il file della versione precedente è stato rimosso ma la richiesta che lo stava inviando lo legge ancora
+            assertEquals(1, cachedFiles(exportName));
+            assertEquals("previous", content(previous));
+        }
+    }
+
+    @Test
+    public void testGeneratingRequestReceivesContentWhileWritten() throws Exception {
+        String exportName = "tee_" + System.nanoTime();
+        CountDownLatch firstRowSent = new CountDownLatch(1);
+        CountDownLatch releaseGeneration = new CountDownLatch(1);
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        OutputStream client = new OutputStream() {
+            @Override
+            public void write(int b) {
+                received.write(b);
+            }
+
+            @Override
+            public void flush() {
+                firstRowSent.countDown();
+            }
+        };
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> generation = executor.submit(() -> {
+                exportCacheService.send(exportName, "txt", DATA, false, out -> {
+                    out.write("first,".getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    try {
+                        releaseGeneration.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    out.write("second".getBytes(StandardCharsets.UTF_8));
+                }, contentLength -> client);
+                return null;
+            });
+
+            // La prima riga arriva al client prima che il file sia completo e salvato in cache
+            assertTrue(firstRowSent.await(5, TimeUnit.SECONDS));
+            assertEquals("first,", received.toString(StandardCharsets.UTF_8));
+            assertEquals(0, cachedFiles(exportName));
+
+            releaseGeneration.countDown();
+            generation.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("first,second", received.toString(StandardCharsets.UTF_8));
+        assertEquals("first,second", new String(send(exportName, false), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testGzipVariantIsCached() throws Exception {
+        String exportName = "gzip_" + System.nanoTime();
+        assertEquals("content", new String(send(exportName, false), StandardCharsets.UTF_8));
+
+        byte[] compressed = send(exportName, true);
+        assertEquals("content", gunzip(compressed));
+        assertEquals(2, cachedFiles(exportName));
+
+        // La seconda richiesta compressa riceve il file salvato, senza comprimere di nuovo
+        assertArrayEquals(compressed, send(exportName, true));
+        assertEquals(2, cachedFiles(exportName));
+    }
+
+    // Il writer viene usato solo se l'export non è ancora in cache
+    private byte[] send(String exportName, boolean gzip) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        exportCacheService.send(exportName, "txt", DATA, gzip,
+                out -> out.write("content".getBytes(StandardCharsets.UTF_8)), contentLength -> outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static String gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private String read(String exportName, ExportCacheService.ExportWriter writer) throws IOException {
+        try (FileChannel channel = exportCacheService.getOrGenerate(exportName, "txt", DATA, writer)) {
+            return content(channel);
+        }
+    }
+
+    private static String content(FileChannel channel) throws IOException {
+        return new String(Channels.newInputStream(channel).readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private long cachedFiles(String exportName) throws IOException {
+        Path directory = Paths.get(cacheDirectory).toAbsolutePath();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(exportName + "-") && !name.endsWith(".part");
+            }).count();
+        }
+    }
+}
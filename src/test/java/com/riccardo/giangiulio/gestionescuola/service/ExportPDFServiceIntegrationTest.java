@@ -0,0 +1,225 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.RoleNotFoundException;
+import com.riccardo.giangiulio.gestionescuola.model.Attendance;
+import com.riccardo.giangiulio.gestionescuola.model.Classroom;
+import com.riccardo.giangiulio.gestionescuola.model.Course;
+import com.riccardo.giangiulio.gestionescuola.model.ERole;
+import com.riccardo.giangiulio.gestionescuola.model.Exam;
+import com.riccardo.giangiulio.gestionescuola.model.ExamResult;
+import com.riccardo.giangiulio.gestionescuola.model.Lesson;
+import com.riccardo.giangiulio.gestionescuola.model.Registration;
+import com.riccardo.giangiulio.gestionescuola.model.Role;
+import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
+import com.riccardo.giangiulio.gestionescuola.model.Subject;
+import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.AttendanceRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.ClassroomRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.CourseRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.ExamRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.ExamResultRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.LessonRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.RegistrationRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.SchoolClassRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.SubjectRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.UserRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class ExportPDFServiceIntegrationTest {
+
+    @Autowired
+    private ExportPDFService exportPDFService;
+
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SubjectRepository subjectRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ClassroomRepository classroomRepository;
+
+    @Autowired
+    private SchoolClassRepository schoolClassRepository;
+
+    @Autowired
+    private RegistrationRepository registrationRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private ExamRepository examRepository;
+
+    @Autowired
+    private ExamResultRepository examResultRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Role studentRole;
+    private Role teacherRole;
+    private String timestamp;
+    private int sequence;
+
+    @BeforeEach
+    public void setUp() {
+        studentRole = role(ERole.ROLE_STUDENT);
+        teacherRole = role(ERole.ROLE_TEACHER);
+        timestamp = String.valueOf(System.currentTimeMillis());
+    }
+
+    @Test
+    public void testProfilesZipQueryCountDoesNotDependOnStudents() throws IOException {
+        SchoolClass smallClass = classWithStudents(1);
+        SchoolClass largeClass = classWithStudents(3);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        assertEquals(1, zipEntries(smallClass));
+        long smallClassStatements = statistics.getPrepareStatementCount();
+
+        entityManager.clear();
+        statistics.clear();
+        assertEquals(3, zipEntries(largeClass));
+        long largeClassStatements = statistics.getPrepareStatementCount();
+
+        // Ogni studente ha lezioni ed esami con classe, docente, aula e materia diversi: nessuna query aggiuntiva
+        assertEquals(smallClassStatements, largeClassStatements);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testProfilesZipIsWrittenOutsideTransactions() throws IOException {
+        AtomicBoolean written = new AtomicBoolean();
+        AtomicBoolean writtenInTransaction = new AtomicBoolean();
+        OutputStream outputStream = new OutputStream() {
+            @Override
+            public void write(int b) {
+                written.set(true);
+                if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                    writtenInTransaction.set(true);
+                }
+            }
+        };
+
+        // Le transazioni dei blocchi terminano prima che lo ZIP venga inviato al client
+        exportPDFService.writeSchoolProfilesZip(outputStream);
+        assertTrue(written.get());
+        assertFalse(writtenInTransaction.get());
+    }
+
+    private int zipEntries(SchoolClass schoolClass) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        exportPDFService.writeClassProfilesZip(schoolClass.getId(), outputStream);
+        int entries = 0;
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            while (zip.getNextEntry() != null) {
+                entries++;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Classe con gli studenti indicati. Ogni studente ha un'iscrizione, una presenza e un risultato su una lezione
+     * e un esame propri, con classe, docente, aula e materia diversi dagli altri studenti.
+     */
+    private SchoolClass classWithStudents(int students) {
+        Course course = courseRepository.save(new Course("Profiles Course " + next(), "Description profiles course",
+                "12", BigDecimal.valueOf(1000.0)));
+        SchoolClass schoolClass = schoolClassRepository.save(
+                new SchoolClass("Profiles Class " + next(), course, 30, new HashSet<>(), new HashSet<>()));
+
+        for (int i = 0; i < students; i++) {
+            User student = userRepository.save(user("Student", studentRole, LocalDate.of(2000, 1, 1)));
+            registrationRepository.save(new Registration(student, course, schoolClass));
+
+            User teacher = userRepository.save(user("Teacher", teacherRole, LocalDate.of(1980, 1, 1)));
+            Subject subject = subjectRepository.save(
+                    new Subject("Profiles Subject " + next(), "Description profiles subject", teacher));
+            Classroom classroom = classroomRepository.save(new Classroom("Profiles Classroom " + next(), 30));
+            SchoolClass otherClass = schoolClassRepository.save(new SchoolClass("Profiles Other Class " + next(),
+                    courseRepository.save(new Course("Profiles Other Course " + next(), "Description other course",
+                            "12", BigDecimal.valueOf(1000.0))), 30, new HashSet<>(), new HashSet<>()));
+
+            LocalDateTime start = LocalDateTime.now().plusDays(i + 1);
+            Lesson lesson = lessonRepository.save(new Lesson("Profiles Lesson " + next(), "Description profiles lesson",
+                    start, start.plusHours(2), otherClass, teacher, classroom, subject));
+            Attendance attendance = new Attendance();
+            attendance.setPresent(true);
+            attendance.setEntryTime(start);
+            attendance.setExitTime(start.plusHours(2));
+            attendance.setStudent(student);
+            attendance.setLesson(lesson);
+            attendanceRepository.save(attendance);
+
+            Exam exam = examRepository.save(new Exam("Profiles Exam " + next(), "Description profiles exam", start, 90,
+                    classroom, subject, 30.0, 18.0, otherClass, teacher));
+            examResultRepository.save(new ExamResult(24.0, "Notes", start, exam, student));
+        }
+        return schoolClass;
+    }
+
+    private User user(String lastName, Role role, LocalDate birthDate) {
+        String username = "profiles_" + lastName.toLowerCase() + "_" + next();
+        return new User("Profiles", lastName, username + "@example.com", username, "password", birthDate, role);
+    }
+
+    private String next() {
+        return timestamp + "_" + sequence++;
+    }
+
+    private Role role(ERole name) {
+        try {
+            return roleService.getRoleByName(name);
+        } catch (RoleNotFoundException e) {
+            return roleService.saveRole(new Role(name));
+        }
+    }
+}
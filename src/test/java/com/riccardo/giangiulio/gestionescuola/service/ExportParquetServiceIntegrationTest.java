@@ -0,0 +1,244 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.LocalInputFile;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type.Repetition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.RoleNotFoundException;
+import com.riccardo.giangiulio.gestionescuola.model.Attendance;
+import com.riccardo.giangiulio.gestionescuola.model.Classroom;
+import com.riccardo.giangiulio.gestionescuola.model.Course;
+import com.riccardo.giangiulio.gestionescuola.model.ERole;
+import com.riccardo.giangiulio.gestionescuola.model.Lesson;
+import com.riccardo.giangiulio.gestionescuola.model.Role;
+import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
+import com.riccardo.giangiulio.gestionescuola.model.Subject;
+import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.AttendanceRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.LessonRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class ExportParquetServiceIntegrationTest {
+
+    @Autowired
+    private ExportParquetService exportParquetService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private SubjectService subjectService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private ClassroomService classroomService;
+
+    @Autowired
+    private SchoolClassService schoolClassService;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @TempDir
+    private Path tempDir;
+
+    private User studentUser;
+    private SchoolClass testClass;
+    private Lesson firstLesson;
+    private Attendance presentAttendance;
+    private Attendance absentAttendance;
+
+    @BeforeEach
+    public void setUp() {
+        String timestamp = String.valueOf(System.currentTimeMillis());
+
+        User teacherUser = userService.save(new User("Parquet", "Teacher", "parquet_teacher_" + timestamp + "@example.com",
+                "parquet_teacher_" + timestamp, "password", LocalDate.of(1980, 1, 1), role(ERole.ROLE_TEACHER)));
+        studentUser = userService.save(new User("Parquet", "Student", "parquet_student_" + timestamp + "@example.com",
+                "parquet_student_" + timestamp, "password", LocalDate.of(2000, 1, 1), role(ERole.ROLE_STUDENT)));
+
+        Subject subject = new Subject();
+        subject.setName("Parquet Subject " + timestamp);
+        subject.setDescription("Description parquet subject");
+        subject.setTeacher(teacherUser);
+        subject = subjectService.save(subject);
+
+        Course course = new Course();
+        course.setTitle("Parquet Course " + timestamp);
+        course.setDescription("Description parquet course");
+        course.setDuration("12");
+        course.setPrice(BigDecimal.valueOf(1000.0));
+        course.setSubjects(Set.of(subject));
+        course = courseService.save(course);
+
+        Classroom classroom = classroomService.save(new Classroom("Parquet Classroom " + timestamp, 30));
+
+        testClass = new SchoolClass();
+        testClass.setName("Parquet Class " + timestamp);
+        testClass.setMaxStudents(30);
+        testClass.setCourse(course);
+        testClass.setTeachers(Set.of(teacherUser));
+        testClass = schoolClassService.save(testClass);
+
+        // Il timestamp Parquet è in millisecondi: l'orario di inizio viene troncato per il confronto
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        firstLesson = saveLesson("Parquet Lesson 1", start, subject, teacherUser, classroom);
+        Lesson secondLesson = saveLesson("Parquet Lesson 2", start.plusDays(1), subject, teacherUser, classroom);
+
+        presentAttendance = saveAttendance(firstLesson, true, start.plusMinutes(5), start.plusHours(2));
+        absentAttendance = saveAttendance(secondLesson, false, start.plusDays(1), start.plusDays(1));
+    }
+
+    @Test
+    public void testAttendancesRoundTrip() throws IOException {
+        Path file = write(exportParquet(true));
+        ParquetMetadata footer = footer(file);
+
+        MessageType schema = footer.getFileMetaData().getSchema();
+        assertEquals("attendance", schema.getName());
+        assertEquals(17, schema.getFieldCount());
+        assertEquals(PrimitiveTypeName.INT64, schema.getType("attendance_id").asPrimitiveType().getPrimitiveTypeName());
+        assertTrue(schema.getType("attendance_id").isRepetition(Repetition.REQUIRED));
+        assertEquals(LogicalTypeAnnotation.timestampType(false, LogicalTypeAnnotation.TimeUnit.MILLIS),
+                schema.getType("lesson_start").getLogicalTypeAnnotation());
+        assertEquals(LogicalTypeAnnotation.stringType(), schema.getType("student_last_name").getLogicalTypeAnnotation());
+
+        assertEquals(2, footer.getBlocks().stream().mapToLong(BlockMetaData::getRowCount).sum());
+        assertEquals(CompressionCodecName.SNAPPY, footer.getBlocks().get(0).getColumns().get(0).getCodec());
+
+        List<Group> rows = read(file);
+        assertEquals(2, rows.size());
+
+        // Ordinate per inizio della lezione
+        Group present = rows.get(0);
+        assertEquals(presentAttendance.getId().longValue(), present.getLong("attendance_id", 0));
+        assertTrue(present.getBoolean("present", 0));
+        assertEquals(studentUser.getId().longValue(), present.getLong("student_id", 0));
+        assertEquals("Student", present.getString("student_last_name", 0));
+        assertEquals(firstLesson.getId().longValue(), present.getLong("lesson_id", 0));
+        assertEquals(firstLesson.getStartDateTime().toInstant(ZoneOffset.UTC).toEpochMilli(),
+                present.getLong("lesson_start", 0));
+        assertEquals(testClass.getId().longValue(), present.getLong("school_class_id", 0));
+
+        Group absent = rows.get(1);
+        assertEquals(absentAttendance.getId().longValue(), absent.getLong("attendance_id", 0));
+        assertFalse(absent.getBoolean("present", 0));
+    }
+
+    @Test
+    public void testEmptyExamResultsHaveSchemaAndNoRows() throws IOException {
+        Path file = write(exportParquet(false));
+
+        MessageType schema = footer(file).getFileMetaData().getSchema();
+        assertEquals("exam_result", schema.getName());
+        assertEquals(18, schema.getFieldCount());
+        assertEquals(PrimitiveTypeName.DOUBLE, schema.getType("score").asPrimitiveType().getPrimitiveTypeName());
+        assertTrue(read(file).isEmpty());
+    }
+
+    private byte[] exportParquet(boolean attendances) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        if (attendances) {
+            exportParquetService.writeAttendancesParquet(null, null, testClass.getId(), outputStream);
+        } else {
+            exportParquetService.writeExamResultsParquet(null, null, testClass.getId(), outputStream);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private Path write(byte[] content) throws IOException {
+        return Files.write(Files.createTempFile(tempDir, "export", ".parquet"), content);
+    }
+
+    private static ParquetMetadata footer(Path file) throws IOException {
+        try (ParquetFileReader reader = ParquetFileReader.open(new LocalInputFile(file))) {
+            return reader.getFooter();
+        }
+    }
+
+    private static List<Group> read(Path file) throws IOException {
+        List<Group> rows = new ArrayList<>();
+        try (ParquetReader<Group> reader = ParquetReader.builder(new GroupReadSupport(),
+                new org.apache.hadoop.fs.Path(file.toUri())).build()) {
+            Group row;
+            while ((row = reader.read()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private Role role(ERole name) {
+        try {
+            return roleService.getRoleByName(name);
+        } catch (RoleNotFoundException e) {
+            return roleService.saveRole(new Role(name));
+        }
+    }
+
+    private Lesson saveLesson(String title, LocalDateTime start, Subject subject, User teacher, Classroom classroom) {
+        Lesson lesson = new Lesson();
+        lesson.setTitle(title);
+        lesson.setDescription("Description " + title);
+        lesson.setStartDateTime(start);
+        lesson.setEndDateTime(start.plusHours(2));
+        lesson.setSchoolClass(testClass);
+        lesson.setSubject(subject);
+        lesson.setTeacher(teacher);
+        lesson.setClassroom(classroom);
+        return lessonRepository.save(lesson);
+    }
+
+    private Attendance saveAttendance(Lesson lesson, boolean present, LocalDateTime entryTime, LocalDateTime exitTime) {
+        Attendance attendance = new Attendance();
+        attendance.setPresent(present);
+        attendance.setEntryTime(entryTime);
+        attendance.setExitTime(exitTime);
+        attendance.setStudent(studentUser);
+        attendance.setLesson(lesson);
+        return attendanceRepository.save(attendance);
+    }
+}
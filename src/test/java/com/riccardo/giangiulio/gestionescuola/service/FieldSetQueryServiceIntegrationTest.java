@@ -0,0 +1,280 @@
+package com.riccardo.giangiulio.gestionescuola.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSet;
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSetSpec;
+import com.riccardo.giangiulio.gestionescuola.dto.fieldset.FieldSetSpecs;
+import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidFieldSetException;
+import com.riccardo.giangiulio.gestionescuola.model.Attendance;
+import com.riccardo.giangiulio.gestionescuola.model.Classroom;
+import com.riccardo.giangiulio.gestionescuola.model.Course;
+import com.riccardo.giangiulio.gestionescuola.model.ERole;
+import com.riccardo.giangiulio.gestionescuola.model.ExamResult;
+import com.riccardo.giangiulio.gestionescuola.model.Lesson;
+import com.riccardo.giangiulio.gestionescuola.model.Registration;
+import com.riccardo.giangiulio.gestionescuola.model.Role;
+import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
+import com.riccardo.giangiulio.gestionescuola.model.Subject;
+import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.LessonRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.specification.LessonSpecifications;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class FieldSetQueryServiceIntegrationTest {
+
+    @Autowired
+    private FieldSetQueryService fieldSetQueryService;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private ClassroomService classroomService;
+
+    @Autowired
+    private SchoolClassService schoolClassService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private SubjectService subjectService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private User teacherUser;
+    private SchoolClass schoolClass;
+    private Lesson testLesson;
+
+    @BeforeEach
+    public void setUp() {
+        String timestamp = String.valueOf(System.currentTimeMillis());
+
+        Role teacherRole;
+        try {
+            teacherRole = roleService.getRoleByName(ERole.ROLE_TEACHER);
+        } catch (Exception e) {
+            teacherRole = roleService.saveRole(new Role(ERole.ROLE_TEACHER));
+        }
+
+        teacherUser = new User();
+        teacherUser.setFirstName("Teacher");
+        teacherUser.setLastName("Fields");
+        teacherUser.setEmail("fields_teacher_" + timestamp + "@example.com");
+        teacherUser.setPassword("password");
+        teacherUser.setBirthDate(LocalDate.of(1980, 1, 1));
+        teacherUser.setRole(teacherRole);
+        teacherUser = userService.save(teacherUser);
+
+        Subject subject = new Subject();
+        subject.setName("Subject Fields " + timestamp);
+        subject.setDescription("Description subject fields");
+        subject.setTeacher(teacherUser);
+        subject = subjectService.save(subject);
+
+        Course course = new Course();
+        course.setTitle("Course Fields " + timestamp);
+        course.setDescription("Description course fields");
+        course.setDuration("12 months");
+        course.setPrice(BigDecimal.valueOf(1000.0));
+        Set<Subject> subjects = new HashSet<>();
+        subjects.add(subject);
+        course.setSubjects(subjects);
+        course = courseService.save(course);
+
+        Set<User> teachers = new HashSet<>();
+        teachers.add(teacherUser);
+        schoolClass = new SchoolClass();
+        schoolClass.setName("Class Fields " + timestamp);
+        schoolClass.setMaxStudents(30);
+        schoolClass.setCourse(course);
+        schoolClass.setTeachers(teachers);
+        schoolClass = schoolClassService.save(schoolClass);
+
+        Classroom classroom = classroomService.save(new Classroom("Classroom Fields " + timestamp, 50));
+
+        LocalDateTime startDateTime = LocalDateTime.now().plusDays(7);
+        testLesson = lessonRepository.save(new Lesson(
+            "Lesson Fields " + timestamp,
+            "Description lesson fields",
+            startDateTime,
+            startDateTime.plusHours(2),
+            schoolClass,
+            teacherUser,
+            classroom,
+            subject
+        ));
+    }
+
+    @Test
+    public void testScalarFieldsDoNotJoin() {
+        assertEquals(0, countLessonJoins("id,title"));
+        assertEquals(0, countLessonJoins("title,startDateTime,endDateTime"));
+    }
+
+    @Test
+    public void testOnlyRequestedAssociationsAreJoined() {
+        assertEquals(1, countLessonJoins("id,teacher.lastName"));
+        assertEquals(2, countLessonJoins("teacher.role.name"));
+        assertEquals(2, countLessonJoins("teacher.lastName,classroom.name"));
+        // Più campi della stessa associazione riusano lo stesso join
+        assertEquals(1, countLessonJoins("teacher.firstName,teacher.lastName,teacher.email"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testResultHasNestedShapeOfRequestedFields() {
+        FieldSet fieldSet = FieldSet.parse("id,title,teacher.lastName", FieldSetSpecs.LESSON);
+        List<Map<String, Object>> results = fieldSetQueryService.findAll(
+                Lesson.class, fieldSet, LessonSpecifications.hasId(testLesson.getId()), Sort.by("id"));
+
+        assertEquals(1, results.size());
+        Map<String, Object> lesson = results.get(0);
+        assertEquals(Set.of("id", "title", "teacher"), lesson.keySet());
+        assertEquals(testLesson.getId(), lesson.get("id"));
+        assertEquals(testLesson.getTitle(), lesson.get("title"));
+
+        Map<String, Object> teacher = (Map<String, Object>) lesson.get("teacher");
+        assertEquals(Set.of("id", "lastName"), teacher.keySet());
+        assertEquals(teacherUser.getId(), teacher.get("id"));
+        assertEquals("Fields", teacher.get("lastName"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAssociationWithoutSubfieldsReturnsFullNestedShape() {
+        FieldSet fieldSet = FieldSet.parse("classroom", FieldSetSpecs.LESSON);
+        Map<String, Object> lesson = fieldSetQueryService.findOne(
+                Lesson.class, fieldSet, LessonSpecifications.hasId(testLesson.getId())).orElseThrow();
+
+        Map<String, Object> classroom = (Map<String, Object>) lesson.get("classroom");
+        assertEquals(Set.of("id", "name", "capacity"), classroom.keySet());
+        assertEquals(50, classroom.get("capacity"));
+    }
+
+    @Test
+    public void testSingleStatementPerRequest() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        FieldSet fieldSet = FieldSet.parse("id,title,teacher.role.name,classroom.name,subject.name,schoolClass.name",
+                FieldSetSpecs.LESSON);
+        List<Map<String, Object>> results = fieldSetQueryService.findAll(
+                Lesson.class, fieldSet, LessonSpecifications.hasSchoolClass(schoolClass), Sort.by("id"));
+
+        assertFalse(results.isEmpty());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void testUnknownFieldThrowsException() {
+        assertThrows(InvalidFieldSetException.class, () -> FieldSet.parse("id,password", FieldSetSpecs.LESSON));
+        assertThrows(InvalidFieldSetException.class, () -> FieldSet.parse("teacher.password", FieldSetSpecs.LESSON));
+        assertThrows(InvalidFieldSetException.class, () -> FieldSet.parse(" , ", FieldSetSpecs.LESSON));
+    }
+
+    @Test
+    public void testCollectionAssociationsAreNotSelectable() {
+        assertThrows(InvalidFieldSetException.class, () -> FieldSet.parse("teachers", FieldSetSpecs.SCHOOL_CLASS));
+        assertThrows(InvalidFieldSetException.class, () -> FieldSet.parse("registrations.id", FieldSetSpecs.SCHOOL_CLASS));
+    }
+
+    @Test
+    public void testJoinsOfOtherResources() {
+        assertEquals(0, countJoins(Subject.class, FieldSetSpecs.SUBJECT, "id,name"));
+        assertEquals(2, countJoins(Subject.class, FieldSetSpecs.SUBJECT, "name,teacher.role.name"));
+        assertEquals(0, countJoins(Course.class, FieldSetSpecs.COURSE, "id,title,price"));
+        assertEquals(1, countJoins(User.class, FieldSetSpecs.USER, "lastName,role.name"));
+        assertEquals(2, countJoins(Registration.class, FieldSetSpecs.REGISTRATION, "status,student.lastName,course.title"));
+        assertEquals(1, countJoins(Attendance.class, FieldSetSpecs.ATTENDANCE, "present,lesson.startDateTime"));
+        assertEquals(2, countJoins(ExamResult.class, FieldSetSpecs.EXAM_RESULT, "score,exam.title,student.lastName"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFindByIdOfOtherResources() {
+        Subject subject = testLesson.getSubject();
+        Map<String, Object> result = fieldSetQueryService.findById(
+                Subject.class, FieldSet.parse("name,teacher.lastName", FieldSetSpecs.SUBJECT), subject.getId()).orElseThrow();
+
+        assertEquals(Set.of("id", "name", "teacher"), result.keySet());
+        assertEquals(subject.getName(), result.get("name"));
+        assertEquals("Fields", ((Map<String, Object>) result.get("teacher")).get("lastName"));
+
+        Map<String, Object> user = fieldSetQueryService.findById(
+                User.class, FieldSet.parse("email,role.name", FieldSetSpecs.USER), teacherUser.getId()).orElseThrow();
+        assertEquals(teacherUser.getEmail(), user.get("email"));
+        assertEquals(ERole.ROLE_TEACHER, ((Map<String, Object>) user.get("role")).get("name"));
+
+        assertFalse(fieldSetQueryService.findById(
+                Course.class, FieldSet.parse("title", FieldSetSpecs.COURSE), -1L).isPresent());
+    }
+
+    @Test
+    public void testCollectionsOfCoursesAndSubjectsAreNotSelectable() {
+        assertThrows(InvalidFieldSetException.class, () -> FieldSet.parse("subjects", FieldSetSpecs.COURSE));
+        assertThrows(InvalidFieldSetException.class, () -> FieldSet.parse("exams.title", FieldSetSpecs.COURSE));
+        assertThrows(InvalidFieldSetException.class, () -> FieldSet.parse("courses", FieldSetSpecs.SUBJECT));
+    }
+
+    private int countLessonJoins(String fields) {
+        return countJoins(Lesson.class, FieldSetSpecs.LESSON, fields);
+    }
+
+    private <T> int countJoins(Class<T> entityClass, FieldSetSpec spec, String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, spec);
+        From<?, ?> root = fieldSetQueryService.buildQuery(entityClass, fieldSet, null, Sort.unsorted())
+                .getRoots().iterator().next();
+        return countJoins(root);
+    }
+
+    private int countJoins(From<?, ?> from) {
+        int count = 0;
+        for (Join<?, ?> join : from.getJoins()) {
+            count += 1 + countJoins(join);
+        }
+        return count;
+    }
+}
@@ -5,19 +5,34 @@ import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.riccardo.giangiulio.gestionescuola.dto.mapper.LessonMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.LessonDTO;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.LessonNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.ClassroomCapacityExceededException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.ClassroomNotAvailableException;
@@ -34,8 +49,15 @@ import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.Subject;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 import com.riccardo.giangiulio.gestionescuola.repository.LessonRepository;
+import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.jwt.JwtUtils;
+import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services.UserDetailsImpl;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
 
 @SpringBootTest
+@AutoConfigureMockMvc
 @ActiveProfiles("test")
 @Transactional
 public class LessonServiceIntegrationTest {
@@ -67,6 +89,18 @@ public class LessonServiceIntegrationTest {
     @Autowired
     private RegistrationService registrationService;
     
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private JwtUtils jwtUtils;
+    
     private User teacherUser;
     private User nonTeacherUser;
     private User studentUser;
@@ -75,6 +109,7 @@ public class LessonServiceIntegrationTest {
     private Classroom classroom;
     private Lesson testLesson;
     private Course course;
+    private String studentToken;
     
     @BeforeEach
     public void setUp() {
@@ -228,6 +263,82 @@ public class LessonServiceIntegrationTest {
         });
         assertNotNull(exception.getMessage());
     }
+
+    @Test
+    public void testFindAllByIds() {
+        Lesson anotherLesson = lessonRepository.save(new Lesson(
+            "Another Lesson By Ids",
+            "Description another lesson by ids",
+            LocalDateTime.now().plusDays(9),
+            LocalDateTime.now().plusDays(9).plusHours(2),
+            schoolClass,
+            teacherUser,
+            classroom,
+            subject
+        ));
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Gli id mancanti vengono ignorati dalla query, non causano eccezioni
+        List<Lesson> lessons = lessonService.findAllByIds(List.of(testLesson.getId(), anotherLesson.getId(), 9999L));
+        List<LessonDTO> lessonDTOs = lessons.stream().map(LessonMapperDTO::toDTO).toList();
+
+        assertEquals(2, lessonDTOs.size());
+        assertTrue(lessonDTOs.stream().allMatch(l -> l.getTeacher().getRole() != null));
+        // Lezioni e associazioni mostrate nel DTO lette con un'unica query
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+    
+    @Test
+    public void testGetLessonsByIdsKeepsRequestedOrder() throws Exception {
+        Lesson anotherLesson = lessonRepository.save(new Lesson(
+            "Another Lesson By Ids Request",
+            "Description another lesson by ids request",
+            LocalDateTime.now().plusDays(9),
+            LocalDateTime.now().plusDays(9).plusHours(2),
+            schoolClass,
+            teacherUser,
+            classroom,
+            subject
+        ));
+        
+        // Risposta nell'ordine richiesto, con i duplicati letti una volta sola e gli id mancanti elencati a parte
+        mockMvc.perform(multiGet(anotherLesson.getId() + "," + Long.MAX_VALUE + "," + testLesson.getId() + ","
+                        + anotherLesson.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].id").value(anotherLesson.getId()))
+                .andExpect(jsonPath("$.items[1].id").value(testLesson.getId()))
+                .andExpect(jsonPath("$.missingIds.length()").value(1))
+                .andExpect(jsonPath("$.missingIds[0]").value(Long.MAX_VALUE));
+    }
+    
+    @Test
+    public void testGetLessonsByIdsLimitsDistinctIds() throws Exception {
+        // Il limite si applica agli id distinti: i duplicati non contano
+        String duplicatedIds = LongStream.range(0, 150)
+                .mapToObj(i -> String.valueOf(testLesson.getId()))
+                .collect(Collectors.joining(","));
+        mockMvc.perform(multiGet(duplicatedIds))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1));
+        
+        String maxIds = LongStream.rangeClosed(1, 100).mapToObj(String::valueOf).collect(Collectors.joining(","));
+        mockMvc.perform(multiGet(maxIds))
+                .andExpect(status().isOk());
+        
+        String tooManyIds = LongStream.rangeClosed(1, 101).mapToObj(String::valueOf).collect(Collectors.joining(","));
+        mockMvc.perform(multiGet(tooManyIds))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    public void testGetLessonsByIdsRejectsEmptyList() throws Exception {
+        mockMvc.perform(multiGet(""))
+                .andExpect(status().isBadRequest());
+    }
     
     @Test
     public void testSave() {
@@ -602,4 +713,16 @@ public class LessonServiceIntegrationTest {
         assertFalse(todayLessons.isEmpty());
         assertTrue(todayLessons.stream().anyMatch(l -> l.getId().equals(todayLesson.getId())));
     }
+    
+    private MockHttpServletRequestBuilder multiGet(String ids) {
+        if (studentToken == null) {
+            String username = "multi_get_" + System.currentTimeMillis();
+            User student = userService.save(new User("Multi", "Get", username + "@example.com", username, "password",
+                    LocalDate.of(2000, 1, 1), studentUser.getRole()));
+            UserDetailsImpl userDetails = UserDetailsImpl.build(student);
+            studentToken = jwtUtils.generateJwtToken(
+                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+        }
+        return get("/api/lessons").param("ids", ids).header(HttpHeaders.AUTHORIZATION, "Bearer " + studentToken);
+    }
 }
@@ -5,12 +5,15 @@ import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +21,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.riccardo.giangiulio.gestionescuola.dto.mapper.RegistrationMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.RegistrationDTO;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.RegistrationNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.DuplicateRegistrationException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidStudentException;
@@ -30,6 +35,11 @@ import com.riccardo.giangiulio.gestionescuola.model.Role;
 import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.Subject;
 import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.projection.RegistrationExportRow;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -53,6 +63,12 @@ public class RegistrationServiceIntegrationTest {
     
     @Autowired
     private SubjectService subjectService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
     
     private User studentUser;
     private User teacherUser;
@@ -166,6 +182,21 @@ public class RegistrationServiceIntegrationTest {
         assertTrue(registrations.stream().anyMatch(r -> r.getId().equals(testRegistration.getId())));
     }
     
+    @Test
+    public void testStreamExportRows() {
+        try (Stream<RegistrationExportRow> rows = registrationService.streamExportRows()) {
+            RegistrationExportRow row = rows
+                .filter(r -> r.getId().equals(testRegistration.getId()))
+                .findFirst()
+                .orElseThrow();
+            
+            assertEquals(studentUser.getEmail(), row.getStudentEmail());
+            assertEquals(course.getTitle(), row.getCourseTitle());
+            assertEquals(schoolClass.getName(), row.getSchoolClassName());
+            assertEquals(RegistrationStatus.ACTIVE, row.getStatus());
+        }
+    }
+    
     @Test
     public void testFindById() {
         Registration found = registrationService.findById(testRegistration.getId());
@@ -272,6 +303,25 @@ public class RegistrationServiceIntegrationTest {
         assertTrue(registrations.stream().anyMatch(r -> r.getId().equals(testRegistration.getId())));
     }
     
+    @Test
+    public void testFindAllByIds() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Gli id mancanti vengono ignorati dalla query, non causano eccezioni
+        List<RegistrationDTO> registrationDTOs = registrationService.findAllByIds(
+                List.of(testRegistration.getId(), Long.MAX_VALUE)).stream()
+            .map(RegistrationMapperDTO::toDTO)
+            .toList();
+
+        assertEquals(1, registrationDTOs.size());
+        assertEquals(testRegistration.getId(), registrationDTOs.get(0).getId());
+        // Iscrizioni, studenti con ruolo, corsi e classi letti con un'unica query
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+    
     @Test
     public void testSave() {
         // Crea un altro studente
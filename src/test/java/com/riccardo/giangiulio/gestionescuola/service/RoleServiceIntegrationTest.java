@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.List;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,12 +13,18 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.riccardo.giangiulio.gestionescuola.dto.mapper.RoleMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.RoleDTO;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.RoleNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.DuplicateRoleException;
 import com.riccardo.giangiulio.gestionescuola.model.ERole;
 import com.riccardo.giangiulio.gestionescuola.model.Role;
 import com.riccardo.giangiulio.gestionescuola.repository.RoleRepository;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
 @SpringBootTest
 @ActiveProfiles("test")
 @Transactional
@@ -27,6 +35,12 @@ public class RoleServiceIntegrationTest {
 
     @Autowired
     private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
     
     private Role studentRole;
     private Role teacherRole;
@@ -182,4 +196,24 @@ public class RoleServiceIntegrationTest {
         assertTrue(hasTeacher);
         assertTrue(hasAdmin);
     }
+
+    @Test
+    public void testGetRolesByIds() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Gli id mancanti vengono ignorati dalla query, non causano eccezioni
+        List<RoleDTO> roleDTOs = roleService.getRolesByIds(
+                List.of(studentRole.getId(), teacherRole.getId(), Long.MAX_VALUE)).stream()
+            .map(RoleMapperDTO::toDTO)
+            .toList();
+
+        assertEquals(2, roleDTOs.size());
+        assertTrue(roleDTOs.stream().anyMatch(dto -> dto.getId().equals(studentRole.getId())));
+        assertTrue(roleDTOs.stream().anyMatch(dto -> dto.getId().equals(teacherRole.getId())));
+        // I ruoli vengono letti con un'unica query
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
 }
@@ -11,6 +11,8 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +20,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.riccardo.giangiulio.gestionescuola.dto.mapper.SchoolClassMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.SchoolClassDTO;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.SchoolClassNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.ActiveRegistrationsException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidTeacherException;
@@ -32,6 +36,10 @@ import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.Subject;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
 @SpringBootTest
 @ActiveProfiles("test")
 @Transactional
@@ -54,6 +62,12 @@ public class SchoolClassServiceIntegrationTest {
     
     @Autowired
     private SubjectService subjectService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
     
     private User teacherUser;
     private User secondTeacherUser;
@@ -183,6 +197,25 @@ public class SchoolClassServiceIntegrationTest {
         assertNotNull(exception.getMessage());
     }
     
+    @Test
+    public void testFindAllByIds() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Gli id mancanti vengono ignorati dalla query, non causano eccezioni
+        List<SchoolClassDTO> schoolClassDTOs = schoolClassService.findAllByIds(
+                List.of(testClass.getId(), Long.MAX_VALUE)).stream()
+            .map(SchoolClassMapperDTO::toDTO)
+            .toList();
+
+        assertEquals(1, schoolClassDTOs.size());
+        assertEquals(testClass.getId(), schoolClassDTOs.get(0).getId());
+        // Classi, corso, docenti con ruolo e iscrizioni letti con un'unica query
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+    
     @Test
     public void testSave() {
         String timestamp = String.valueOf(System.currentTimeMillis());
@@ -10,6 +10,8 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +19,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.riccardo.giangiulio.gestionescuola.dto.mapper.SubjectMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.SubjectDTO;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.SubjectNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.InvalidTeacherException;
 import com.riccardo.giangiulio.gestionescuola.model.Course;
@@ -25,6 +29,10 @@ import com.riccardo.giangiulio.gestionescuola.model.Role;
 import com.riccardo.giangiulio.gestionescuola.model.Subject;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
 @SpringBootTest
 @ActiveProfiles("test")
 @Transactional
@@ -41,6 +49,12 @@ public class SubjectServiceIntegrationTest {
     
     @Autowired
     private CourseService courseService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
     
     private User teacherUser;
     private User nonTeacherUser;
@@ -144,6 +158,25 @@ public class SubjectServiceIntegrationTest {
         assertNotNull(exception.getMessage());
     }
     
+    @Test
+    public void testFindAllByIds() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Gli id mancanti vengono ignorati dalla query, non causano eccezioni
+        List<SubjectDTO> subjectDTOs = subjectService.findAllByIds(
+                List.of(testSubject.getId(), Long.MAX_VALUE)).stream()
+            .map(SubjectMapperDTO::toDTO)
+            .toList();
+
+        assertEquals(1, subjectDTOs.size());
+        assertEquals(testSubject.getId(), subjectDTOs.get(0).getId());
+        // Materie, docente con ruolo e corsi letti con un'unica query
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+    
     @Test
     public void testSave() {
         String timestamp = String.valueOf(System.currentTimeMillis());
@@ -12,6 +12,8 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +21,8 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.riccardo.giangiulio.gestionescuola.dto.mapper.UserMapperDTO;
+import com.riccardo.giangiulio.gestionescuola.dto.model.UserDTO;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.RoleNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.NotFoundException.UserNotFoundException;
 import com.riccardo.giangiulio.gestionescuola.exception.ValidationException.EmailAlreadyExistException;
@@ -31,6 +35,10 @@ import com.riccardo.giangiulio.gestionescuola.model.SchoolClass;
 import com.riccardo.giangiulio.gestionescuola.model.Subject;
 import com.riccardo.giangiulio.gestionescuola.model.User;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
 @SpringBootTest
 @ActiveProfiles("test")
 @Transactional
@@ -54,6 +62,12 @@ public class UserServiceIntegrationTest {
     @Autowired
     private SubjectService subjectService;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private User studentUser;
     private User teacherUser;
     private User adminUser;
@@ -206,6 +220,26 @@ public class UserServiceIntegrationTest {
         assertFalse(nonExists);
     }
 
+    @Test
+    public void testFindAllByIds() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Gli id mancanti vengono ignorati dalla query, non causano eccezioni
+        List<UserDTO> userDTOs = userService.findAllByIds(
+                List.of(studentUser.getId(), teacherUser.getId(), Long.MAX_VALUE)).stream()
+            .map(UserMapperDTO::toDTO)
+            .toList();
+
+        assertEquals(2, userDTOs.size());
+        assertTrue(userDTOs.stream().anyMatch(dto -> dto.getId().equals(studentUser.getId())));
+        assertTrue(userDTOs.stream().anyMatch(dto -> dto.getId().equals(teacherUser.getId())));
+        // Utenti e ruoli letti con un'unica query
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+    
     @Test
     public void testSave() {
         String uniqueEmail = "new_user_" + System.currentTimeMillis() + "@example.com";
@@ -366,6 +400,7 @@ public class UserServiceIntegrationTest {
         user.setBirthDate(LocalDate.of(1992, 2, 2));
         user.setRole(studentRole);
         User userS = userService.save(user);
+        int initialTokenVersion = userS.getTokenVersion();
         
         // Assegna un nuovo ruolo
         User updatedUser = userService.assignRole(userS.getId(), ERole.ROLE_TEACHER);
@@ -376,6 +411,19 @@ public class UserServiceIntegrationTest {
         // Verifica che il cambio sia stato salvato
         User freshUser = userService.findById(userS.getId());
         assertEquals(ERole.ROLE_TEACHER, freshUser.getRole().getName());
+        
+        // Il cambio di ruolo invalida i token già emessi
+        assertEquals(initialTokenVersion + 1, freshUser.getTokenVersion());
+    }
+
+    @Test
+    public void testChangePasswordIncrementsTokenVersion() {
+        int initialTokenVersion = studentUser.getTokenVersion();
+        
+        userService.changePassword(studentUser.getId(), "password", "newPassword");
+        
+        User freshUser = userService.findById(studentUser.getId());
+        assertEquals(initialTokenVersion + 1, freshUser.getTokenVersion());
     }
 
     @Test
@@ -0,0 +1,144 @@
+package com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.jwt;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.riccardo.giangiulio.gestionescuola.model.ERole;
+import com.riccardo.giangiulio.gestionescuola.model.Role;
+import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.RevokedTokenRepository;
+import com.riccardo.giangiulio.gestionescuola.repository.UserRepository;
+import com.riccardo.giangiulio.gestionescuola.service.RoleService;
+import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services.TokenRevocationService;
+import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services.UserDetailsImpl;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+// Senza @Transactional: le versioni dei token vengono aggiornate solo dopo il commit della modifica
+@ActiveProfiles("test")
+public class TokenRevocationIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleService roleService;
+
+    private User student;
+
+    @BeforeEach
+    public void setUp() {
+        Role studentRole;
+        try {
+            studentRole = roleService.getRoleByName(ERole.ROLE_STUDENT);
+        } catch (Exception e) {
+            studentRole = roleService.saveRole(new Role(ERole.ROLE_STUDENT));
+        }
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        student = userRepository.save(new User("Token", "Revocation", "token_revocation_" + timestamp + "@example.com",
+                "token_revocation_" + timestamp, "password", LocalDate.of(2000, 1, 1), studentRole));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        userRepository.deleteById(student.getId());
+    }
+
+    @Test
+    public void testSignOutRevokesOnlyThatToken() throws Exception {
+        String revoked = tokenFor(student);
+        String other = tokenFor(student);
+
+        mockMvc.perform(post("/api/auth/signout").header(HttpHeaders.AUTHORIZATION, "Bearer " + revoked))
+                .andExpect(status().isOk());
+
+        String tokenId = jwtUtils.parseJwtToken(revoked).getId();
+        assertTrue(revokedTokenRepository.existsByTokenId(tokenId));
+        getCourses(revoked, 401);
+        getCourses(other, 200);
+    }
+
+    @Test
+    public void testSignOutSurvivesRestart() throws Exception {
+        String revoked = tokenFor(student);
+        mockMvc.perform(post("/api/auth/signout").header(HttpHeaders.AUTHORIZATION, "Bearer " + revoked))
+                .andExpect(status().isOk());
+
+        // All'avvio le revoche in memoria vengono ricostruite dal database
+        tokenRevocationService.loadRevokedTokens();
+        tokenVersionRegistry.clear();
+
+        assertTrue(tokenRevocationService.isRevoked(jwtUtils.parseJwtToken(revoked).getId()));
+        getCourses(revoked, 401);
+    }
+
+    @Test
+    public void testRevokeAllRejectsEveryIssuedToken() throws Exception {
+        String first = tokenFor(student);
+        String second = tokenFor(student);
+
+        mockMvc.perform(post("/api/auth/revoke-all/" + student.getId())
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + first))
+                .andExpect(status().isOk());
+
+        getCourses(first, 401);
+        getCourses(second, 401);
+        // Un token emesso dopo la revoca porta la nuova versione
+        getCourses(tokenFor(userRepository.findById(student.getId()).orElseThrow()), 200);
+    }
+
+    @Test
+    public void testRevokeAllSurvivesRestart() throws Exception {
+        String token = tokenFor(student);
+        mockMvc.perform(post("/api/auth/revoke-all/" + student.getId())
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+
+        // Un riavvio parte con il registro delle versioni vuoto
+        tokenVersionRegistry.clear();
+        tokenRevocationService.loadRevokedTokens();
+
+        getCourses(token, 401);
+    }
+
+    private String tokenFor(User user) {
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+        return jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+    }
+
+    private void getCourses(String token, int expectedStatus) throws Exception {
+        mockMvc.perform(get("/api/courses").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().is(expectedStatus));
+    }
+}
@@ -0,0 +1,167 @@
+package com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.jwt;
+
+import java.time.LocalDate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.riccardo.giangiulio.gestionescuola.model.ERole;
+import com.riccardo.giangiulio.gestionescuola.model.Role;
+import com.riccardo.giangiulio.gestionescuola.model.User;
+import com.riccardo.giangiulio.gestionescuola.repository.UserRepository;
+import com.riccardo.giangiulio.gestionescuola.service.RoleService;
+import com.riccardo.giangiulio.gestionescuola.service.UserSecurityChangedEvent;
+import com.riccardo.giangiulio.gestionescuola.service.UserService;
+import com.riccardo.giangiulio.gestionescuola.spring_jwt.util.security.services.UserDetailsImpl;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+// Senza @Transactional: le versioni dei token vengono aggiornate solo dopo il commit della modifica
+@ActiveProfiles("test")
+public class TokenVersionIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleService roleService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User student;
+
+    @BeforeEach
+    public void setUp() {
+        Role studentRole;
+        try {
+            studentRole = roleService.getRoleByName(ERole.ROLE_STUDENT);
+        } catch (Exception e) {
+            studentRole = roleService.saveRole(new Role(ERole.ROLE_STUDENT));
+        }
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        student = userRepository.save(new User("Token", "Version", "token_version_" + timestamp + "@example.com",
+                "token_version_" + timestamp, "password", LocalDate.of(2000, 1, 1), studentRole));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        userRepository.deleteById(student.getId());
+    }
+
+    @Test
+    public void testCurrentTokenIsAcceptedAfterRestart() throws Exception {
+        String token = tokenFor(student);
+        tokenVersionRegistry.clear();
+
+        getCourses(token, 200);
+        // Dopo la prima verifica sul database la versione è nota e i token successivi usano solo i claim
+        assertTrue(tokenVersionRegistry.isCurrent(student.getId(), student.getTokenVersion()));
+    }
+
+    @Test
+    public void testStaleTokenIsRejectedAfterRestart() throws Exception {
+        String token = tokenFor(student);
+        getCourses(token, 200);
+
+        userService.revokeAllTokens(student.getId());
+        getCourses(token, 401);
+
+        // Un riavvio svuota il registro: il token precedente deve restare rifiutato
+        tokenVersionRegistry.clear();
+        assertFalse(tokenVersionRegistry.isCurrent(student.getId(), student.getTokenVersion() - 1));
+        getCourses(token, 401);
+    }
+
+    @Test
+    public void testVersionChangedBeforeStartIsRejected() throws Exception {
+        String token = tokenFor(student);
+
+        // Modifica avvenuta mentre l'applicazione era ferma: nessun evento ha aggiornato il registro
+        student.incrementTokenVersion();
+        userRepository.saveAndFlush(student);
+        tokenVersionRegistry.clear();
+
+        getCourses(token, 401);
+    }
+
+    @Test
+    public void testStaleVersionDoesNotReplaceNewerOne() {
+        int version = student.getTokenVersion();
+        tokenVersionRegistry.onUserSecurityChanged(
+                new UserSecurityChangedEvent(student.getId(), student.getUsername(), version + 1, false));
+
+        // Una richiesta che aveva letto la versione precedente la scrive dopo la modifica
+        tokenVersionRegistry.update(student.getId(), version);
+
+        assertFalse(tokenVersionRegistry.isCurrent(student.getId(), version));
+        assertTrue(tokenVersionRegistry.isCurrent(student.getId(), version + 1));
+    }
+
+    @Test
+    public void testRequestDuringRevocationDoesNotRestoreOldVersion() throws Exception {
+        String token = tokenFor(student);
+        tokenVersionRegistry.clear();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                userService.revokeAllTokens(student.getId());
+                // Richiesta concorrente prima del commit: il database restituisce ancora la versione precedente
+                try {
+                    executor.submit(() -> {
+                        getCourses(token, 200);
+                        return null;
+                    }).get(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+
+        getCourses(token, 401);
+    }
+
+    private String tokenFor(User user) {
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+        return jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+    }
+
+    private void getCourses(String token, int expectedStatus) throws Exception {
+        mockMvc.perform(get("/api/courses").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().is(expectedStatus));
+    }
+}